@@ -22,6 +22,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.List;
 
 
 /**
@@ -64,6 +65,20 @@ public interface LogsApi {
             HttpServletRequest request
     );
 
+    /**
+     * 日志 查询游标分页
+     * @param cursor 游标 (为空则为第一页)
+     * @param pageSize 每页条数
+     * @param request request
+     * @return ResultVo
+     */
+    @GetMapping("/findCursorPage")
+    ResultVo<?> findCursorPage(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = "10") Integer pageSize,
+            HttpServletRequest request
+    );
+
     /**
      * 清空一个月前的日志
      * @return ResultVo
@@ -79,4 +94,11 @@ public interface LogsApi {
      */
     ResultVo<?> insert(LogsModel model);
 
+    /**
+     * 日志 批量新增
+     * @param models 模型集合
+     * @return ResultVo
+     */
+    ResultVo<?> insertBatch(List<LogsModel> models);
+
 }
@@ -17,6 +17,8 @@ package org.opsli.common.annotation;
 
 
 import org.opsli.common.enums.AlertType;
+import org.opsli.common.enums.LimiterAlgorithm;
+import org.opsli.common.enums.LimiterDimension;
 import org.opsli.common.utils.RateLimiterUtil;
 
 import java.lang.annotation.*;
@@ -35,6 +37,15 @@ public @interface Limiter {
     /** QPS */
     double qps() default RateLimiterUtil.DEFAULT_QPS;
 
+    /** 突发容量 (桶容量) 小于 1 时按 QPS 计算 */
+    int burst() default 0;
+
+    /** 限流算法 */
+    LimiterAlgorithm algorithm() default LimiterAlgorithm.TOKEN_BUCKET;
+
+    /** 限流维度 */
+    LimiterDimension[] dimension() default {LimiterDimension.IP, LimiterDimension.URI};
+
     /** 提醒方式 */
     AlertType alertType() default AlertType.JSON;
 
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.common.enums;
+
+
+/**
+ * 限流维度
+ *
+ * @author Parker
+ * @date 2021-06-07 17:30
+ */
+public enum LimiterDimension {
+
+    /** 客户端IP */
+    IP,
+
+    /** 当前用户 (未登录按 IP) */
+    USER,
+
+    /** 当前租户 (未登录按 IP) */
+    TENANT,
+
+    /** 请求URI */
+    URI,
+
+    ;
+}
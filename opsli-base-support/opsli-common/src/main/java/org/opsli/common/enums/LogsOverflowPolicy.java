@@ -0,0 +1,44 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.common.enums;
+
+
+/**
+ * 日志队列溢出策略
+ *
+ * @author Parker
+ * @date 2021-06-06 10:15
+ */
+public enum LogsOverflowPolicy {
+
+    /**
+     * 丢弃最旧的日志
+     */
+    DROP_OLDEST,
+
+    /**
+     * 溢出到本地文件 (空闲时回放入库)
+     */
+    SPILL,
+
+    /**
+     * 阻塞等待
+     */
+    BLOCK,
+
+    ;
+
+}
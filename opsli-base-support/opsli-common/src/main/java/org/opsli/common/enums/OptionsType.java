@@ -31,6 +31,10 @@ public enum OptionsType {
     CRYPTO_ASYMMETRIC_PUBLIC_KEY("crypto_asymmetric_public_key", "加解密-非对称-公钥"),
     /** 非对称加密 私钥 */
     CRYPTO_ASYMMETRIC_PRIVATE_KEY("crypto_asymmetric_private_key", "加解密-非对称-私钥"),
+    /** 非对称加密 模式 目前支持 DIRECT ENVELOPE ENVELOPE_SESSION 3种模式 */
+    CRYPTO_ASYMMETRIC_MODE("crypto_asymmetric_mode", "加解密-非对称-模式"),
+    /** 非对称加密 数字信封 数据加密算法 目前支持 AES SM4 */
+    CRYPTO_ASYMMETRIC_ENVELOPE("crypto_asymmetric_envelope", "加解密-非对称-数字信封算法"),
 
     /** 存储服务类型 */
     STORAGE_TYPE("storage_type", "存储服务类型"),
@@ -0,0 +1,215 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.common.thread;
+
+import cn.hutool.core.collection.CollUtil;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 虚拟线程执行器
+ * 用于 IO 密集型的批量任务 (日志入库、刷新、邮件发送等)，任务阻塞时不占用平台线程
+ *
+ * JDK 21+ 每个任务一个虚拟线程，同一 Key 下以信号量限制最大并发 (保护下游 数据库 / Redis 连接)
+ * 低版本 JDK 退化为 work-stealing 线程池，由并行数限制并发
+ *
+ * @author Parker
+ * @date 2021-06-08 14:20
+ */
+@Slf4j
+public class AsyncProcessExecutorByVirtual implements AsyncProcessExecutor {
+
+    /** 默认最大并发数 */
+    private static final int DEFAULT_MAX_CONCURRENT = 256;
+    /** 退化线程池 并行数 */
+    private static final int FALLBACK_PARALLELISM = Runtime.getRuntime().availableProcessors() * 4;
+    /** 默认线程池关闭等待时间 秒 */
+    private static final int DEFAULT_WAIT_TIME = 10;
+
+    /** 执行器字典 */
+    private static final Map<String, Backend> EXECUTOR_MAP = Maps.newConcurrentMap();
+
+    /** 是否等待执行完毕 */
+    private final boolean wait;
+
+    /** 任务队列 */
+    private final List<Runnable> taskList;
+
+    /** 执行器 */
+    private final Backend backend;
+
+    /**
+     * 构造函数
+     * @param wait 是否等待执行完毕
+     */
+    public AsyncProcessExecutorByVirtual(boolean wait){
+        this("def", wait);
+    }
+
+    /**
+     * 构造函数
+     * @param key 执行器唯一Key
+     * @param wait 是否等待执行完毕
+     */
+    public AsyncProcessExecutorByVirtual(String key, boolean wait){
+        this.wait = wait;
+        this.taskList = new ArrayList<>();
+        this.backend = EXECUTOR_MAP.computeIfAbsent(key, Backend::new);
+    }
+
+    /**
+     * 放入执行任务
+     * @param task 任务
+     */
+    @Override
+    public AsyncProcessExecutor put(final Runnable task){
+        taskList.add(task);
+        return this;
+    }
+
+    /**
+     * 执行
+     * 等待模式下 全部任务执行完毕后返回，任一任务失败则返回 false
+     *
+     * @return boolean
+     */
+    @Override
+    public boolean execute(){
+        if(CollUtil.isEmpty(this.taskList)){
+            return true;
+        }
+
+        try {
+            if(!wait){
+                boolean ret = true;
+                for (Runnable task : this.taskList) {
+                    ret &= backend.execute(task, null, null);
+                }
+                return ret;
+            }
+
+            // 失败计数
+            AtomicInteger failCount = new AtomicInteger();
+            // 门闩 线程锁
+            CountDownLatch latch = new CountDownLatch(this.taskList.size());
+            for (Runnable task : this.taskList) {
+                if(!backend.execute(task, latch, failCount)){
+                    failCount.incrementAndGet();
+                    latch.countDown();
+                }
+            }
+
+            // 线程锁 等待执行结果 结果完成后继续执行
+            try {
+                latch.await();
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                log.error(e.getMessage(), e);
+                return false;
+            }
+            return failCount.get() == 0;
+        }finally {
+            this.taskList.clear();
+        }
+    }
+
+    // ====================================
+
+    /**
+     * 执行器
+     */
+    private static final class Backend {
+
+        /** 执行器 */
+        private final ExecutorService executor;
+        /** 最大并发 (虚拟线程时使用) */
+        private final Semaphore semaphore;
+
+        private Backend(String key){
+            this.executor = ThreadPoolFactory.createVirtualThreadExecutor(FALLBACK_PARALLELISM);
+            // 以实际创建的执行器为准 (创建虚拟线程执行器失败时 会退化为 work-stealing 线程池)
+            boolean virtual = !(executor instanceof ForkJoinPool);
+            this.semaphore = virtual ? new Semaphore(DEFAULT_MAX_CONCURRENT) : null;
+            log.info("VirtualExecutor[{}] 初始化 - {}", key, virtual ? "虚拟线程" : "work-stealing 线程池");
+
+            // 关闭事件的挂钩
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                executor.shutdown();
+                try {
+                    if (!executor.awaitTermination(DEFAULT_WAIT_TIME, TimeUnit.SECONDS)) {
+                        log.error("VirtualExecutor[{}] 由于等待超时，执行器立即关闭", key);
+                        executor.shutdownNow();
+                    }
+                } catch (InterruptedException e) {
+                    executor.shutdownNow();
+                }
+            }));
+        }
+
+        /**
+         * 执行任务
+         * @param task 任务
+         * @param latch 门闩 (不等待时为空)
+         * @param failCount 失败计数 (不等待时为空)
+         * @return boolean 提交是否成功
+         */
+        private boolean execute(Runnable task, CountDownLatch latch, AtomicInteger failCount){
+            try {
+                executor.execute(() -> {
+                    boolean acquired = false;
+                    try {
+                        if(semaphore != null){
+                            semaphore.acquire();
+                            acquired = true;
+                        }
+                        task.run();
+                    }catch (Throwable e){
+                        if(failCount != null){
+                            failCount.incrementAndGet();
+                        }
+                        if(e instanceof InterruptedException){
+                            Thread.currentThread().interrupt();
+                        }
+                        log.error("线程名称：{} - 执行异常信息：{}", Thread.currentThread().getName(), e.getMessage(), e);
+                    }finally {
+                        if(acquired){
+                            semaphore.release();
+                        }
+                        if(latch != null){
+                            latch.countDown();
+                        }
+                    }
+                });
+            }catch (RejectedExecutionException e){
+                log.error("VirtualExecutor 执行任务被拒绝", e);
+                return false;
+            }
+            return true;
+        }
+    }
+
+}
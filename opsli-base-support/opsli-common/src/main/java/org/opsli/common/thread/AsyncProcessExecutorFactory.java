@@ -42,6 +42,40 @@ public final class AsyncProcessExecutorFactory {
 		return new AsyncProcessExecutorByNormal(key);
 	}
 
+	/**
+	 * 创建虚拟线程等待执行器 (IO 密集型任务)
+	 * @return AsyncProcessExecutor
+	 */
+	public static AsyncProcessExecutor createVirtualWaitExecutor(){
+		return new AsyncProcessExecutorByVirtual(true);
+	}
+
+	/**
+	 * 创建虚拟线程等待执行器 (IO 密集型任务)
+	 * @param key KEY
+	 * @return AsyncProcessExecutor
+	 */
+	public static AsyncProcessExecutor createVirtualWaitExecutor(String key){
+		return new AsyncProcessExecutorByVirtual(key, true);
+	}
+
+	/**
+	 * 创建虚拟线程正常执行器 (IO 密集型任务)
+	 * @return AsyncProcessExecutor
+	 */
+	public static AsyncProcessExecutor createVirtualNormalExecutor(){
+		return new AsyncProcessExecutorByVirtual(false);
+	}
+
+	/**
+	 * 创建虚拟线程正常执行器 (IO 密集型任务)
+	 * @param key KEY
+	 * @return AsyncProcessExecutor
+	 */
+	public static AsyncProcessExecutor createVirtualNormalExecutor(String key){
+		return new AsyncProcessExecutorByVirtual(key, false);
+	}
+
 	// =====================
 
 	private AsyncProcessExecutorFactory(){}
@@ -0,0 +1,287 @@
+package org.opsli.common.thread;
+
+import cn.hutool.core.util.StrUtil;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按 Key 串行执行器
+ *
+ * 同一 Key 的任务按提交顺序依次执行 (FIFO)，不同 Key 共享同一个工作线程池
+ * 提交任务只做无锁入队，Key 上没有待执行任务时才调度一次排空任务
+ * Key 的任务全部执行完毕后 立即释放，不再常驻
+ *
+ * @author Parker
+ * @date 2021-06-08 17:10
+ */
+@Slf4j
+public final class KeyedSerialExecutor {
+
+	/** 默认工作线程数 */
+	private static final int DEFAULT_CONCURRENT = Runtime.getRuntime().availableProcessors() * 2;
+
+	/** 单次排空最多执行的任务数 超过后让出工作线程 避免单个 Key 长期占用 */
+	private static final int DRAIN_BATCH = 64;
+
+	/** 线程池名称 */
+	private static final String DEFAULT_THREAD_POOL_NAME = "KeyedSerial-{}-%d";
+
+	/** 已释放标记 */
+	private static final int RETIRED = -1;
+
+	/** 名称 */
+	private final String name;
+
+	/** 工作线程池 */
+	private final ExecutorService workers;
+
+	/** Key - 任务队列 */
+	private final ConcurrentMap<String, SerialQueue> queueMap = Maps.newConcurrentMap();
+
+	/** 已提交任务数 */
+	private final AtomicLong submittedCount = new AtomicLong();
+
+	/** 已完成任务数 */
+	private final AtomicLong completedCount = new AtomicLong();
+
+	/**
+	 * 构造函数
+	 * @param name 名称
+	 */
+	public KeyedSerialExecutor(String name){
+		this(name, DEFAULT_CONCURRENT);
+	}
+
+	/**
+	 * 构造函数
+	 * @param name 名称
+	 * @param concurrent 工作线程数
+	 */
+	public KeyedSerialExecutor(String name, int concurrent){
+		this.name = name;
+		// 拒绝时 由提交线程直接排空 (见 schedule)
+		this.workers = ThreadPoolFactory.createInitThreadPool(concurrent, concurrent,
+				0L, TimeUnit.MILLISECONDS, Integer.MAX_VALUE,
+				StrUtil.format(DEFAULT_THREAD_POOL_NAME, name), new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * 执行
+	 * @param key 唯一Key
+	 * @param r 任务
+	 */
+	public void execute(String key, Runnable r){
+		if(null == key || null == r){
+			return;
+		}
+
+		for (;;) {
+			SerialQueue queue = queueMap.computeIfAbsent(key, SerialQueue::new);
+			int prev = queue.enter();
+			// 队列已释放 移除后重新获取
+			if(prev == RETIRED){
+				queueMap.remove(key, queue);
+				continue;
+			}
+
+			submittedCount.incrementAndGet();
+			queue.tasks.offer(r);
+			// 首个待执行任务 负责调度排空
+			if(prev == 0){
+				this.schedule(queue);
+			}
+			return;
+		}
+	}
+
+	/**
+	 * 获得 Key 待执行任务数 (含正在执行的任务)
+	 * @param key 唯一Key
+	 * @return int
+	 */
+	public int getBacklog(String key){
+		SerialQueue queue = queueMap.get(key);
+		return queue == null ? 0 : Math.max(queue.pending.get(), 0);
+	}
+
+	/**
+	 * 获得全部 Key 待执行任务数 快照
+	 * @return Map
+	 */
+	public Map<String, Integer> getBacklogs(){
+		Map<String, Integer> ret = Maps.newHashMapWithExpectedSize(queueMap.size());
+		for (SerialQueue queue : queueMap.values()) {
+			int pending = queue.pending.get();
+			if(pending > 0){
+				ret.put(queue.key, pending);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * 获得活跃 Key 数
+	 * @return int
+	 */
+	public int getActiveKeyCount(){
+		return queueMap.size();
+	}
+
+	/**
+	 * 获得已提交任务数
+	 * @return long
+	 */
+	public long getSubmittedCount(){
+		return submittedCount.get();
+	}
+
+	/**
+	 * 获得已完成任务数
+	 * @return long
+	 */
+	public long getCompletedCount(){
+		return completedCount.get();
+	}
+
+	/**
+	 * 关闭
+	 * @param timeout 等待时间
+	 * @param unit 时间单位
+	 * @return boolean 是否在等待时间内执行完毕
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit){
+		workers.shutdown();
+		try {
+			if(workers.awaitTermination(timeout, unit)){
+				return true;
+			}
+		}catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		log.error("KeyedSerialExecutor[{}] 由于等待超时，执行器立即关闭", name);
+		workers.shutdownNow();
+		return false;
+	}
+
+	// =========================
+
+	/**
+	 * 调度排空
+	 * @param queue 任务队列
+	 */
+	private void schedule(SerialQueue queue){
+		try {
+			workers.execute(() -> this.drain(queue));
+		}catch (RejectedExecutionException e){
+			// 线程池已关闭 由当前线程执行 保证任务不丢失
+			this.drain(queue);
+		}
+	}
+
+	/**
+	 * 排空任务队列
+	 * 同一时刻 一个队列只有一个排空任务在执行
+	 * @param queue 任务队列
+	 */
+	private void drain(SerialQueue queue){
+		int count = 0;
+		for (;;) {
+			Runnable task = queue.tasks.poll();
+			if(task == null){
+				// 计数已增加 但入队尚未完成
+				Thread.yield();
+				continue;
+			}
+
+			run(task);
+			completedCount.incrementAndGet();
+
+			// 队列已空 释放 Key
+			if(queue.exit()){
+				queueMap.remove(queue.key, queue);
+				return;
+			}
+
+			// 让出工作线程 剩余任务重新调度
+			if(++count >= DRAIN_BATCH){
+				try {
+					workers.execute(() -> this.drain(queue));
+					return;
+				}catch (RejectedExecutionException e){
+					count = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 执行任务
+	 * 捕获异常，避免在 Executor 里面被吞掉了 (也避免排空中断 导致 Key 后续任务无法执行)
+	 * @param task 任务
+	 */
+	private static void run(Runnable task){
+		try {
+			task.run();
+		} catch (Throwable e) {
+			String errMsg = StrUtil.format("线程池-包装的目标执行异常: {}", e.getMessage());
+			log.error(errMsg, e);
+		}
+	}
+
+	/**
+	 * Key 任务队列
+	 */
+	private static final class SerialQueue {
+
+		/** 唯一Key */
+		private final String key;
+
+		/** 任务 */
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		/** 待执行任务数 (含正在执行的任务) 为 RETIRED 时表示已释放 */
+		private final AtomicInteger pending = new AtomicInteger();
+
+		private SerialQueue(String key) {
+			this.key = key;
+		}
+
+		/**
+		 * 进入队列
+		 * @return int 进入前的待执行任务数 队列已释放 返回 RETIRED
+		 */
+		private int enter(){
+			for (;;) {
+				int curr = pending.get();
+				if(curr == RETIRED || pending.compareAndSet(curr, curr + 1)){
+					return curr;
+				}
+			}
+		}
+
+		/**
+		 * 任务执行完毕
+		 * @return boolean 已无待执行任务 且 队列已释放
+		 */
+		private boolean exit(){
+			// 没有其他待执行任务时 直接释放 (只有排空线程会减少计数)
+			if(pending.compareAndSet(1, RETIRED)){
+				return true;
+			}
+			pending.decrementAndGet();
+			return false;
+		}
+	}
+
+}
@@ -2,7 +2,11 @@ package org.opsli.common.thread;
 
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -14,6 +18,7 @@ import java.util.concurrent.TimeUnit;
  * @author Parker
  * @date 2021/11/2 10:48
  */
+@Slf4j
 public final class ThreadPoolFactory {
 
 	/**
@@ -36,6 +41,11 @@ public final class ThreadPoolFactory {
 	 */
 	private static final String DEFAULT_THREAD_POOL_NAME = "ProcessPool-{}-%d";
 
+	/**
+	 * 虚拟线程执行器 创建方法 (JDK 21+ Executors.newVirtualThreadPerTaskExecutor)
+	 */
+	private static final Method VIRTUAL_EXECUTOR_METHOD = findVirtualExecutorMethod();
+
 
 	/**
 	 * 创建默认的线程池
@@ -96,6 +106,44 @@ public final class ThreadPoolFactory {
 		);
 	}
 
+	/**
+	 * 当前 JDK 是否支持虚拟线程
+	 * @return boolean
+	 */
+	public static boolean isVirtualThreadSupported(){
+		return VIRTUAL_EXECUTOR_METHOD != null;
+	}
+
+	/**
+	 * 创建虚拟线程执行器 每个任务一个虚拟线程
+	 * 当前 JDK 不支持虚拟线程时 退化为 work-stealing 线程池
+	 *
+	 * @param parallelism 退化时的并行数
+	 * @return ExecutorService
+	 */
+	public static ExecutorService createVirtualThreadExecutor(int parallelism){
+		if(VIRTUAL_EXECUTOR_METHOD != null){
+			try {
+				return (ExecutorService) VIRTUAL_EXECUTOR_METHOD.invoke(null);
+			}catch (Exception e){
+				log.warn("虚拟线程执行器创建失败 退化为 work-stealing 线程池", e);
+			}
+		}
+		return Executors.newWorkStealingPool(parallelism);
+	}
+
+	/**
+	 * 查找虚拟线程执行器 创建方法
+	 * @return Method 不支持返回 null
+	 */
+	private static Method findVirtualExecutorMethod(){
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		}catch (NoSuchMethodException | SecurityException e){
+			return null;
+		}
+	}
+
 	private ThreadPoolFactory(){}
 
 }
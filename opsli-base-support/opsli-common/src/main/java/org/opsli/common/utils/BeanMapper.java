@@ -0,0 +1,311 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.common.utils;
+
+import cn.hutool.core.bean.BeanDesc;
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.bean.PropDesc;
+import cn.hutool.core.convert.BasicType;
+import cn.hutool.core.convert.Convert;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bean 属性复制
+ *
+ * 按 (源类型, 目标类型) 生成并缓存复制计划，计划中的 getter / setter 均为 MethodHandle，
+ * 复制时不再做反射查找
+ *
+ * 属性规则与 Hutool BeanUtil.copyProperties 保持一致：
+ * 1. 以目标类型的属性为准，按属性名匹配源类型属性，跳过 transient 属性
+ * 2. 值已经是目标类型时直接赋值，集合 / Map 以及类型不一致时 使用 Convert 转换
+ * 3. null 值照常复制（基本类型除外）
+ *
+ * 源对象为 Map 或 其他非 Bean 类型时 直接交由 Hutool 处理
+ *
+ * @author Parker
+ * @date 2021-06-04 09:40
+ */
+@Slf4j
+public final class BeanMapper {
+
+    /** 复制计划缓存 */
+    private static final Map<Class<?>, Map<Class<?>, Plan>> PLAN_CACHE = new ConcurrentHashMap<>();
+
+    /** 私有化构造函数 */
+    private BeanMapper(){}
+
+    /**
+     * 复制为新对象
+     * @param source 源数据
+     * @param target 目标类型
+     * @param <M> 泛型
+     * @return M
+     */
+    public static <M> M copy(Object source, Class<M> target){
+        return copy(source, target, false);
+    }
+
+    /**
+     * 复制为新对象
+     * @param source 源数据
+     * @param target 目标类型
+     * @param isClone 是否复制可变值 (Date、数组)，集合 / Map 总是新建
+     * @param <M> 泛型
+     * @return M
+     */
+    @SuppressWarnings("unchecked")
+    public static <M> M copy(Object source, Class<M> target, boolean isClone){
+        if(source == null){
+            return null;
+        }
+
+        Plan plan = getPlan(source.getClass(), target);
+        if(plan == null){
+            return BeanUtil.copyProperties(source, target);
+        }
+
+        try {
+            Object m = plan.constructor.invoke();
+            for (PropCopier propCopier : plan.props) {
+                propCopier.copy(source, m, isClone);
+            }
+            return (M) m;
+        }catch (RuntimeException e){
+            throw e;
+        }catch (Throwable e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ====================================================================
+
+    /**
+     * 获得复制计划
+     * @param sourceClass 源类型
+     * @param targetClass 目标类型
+     * @return Plan 为空则表示无法生成计划
+     */
+    private static Plan getPlan(Class<?> sourceClass, Class<?> targetClass){
+        Map<Class<?>, Plan> targetMap = PLAN_CACHE.computeIfAbsent(sourceClass,
+                k -> new ConcurrentHashMap<>());
+        Plan plan = targetMap.get(targetClass);
+        if(plan == null){
+            plan = targetMap.computeIfAbsent(targetClass, k -> createPlan(sourceClass, targetClass));
+        }
+        return plan == Plan.NONE ? null : plan;
+    }
+
+    /**
+     * 生成复制计划
+     * @param sourceClass 源类型
+     * @param targetClass 目标类型
+     * @return Plan
+     */
+    private static Plan createPlan(Class<?> sourceClass, Class<?> targetClass){
+        if(Map.class.isAssignableFrom(sourceClass) || !BeanUtil.isBean(sourceClass)
+                || !BeanUtil.isBean(targetClass)){
+            return Plan.NONE;
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle constructor = lookup.findConstructor(targetClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+
+            BeanDesc sourceDesc = BeanUtil.getBeanDesc(sourceClass);
+            BeanDesc targetDesc = BeanUtil.getBeanDesc(targetClass);
+            Map<String, PropDesc> sourcePropMap = Maps.newHashMap();
+            for (PropDesc prop : sourceDesc.getProps()) {
+                if(prop.isReadable(true)){
+                    sourcePropMap.put(prop.getFieldName(), prop);
+                }
+            }
+
+            List<PropCopier> props = Lists.newArrayList();
+            for (PropDesc targetProp : targetDesc.getProps()) {
+                if(!targetProp.isWritable(true)){
+                    continue;
+                }
+                PropDesc sourceProp = sourcePropMap.get(targetProp.getFieldName());
+                if(sourceProp == null){
+                    continue;
+                }
+
+                props.add(new PropCopier(
+                        getter(lookup, sourceProp),
+                        setter(lookup, targetProp),
+                        targetProp.getFieldType(),
+                        targetProp.getFieldClass()
+                ));
+            }
+
+            return new Plan(constructor, props.toArray(new PropCopier[0]));
+        }catch (Exception e){
+            log.warn("无法生成复制计划 {} -> {}, 使用默认方式: {}",
+                    sourceClass.getName(), targetClass.getName(), e.getMessage());
+        }
+        return Plan.NONE;
+    }
+
+    /**
+     * 获得 getter
+     * @param lookup lookup
+     * @param prop 属性
+     * @return MethodHandle (Object)Object
+     */
+    private static MethodHandle getter(MethodHandles.Lookup lookup, PropDesc prop) throws IllegalAccessException {
+        Method getter = prop.getGetter();
+        MethodHandle handle;
+        if(getter != null){
+            getter.setAccessible(true);
+            handle = lookup.unreflect(getter);
+        }else {
+            Field field = prop.getField();
+            handle = lookup.unreflectGetter(field);
+        }
+        return handle.asType(MethodType.methodType(Object.class, Object.class));
+    }
+
+    /**
+     * 获得 setter
+     * @param lookup lookup
+     * @param prop 属性
+     * @return MethodHandle (Object, Object)void
+     */
+    private static MethodHandle setter(MethodHandles.Lookup lookup, PropDesc prop) throws IllegalAccessException {
+        Method setter = prop.getSetter();
+        MethodHandle handle;
+        if(setter != null){
+            setter.setAccessible(true);
+            handle = lookup.unreflect(setter);
+        }else {
+            Field field = prop.getField();
+            handle = lookup.unreflectSetter(field);
+        }
+        // 链式 setter 返回值丢弃
+        handle = handle.asType(handle.type().changeReturnType(void.class));
+        return handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+    }
+
+    // ====================================================================
+
+    /**
+     * 复制计划
+     */
+    private static final class Plan {
+
+        /** 无法生成计划 */
+        private static final Plan NONE = new Plan(null, new PropCopier[0]);
+
+        /** 目标无参构造 */
+        private final MethodHandle constructor;
+        /** 属性复制 */
+        private final PropCopier[] props;
+
+        private Plan(MethodHandle constructor, PropCopier[] props) {
+            this.constructor = constructor;
+            this.props = props;
+        }
+    }
+
+    /**
+     * 单个属性复制
+     */
+    private static final class PropCopier {
+
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        /** 目标属性类型 (含泛型) */
+        private final Type targetType;
+        /** 目标属性类 */
+        private final Class<?> targetClass;
+        /** 目标属性类 (基本类型转为包装类型) */
+        private final Class<?> wrapClass;
+        /** 是否需要转换 (集合 / Map 总是转换) */
+        private final boolean alwaysConvert;
+
+        private PropCopier(MethodHandle getter, MethodHandle setter, Type targetType, Class<?> targetClass) {
+            this.getter = getter;
+            this.setter = setter;
+            this.targetType = targetType;
+            this.targetClass = targetClass;
+            this.wrapClass = BasicType.wrap(targetClass);
+            this.alwaysConvert = Collection.class.isAssignableFrom(targetClass)
+                    || Map.class.isAssignableFrom(targetClass);
+        }
+
+        private void copy(Object source, Object target, boolean isClone) throws Throwable {
+            Object value = getter.invoke(source);
+            if(value == null){
+                // 基本类型 无法赋空值
+                if(!targetClass.isPrimitive()){
+                    setter.invoke(target, null);
+                }
+                return;
+            }
+
+            // 自身引用 不复制
+            if(value == source){
+                return;
+            }
+
+            if(alwaysConvert || !wrapClass.isInstance(value)){
+                value = Convert.convertWithCheck(targetType, value, null, false);
+            }else if(isClone){
+                value = cloneMutable(value);
+            }
+
+            if(value == null && targetClass.isPrimitive()){
+                return;
+            }
+            setter.invoke(target, value);
+        }
+
+        /**
+         * 复制可变值
+         * @param value 值
+         * @return Object
+         */
+        private static Object cloneMutable(Object value){
+            if(value instanceof Date){
+                return ((Date) value).clone();
+            }
+            if(value.getClass().isArray()){
+                int length = Array.getLength(value);
+                Object array = Array.newInstance(value.getClass().getComponentType(), length);
+                System.arraycopy(value, 0, array, 0, length);
+                return array;
+            }
+            return value;
+        }
+    }
+
+}
@@ -15,20 +15,20 @@
  */
 package org.opsli.common.utils;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.util.ObjectUtil;
 import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 转化对象工具类
  * 用于 Wrapper 对象 转化为本地对象，或者本地对象转化为Wrapper对象
  *
+ * 属性复制由 BeanMapper 完成 (按类型对缓存 MethodHandle 复制计划)
+ * 克隆为浅复制：集合 / Map 新建，Date、数组 复制，其余不可变值直接引用
+ *
  * @author Parker
  * @date 2020-09-19 00:08
  */
@@ -66,7 +66,7 @@ public final class WrapperUtil {
      * 克隆并且转化对象
      * @param source 源数据
      * @param target 目标
-     * @param isClone 是否克隆
+     * @param isClone 是否克隆 (复制 Date、数组 等可变值)
      * @return M
      */
     public static <T,M> M transformInstance(Object source, Class<M> target, boolean isClone){
@@ -74,13 +74,9 @@ public final class WrapperUtil {
             return null;
         }
 
-        if(isClone){
-            source = ObjectUtil.cloneByStream(source);
-        }
-
         M m = null;
         try {
-            m = BeanUtil.copyProperties(source, target);
+            m = BeanMapper.copy(source, target, isClone);
         }catch (Exception e){
             log.error(e.getMessage(),e);
         }
@@ -92,7 +88,7 @@ public final class WrapperUtil {
      * 克隆并且转化集合对象
      * @param source 源数据
      * @param target 目标
-     * @param isClone 是否克隆
+     * @param isClone 是否克隆 (复制 Date、数组 等可变值)
      * @param <M> M
      * @return List<M>
      */
@@ -101,13 +97,11 @@ public final class WrapperUtil {
             return Lists.newArrayList();
         }
 
-        if(isClone){
-            source = ObjectUtil.cloneByStream(source);
-        }
-
-        List<M> toInstanceList = Lists.newArrayList();
+        List<M> toInstanceList = Lists.newArrayListWithCapacity(source.size());
         try {
-            toInstanceList = source.stream().map((s) -> transformInstance(s, target, true)).collect(Collectors.toList());
+            for (T s : source) {
+                toInstanceList.add(transformInstance(s, target, isClone));
+            }
         }catch (Exception e){
             log.error(e.getMessage(),e);
         }
@@ -0,0 +1,69 @@
+package org.opsli.common.thread;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 执行器对比测试 (阻塞型任务)
+ *
+ * 每个任务休眠模拟 IO 等待，对比 虚拟线程执行器 与 原有等待执行器 的总耗时
+ * 低版本 JDK 下虚拟线程执行器退化为 work-stealing 线程池
+ *
+ * @author Parker
+ * @date 2021-06-08 16:30
+ */
+public class AsyncProcessExecutorBenchmarkTest {
+
+    /** 任务数 */
+    private static final int TASK_COUNT = 2000;
+    /** 单个任务阻塞时间 毫秒 */
+    private static final long BLOCK_MILLIS = 10;
+    /** 轮数 (首轮预热) */
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void blockingWorkload() {
+        long waitCost = this.run("wait", () -> AsyncProcessExecutorFactory.createWaitExecutor("bench-wait"));
+        long virtualCost = this.run("virtual",
+                () -> AsyncProcessExecutorFactory.createVirtualWaitExecutor("bench-virtual"));
+
+        System.out.println("虚拟线程支持: " + ThreadPoolFactory.isVirtualThreadSupported());
+        System.out.println("等待执行器 耗时: " + waitCost + "ms");
+        System.out.println("虚拟线程执行器 耗时: " + virtualCost + "ms");
+    }
+
+    /**
+     * 执行阻塞型任务
+     * @param name 名称
+     * @param executorSupplier 执行器
+     * @return long 最后一轮耗时 毫秒
+     */
+    private long run(String name, Supplier<AsyncProcessExecutor> executorSupplier) {
+        long cost = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            AtomicInteger done = new AtomicInteger();
+            AsyncProcessExecutor executor = executorSupplier.get();
+            for (int i = 0; i < TASK_COUNT; i++) {
+                executor.put(() -> {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(BLOCK_MILLIS);
+                    }catch (InterruptedException e){
+                        Thread.currentThread().interrupt();
+                    }
+                    done.incrementAndGet();
+                });
+            }
+
+            long begin = System.nanoTime();
+            Assert.assertTrue(name, executor.execute());
+            cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            Assert.assertEquals(name, TASK_COUNT, done.get());
+        }
+        return cost;
+    }
+
+}
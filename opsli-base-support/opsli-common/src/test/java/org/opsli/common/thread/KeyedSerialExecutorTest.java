@@ -0,0 +1,284 @@
+package org.opsli.common.thread;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 按 Key 串行执行器测试
+ *
+ * 多个提交线程同时向少量 Key 提交任务 (频繁 释放 / 重建 队列)，反复多轮校验：
+ * 同一 Key 同一时刻只有一个任务在执行，同一提交线程对同一 Key 的任务按提交顺序执行，任务不丢失，Key 执行完毕后释放
+ *
+ * @author Parker
+ * @date 2021-06-09 21:40
+ */
+public class KeyedSerialExecutorTest {
+
+    /** 校验轮数 */
+    private static final int ITERATIONS = 50;
+    /** 校验 Key 数 (Key 少 竞争大) */
+    private static final int KEY_COUNT = 4;
+    /** 提交线程数 */
+    private static final int PRODUCER_COUNT = 8;
+    /** 每个提交线程 每个 Key 任务数 */
+    private static final int TASKS_PER_KEY = 500;
+    /** 工作线程数 */
+    private static final int WORKER_COUNT = 8;
+
+    /** 对比测试 Key 数 */
+    private static final int BENCH_KEY_COUNT = 10_000;
+    /** 对比测试 原有实现 Key 数 (每个 Key 常驻一个线程 数量过多时无法创建) */
+    private static final int LEGACY_KEY_COUNT = 1000;
+    /** 对比测试 每个 Key 任务数 */
+    private static final int BENCH_TASKS_PER_KEY = 50;
+
+    /**
+     * 每个 Key 串行 且 按提交顺序执行
+     */
+    @Test
+    public void perKeyFifo() throws InterruptedException {
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            KeyedSerialExecutor executor = new KeyedSerialExecutor("fifo-" + iteration, WORKER_COUNT);
+            try {
+                this.runFifo(executor, iteration);
+            } finally {
+                executor.shutdown(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * 任务异常 不影响该 Key 后续任务
+     */
+    @Test
+    public void failureDoesNotBlockKey() throws InterruptedException {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor("failure", 2);
+        try {
+            CountDownLatch done = new CountDownLatch(1);
+            executor.execute("key", () -> {
+                throw new IllegalStateException("task failed");
+            });
+            executor.execute("key", done::countDown);
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+            awaitReleased(executor);
+            Assert.assertEquals(2, executor.getCompletedCount());
+        } finally {
+            executor.shutdown(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 关闭后提交 由提交线程直接执行 任务不丢失
+     */
+    @Test
+    public void executeAfterShutdown() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor("shutdown", 2);
+        Assert.assertTrue(executor.shutdown(10, TimeUnit.SECONDS));
+
+        List<Thread> threads = new ArrayList<>();
+        executor.execute("key", () -> threads.add(Thread.currentThread()));
+        Assert.assertEquals(1, threads.size());
+        Assert.assertSame(Thread.currentThread(), threads.get(0));
+        Assert.assertEquals(0, executor.getActiveKeyCount());
+    }
+
+    /**
+     * 1 万 Key 吞吐，对比 原有实现 (同步提交 + 每个 Key 一个单线程执行器)
+     */
+    @Test
+    public void keyedCost() throws InterruptedException {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor("bench", WORKER_COUNT);
+        try {
+            // 预热
+            this.runKeyed(executor, LEGACY_KEY_COUNT);
+            long keyedLegacyCost = this.runKeyed(executor, LEGACY_KEY_COUNT);
+            long keyedCost = this.runKeyed(executor, BENCH_KEY_COUNT);
+            awaitReleased(executor);
+
+            this.runLegacy(LEGACY_KEY_COUNT);
+            long legacyCost = this.runLegacy(LEGACY_KEY_COUNT);
+
+            System.out.println("按 Key 串行执行器 " + BENCH_KEY_COUNT + " Key x " + BENCH_TASKS_PER_KEY
+                    + " 任务 耗时: " + keyedCost + "ms");
+            System.out.println("按 Key 串行执行器 " + LEGACY_KEY_COUNT + " Key x " + BENCH_TASKS_PER_KEY
+                    + " 任务 耗时: " + keyedLegacyCost + "ms");
+            System.out.println("原有实现 " + LEGACY_KEY_COUNT + " Key x " + BENCH_TASKS_PER_KEY
+                    + " 任务 耗时: " + legacyCost + "ms (常驻线程 " + LEGACY_KEY_COUNT + ")");
+        } finally {
+            executor.shutdown(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 单轮校验
+     * @param executor 执行器
+     * @param iteration 轮次
+     */
+    private void runFifo(KeyedSerialExecutor executor, int iteration) throws InterruptedException {
+        // 每个 Key 正在执行的任务数
+        AtomicIntegerArray running = new AtomicIntegerArray(KEY_COUNT);
+        // 每个 Key 每个提交线程 最后执行的序号 (只在该 Key 的任务中读写)
+        int[][] lastSeq = new int[KEY_COUNT][PRODUCER_COUNT];
+        Queue<String> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(KEY_COUNT * PRODUCER_COUNT * TASKS_PER_KEY);
+
+        List<Thread> producers = new ArrayList<>(PRODUCER_COUNT);
+        for (int p = 0; p < PRODUCER_COUNT; p++) {
+            int producer = p;
+            Random random = new Random(iteration * 31L + p);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int seq = 1; seq <= TASKS_PER_KEY; seq++) {
+                    for (int k = 0; k < KEY_COUNT; k++) {
+                        int key = k;
+                        int current = seq;
+                        executor.execute("key-" + key, () -> {
+                            if (running.incrementAndGet(key) != 1) {
+                                errors.add("key-" + key + " 并发执行");
+                            }
+                            if (lastSeq[key][producer] != current - 1) {
+                                errors.add("key-" + key + " producer-" + producer + " 期望 " + (current - 1)
+                                        + " 实际 " + lastSeq[key][producer]);
+                            }
+                            lastSeq[key][producer] = current;
+                            running.decrementAndGet(key);
+                            done.countDown();
+                        });
+                    }
+                    // 随机停顿 让队列排空后释放 与 提交 交替发生
+                    if (random.nextInt(8) == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        Assert.assertTrue("第 " + iteration + " 轮 任务未执行完毕", done.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(String.valueOf(errors.peek()), errors.isEmpty());
+        for (int k = 0; k < KEY_COUNT; k++) {
+            for (int p = 0; p < PRODUCER_COUNT; p++) {
+                Assert.assertEquals(TASKS_PER_KEY, lastSeq[k][p]);
+            }
+        }
+
+        awaitReleased(executor);
+        Assert.assertEquals(executor.getSubmittedCount(), executor.getCompletedCount());
+        Assert.assertTrue(executor.getBacklogs().isEmpty());
+    }
+
+    /**
+     * 按 Key 串行执行器 执行全部任务
+     * @param executor 执行器
+     * @param keyCount Key 数
+     * @return long 耗时 毫秒
+     */
+    private long runKeyed(KeyedSerialExecutor executor, int keyCount) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(keyCount * BENCH_TASKS_PER_KEY);
+        long begin = System.nanoTime();
+        this.produce(keyCount, (key, task) -> executor.execute(key, task), done);
+        Assert.assertTrue(done.await(1, TimeUnit.MINUTES));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+    }
+
+    /**
+     * 原有实现 执行全部任务
+     * @param keyCount Key 数
+     * @return long 耗时 毫秒
+     */
+    private long runLegacy(int keyCount) throws InterruptedException {
+        ConcurrentHashMap<String, ExecutorService> executorMap = new ConcurrentHashMap<>();
+        Object lock = new Object();
+        CountDownLatch done = new CountDownLatch(keyCount * BENCH_TASKS_PER_KEY);
+        try {
+            long begin = System.nanoTime();
+            this.produce(keyCount, (key, task) -> {
+                synchronized (lock) {
+                    executorMap.computeIfAbsent(key, k -> Executors.newSingleThreadExecutor()).execute(task);
+                }
+            }, done);
+            Assert.assertTrue(done.await(1, TimeUnit.MINUTES));
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        } finally {
+            for (ExecutorService executorService : executorMap.values()) {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 多个提交线程 按 Key 轮流提交任务
+     * @param keyCount Key 数
+     * @param submitter 提交方式
+     * @param done 完成计数
+     */
+    private void produce(int keyCount, Submitter submitter, CountDownLatch done) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        int total = keyCount * BENCH_TASKS_PER_KEY;
+        List<Thread> producers = new ArrayList<>(PRODUCER_COUNT);
+        for (int p = 0; p < PRODUCER_COUNT; p++) {
+            Thread thread = new Thread(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < total) {
+                    submitter.submit("key-" + (i % keyCount), done::countDown);
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+    }
+
+    /**
+     * 等待全部 Key 释放 (任务执行完毕后 释放 Key 在排空线程中稍后进行)
+     * @param executor 执行器
+     */
+    private static void awaitReleased(KeyedSerialExecutor executor) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (executor.getActiveKeyCount() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        Assert.assertEquals(0, executor.getActiveKeyCount());
+    }
+
+    /**
+     * 提交方式
+     */
+    @FunctionalInterface
+    private interface Submitter {
+
+        /**
+         * 提交任务
+         * @param key 唯一Key
+         * @param task 任务
+         */
+        void submit(String key, Runnable task);
+    }
+
+}
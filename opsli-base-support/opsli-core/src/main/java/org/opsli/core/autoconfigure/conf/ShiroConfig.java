@@ -16,11 +16,13 @@
 package org.opsli.core.autoconfigure.conf;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
 import cn.hutool.core.util.ClassUtil;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.shiro.authc.pam.AtLeastOneSuccessfulStrategy;
 import org.apache.shiro.authc.pam.ModularRealmAuthenticator;
+import org.apache.shiro.mgt.DefaultSubjectDAO;
 import org.apache.shiro.mgt.SecurityManager;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.session.mgt.SessionManager;
@@ -28,12 +30,17 @@ import org.apache.shiro.spring.LifecycleBeanPostProcessor;
 import org.apache.shiro.spring.security.interceptor.AuthorizationAttributeSourceAdvisor;
 import org.apache.shiro.spring.web.ShiroFilterFactoryBean;
 import org.apache.shiro.web.mgt.DefaultWebSecurityManager;
+import org.apache.shiro.web.mgt.DefaultWebSessionStorageEvaluator;
 import org.apache.shiro.web.session.mgt.DefaultWebSessionManager;
 import org.opsli.core.autoconfigure.properties.ApiPathProperties;
+import org.opsli.core.autoconfigure.properties.CacheProperties;
 import org.opsli.core.autoconfigure.properties.GlobalProperties;
 import org.opsli.core.security.shiro.authenticator.CustomModularRealmAuthenticator;
+import org.opsli.core.security.shiro.cache.RedisCacheManager;
+import org.opsli.core.security.shiro.cache.RedisManager;
 import org.opsli.core.security.shiro.filter.CustomShiroFilter;
 import org.opsli.core.security.shiro.realm.FlagRealm;
+import org.opsli.core.security.shiro.session.StatelessSubjectFactory;
 import org.springframework.aop.framework.autoproxy.DefaultAdvisorAutoProxyCreator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -70,7 +77,7 @@ public class ShiroConfig {
 
         //oauth过滤
         Map<String, Filter> filters = Maps.newHashMapWithExpectedSize(1);
-        filters.put("last_filter", new CustomShiroFilter());
+        filters.put("last_filter", new CustomShiroFilter(isStateless(globalProperties)));
         shiroFilter.setFilters(filters);
 
         Map<String, String> filterMap = Maps.newLinkedHashMap();
@@ -113,17 +120,28 @@ public class ShiroConfig {
     }
 
     @Bean("sessionManager")
-    public SessionManager sessionManager(){
+    public SessionManager sessionManager(GlobalProperties globalProperties){
+        boolean stateless = isStateless(globalProperties);
         DefaultWebSessionManager sessionManager = new DefaultWebSessionManager();
-        sessionManager.setSessionValidationSchedulerEnabled(true);
-        sessionManager.setSessionIdCookieEnabled(true);
+        // 无状态模式 不创建会话 也就无需定时清理
+        sessionManager.setSessionValidationSchedulerEnabled(!stateless);
+        sessionManager.setSessionIdCookieEnabled(!stateless);
         return sessionManager;
     }
 
     @Bean("securityManager")
-    public DefaultWebSecurityManager securityManager(SessionManager sessionManager) {
+    public DefaultWebSecurityManager securityManager(SessionManager sessionManager, GlobalProperties globalProperties) {
         DefaultWebSecurityManager securityManager = new DefaultWebSecurityManager();
         securityManager.setSessionManager(sessionManager);
+
+        // 无状态模式 禁止创建会话 禁止将 Subject 存入会话
+        if(isStateless(globalProperties)){
+            securityManager.setSubjectFactory(new StatelessSubjectFactory());
+            DefaultWebSessionStorageEvaluator sessionStorageEvaluator = new DefaultWebSessionStorageEvaluator();
+            sessionStorageEvaluator.setSessionStorageEnabled(false);
+            ((DefaultSubjectDAO) securityManager.getSubjectDAO()).setSessionStorageEvaluator(sessionStorageEvaluator);
+        }
+
         // 设置验证器为自定义验证器
         securityManager.setAuthenticator(modularRealmAuthenticator());
 
@@ -152,6 +170,37 @@ public class ShiroConfig {
         return securityManager;
     }
 
+    /**
+     * 是否无状态模式
+     * @param globalProperties 全局配置
+     * @return boolean
+     */
+    private static boolean isStateless(GlobalProperties globalProperties){
+        return globalProperties.getAuth() != null &&
+                globalProperties.getAuth().getToken() != null &&
+                globalProperties.getAuth().getToken().isStateless();
+    }
+
+    /**
+     * Shiro Redis 操作
+     */
+    @Bean("shiroRedisManager")
+    public RedisManager shiroRedisManager(){
+        return new RedisManager();
+    }
+
+    /**
+     * Shiro Redis 缓存管理器 (授权信息二级缓存 见 AuthorizationCache)
+     */
+    @Bean("shiroRedisCacheManager")
+    public RedisCacheManager shiroRedisCacheManager(RedisManager shiroRedisManager, CacheProperties cacheProperties){
+        RedisCacheManager cacheManager = new RedisCacheManager();
+        cacheManager.setRedisManager(shiroRedisManager);
+        cacheManager.setKeyPrefix(Convert.toStr(cacheProperties.getPrefix(), "opsli") + ":"
+                + RedisCacheManager.DEFAULT_CACHE_KEY_PREFIX);
+        return cacheManager;
+    }
+
     /**
      * 针对多Realm，使用自定义身份验证器
      */
@@ -17,9 +17,12 @@ package org.opsli.core.autoconfigure.properties;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.opsli.common.enums.CacheType;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+
 /**
  * 接口路径前缀配置
  *
@@ -37,4 +40,57 @@ public class CacheProperties {
     /** 缓存前缀 */
     private String prefix;
 
+    /** 近端缓存 */
+    private Near near = new Near();
+
+    /** 防穿透过滤器 */
+    private Guard guard = new Guard();
+
+    // ============== 内部类 =============
+
+    /**
+     * 近端缓存 (L1)
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class Near {
+
+        /** 是否启用 */
+        private boolean enable;
+
+        /** 启用的缓存类型 */
+        private Set<CacheType> types;
+
+        /** 最大条目数 */
+        private int maxSize = 10000;
+
+        /** 存活时间 (秒) */
+        private long ttl = 60;
+
+        /** 存活时间随机抖动比例 */
+        private double jitter = 0.2;
+
+    }
+
+    /**
+     * 防穿透过滤器
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class Guard {
+
+        /** 是否启用 */
+        private boolean enable;
+
+        /** 期望误判率 */
+        private double fpp = 0.01;
+
+        /** 最小预期数据量 */
+        private long expectedInsertions = 100000;
+
+        /** 重新加载间隔 (分钟) 修复漏掉的变更 小于等于 0 则不重新加载 */
+        private long reloadInterval = 360;
+
+    }
+
 }
@@ -3,6 +3,7 @@ package org.opsli.core.autoconfigure.properties;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.opsli.common.enums.LoginLimitRefuse;
+import org.opsli.common.enums.LogsOverflowPolicy;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -40,6 +41,12 @@ public class GlobalProperties {
     /** Excel类 */
     private Excel excel;
 
+    /** 操作日志 */
+    private Logs logs = new Logs();
+
+    /** 系统监控 */
+    private Monitor monitor = new Monitor();
+
     /** 代码生成器 */
     private Generator generator;
 
@@ -93,6 +100,9 @@ public class GlobalProperties {
             /** 排除URL*/
             private Set<String> urlExclusion;
 
+            /** 无状态模式 (不创建会话，校验Token后直接绑定用户，不走登录流程) */
+            private boolean stateless = true;
+
         }
 
         /**
@@ -124,6 +134,51 @@ public class GlobalProperties {
 
     }
 
+    /**
+     * 操作日志
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class Logs {
+
+        /** 队列容量 (会向上取整为 2 的幂) */
+        private int capacity = 8192;
+
+        /** 每批写入条数 */
+        private int batchSize = 200;
+
+        /** 最长刷新间隔 (毫秒) */
+        private long flushInterval = 1000;
+
+        /** 溢出策略 */
+        private LogsOverflowPolicy overflowPolicy = LogsOverflowPolicy.DROP_OLDEST;
+
+        /** 溢出文件 (SPILL 策略使用，为空则使用临时目录) */
+        private String spillFile;
+
+        /** 停机时 最长排空等待 (毫秒) */
+        private long drainTimeout = 10000;
+
+    }
+
+    /**
+     * 系统监控
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class Monitor {
+
+        /** 开启后台采样 */
+        private boolean enable = true;
+
+        /** 采样间隔 (毫秒) */
+        private long sampleInterval = 5000;
+
+        /** 保留采样点数 (超出后覆盖最旧) */
+        private int historySize = 720;
+
+    }
+
     /**
      * Excel
      */
@@ -131,9 +186,12 @@ public class GlobalProperties {
     @EqualsAndHashCode(callSuper = false)
     public static class Excel {
 
-        /** 最大导出操作数 */
+        /** 最大导出操作数 (一次性读取的导出 防止OOM) */
         private Integer exportMaxCount;
 
+        /** 游标分批导出 最大导出操作数 (内存占用与总行数无关 默认 -1 无限制) */
+        private Integer streamExportMaxCount = -1;
+
     }
 
     /**
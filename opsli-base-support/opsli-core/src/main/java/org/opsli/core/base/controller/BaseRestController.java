@@ -24,10 +24,10 @@ import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.date.TimeInterval;
 import cn.hutool.core.lang.tree.Tree;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONObject;
 import com.alibaba.excel.support.ExcelTypeEnum;
 import com.alibaba.excel.util.CollectionUtils;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import lombok.extern.slf4j.Slf4j;
@@ -52,11 +52,16 @@ import org.opsli.core.base.service.interfaces.CrudServiceInterface;
 import org.opsli.core.cache.local.CacheUtil;
 import org.opsli.core.msg.CoreMsg;
 import org.opsli.core.msg.TokenMsg;
+import org.opsli.core.persistence.CursorPage;
+import org.opsli.core.persistence.querybuilder.QueryBuilder;
+import org.opsli.core.persistence.querybuilder.WebQueryBuilder;
 import org.opsli.core.security.shiro.realm.JwtRealm;
 import org.opsli.core.utils.DistributedLockUtil;
 import org.opsli.core.utils.ExcelUtil;
+import org.opsli.core.utils.excel.ExcelExportListener;
 import org.opsli.core.utils.UserUtil;
 import org.opsli.plugins.excel.exception.ExcelPluginException;
+import org.opsli.plugins.excel.factory.ExcelStreamWriter;
 import org.opsli.plugins.excel.listener.BatchExcelListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -66,6 +71,7 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Method;
 import java.util.*;
@@ -81,6 +87,9 @@ import java.util.function.Function;
 @RestController
 public abstract class BaseRestController <T extends BaseEntity, E extends ApiWrapper, S extends CrudServiceInterface<T,E>>{
 
+    /** Excel 导出 每批数据量 */
+    private static final int EXCEL_EXPORT_BATCH_SIZE = 1000;
+
     /** 开启热点数据状态 */
     protected boolean hotDataFlag = false;
 
@@ -182,6 +191,23 @@ public abstract class BaseRestController <T extends BaseEntity, E extends ApiWra
         return model;
     }
 
+    /**
+     * 游标分页 (Keyset 分页 不查询 count)
+     * 排序参数与 findPage 一致，由 WebQueryBuilder 解析
+     * @param cursor 游标 (为空则为第一页)
+     * @param pageSize 每页条数
+     * @param request request
+     * @return ResultVo
+     */
+    protected ResultVo<?> findCursorPage(String cursor, Integer pageSize, HttpServletRequest request){
+        WebQueryBuilder<T> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
+        // 分页大小 为空取默认值 超出范围时限制在 [1, MAX_PAGE_SIZE]
+        CursorPage<T,E> page = new CursorPage<>(cursor,
+                pageSize != null ? pageSize : CursorPage.DEFAULT_PAGE_SIZE, queryBuilder);
+        page = IService.findCursorPage(page);
+        return ResultVo.success(page.getPageData());
+    }
+
     /**
      * Excel 导入
      * @param request request
@@ -251,7 +277,33 @@ public abstract class BaseRestController <T extends BaseEntity, E extends ApiWra
      * @param response response
      */
     protected void importTemplate(String fileName, HttpServletResponse response, Method method){
-        this.excelExport(fileName + " 模版 ",null, response, method);
+        this.excelExport(fileName + " 模版 ",(QueryBuilder<T>) null, response, method);
+    }
+
+    /**
+     * 导出
+     * @param fileName 文件名称
+     * @param queryBuilder 查询构建器
+     * @param response response
+     * @param method 当前方法
+     */
+    protected void excelExport(String fileName, QueryBuilder<T> queryBuilder, HttpServletResponse response,
+                               Method method){
+        this.excelExport(fileName, queryBuilder, response, method, null);
+    }
+
+    /**
+     * 导出 (旧版接口 一次性读取全部数据)
+     * @param fileName 文件名称
+     * @param queryWrapper 查询构建器
+     * @param response response
+     * @param method 当前方法
+     * @deprecated 数据会一次性加载到内存，请改用 {@link #excelExport(String, QueryBuilder, HttpServletResponse, Method)}
+     */
+    @Deprecated
+    protected void excelExport(String fileName, QueryWrapper<T> queryWrapper, HttpServletResponse response,
+                               Method method){
+        this.excelExport(fileName, null, queryWrapper, response, method, null);
     }
 
     /**
@@ -264,12 +316,30 @@ public abstract class BaseRestController <T extends BaseEntity, E extends ApiWra
      * 而直接开启socket接口推送显然是太过浪费资源了，所以目前采用Java最原始的手段
      * response 推送 javascript代码 alert 提示报错信息
      *
+     * 数据按游标分页分批读取，每批处理字典后追加写入 Excel，内存占用与导出行数无关
+     *
      * @param fileName 文件名称
-     * @param queryWrapper 查询构建器
+     * @param queryBuilder 查询构建器
      * @param response response
+     * @param method 当前方法
+     * @param listener 进度监听 (可为空，返回 false 则取消导出)
      */
-    protected void excelExport(String fileName, QueryWrapper<T> queryWrapper, HttpServletResponse response,
-                                      Method method){
+    protected void excelExport(String fileName, QueryBuilder<T> queryBuilder, HttpServletResponse response,
+                                      Method method, ExcelExportListener listener){
+        this.excelExport(fileName, queryBuilder, null, response, method, listener);
+    }
+
+    /**
+     * 导出
+     * @param fileName 文件名称
+     * @param queryBuilder 查询构建器 (游标分批读取)
+     * @param queryWrapper 查询条件 (旧版接口 一次性读取，queryBuilder 为空时生效)
+     * @param response response
+     * @param method 当前方法
+     * @param listener 进度监听 (可为空，返回 false 则取消导出)
+     */
+    private void excelExport(String fileName, QueryBuilder<T> queryBuilder, QueryWrapper<T> queryWrapper,
+                             HttpServletResponse response, Method method, ExcelExportListener listener){
         // 权限认证
         try {
             if(method == null){
@@ -296,14 +366,18 @@ public abstract class BaseRestController <T extends BaseEntity, E extends ApiWra
         TimeInterval timer = DateUtil.timer();
         String msgInfo;
         ResultVo<?> resultVo;
-        List<E> modelList = Lists.newArrayList();
+        ExcelStreamWriter<E> excelWriter = ExcelUtil.getInstance().createStreamWriter(
+                response, fileName,"sheet", modelClazz ,ExcelTypeEnum.XLSX);
         try {
-            if(queryWrapper != null){
+            if(queryBuilder != null || queryWrapper != null){
                 // 导出数量限制 -1 为无限制
-                Integer exportMaxCount = globalProperties.getExcel().getExportMaxCount();
+                // 一次性读取 受 exportMaxCount 限制 (防止OOM)；游标分批读取 内存占用与总行数无关 限制可选
+                Integer exportMaxCount = queryBuilder != null
+                        ? globalProperties.getExcel().getStreamExportMaxCount()
+                        : globalProperties.getExcel().getExportMaxCount();
                 if(exportMaxCount != null && exportMaxCount > -1){
-                    // 获得数量 大于 阈值 禁止导出， 防止OOM
-                    int count = IService.count(queryWrapper);
+                    // 获得数量 大于 阈值 禁止导出
+                    int count = IService.count(queryBuilder != null ? queryBuilder.build() : queryWrapper);
                     if(count > exportMaxCount){
                         String maxError = StrUtil.format(CoreMsg.EXCEL_HANDLE_MAX.getMessage(), count,
                                 exportMaxCount);
@@ -312,17 +386,45 @@ public abstract class BaseRestController <T extends BaseEntity, E extends ApiWra
                     }
                 }
 
-
-                List<T> entityList = IService.findList(queryWrapper);
-                // 转化类型
-                modelList = WrapperUtil.transformInstance(entityList, modelClazz);
+                // 字典只取一次
+                JSONObject fieldsDict = ExcelUtil.getInstance().getFieldsDict(
+                        ExcelUtil.getInstance().getFields(modelClazz));
+
+                if(queryBuilder == null){
+                    // 旧版接口 一次性读取
+                    List<T> entityList = IService.findList(queryWrapper);
+                    excelWriter.write(ExcelUtil.getInstance().handleDatas(
+                            WrapperUtil.transformInstance(entityList, modelClazz),
+                            modelClazz, ExcelOperate.WRITE, fieldsDict));
+                }else {
+                    // 按游标分批读取 写入
+                    String cursor = null;
+                    boolean hasMore;
+                    do {
+                        CursorPage<T,E> page = new CursorPage<>(cursor, EXCEL_EXPORT_BATCH_SIZE, queryBuilder);
+                        page = IService.findCursorPage(page);
+                        excelWriter.write(ExcelUtil.getInstance().handleDatas(
+                                page.getList(), modelClazz, ExcelOperate.WRITE, fieldsDict));
+                        cursor = page.getNextCursor();
+                        hasMore = page.isHasMore();
+
+                        // 进度回调 / 取消
+                        if(Thread.currentThread().isInterrupted() ||
+                                (listener != null && !listener.onProgress(excelWriter.getCount()))){
+                            throw new ExcelPluginException(CoreMsg.EXCEL_EXPORT_CANCEL);
+                        }
+                    }while (hasMore);
+                }
+            }else {
+                // 模版 只输出表头
+                excelWriter.write(ListUtil.empty());
             }
             // 导出Excel
-            ExcelUtil.getInstance().writeExcel(response, modelList ,fileName,"sheet", modelClazz ,ExcelTypeEnum.XLSX);
+            excelWriter.finish();
             // 花费毫秒数
             long timerCount = timer.interval();
             // 提示信息
-            msgInfo = StrUtil.format(CoreMsg.EXCEL_EXPORT_SUCCESS.getMessage(), modelList.size(),
+            msgInfo = StrUtil.format(CoreMsg.EXCEL_EXPORT_SUCCESS.getMessage(), excelWriter.getCount(),
                     DateUtil.formatBetween(timerCount));
             // 导出成功
             resultVo = ResultVo.success(msgInfo);
@@ -335,8 +437,8 @@ public abstract class BaseRestController <T extends BaseEntity, E extends ApiWra
             // 导出失败
             resultVo = ResultVo.error(CoreMsg.EXCEL_EXPORT_ERROR.getCode(), msgInfo);
         }finally {
-            // 清空list
-            modelList.clear();
+            // 未完成则放弃输出
+            excelWriter.abort();
         }
         // 记录导出日志
         log.info(msgInfo);
@@ -29,9 +29,13 @@ import org.opsli.common.utils.WrapperUtil;
 import org.opsli.core.base.entity.BaseEntity;
 import org.opsli.core.base.service.base.BaseService;
 import org.opsli.core.base.service.interfaces.CrudServiceInterface;
+import org.opsli.core.filters.interceptor.AutoFillContext;
+import org.opsli.core.filters.interceptor.AutoFillPlan;
+import org.opsli.core.persistence.CursorPage;
 import org.opsli.core.persistence.Page;
 import org.opsli.core.persistence.querybuilder.GenQueryBuilder;
 import org.opsli.core.persistence.querybuilder.QueryBuilder;
+import org.opsli.core.persistence.querybuilder.chain.QueryBuilderChain;
 import org.opsli.core.persistence.querybuilder.chain.QueryDataPermsHandler;
 import org.opsli.core.persistence.querybuilder.chain.QueryTenantHandler;
 import org.opsli.core.persistence.querybuilder.conf.WebQueryConf;
@@ -66,6 +70,9 @@ public abstract class CrudServiceImpl<M extends BaseMapper<T>, T extends BaseEnt
 
     /** JSON tmp */
     private static final String JSON_TMP = "{\"id\":\"1\"}";
+    /** 数据处理责任链 (无状态 共用) */
+    private static final QueryBuilderChain QUERY_HANDLER_CHAIN =
+            new QueryTenantHandler(new QueryDataPermsHandler());
     /** Entity Clazz 类 */
     protected Class<T> entityClazz;
     /** Model Clazz 类 */
@@ -131,7 +138,21 @@ public abstract class CrudServiceImpl<M extends BaseMapper<T>, T extends BaseEnt
 
 
         List<T> entitys = transformMs2Ts(models);
-        return super.saveBatch(entitys);
+
+        // 整批共用一个填充上下文 当前用户只解析一次 逐条新增时不再重复填充
+        try (AutoFillContext context = AutoFillContext.open()){
+            AutoFillPlan.insertFill(entitys, context);
+            boolean ret = super.saveBatch(entitys);
+            if(ret){
+                // 回写主键 供子类后续处理 (缓存、防穿透过滤器等)
+                for (int i = 0; i < entitys.size() && i < models.size(); i++) {
+                    if(StringUtils.isEmpty(models.get(i).getId())){
+                        models.get(i).setId(entitys.get(i).getId());
+                    }
+                }
+            }
+            return ret;
+        }
     }
 
     @Override
@@ -254,6 +275,18 @@ public abstract class CrudServiceImpl<M extends BaseMapper<T>, T extends BaseEnt
         return page;
     }
 
+    @Override
+    public CursorPage<T,E> findCursorPage(CursorPage<T,E> page) {
+        page.begin(entityClazz);
+        try{
+            List<T> list = this.findList(page.getQueryWrapper());
+            page.instance(list, transformTs2Ms(list));
+        } finally {
+            page.end();
+        }
+        return page;
+    }
+
     // ======================== 对象转化 ========================
 
     /**
@@ -315,9 +348,7 @@ public abstract class CrudServiceImpl<M extends BaseMapper<T>, T extends BaseEnt
      */
     protected <Q extends BaseEntity> QueryWrapper<Q> addHandler(Class<Q> qClass, QueryWrapper<Q> qQueryWrapper){
         // 数据处理责任链
-        return  new QueryTenantHandler(
-                new QueryDataPermsHandler()
-        ).handler(qClass, qQueryWrapper);
+        return QUERY_HANDLER_CHAIN.handler(qClass, qQueryWrapper);
     }
 
     /**
@@ -331,9 +362,7 @@ public abstract class CrudServiceImpl<M extends BaseMapper<T>, T extends BaseEnt
                                                                 WebQueryConf conf,
                                                                 QueryWrapper<Q> qQueryWrapper){
         // 数据处理责任链
-        return  new QueryTenantHandler(
-                new QueryDataPermsHandler()
-        ).handler(qClass, conf, qQueryWrapper);
+        return QUERY_HANDLER_CHAIN.handler(qClass, conf, qQueryWrapper);
     }
 
     // ======================== 初始化 ========================
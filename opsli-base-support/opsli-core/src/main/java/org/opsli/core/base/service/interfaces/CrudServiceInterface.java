@@ -20,6 +20,7 @@ package org.opsli.core.base.service.interfaces;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.opsli.api.base.warpper.ApiWrapper;
 import org.opsli.core.base.entity.BaseEntity;
+import org.opsli.core.persistence.CursorPage;
 import org.opsli.core.persistence.Page;
 
 import java.util.Collection;
@@ -202,6 +203,13 @@ public interface CrudServiceInterface<T extends BaseEntity, E extends ApiWrapper
      */
     Page<T,E> findPageNotCount(Page<T,E> page);
 
+    /**
+     * 查询游标分页数据 (Keyset 分页 不查询 count)
+     * @param page 游标分页
+     * @return  CursorPage<T>
+     */
+    CursorPage<T,E> findCursorPage(CursorPage<T,E> page);
+
 
     /**
      * 获得Model Clazz
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.convert.Convert;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.opsli.core.cache.local.CacheUtil;
+import org.opsli.core.cache.local.TicketCache;
+import org.opsli.plugins.redis.RedisPlugin;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
+
+/**
+ * 数字信封 会话密钥缓存
+ *
+ * 会话密钥按 Token 存放在 Redis 中 (Key 为 Token 摘要)，集群内各服务器共用
+ * 建立会话后 30 分钟有效，过期后客户端需重新建立会话
+ * Token 撤销 (退出登录、登录数量限制弹出) 时同步清除
+ *
+ * @author Parker
+ * @date 2021-06-09 18:10
+ */
+@Slf4j
+@Order(UTIL_ORDER)
+@Component
+@Lazy(false)
+public class CryptoSessionCache {
+
+    /** 前缀 */
+    private static final String PREFIX = "crypto:session:";
+    /** 有效期 (分钟) */
+    private static final int EXPIRE = 30;
+
+    /** Redis 插件 */
+    private static RedisPlugin redisPlugin;
+
+    /**
+     * 获得会话密钥
+     * @param token token
+     * @return byte[] 不存在或已过期为空
+     */
+    public static byte[] get(String token){
+        if(StringUtils.isEmpty(token) || redisPlugin == null){
+            return null;
+        }
+        try {
+            String sessionKey = Convert.toStr(redisPlugin.get(getKey(token)));
+            return StringUtils.isEmpty(sessionKey) ? null : Base64.decode(sessionKey);
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+        }
+        return null;
+    }
+
+    /**
+     * 保存会话密钥
+     * @param token token
+     * @param sessionKey 会话密钥
+     */
+    public static void put(String token, byte[] sessionKey){
+        if(StringUtils.isEmpty(token) || sessionKey == null || redisPlugin == null){
+            return;
+        }
+        try {
+            redisPlugin.put(getKey(token), Base64.encode(sessionKey), EXPIRE, TimeUnit.MINUTES);
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 清除会话密钥
+     * @param token token
+     */
+    public static void remove(String token){
+        if(StringUtils.isEmpty(token) || redisPlugin == null){
+            return;
+        }
+        try {
+            redisPlugin.del(getKey(token));
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 缓存Key
+     * @param token token
+     * @return String
+     */
+    private static String getKey(String token){
+        return CacheUtil.getPrefixName() + PREFIX + TicketCache.digest(token);
+    }
+
+    // =====================================
+
+    /**
+     * 初始化
+     * @param redisPlugin Redis 插件
+     */
+    @Autowired
+    public void init(RedisPlugin redisPlugin){
+        CryptoSessionCache.redisPlugin = redisPlugin;
+    }
+
+}
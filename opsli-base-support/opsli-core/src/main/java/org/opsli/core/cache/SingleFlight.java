@@ -0,0 +1,208 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache;
+
+import cn.hutool.core.util.ObjectUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 单飞加载器 (本节点内请求合并)
+ *
+ * 缓存未命中时，同一节点内相同Key的并发请求共享同一次加载：
+ * 第一个到达的线程为领航者，执行加载逻辑（申领分布式锁、二次检查缓存、查询数据库）
+ * 其余线程只等待领航者的结果，不再重复申领分布式锁，也不会重复查库
+ *
+ * 领航者在返回前保存结果快照，跟随者各自从快照还原出独立的对象，可以随意修改
+ * 无法生成快照 (未实现 Serializable)、等待超时、或同一线程重入相同 Key 时，直接执行加载
+ *
+ * @author Parker
+ * @date 2021-06-02 14:10
+ */
+@Slf4j
+public final class SingleFlight {
+
+    /** 跟随者最长等待时间 秒 (需大于分布式锁有效时长) */
+    private static final long WAIT_TIMEOUT = 15;
+
+    /** 进行中的加载 */
+    private static final ConcurrentMap<String, Flight> FLIGHTS =
+            new ConcurrentHashMap<>();
+
+    private SingleFlight(){}
+
+    /**
+     * 执行加载
+     * 相同 Key 同一时间只会有一个线程执行 loader，其余线程等待并共享结果
+     *
+     * @param key 键
+     * @param loader 加载逻辑
+     * @return <V> 泛型
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> V execute(final String key, final Supplier<V> loader){
+        Flight flight = new Flight(Thread.currentThread());
+        Flight existFlight = FLIGHTS.putIfAbsent(key, flight);
+
+        if(existFlight != null){
+            // 同一线程重入相同 Key 等待自己会死锁 直接加载
+            if(existFlight.owner == Thread.currentThread()){
+                return loader.get();
+            }
+
+            // 跟随者 等待领航者结果
+            Snapshot snapshot = SingleFlight.await(key, existFlight);
+            if(snapshot == null || !snapshot.isShareable()){
+                return loader.get();
+            }
+            return (V) snapshot.restore();
+        }
+
+        // 领航者 执行加载
+        try {
+            V v = loader.get();
+            flight.future.complete(Snapshot.of(v));
+            return v;
+        }catch (RuntimeException | Error e){
+            flight.future.completeExceptionally(e);
+            throw e;
+        }finally {
+            FLIGHTS.remove(key, flight);
+        }
+    }
+
+    /**
+     * 获得当前进行中的加载数量
+     * @return int
+     */
+    public static int getInFlightCount(){
+        return FLIGHTS.size();
+    }
+
+    /**
+     * 获得相同 Key 正在等待领航者结果的跟随者数量
+     * @param key 键
+     * @return int
+     */
+    public static int getWaitingCount(final String key){
+        Flight flight = FLIGHTS.get(key);
+        return flight != null ? flight.future.getNumberOfDependents() : 0;
+    }
+
+    // ====================================================================
+
+    /**
+     * 等待领航者结果
+     * @param key 键
+     * @param flight 进行中的加载
+     * @return Snapshot 超时或中断时返回 null
+     */
+    private static Snapshot await(final String key, final Flight flight){
+        try {
+            return flight.future.get(WAIT_TIMEOUT, TimeUnit.SECONDS);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            log.error("单飞加载等待被中断 直接加载, key: {}", key);
+        }catch (TimeoutException e){
+            log.error("单飞加载等待超时 直接加载, key: {}", key);
+        }catch (ExecutionException e){
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException){
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error){
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        return null;
+    }
+
+    /**
+     * 进行中的加载
+     */
+    private static final class Flight {
+
+        /** 领航者线程 */
+        private final Thread owner;
+        /** 加载结果 */
+        private final CompletableFuture<Snapshot> future = new CompletableFuture<>();
+
+        private Flight(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * 结果快照
+     */
+    private static final class Snapshot {
+
+        /** 不可变结果 直接共享 */
+        private final Object value;
+        /** 序列化结果 跟随者各自还原 */
+        private final byte[] bytes;
+        /** 是否可共享 */
+        private final boolean shareable;
+
+        private Snapshot(Object value, byte[] bytes, boolean shareable) {
+            this.value = value;
+            this.bytes = bytes;
+            this.shareable = shareable;
+        }
+
+        /**
+         * 生成快照
+         * @param v 加载结果
+         * @return Snapshot
+         */
+        private static Snapshot of(Object v) {
+            if(v == null || v instanceof String || v instanceof Number
+                    || v instanceof Boolean || v instanceof Character || v instanceof Enum){
+                return new Snapshot(v, null, true);
+            }
+            if(v instanceof Serializable){
+                try {
+                    return new Snapshot(null, ObjectUtil.serialize(v), true);
+                }catch (Exception e){
+                    log.warn("单飞加载结果无法生成快照 跟随者将直接加载, type: {}", v.getClass().getName());
+                }
+            }
+            return new Snapshot(null, null, false);
+        }
+
+        private boolean isShareable() {
+            return shareable;
+        }
+
+        /**
+         * 还原出独立的对象
+         * @return Object
+         */
+        private Object restore() {
+            return bytes != null ? ObjectUtil.deserialize(bytes) : value;
+        }
+    }
+
+}
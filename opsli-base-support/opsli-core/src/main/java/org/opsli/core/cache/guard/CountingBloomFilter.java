@@ -0,0 +1,184 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.guard;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 计数布隆过滤器
+ *
+ * 每个位置使用一个字节计数，支持删除；计数达到上限后不再增减（防止溢出导致误删）
+ * 读操作无锁，写操作串行，读到的是最终一致的数据
+ *
+ * @author Parker
+ * @date 2021-06-03 10:30
+ */
+public class CountingBloomFilter {
+
+    /** 计数上限 */
+    private static final int MAX_COUNT = Byte.MAX_VALUE;
+
+    /** 计数器 */
+    private final byte[] counters;
+    /** 哈希函数个数 */
+    private final int numHashFunctions;
+    /** 非零计数器个数 */
+    private int nonZeroCount;
+    /** 写入Key数 */
+    private long keyCount;
+
+    /**
+     * 构造函数
+     * @param expectedInsertions 预期数据量
+     * @param fpp 期望误判率
+     */
+    public CountingBloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(expectedInsertions, 1);
+        double p = Math.min(Math.max(fpp, Double.MIN_VALUE), 0.5);
+        long m = (long) (-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int size = (int) Math.max(Math.min(m, Integer.MAX_VALUE - 8), 64);
+        this.counters = new byte[size];
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+    }
+
+    /**
+     * 是否可能存在
+     * @param key 键
+     * @return boolean false 则一定不存在
+     */
+    public boolean mightContain(String key) {
+        long[] hashes = hash(key);
+        long combined = hashes[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            if(counters[index(combined)] == 0){
+                return false;
+            }
+            combined += hashes[1];
+        }
+        return true;
+    }
+
+    /**
+     * 写入
+     * @param key 键
+     */
+    public synchronized void put(String key) {
+        long[] hashes = hash(key);
+        long combined = hashes[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            int index = index(combined);
+            int count = counters[index];
+            if(count < MAX_COUNT){
+                if(count == 0){
+                    nonZeroCount++;
+                }
+                counters[index] = (byte) (count + 1);
+            }
+            combined += hashes[1];
+        }
+        keyCount++;
+    }
+
+    /**
+     * 删除
+     * 只有当前判断存在时才执行，避免删除从未写入的Key 造成其他Key被误判为不存在
+     * @param key 键
+     * @return boolean
+     */
+    public synchronized boolean remove(String key) {
+        if(!this.mightContain(key)){
+            return false;
+        }
+
+        long[] hashes = hash(key);
+        long combined = hashes[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            int index = index(combined);
+            int count = counters[index];
+            // 已饱和的计数器 无法确认真实次数 保持不变
+            if(count > 0 && count < MAX_COUNT){
+                if(count == 1){
+                    nonZeroCount--;
+                }
+                counters[index] = (byte) (count - 1);
+            }
+            combined += hashes[1];
+        }
+        keyCount = Math.max(keyCount - 1, 0);
+        return true;
+    }
+
+    /**
+     * 当前理论误判率 (非零比例 ^ 哈希函数个数)
+     * @return double
+     */
+    public double expectedFpp() {
+        return Math.pow((double) nonZeroCount / counters.length, numHashFunctions);
+    }
+
+    /**
+     * 写入Key数
+     * @return long
+     */
+    public long getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * 计数器个数
+     * @return int
+     */
+    public int getSize() {
+        return counters.length;
+    }
+
+    /**
+     * 哈希函数个数
+     * @return int
+     */
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    // ====================================================================
+
+    /**
+     * 计算下标
+     * @param combined 组合哈希
+     * @return int
+     */
+    private int index(long combined) {
+        return (int) ((combined & Long.MAX_VALUE) % counters.length);
+    }
+
+    /**
+     * murmur3 128位 拆分为两个64位哈希 (双重哈希模拟 k 个哈希函数)
+     * @param key 键
+     * @return long[]
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    private static long[] hash(String key) {
+        byte[] bytes = Hashing.murmur3_128()
+                .hashString(key, StandardCharsets.UTF_8).asBytes();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        return new long[]{ buffer.getLong(0), buffer.getLong(8) };
+    }
+
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.guard;
+
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 防穿透过滤器 数据加载器
+ *
+ * 由业务模块实现，启动时将已存在的 Key 灌入过滤器
+ * 只有被加载过的 Key 空间 才会启用过滤，其余继续使用空属性防穿透
+ *
+ * @author Parker
+ * @date 2021-06-03 10:30
+ */
+public interface GuardSeeder {
+
+    /**
+     * 负责加载的 Key 空间
+     * @return Set
+     */
+    Set<GuardType> getTypes();
+
+    /**
+     * 加载已存在的 Key
+     * @param consumer 类型 - Key
+     */
+    void seed(BiConsumer<GuardType, String> consumer);
+
+}
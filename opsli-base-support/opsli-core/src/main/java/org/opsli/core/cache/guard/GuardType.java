@@ -0,0 +1,40 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.guard;
+
+/**
+ * 防穿透过滤器 Key 空间
+ *
+ * @author Parker
+ * @date 2021-06-03 10:30
+ */
+public enum GuardType {
+
+    /** 用户ID */
+    USER_ID,
+
+    /** 用户名 */
+    USERNAME,
+
+    /** 字典类型编号 */
+    DICT_TYPE,
+
+    /** 租户ID */
+    TENANT_ID,
+
+    ;
+
+}
@@ -0,0 +1,528 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.guard;
+
+import cn.hutool.core.collection.CollUtil;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.opsli.core.autoconfigure.properties.CacheProperties;
+import org.opsli.core.cache.local.CacheUtil;
+import org.opsli.core.cache.pushsub.enums.CacheHandleType;
+import org.opsli.core.cache.pushsub.msgs.GuardMsgFactory;
+import org.opsli.core.msg.CoreMsg;
+import org.opsli.core.utils.ThrowExceptionUtil;
+import org.opsli.plugins.redis.RedisPlugin;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
+
+/**
+ * 缓存防穿透 过滤器
+ *
+ * 本地维护已存在 Key 的计数布隆过滤器（按 Key 空间区分），判断一定不存在的 Key 直接拒绝，不再访问 Redis
+ * 启动后由 GuardSeeder 灌入数据，并按间隔定时重新加载 (修复漏掉的变更)，新增/删除 通过消息订阅同步到其他节点
+ * 删除在事务提交后执行，回滚时不会误删仍然存在的 Key
+ *
+ * 未启用 或 对应 Key 空间尚未加载完成时，回退为 Redis 空属性防穿透
+ *
+ * @author Parker
+ * @date 2021-06-03 10:30
+ */
+@Slf4j
+@Order(UTIL_ORDER)
+@Component
+@Lazy(false)
+public class PenetrationGuard {
+
+    /** 过滤器 */
+    private static final Map<GuardType, Holder> HOLDERS = new EnumMap<>(GuardType.class);
+
+    static {
+        for (GuardType type : GuardType.values()) {
+            HOLDERS.put(type, new Holder());
+        }
+    }
+
+    /** 是否启用 */
+    private static boolean ENABLE;
+    /** 期望误判率 */
+    private static double FPP;
+    /** 最小预期数据量 */
+    private static long EXPECTED_INSERTIONS;
+
+    /** 重新加载锁 同一时刻只有一次加载 */
+    private static final Object RELOAD_LOCK = new Object();
+    /** 定时重新加载线程 */
+    private static ScheduledExecutorService RELOAD_EXECUTOR;
+
+    /** Redis插件 */
+    private static RedisPlugin redisPlugin;
+    /** 数据加载器 */
+    private static ObjectProvider<GuardSeeder> seederProvider;
+
+    /** 增加初始状态开关 防止异常使用 */
+    private static boolean IS_INIT;
+
+    /**
+     * 是否可能存在
+     * 未启用 或 尚未加载完成时 一律返回 true
+     * @param type Key 空间
+     * @param key 键
+     * @return boolean false 则一定不存在
+     */
+    public static boolean mightExist(GuardType type, String key) {
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        Holder holder = HOLDERS.get(type);
+        CountingBloomFilter filter = holder.filter;
+        if(!ENABLE || filter == null){
+            return true;
+        }
+
+        if(StringUtils.isEmpty(key) || !filter.mightContain(key)){
+            holder.rejectCount.increment();
+            return false;
+        }
+
+        holder.passCount.increment();
+        return true;
+    }
+
+    /**
+     * 是否拦截 (替代 CacheUtil.hasNilFlag)
+     * 过滤器可用时 只做本地判断，否则回退为 Redis 空属性判断
+     * @param type Key 空间
+     * @param key 键
+     * @param cacheKey 缓存Key (空属性使用)
+     * @return boolean
+     */
+    public static boolean hasNilFlag(GuardType type, String key, String cacheKey) {
+        if(PenetrationGuard.isReady(type)){
+            return !PenetrationGuard.mightExist(type, key);
+        }
+        return CacheUtil.hasNilFlag(cacheKey);
+    }
+
+    /**
+     * 标记不存在 (替代 CacheUtil.putNilFlag)
+     * 过滤器可用时 说明本次为误判，只做统计，否则回退为 Redis 空属性
+     * @param type Key 空间
+     * @param key 键
+     * @param cacheKey 缓存Key (空属性使用)
+     */
+    public static void putNilFlag(GuardType type, String key, String cacheKey) {
+        if(PenetrationGuard.isReady(type)){
+            HOLDERS.get(type).falsePositiveCount.increment();
+            return;
+        }
+        CacheUtil.putNilFlag(cacheKey);
+    }
+
+    /**
+     * 新增 Key 并通知其他节点
+     * 本地立即写入 (事务内后续查询可用)，处于事务中时 在事务提交后通知其他节点
+     * @param type Key 空间
+     * @param keys 键集合
+     */
+    public static void put(GuardType type, Collection<String> keys) {
+        if(!ENABLE || CollUtil.isEmpty(keys)){
+            return;
+        }
+        PenetrationGuard.putLocal(type, keys);
+
+        List<String> keyList = Lists.newArrayList(keys);
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // 提交前已开始的加载 可能读不到该数据 再记录一次
+                    PenetrationGuard.journal(type, keyList);
+                    PenetrationGuard.broadcast(type, keyList, CacheHandleType.UPDATE);
+                }
+            });
+        }else {
+            PenetrationGuard.broadcast(type, keyList, CacheHandleType.UPDATE);
+        }
+    }
+
+    /**
+     * 新增 Key 并通知其他节点
+     * @param type Key 空间
+     * @param key 键
+     */
+    public static void put(GuardType type, String key) {
+        PenetrationGuard.put(type, Collections.singletonList(key));
+    }
+
+    /**
+     * 删除 Key 并通知其他节点
+     * 处于事务中时 在事务提交后执行 (计数布隆过滤器删除后无法撤回)
+     * @param type Key 空间
+     * @param keys 键集合
+     */
+    public static void remove(GuardType type, Collection<String> keys) {
+        if(!ENABLE || CollUtil.isEmpty(keys)){
+            return;
+        }
+        List<String> keyList = Lists.newArrayList(keys);
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    PenetrationGuard.removeAndBroadcast(type, keyList);
+                }
+            });
+        }else {
+            PenetrationGuard.removeAndBroadcast(type, keyList);
+        }
+    }
+
+    /**
+     * 新增 Key (仅本地)
+     * @param type Key 空间
+     * @param keys 键集合
+     */
+    public static void putLocal(GuardType type, Collection<String> keys) {
+        if(!ENABLE || CollUtil.isEmpty(keys)){
+            return;
+        }
+        Holder holder = HOLDERS.get(type);
+        synchronized (holder){
+            for (String key : keys) {
+                if(StringUtils.isEmpty(key)){
+                    continue;
+                }
+                if(holder.filter != null){
+                    holder.filter.put(key);
+                }
+                // 加载中 记录新增 切换前补写入新过滤器 防止切换后丢失
+                if(holder.journal != null){
+                    holder.journal.add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * 删除 Key (仅本地)
+     * @param type Key 空间
+     * @param keys 键集合
+     */
+    public static void removeLocal(GuardType type, Collection<String> keys) {
+        if(!ENABLE || CollUtil.isEmpty(keys)){
+            return;
+        }
+        Holder holder = HOLDERS.get(type);
+        synchronized (holder){
+            for (String key : keys) {
+                if(StringUtils.isEmpty(key)){
+                    continue;
+                }
+                // 加载中的删除 不在新过滤器中重放 (Key 可能未被读到，删除不存在的 Key 会误删其他 Key)
+                // 只会多放行，由空属性兜底
+                if(holder.filter != null){
+                    holder.filter.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * 重新加载过滤器
+     * 先在新过滤器中加载完成 再整体切换，加载开始后的新增会被记录，切换前补写入新过滤器
+     */
+    public static void reload() {
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        if(!ENABLE || seederProvider == null){
+            return;
+        }
+
+        synchronized (RELOAD_LOCK){
+            seederProvider.orderedStream().forEach(PenetrationGuard::reload);
+        }
+    }
+
+    /**
+     * 重新加载过滤器
+     * @param seeder 数据加载器
+     */
+    private static void reload(GuardSeeder seeder) {
+        // 读取数据前 开始记录新增 (读取期间提交的数据 可能未被读到)
+        for (GuardType type : seeder.getTypes()) {
+            Holder holder = HOLDERS.get(type);
+            synchronized (holder){
+                holder.journal = Lists.newArrayList();
+            }
+        }
+        try {
+            // 先收集 Key 按实际数据量决定过滤器大小
+            Map<GuardType, List<String>> keyMap = Maps.newEnumMap(GuardType.class);
+            seeder.seed((type, key) -> {
+                if(StringUtils.isNotEmpty(key)){
+                    keyMap.computeIfAbsent(type, k -> Lists.newArrayList()).add(key);
+                }
+            });
+
+            for (GuardType type : seeder.getTypes()) {
+                List<String> keys = keyMap.getOrDefault(type, Collections.emptyList());
+                PenetrationGuard.build(type, keys);
+            }
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+        }finally {
+            for (GuardType type : seeder.getTypes()) {
+                Holder holder = HOLDERS.get(type);
+                synchronized (holder){
+                    holder.journal = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 获得统计信息
+     * @return Map
+     */
+    public static Map<GuardType, Stats> getStats() {
+        Map<GuardType, Stats> statsMap = Maps.newEnumMap(GuardType.class);
+        for (Map.Entry<GuardType, Holder> entry : HOLDERS.entrySet()) {
+            Holder holder = entry.getValue();
+            CountingBloomFilter filter = holder.filter;
+
+            Stats stats = new Stats();
+            stats.setReady(ENABLE && filter != null);
+            stats.setRejectCount(holder.rejectCount.sum());
+            stats.setPassCount(holder.passCount.sum());
+            stats.setFalsePositiveCount(holder.falsePositiveCount.sum());
+            stats.setFalsePositiveRate(stats.getPassCount() == 0 ? 0 :
+                    (double) stats.getFalsePositiveCount() / stats.getPassCount());
+            if(filter != null){
+                stats.setKeyCount(filter.getKeyCount());
+                stats.setSize(filter.getSize());
+                stats.setExpectedFpp(filter.expectedFpp());
+            }
+            statsMap.put(entry.getKey(), stats);
+        }
+        return statsMap;
+    }
+
+    // ====================================================================
+
+    /**
+     * 过滤器是否可用
+     * @param type Key 空间
+     * @return boolean
+     */
+    private static boolean isReady(GuardType type) {
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        return ENABLE && HOLDERS.get(type).filter != null;
+    }
+
+    /**
+     * 构建过滤器
+     * @param type Key 空间
+     * @param keys 已存在的 Key
+     */
+    private static void build(GuardType type, List<String> keys) {
+        Holder holder = HOLDERS.get(type);
+        // 预留一倍空间 给后续新增数据
+        long expectedInsertions = Math.max(EXPECTED_INSERTIONS, keys.size() * 2L);
+        CountingBloomFilter building = new CountingBloomFilter(expectedInsertions, FPP);
+        for (String key : keys) {
+            building.put(key);
+        }
+
+        synchronized (holder){
+            // 补写入 加载期间的新增
+            if(holder.journal != null){
+                for (String key : holder.journal) {
+                    building.put(key);
+                }
+                holder.journal = null;
+            }
+            holder.filter = building;
+        }
+
+        log.info("防穿透过滤器加载完成 - 类型: {}, 数据量: {}, 容量: {}", type, keys.size(), building.getSize());
+    }
+
+    /**
+     * 记录加载期间的新增 (未在加载时忽略)
+     * @param type Key 空间
+     * @param keys 键集合
+     */
+    private static void journal(GuardType type, Collection<String> keys) {
+        Holder holder = HOLDERS.get(type);
+        synchronized (holder){
+            if(holder.journal != null){
+                holder.journal.addAll(keys);
+            }
+        }
+    }
+
+    /**
+     * 删除 Key 并通知其他节点
+     * @param type Key 空间
+     * @param keys 键集合
+     */
+    private static void removeAndBroadcast(GuardType type, Collection<String> keys) {
+        PenetrationGuard.removeLocal(type, keys);
+        PenetrationGuard.broadcast(type, keys, CacheHandleType.DELETE);
+    }
+
+    /**
+     * 广播 - 通知其他服务器同步过滤器
+     * @param type Key 空间
+     * @param keys 键集合
+     * @param handleType 操作类型
+     */
+    private static void broadcast(GuardType type, Collection<String> keys, CacheHandleType handleType) {
+        try {
+            redisPlugin.sendMessage(
+                    GuardMsgFactory.createMsg(type, keys, handleType)
+            );
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    // ====================================================================
+
+    /**
+     * 过滤器持有者
+     */
+    private static final class Holder {
+
+        /** 当前过滤器 (为空表示尚未加载) */
+        private volatile CountingBloomFilter filter;
+        /** 加载期间的新增 (为空表示未在加载) */
+        private List<String> journal;
+
+        /** 拦截次数 */
+        private final LongAdder rejectCount = new LongAdder();
+        /** 放行次数 */
+        private final LongAdder passCount = new LongAdder();
+        /** 误判次数 (放行后 数据依旧不存在) */
+        private final LongAdder falsePositiveCount = new LongAdder();
+    }
+
+    /**
+     * 统计信息
+     */
+    @Data
+    public static class Stats {
+
+        /** 是否可用 */
+        private boolean ready;
+
+        /** 写入Key数 */
+        private long keyCount;
+
+        /** 计数器个数 */
+        private int size;
+
+        /** 拦截次数 */
+        private long rejectCount;
+
+        /** 放行次数 */
+        private long passCount;
+
+        /** 误判次数 */
+        private long falsePositiveCount;
+
+        /** 实际误判率 (误判次数 / 放行次数) */
+        private double falsePositiveRate;
+
+        /** 理论误判率 */
+        private double expectedFpp;
+
+    }
+
+    // ====================================================================
+
+    /**
+     * 初始化
+     */
+    @Autowired
+    public void init(CacheProperties cacheProperties,
+                     RedisPlugin redisPlugin,
+                     ObjectProvider<GuardSeeder> seederProvider){
+        CacheProperties.Guard guard = cacheProperties.getGuard();
+        PenetrationGuard.ENABLE = guard.isEnable();
+        PenetrationGuard.FPP = guard.getFpp();
+        PenetrationGuard.EXPECTED_INSERTIONS = guard.getExpectedInsertions();
+        PenetrationGuard.redisPlugin = redisPlugin;
+        PenetrationGuard.seederProvider = seederProvider;
+
+        IS_INIT = true;
+
+        // 定时重新加载 (首次加载在系统启动完成后执行)
+        if(ENABLE && guard.getReloadInterval() > 0 && RELOAD_EXECUTOR == null){
+            RELOAD_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "opsli-guard-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            RELOAD_EXECUTOR.scheduleWithFixedDelay(() -> {
+                try {
+                    PenetrationGuard.reload();
+                }catch (Exception e){
+                    log.error(e.getMessage(), e);
+                }
+            }, guard.getReloadInterval(), guard.getReloadInterval(), TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * 停机
+     */
+    @PreDestroy
+    public void shutdown(){
+        ScheduledExecutorService executor = RELOAD_EXECUTOR;
+        if(executor != null){
+            executor.shutdownNow();
+        }
+    }
+
+}
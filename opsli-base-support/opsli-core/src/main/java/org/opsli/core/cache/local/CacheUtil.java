@@ -26,6 +26,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.opsli.common.constants.CacheConstants;
 import org.opsli.common.enums.CacheType;
 import org.opsli.core.autoconfigure.properties.CacheProperties;
+import org.opsli.core.cache.pushsub.msgs.LocalCacheMsgFactory;
 import org.opsli.core.msg.CoreMsg;
 import org.opsli.core.utils.ThrowExceptionUtil;
 import org.opsli.plugins.cache.EhCachePlugin;
@@ -40,8 +41,11 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
 
@@ -70,6 +74,10 @@ public class CacheUtil {
     private static RedisPlugin redisPlugin;
     /** EhCache插件 */
     private static EhCachePlugin ehCachePlugin;
+    /** 近端缓存 */
+    private static NearCache nearCache;
+    /** 近端缓存 启用类型 */
+    private static Set<CacheType> NEAR_CACHE_TYPES = Collections.emptySet();
     /** Json key */
     public static final String JSON_KEY = "data";
     /** 空状态 key 前缀 */
@@ -240,6 +248,25 @@ public class CacheUtil {
         ThrowExceptionUtil.isThrowException(!IS_INIT,
                 CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
 
+        // 近端缓存 (需要保存到本地时)
+        if(isSaveLocal && CacheUtil.isNearCache(isEden ? CacheType.EDEN : CacheType.TIMED)){
+            try {
+                // 缓存 Key
+                String cacheKey  = CacheUtil.handleUsualKey(key, isEden);
+                V v = nearCache.get(cacheKey, vClass);
+                if(v != null){
+                    return v;
+                }
+
+                // 如果近端缓存找不到该缓存 则去远端缓存拉去缓存
+                JSONObject cacheJson = (JSONObject) redisPlugin.get(cacheKey);
+                return CacheUtil.putNear(cacheKey, cacheJson, vClass);
+            }catch (Exception e){
+                log.error(e.getMessage(),e);
+            }
+            return null;
+        }
+
         // 获得缓存数据
         Object cacheObj = CacheUtil.get(key, isEden, isSaveLocal);
         // 转换数据泛型
@@ -265,6 +292,18 @@ public class CacheUtil {
             // 获得缓存Json
             JSONObject cacheJson;
 
+            // 近端缓存 优先于 EhCache
+            if(isSaveLocal && CacheUtil.isNearCache(isEden ? CacheType.EDEN : CacheType.TIMED)){
+                Object nearObj = nearCache.get(cacheKey);
+                if(nearObj != null){
+                    return nearObj;
+                }
+
+                // 如果近端缓存找不到该缓存 则去远端缓存拉去缓存
+                cacheJson = (JSONObject) redisPlugin.get(cacheKey);
+                return CacheUtil.putNear(cacheKey, cacheJson);
+            }
+
             // 判读是否需要 先从本地缓存获取
             if(isSaveLocal){
                 // 获得缓存Json
@@ -307,10 +346,7 @@ public class CacheUtil {
         ThrowExceptionUtil.isThrowException(!IS_INIT,
                 CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
 
-        // 获得缓存数据
-        Object cacheObj = CacheUtil.getHash(key, field, false);
-        // 转换数据泛型
-        return Convert.convert(vClass, cacheObj);
+        return CacheUtil.getHash(vClass, key, field, false);
     }
 
     /**
@@ -327,6 +363,25 @@ public class CacheUtil {
         ThrowExceptionUtil.isThrowException(!IS_INIT,
                 CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
 
+        // 近端缓存 (需要保存到本地时)
+        if(isSaveLocal && CacheUtil.isNearCache(CacheType.EDEN_HASH)){
+            try {
+                // 缓存 Key
+                String cacheKey  = CacheUtil.handleKey(CacheType.EDEN_HASH, key);
+                V v = nearCache.get(cacheKey +":"+ field, vClass);
+                if(v != null){
+                    return v;
+                }
+
+                // 如果近端缓存找不到该缓存 则去远端缓存拉去缓存
+                JSONObject cacheJson = (JSONObject) redisPlugin.hGet(cacheKey, field);
+                return CacheUtil.putNear(cacheKey +":"+ field, cacheJson, vClass);
+            }catch (Exception e){
+                log.error(e.getMessage(),e);
+            }
+            return null;
+        }
+
         // 获得缓存数据
         Object cacheObj = CacheUtil.getHash(key, field, isSaveLocal);
         // 转换数据泛型
@@ -367,6 +422,18 @@ public class CacheUtil {
             // 获得缓存Json
             JSONObject cacheJson;
 
+            // 近端缓存 优先于 EhCache
+            if(isSaveLocal && CacheUtil.isNearCache(CacheType.EDEN_HASH)){
+                Object nearObj = nearCache.get(cacheKey +":"+ field);
+                if(nearObj != null){
+                    return nearObj;
+                }
+
+                // 如果近端缓存找不到该缓存 则去远端缓存拉去缓存
+                cacheJson = (JSONObject) redisPlugin.hGet(cacheKey, field);
+                return CacheUtil.putNear(cacheKey +":"+ field, cacheJson);
+            }
+
             // 判读是否需要 先从本地缓存获取
             if(isSaveLocal){
                 // 获得缓存Json
@@ -439,6 +506,97 @@ public class CacheUtil {
         return null;
     }
 
+    /**
+     * 批量获得 普通 缓存
+     * @param keys 键集合
+     * @param isEden 是否永久层数据
+     * @return Map 键 - 值 (不存在的键不会出现在结果中)
+     */
+    public static Map<String, Object> getMulti(final Collection<String> keys, final boolean isEden){
+        return CacheUtil.getMulti(keys, isEden, false);
+    }
+
+    /**
+     * 批量获得 普通 缓存
+     * 需要保存到本地时 先从近端缓存获取，未命中的 key 通过 pipeline 一次性从远端拉取
+     * @param keys 键集合
+     * @param isEden 是否永久层数据
+     * @param isSaveLocal 是否保存到本地
+     * @return Map 键 - 值 (不存在的键不会出现在结果中)
+     */
+    public static Map<String, Object> getMulti(final Collection<String> keys, final boolean isEden,
+                                               final boolean isSaveLocal){
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        Map<String, Object> retMap = Maps.newLinkedHashMap();
+        if(CollUtil.isEmpty(keys)){
+            return retMap;
+        }
+
+        try {
+            boolean isNear = isSaveLocal && CacheUtil.isNearCache(isEden ? CacheType.EDEN : CacheType.TIMED);
+
+            // 近端缓存未命中的 key
+            List<String> missKeys = Lists.newArrayListWithCapacity(keys.size());
+            List<String> missCacheKeys = Lists.newArrayListWithCapacity(keys.size());
+            for (String key : keys) {
+                String cacheKey = CacheUtil.handleUsualKey(key, isEden);
+                if(isNear){
+                    Object nearObj = nearCache.get(cacheKey);
+                    if(nearObj != null){
+                        retMap.put(key, nearObj);
+                        continue;
+                    }
+                }
+                missKeys.add(key);
+                missCacheKeys.add(cacheKey);
+            }
+
+            if(missCacheKeys.isEmpty()){
+                return retMap;
+            }
+
+            // 远端缓存 一次 pipeline 拉取
+            List<Object> cacheList = redisPlugin.getPileLine(missCacheKeys);
+            for (int i = 0; i < missKeys.size() && i < cacheList.size(); i++) {
+                JSONObject cacheJson = (JSONObject) cacheList.get(i);
+                if(cacheJson == null){
+                    continue;
+                }
+                Object data = isNear ? CacheUtil.putNear(missCacheKeys.get(i), cacheJson)
+                        : cacheJson.get(JSON_KEY);
+                if(data != null){
+                    retMap.put(missKeys.get(i), data);
+                }
+            }
+        }catch (Exception e){
+            log.error(e.getMessage(),e);
+        }
+        return retMap;
+    }
+
+    /**
+     * 批量获得 普通 缓存
+     * @param vClass 泛型Class
+     * @param keys 键集合
+     * @param isEden 是否永久层数据
+     * @return Map 键 - 值 (不存在的键不会出现在结果中)
+     */
+    public static <V> Map<String, V> getMulti(final Class<V> vClass, final Collection<String> keys,
+                                              final boolean isEden){
+        Map<String, Object> cacheMap = CacheUtil.getMulti(keys, isEden);
+        Map<String, V> retMap = Maps.newLinkedHashMapWithExpectedSize(cacheMap.size());
+        for (Map.Entry<String, Object> entry : cacheMap.entrySet()) {
+            V v = Convert.convert(vClass, entry.getValue());
+            if(v != null){
+                retMap.put(entry.getKey(), v);
+            }
+        }
+        return retMap;
+    }
+
     // ========================= PUT =========================
 
 
@@ -478,10 +636,11 @@ public class CacheUtil {
             // 缓存 Key
             String cacheKey  = CacheUtil.handleUsualKey(key, isEden);
 
+            boolean ret;
             // 判断是否为永久存储
             if(isEden) {
                 // 存入Redis
-                return redisPlugin.put(cacheKey, cacheJson);
+                ret = redisPlugin.put(cacheKey, cacheJson);
             }else{
                 // 随机缓存失效时间 防止缓存雪崩
                 // 范围在当前时效的 1.2 - 2倍
@@ -493,8 +652,13 @@ public class CacheUtil {
                 );
 
                 // 存入Redis
-                return redisPlugin.put(cacheKey, cacheJson, timeout);
+                ret = redisPlugin.put(cacheKey, cacheJson, timeout);
             }
+
+            // 写入Redis后 清除本机近端缓存 下次读取时重新拉取
+            // 未命中后的回填 不通知其他服务器 数据变更由 del 广播删除
+            CacheUtil.removeNear(cacheKey);
+            return ret;
         }catch (Exception e){
             log.error(e.getMessage(),e);
         }
@@ -524,7 +688,11 @@ public class CacheUtil {
             cacheJson.put(JSON_KEY, value);
 
             // 存入Redis
-            return redisPlugin.hPut(cacheKey, field, cacheJson);
+            boolean ret = redisPlugin.hPut(cacheKey, field, cacheJson);
+
+            // 写入Redis后 清除本机近端缓存 下次读取时重新拉取
+            CacheUtil.removeNear(cacheKey +":"+ field);
+            return ret;
         }catch (Exception e){
             log.error(e.getMessage(),e);
         }
@@ -532,6 +700,56 @@ public class CacheUtil {
     }
 
 
+    /**
+     * 批量存普通缓存 通过 pipeline 一次性写入
+     * @param values 键 - 值
+     * @param isEden 是否永久存储
+     * @return boolean
+     */
+    public static boolean putMulti(final Map<String, Object> values, final boolean isEden) {
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        if(CollUtil.isEmpty(values)){
+            return true;
+        }
+
+        try {
+            Map<String, Object> cacheMap = Maps.newHashMapWithExpectedSize(values.size());
+            Map<String, Long> timeoutMap = isEden ? null : Maps.newHashMapWithExpectedSize(values.size());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                // 则统一转换为 JSONObject
+                JSONObject cacheJson = new JSONObject();
+                cacheJson.put(JSON_KEY, entry.getValue());
+
+                // 缓存 Key
+                String cacheKey  = CacheUtil.handleUsualKey(entry.getKey(), isEden);
+
+                cacheMap.put(cacheKey, cacheJson);
+                if(timeoutMap != null){
+                    // 随机缓存失效时间 防止缓存雪崩
+                    timeoutMap.put(cacheKey, (long) RandomUtil.randomInt(
+                            Convert.toInt(TTL_HOT_DATA_TIME * 1.2),
+                            Convert.toInt(TTL_HOT_DATA_TIME * 2)
+                    ));
+                }
+            }
+
+            // 存入Redis
+            boolean ret = redisPlugin.putPileLine(cacheMap, timeoutMap);
+
+            // 写入Redis后 清除本机近端缓存 下次读取时重新拉取
+            for (String cacheKey : cacheMap.keySet()) {
+                CacheUtil.removeNear(cacheKey);
+            }
+            return ret;
+        }catch (Exception e){
+            log.error(e.getMessage(),e);
+        }
+        return false;
+    }
+
     // ========================= DEL =========================
 
 
@@ -571,6 +789,9 @@ public class CacheUtil {
             // 循环删除缓存数据
             for (String cacheKey : cacheKeys) {
 
+                // 删除 近端缓存
+                CacheUtil.removeNear(cacheKey);
+
                 // 删除 EhCache
                 boolean ehcacheRet = ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, cacheKey);
                 if(ehcacheRet){
@@ -584,6 +805,9 @@ public class CacheUtil {
                 }
             }
 
+            // 广播 - 通知其他服务器清除近端缓存
+            CacheUtil.broadcastRemoveNear(cacheKeys);
+
             return count == 0;
         }catch (Exception e){
             log.error(e.getMessage(),e);
@@ -609,6 +833,11 @@ public class CacheUtil {
             // 自动处理 key
             String cacheKey = CacheUtil.handleKey(CacheType.EDEN_HASH, key);
 
+            // 删除 近端缓存
+            CacheUtil.removeNear(cacheKey +":"+ field);
+            // 广播 - 通知其他服务器清除近端缓存
+            CacheUtil.broadcastRemoveNear(Collections.singletonList(cacheKey +":"+ field));
+
             // 删除 EhCache
             boolean ehcacheRet = ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE,cacheKey +":"+ field);
             if(ehcacheRet){
@@ -628,6 +857,63 @@ public class CacheUtil {
         return false;
     }
 
+    /**
+     * 批量删缓存 时控数据与永久数据一并删除
+     * 本地缓存逐个清除，远端缓存只发起一次删除
+     * @param keys 键集合
+     * @return boolean
+     */
+    public static boolean delMulti(final Collection<String> keys) {
+        return CacheUtil.delMulti(keys, false);
+    }
+
+    /**
+     * 批量删缓存 时控数据与永久数据一并删除
+     * 本地缓存逐个清除，远端缓存只发起一次删除
+     * @param keys 键集合
+     * @param isDelNilFlag 是否同时删除空属性
+     * @return boolean
+     */
+    public static boolean delMulti(final Collection<String> keys, final boolean isDelNilFlag) {
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        if(CollUtil.isEmpty(keys)){
+            return true;
+        }
+
+        try {
+            List<String> cacheKeys = Lists.newArrayListWithCapacity(keys.size() * 2);
+            for (String key : keys) {
+                cacheKeys.add(CacheUtil.handleKey(CacheType.TIMED, key));
+                cacheKeys.add(CacheUtil.handleKey(CacheType.EDEN, key));
+            }
+
+            // 删除 本地缓存
+            for (String cacheKey : cacheKeys) {
+                CacheUtil.removeNear(cacheKey);
+                ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, cacheKey);
+            }
+
+            // 删除 Redis (数据 + 空属性)
+            List<String> redisKeys = Lists.newArrayList(cacheKeys);
+            if(isDelNilFlag){
+                for (String key : keys) {
+                    redisKeys.add(CacheUtil.handleKey(NIL_FLAG_PREFIX + ":" + key));
+                }
+            }
+            redisPlugin.del(redisKeys);
+
+            // 广播 - 通知其他服务器清除近端缓存
+            CacheUtil.broadcastRemoveNear(cacheKeys);
+            return true;
+        }catch (Exception e){
+            log.error(e.getMessage(),e);
+        }
+        return false;
+    }
+
     // ====================================================================
 
     /**
@@ -709,6 +995,100 @@ public class CacheUtil {
     }
 
 
+    // ========================= 近端缓存 =========================
+
+    /**
+     * 清除本地缓存 (近端缓存 + EhCache)
+     * 用于 订阅消息 同步本地缓存
+     * @param cacheKey 完整缓存Key
+     */
+    public static void removeLocal(String cacheKey) {
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        CacheUtil.removeNear(cacheKey);
+        ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, cacheKey);
+    }
+
+    /**
+     * 获得近端缓存统计信息
+     * @return NearCache.Stats 未启用时返回 null
+     */
+    public static NearCache.Stats getNearCacheStats() {
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        return nearCache != null ? nearCache.getStats() : null;
+    }
+
+    /**
+     * 是否启用近端缓存
+     * @param cacheType 缓存类型
+     * @return boolean
+     */
+    private static boolean isNearCache(CacheType cacheType) {
+        return nearCache != null && NEAR_CACHE_TYPES.contains(cacheType);
+    }
+
+    /**
+     * 存入近端缓存
+     * @param cacheKey 完整缓存Key
+     * @param cacheJson 远端缓存Json
+     * @return Object
+     */
+    private static Object putNear(String cacheKey, JSONObject cacheJson) {
+        if(cacheJson == null){
+            return null;
+        }
+
+        Object data = cacheJson.get(JSON_KEY);
+        nearCache.put(cacheKey, data);
+        return data;
+    }
+
+    /**
+     * 存入近端缓存 同时保存类型转换结果
+     * @param cacheKey 完整缓存Key
+     * @param cacheJson 远端缓存Json
+     * @param vClass 泛型Class
+     * @return <V> 泛型
+     */
+    private static <V> V putNear(String cacheKey, JSONObject cacheJson, Class<V> vClass) {
+        if(cacheJson == null){
+            return null;
+        }
+
+        Object data = cacheJson.get(JSON_KEY);
+        V v = Convert.convert(vClass, data);
+        nearCache.put(cacheKey, data, vClass, v);
+        return v;
+    }
+
+    /**
+     * 删除近端缓存
+     * @param cacheKey 完整缓存Key
+     */
+    private static void removeNear(String cacheKey) {
+        if(nearCache != null){
+            nearCache.remove(cacheKey);
+        }
+    }
+
+    /**
+     * 广播 删除近端缓存
+     * @param cacheKeys 完整缓存Key
+     */
+    private static void broadcastRemoveNear(List<String> cacheKeys) {
+        if(nearCache == null || CollUtil.isEmpty(cacheKeys)){
+            return;
+        }
+        redisPlugin.sendMessage(
+                LocalCacheMsgFactory.createMsg(cacheKeys)
+        );
+    }
+
     // ====================================================================
 
     /**
@@ -807,6 +1187,13 @@ public class CacheUtil {
         CacheUtil.redisPlugin = redisPlugin;
         CacheUtil.ehCachePlugin = ehCachePlugin;
 
+        // 近端缓存
+        CacheProperties.Near near = cacheProperties.getNear();
+        if(near != null && near.isEnable() && CollUtil.isNotEmpty(near.getTypes())){
+            CacheUtil.NEAR_CACHE_TYPES = Collections.unmodifiableSet(near.getTypes());
+            CacheUtil.nearCache = new NearCache(near.getMaxSize(), near.getTtl(), near.getJitter());
+        }
+
         IS_INIT = true;
     }
 
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.local;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.lang3.StringUtils;
+import org.opsli.core.persistence.querybuilder.DataScope;
+import org.opsli.core.utils.UserUtil;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地 用户数据范围缓存
+ *
+ * 用户组织 / 默认角色 缓存被刷新时 同步清除 (其他服务器经 本地缓存清除通知 处理)
+ * 有最长存活时间，兜底处理未经过通知的变更
+ *
+ * @author Parker
+ * @date 2021-06-07 16:40
+ */
+public final class DataScopeCache {
+
+    /** 最大缓存条数 */
+    private static final int MAX_SIZE = 10_000;
+    /** 最长存活时间 (分钟) */
+    private static final int EXPIRE_AFTER_WRITE = 10;
+
+    /** 用户ID - 数据范围 */
+    private static final Cache<String, DataScope> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE, TimeUnit.MINUTES)
+            .build();
+
+    /** 影响数据范围的 用户缓存前缀 */
+    private static final String[] PREFIXES = {
+            UserUtil.PREFIX_ID_ORGS, UserUtil.PREFIX_ID_DEF_ROLE
+    };
+
+    /** 私有化构造函数 */
+    private DataScopeCache(){}
+
+    /**
+     * 获得数据范围 (不存在则创建)
+     * @param userId 用户ID
+     * @param loader 创建
+     * @return DataScope
+     */
+    public static DataScope get(String userId, Callable<DataScope> loader){
+        try {
+            return CACHE.get(userId, loader);
+        }catch (ExecutionException | UncheckedExecutionException e){
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException){
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 清除 (本地)
+     * @param userId 用户ID
+     */
+    public static void remove(String userId){
+        if(StringUtils.isNotEmpty(userId)){
+            CACHE.invalidate(userId);
+        }
+    }
+
+    /**
+     * 批量清除 (本地)
+     * @param userIds 用户ID集合
+     */
+    public static void remove(Collection<String> userIds){
+        if(userIds != null){
+            CACHE.invalidateAll(userIds);
+        }
+    }
+
+    /**
+     * 按用户缓存Key 清除 (本地)
+     * @param cacheKey 缓存Key 如 opsli:timed:userId:orgs:1
+     */
+    public static void removeByCacheKey(String cacheKey){
+        if(StringUtils.isEmpty(cacheKey)){
+            return;
+        }
+        for (String prefix : PREFIXES) {
+            int index = cacheKey.indexOf(prefix);
+            if(index >= 0){
+                remove(cacheKey.substring(index + prefix.length()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * 清除全部 (本地)
+     */
+    public static void clear(){
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * 判断前缀是否影响数据范围
+     * @param prefix 用户缓存前缀
+     * @return boolean
+     */
+    public static boolean isScopePrefix(String prefix){
+        for (String p : PREFIXES) {
+            if(p.equals(prefix)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
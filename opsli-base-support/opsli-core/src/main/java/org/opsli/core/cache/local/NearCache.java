@@ -0,0 +1,312 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.local;
+
+import cn.hutool.core.convert.Convert;
+import lombok.Data;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 近端缓存 (L1)
+ *
+ * 直接持有已经反序列化好的对象引用，命中时不再走 EhCache 的 Json 字符串往返
+ * 无锁实现 基于 ConcurrentHashMap，按条目记录失效时间（带随机抖动 防止集中失效）
+ * 超出容量时 由单个线程抢占清理，先清过期数据，再按遍历顺序淘汰
+ *
+ * 注意：返回的是共享引用，调用方只可读，不可修改
+ *
+ * @author Parker
+ * @date 2021-06-01 10:20
+ */
+public class NearCache {
+
+    /** 清理后保留比例 */
+    private static final double EVICT_RETAIN_RATIO = 0.9;
+
+    /** 缓存数据 */
+    private final ConcurrentHashMap<String, Entry> cacheMap;
+    /** 清理中标示 */
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    /** 最大条目数 */
+    private final int maxSize;
+    /** 存活时间 毫秒 */
+    private final long ttlMillis;
+    /** 随机抖动比例 */
+    private final double jitter;
+
+    /** 统计 */
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expireCount = new LongAdder();
+
+    /**
+     * 构造函数
+     * @param maxSize 最大条目数
+     * @param ttlSeconds 存活时间 秒
+     * @param jitter 随机抖动比例 (0.2 则存活时间在 1 - 1.2倍之间)
+     */
+    public NearCache(int maxSize, long ttlSeconds, double jitter) {
+        this.maxSize = Math.max(maxSize, 1);
+        this.ttlMillis = Math.max(ttlSeconds, 1) * 1000;
+        this.jitter = Math.max(jitter, 0);
+        this.cacheMap = new ConcurrentHashMap<>(Math.min(this.maxSize, 1024));
+    }
+
+    /**
+     * 获得缓存原始数据
+     * @param key 键
+     * @return Object
+     */
+    public Object get(String key) {
+        Entry entry = this.getEntry(key);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * 获得缓存数据 并按类型转换
+     * 转换结果会保存在条目上，同类型的下一次命中直接返回
+     * @param key 键
+     * @param vClass 泛型Class
+     * @return <V> 泛型
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(String key, Class<V> vClass) {
+        Entry entry = this.getEntry(key);
+        if(entry == null){
+            return null;
+        }
+
+        Typed typed = entry.typed;
+        if(typed != null && typed.vClass == vClass){
+            return (V) typed.value;
+        }
+
+        V v = Convert.convert(vClass, entry.value);
+        if(v != null){
+            entry.typed = new Typed(vClass, v);
+        }
+        return v;
+    }
+
+    /**
+     * 存入缓存数据
+     * @param key 键
+     * @param value 值
+     */
+    public void put(String key, Object value) {
+        this.put(key, value, null, null);
+    }
+
+    /**
+     * 存入缓存数据 同时保存类型转换结果
+     * @param key 键
+     * @param value 值
+     * @param vClass 泛型Class
+     * @param typedValue 转换后的值
+     */
+    public void put(String key, Object value, Class<?> vClass, Object typedValue) {
+        if(key == null || value == null){
+            return;
+        }
+
+        long ttl = ttlMillis;
+        if(jitter > 0){
+            ttl += (long) (ttlMillis * jitter * ThreadLocalRandom.current().nextDouble());
+        }
+
+        Entry entry = new Entry(value, System.currentTimeMillis() + ttl);
+        if(vClass != null && typedValue != null){
+            entry.typed = new Typed(vClass, typedValue);
+        }
+        cacheMap.put(key, entry);
+
+        if(cacheMap.size() > maxSize){
+            this.evict();
+        }
+    }
+
+    /**
+     * 删除缓存数据
+     * @param key 键
+     */
+    public void remove(String key) {
+        if(key == null){
+            return;
+        }
+        cacheMap.remove(key);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        cacheMap.clear();
+    }
+
+    /**
+     * 获得统计信息
+     * @return Stats
+     */
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.setSize(cacheMap.size());
+        stats.setMaxSize(maxSize);
+        stats.setHitCount(hitCount.sum());
+        stats.setMissCount(missCount.sum());
+        stats.setEvictionCount(evictionCount.sum());
+        stats.setExpireCount(expireCount.sum());
+        long total = stats.getHitCount() + stats.getMissCount();
+        stats.setHitRate(total == 0 ? 0 : (double) stats.getHitCount() / total);
+        return stats;
+    }
+
+    // ====================================================================
+
+    /**
+     * 获得有效条目
+     * @param key 键
+     * @return Entry
+     */
+    private Entry getEntry(String key) {
+        if(key == null){
+            return null;
+        }
+
+        Entry entry = cacheMap.get(key);
+        if(entry == null){
+            missCount.increment();
+            return null;
+        }
+
+        // 已过期 只删除当前条目 防止误删新值
+        if(entry.expireAt <= System.currentTimeMillis()){
+            if(cacheMap.remove(key, entry)){
+                expireCount.increment();
+            }
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        return entry;
+    }
+
+    /**
+     * 容量清理 同一时间只允许一个线程执行，其余线程直接跳过
+     */
+    private void evict() {
+        if(!evicting.compareAndSet(false, true)){
+            return;
+        }
+
+        try {
+            long now = System.currentTimeMillis();
+            int retain = (int) (maxSize * EVICT_RETAIN_RATIO);
+
+            // 先清理过期数据
+            Iterator<Map.Entry<String, Entry>> iterator = cacheMap.entrySet().iterator();
+            while (iterator.hasNext()){
+                Map.Entry<String, Entry> next = iterator.next();
+                if(next.getValue().expireAt <= now){
+                    iterator.remove();
+                    expireCount.increment();
+                }
+            }
+
+            // 依旧超出 则按遍历顺序淘汰
+            iterator = cacheMap.entrySet().iterator();
+            while (cacheMap.size() > retain && iterator.hasNext()){
+                iterator.next();
+                iterator.remove();
+                evictionCount.increment();
+            }
+        }finally {
+            evicting.set(false);
+        }
+    }
+
+    // ====================================================================
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+
+        /** 原始数据 */
+        private final Object value;
+        /** 失效时间 */
+        private final long expireAt;
+        /** 类型转换结果 */
+        private volatile Typed typed;
+
+        private Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 类型转换结果
+     */
+    private static final class Typed {
+
+        private final Class<?> vClass;
+        private final Object value;
+
+        private Typed(Class<?> vClass, Object value) {
+            this.vClass = vClass;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 统计信息
+     */
+    @Data
+    public static class Stats {
+
+        /** 当前条目数 */
+        private int size;
+
+        /** 最大条目数 */
+        private int maxSize;
+
+        /** 命中次数 */
+        private long hitCount;
+
+        /** 未命中次数 */
+        private long missCount;
+
+        /** 容量淘汰次数 */
+        private long evictionCount;
+
+        /** 过期清理次数 */
+        private long expireCount;
+
+        /** 命中率 */
+        private double hitRate;
+
+    }
+
+}
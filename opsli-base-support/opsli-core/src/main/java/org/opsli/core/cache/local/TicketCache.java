@@ -0,0 +1,124 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.local;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地 Token 凭证缓存
+ *
+ * 缓存 Redis 中 ticket:{username} 集合的成员判断结果，命中时不再访问 Redis
+ * 凭证被移除时 (登录数量限制弹出、退出登录) 通过 Redis 订阅通知各服务器清除
+ *
+ * 只缓存存在的凭证，且有最长存活时间，到期后重新以 Redis 为准
+ * (兜底处理 Redis 中凭证集合自然过期 等未经过通知的情况)
+ *
+ * @author Parker
+ * @date 2021-06-07 10:20
+ */
+public final class TicketCache {
+
+    /** 最大缓存条数 */
+    private static final int MAX_SIZE = 10_000;
+    /** 最长存活时间 (毫秒) */
+    private static final long MAX_TTL = TimeUnit.MINUTES.toMillis(5);
+
+    /** 凭证摘要 - 用户名 */
+    private static volatile Cache<String, String> CACHE = build(MAX_TTL);
+
+    /** 私有化构造函数 */
+    private TicketCache(){}
+
+    /**
+     * 设置存活时间 (不超过 5 分钟)
+     * @param ttl 毫秒
+     */
+    public static void setTtl(long ttl){
+        CACHE = build(ttl <= 0 ? MAX_TTL : Math.min(ttl, MAX_TTL));
+    }
+
+    /**
+     * 凭证是否存在
+     * @param token token
+     * @return boolean
+     */
+    public static boolean contains(String token){
+        return CACHE.getIfPresent(digest(token)) != null;
+    }
+
+    /**
+     * 写入凭证
+     * @param username 用户名
+     * @param token token
+     */
+    public static void put(String username, String token){
+        CACHE.put(digest(token), StringUtils.defaultString(username));
+    }
+
+    /**
+     * 清除凭证 (本地)
+     * @param username 用户名
+     * @param digests 凭证摘要，为空则清除该用户全部凭证
+     */
+    public static void removeLocal(String username, Collection<String> digests){
+        if(CollUtil.isNotEmpty(digests)){
+            CACHE.invalidateAll(digests);
+            return;
+        }
+        if(StringUtils.isNotEmpty(username)){
+            CACHE.asMap().values().removeIf(username::equals);
+        }
+    }
+
+    /**
+     * 凭证摘要 (通知消息中只传递摘要)
+     * @param token token
+     * @return String
+     */
+    public static String digest(String token){
+        return SecureUtil.sha256(token);
+    }
+
+    /**
+     * 缓存条数
+     * @return long
+     */
+    public static long size(){
+        return CACHE.size();
+    }
+
+    // ==================
+
+    /**
+     * 创建缓存
+     * @param ttl 存活时间 (毫秒)
+     * @return Cache
+     */
+    private static Cache<String, String> build(long ttl){
+        return CacheBuilder.newBuilder()
+                .maximumSize(MAX_SIZE)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+}
@@ -0,0 +1,704 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.local;
+
+import cn.hutool.core.collection.CollUtil;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 本地 树结构索引
+ *
+ * 每种树 (菜单、地域、组织 ...) 常驻一份 邻接表 (上级ID - 有序下级)、每个节点的祖先路径 (用于拦截循环上级)
+ * 及 构建树节点所需的节点数据 (加载时一次生成)，
+ * 下级数量 / 直接下级 / 子树 查询只与涉及的节点数相关，不再逐个查库 也不再每次全量组装
+ *
+ * 增删改 在事务提交后 由读取器重新读取变更节点 增量更新，并通过 Redis 订阅通知其他服务器 (见 TreeIndexUtil)
+ * 超过重载间隔 或 失效后 下次使用时全量重新加载，兜底处理未经过通知的变更
+ * 未加载 (未注册加载器 / 加载失败) 时 返回 null，调用方退回数据库查询
+ * 加载失败后 按退避间隔 (1 秒起 逐次翻倍 最长 1 分钟) 重试，期间不再执行加载器；重载失败时 保留原有索引
+ *
+ * @author Parker
+ * @date 2021-06-09 16:10
+ */
+@Slf4j
+public final class TreeIndex {
+
+    /** 全量重载间隔 (分钟) */
+    private static final long RELOAD_INTERVAL = TimeUnit.MINUTES.toMillis(30);
+    /** 加载失败 最短重试间隔 */
+    private static final long MIN_RETRY_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+    /** 加载失败 最长重试间隔 */
+    private static final long MAX_RETRY_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    /** 同级排序 */
+    private static final Comparator<Entry> SIBLING_ORDER =
+            Comparator.comparingInt((Entry e) -> e.weight).thenComparing(e -> e.id);
+
+    /** 索引字典 */
+    private static final Map<Type, TreeIndex> INDEX_MAP = Maps.newConcurrentMap();
+
+    /** 类型 */
+    private final Type type;
+    /** 读写锁 */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 加载器 */
+    private volatile Supplier<Collection<Node>> loader;
+    /** 读取器 (按ID读取节点) */
+    private volatile Function<Collection<String>, Collection<Node>> reader;
+    /** 是否已加载 */
+    private volatile boolean loaded;
+    /** 加载时间 */
+    private volatile long loadedAt;
+    /** 加载失败 下次允许重试时间 */
+    private volatile long retryAt;
+    /** 连续加载失败次数 (写锁内修改) */
+    private int failures;
+
+    /** 节点 ID - 节点 */
+    private final Map<String, Entry> nodes = Maps.newHashMap();
+    /** 邻接表 上级ID - 有序下级 */
+    private final Map<String, List<Entry>> children = Maps.newHashMap();
+
+    private TreeIndex(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * 获得树索引
+     * @param type 类型
+     * @return TreeIndex
+     */
+    public static TreeIndex of(Type type){
+        return INDEX_MAP.computeIfAbsent(type, TreeIndex::new);
+    }
+
+    /**
+     * 注册加载器
+     * @param loader 加载器 返回全部节点
+     */
+    public void setLoader(Supplier<Collection<Node>> loader){
+        this.setLoader(loader, null);
+    }
+
+    /**
+     * 注册加载器
+     * @param loader 加载器 返回全部节点
+     * @param reader 读取器 按ID返回节点 (未注册时 刷新节点 改为整体失效)
+     */
+    public void setLoader(Supplier<Collection<Node>> loader,
+                          Function<Collection<String>, Collection<Node>> reader){
+        lock.writeLock().lock();
+        try {
+            this.loader = loader;
+            this.reader = reader;
+            this.failures = 0;
+            this.retryAt = 0;
+            this.clear();
+        }finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 失效 (本地) 下次使用时重新加载
+     */
+    public void invalidate(){
+        lock.writeLock().lock();
+        try {
+            this.clear();
+        }finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ======================== 查询 ========================
+
+    /**
+     * 统计下级数量
+     * @param parentIds 上级ID集合
+     * @return Map 上级ID - 下级数量 (只含有下级的上级) 索引不可用返回 null
+     */
+    public Map<String, Integer> countChildren(Collection<String> parentIds){
+        return this.countChildren(parentIds, (Predicate<Node>) null);
+    }
+
+    /**
+     * 统计指定标记的下级数量
+     * @param parentIds 上级ID集合
+     * @param tag 下级标记 为空则不限
+     * @return Map 上级ID - 下级数量 (只含有下级的上级) 索引不可用返回 null
+     */
+    public Map<String, Integer> countChildren(Collection<String> parentIds, String tag){
+        return this.countChildren(parentIds, tag == null ? null : node -> tag.equals(node.getTag()));
+    }
+
+    /**
+     * 统计满足条件的下级数量
+     * @param parentIds 上级ID集合
+     * @param filter 下级过滤 为空则不限
+     * @return Map 上级ID - 下级数量 (只含有下级的上级) 索引不可用返回 null
+     */
+    public Map<String, Integer> countChildren(Collection<String> parentIds, Predicate<Node> filter){
+        if(!this.readLock()){
+            return null;
+        }
+        try {
+            if(CollUtil.isEmpty(parentIds)){
+                return Collections.emptyMap();
+            }
+            Map<String, Integer> ret = Maps.newHashMapWithExpectedSize(parentIds.size());
+            for (String parentId : parentIds) {
+                List<Entry> list = children.get(parentId);
+                if(list == null){
+                    continue;
+                }
+                int count = 0;
+                if(filter == null){
+                    count = list.size();
+                }else {
+                    for (Entry child : list) {
+                        if(filter.test(child.toNode())){
+                            count++;
+                        }
+                    }
+                }
+                if(count > 0){
+                    ret.put(parentId, count);
+                }
+            }
+            return ret;
+        }finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 直接下级 (有序)
+     * @param parentId 上级ID
+     * @param filter 下级过滤 为空则不限
+     * @return List 索引不可用返回 null
+     */
+    public List<Node> getChildren(String parentId, Predicate<Node> filter){
+        if(!this.readLock()){
+            return null;
+        }
+        try {
+            List<Entry> list = children.get(parentId);
+            if(list == null){
+                return Collections.emptyList();
+            }
+            List<Node> ret = Lists.newArrayListWithCapacity(list.size());
+            for (Entry child : list) {
+                Node node = child.toNode();
+                if(filter == null || filter.test(node)){
+                    ret.add(node);
+                }
+            }
+            return ret;
+        }finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 子树 (先序 同级有序，不含上级自身)
+     * 不满足过滤条件的节点 连同其子树一并跳过
+     * @param parentId 上级ID
+     * @param deep 最大层级 (直接下级为 1) 小于 0 则不限
+     * @param filter 节点过滤 为空则不限
+     * @return List 索引不可用返回 null
+     */
+    public List<Node> getSubTree(String parentId, int deep, Predicate<Node> filter){
+        if(!this.readLock()){
+            return null;
+        }
+        try {
+            if(deep == 0){
+                return Collections.emptyList();
+            }
+            List<Node> ret = Lists.newArrayList();
+            Entry parent = nodes.get(parentId);
+            // 上级的层级 (上级不在索引中 视为根)
+            int baseDepth = parent != null ? parent.ancestors.length : 0;
+            Deque<Entry> stack = new ArrayDeque<>();
+            pushChildren(stack, children.get(parentId));
+            while (!stack.isEmpty()) {
+                Entry curr = stack.pop();
+                Node node = curr.toNode();
+                if(filter != null && !filter.test(node)){
+                    continue;
+                }
+                ret.add(node);
+                if(deep < 0 || curr.ancestors.length - baseDepth < deep){
+                    pushChildren(stack, children.get(curr.id));
+                }
+            }
+            return ret;
+        }finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 节点数
+     * @return int 索引不可用返回 -1
+     */
+    public int size(){
+        if(!this.readLock()){
+            return -1;
+        }
+        try {
+            return nodes.size();
+        }finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ======================== 增量更新 ========================
+
+    /**
+     * 新增 / 修改节点 (本地)
+     * 上级变更时 子树的祖先路径一并更新，修改时上级为空 视为未变更
+     * @param nodeList 节点集合
+     */
+    public void put(Collection<Node> nodeList){
+        if(CollUtil.isEmpty(nodeList)){
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // 未加载 下次使用时全量加载
+            if(!loaded){
+                return;
+            }
+            for (Node node : nodeList) {
+                if(node == null || StringUtils.isEmpty(node.getId())){
+                    continue;
+                }
+                this.putEntry(node);
+            }
+        }finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按ID重新读取节点 (本地)
+     * 未注册读取器 或 读取失败 则整体失效，下次使用时全量加载
+     * @param ids 节点ID集合
+     */
+    public void refresh(Collection<String> ids){
+        if(CollUtil.isEmpty(ids) || !loaded){
+            return;
+        }
+        Function<Collection<String>, Collection<Node>> currReader = this.reader;
+        if(currReader == null){
+            this.invalidate();
+            return;
+        }
+
+        Collection<Node> nodeList;
+        try {
+            nodeList = currReader.apply(ids);
+        }catch (Exception e){
+            log.error("树结构索引[{}]读取节点失败 下次使用时重新加载", type, e);
+            this.invalidate();
+            return;
+        }
+        this.put(nodeList);
+    }
+
+    /**
+     * 删除节点 及其子树 (本地)
+     * @param ids 节点ID集合
+     */
+    public void remove(Collection<String> ids){
+        if(CollUtil.isEmpty(ids)){
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if(!loaded){
+                return;
+            }
+            for (String id : ids) {
+                Entry entry = nodes.get(id);
+                if(entry == null){
+                    continue;
+                }
+                this.detach(entry);
+                Deque<Entry> stack = new ArrayDeque<>();
+                stack.push(entry);
+                while (!stack.isEmpty()) {
+                    Entry curr = stack.pop();
+                    nodes.remove(curr.id);
+                    List<Entry> list = children.remove(curr.id);
+                    if(list != null){
+                        list.forEach(stack::push);
+                    }
+                }
+            }
+        }finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ======================== 内部处理 ========================
+
+    /**
+     * 获取读锁 (未加载 或 超过重载间隔 则先加载，加载失败后 退避期内不再加载)
+     * @return boolean 索引是否可用 可用时持有读锁
+     */
+    private boolean readLock(){
+        if(loader == null){
+            return false;
+        }
+        if(this.needLoad(System.currentTimeMillis())){
+            this.load();
+        }
+        lock.readLock().lock();
+        if(!loaded){
+            lock.readLock().unlock();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 全量加载
+     */
+    private void load(){
+        lock.writeLock().lock();
+        try {
+            if(!this.needLoad(System.currentTimeMillis())){
+                return;
+            }
+
+            Collection<Node> nodeList;
+            try {
+                nodeList = loader.get();
+            }catch (Exception e){
+                // 保留原有索引 退避后重试
+                failures++;
+                long interval = Math.min(MAX_RETRY_INTERVAL,
+                        MIN_RETRY_INTERVAL << Math.min(failures - 1, 16));
+                retryAt = System.currentTimeMillis() + interval;
+                log.error("树结构索引[{}]加载失败 {}ms 后重试", type, interval, e);
+                return;
+            }
+            failures = 0;
+            retryAt = 0;
+            this.clear();
+
+            if(nodeList != null){
+                for (Node node : nodeList) {
+                    if(node == null || StringUtils.isEmpty(node.getId())){
+                        continue;
+                    }
+                    Entry entry = new Entry(node);
+                    nodes.put(entry.id, entry);
+                    children.computeIfAbsent(entry.parentId, k -> Lists.newArrayList()).add(entry);
+                }
+            }
+            for (List<Entry> list : children.values()) {
+                list.sort(SIBLING_ORDER);
+            }
+
+            // 由根节点 (上级不在索引中) 逐级计算祖先路径
+            for (Map.Entry<String, List<Entry>> e : children.entrySet()) {
+                if(!nodes.containsKey(e.getKey())){
+                    for (Entry root : e.getValue()) {
+                        this.refreshAncestors(root);
+                    }
+                }
+            }
+
+            loaded = true;
+            loadedAt = System.currentTimeMillis();
+        }finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 是否需要加载
+     * @param now 当前时间
+     * @return boolean
+     */
+    private boolean needLoad(long now){
+        if(now < retryAt){
+            return false;
+        }
+        return !loaded || now - loadedAt > RELOAD_INTERVAL;
+    }
+
+    /**
+     * 新增 / 修改节点
+     * @param node 节点
+     */
+    private void putEntry(Node node){
+        Entry entry = nodes.get(node.getId());
+        if(entry == null){
+            entry = new Entry(node);
+            nodes.put(entry.id, entry);
+            this.attach(entry);
+            this.refreshAncestors(entry);
+            return;
+        }
+
+        // 上级为空 视为未变更
+        String parentId = node.getParentId() != null ? node.getParentId() : entry.parentId;
+        // 不允许挂到自身子树下
+        if(entry.id.equals(parentId) || isDescendant(parentId, entry)){
+            log.warn("树结构索引[{}] 节点上级存在循环 {} -> {}", type, entry.id, parentId);
+            return;
+        }
+
+        entry.weight = node.getWeight();
+        entry.tag = node.getTag();
+        // 节点数据为空 视为未变更
+        if(node.getData() != null){
+            entry.data = node.getData();
+        }
+        entry.view = null;
+        if(!parentId.equals(entry.parentId)){
+            this.detach(entry);
+            entry.parentId = parentId;
+            this.attach(entry);
+            this.refreshAncestors(entry);
+        }else {
+            List<Entry> siblings = children.get(parentId);
+            if(siblings != null){
+                siblings.sort(SIBLING_ORDER);
+            }
+        }
+    }
+
+    /**
+     * 挂到上级下 (保持有序)
+     * @param entry 节点
+     */
+    private void attach(Entry entry){
+        List<Entry> siblings = children.computeIfAbsent(entry.parentId, k -> Lists.newArrayList());
+        int index = Collections.binarySearch(siblings, entry, SIBLING_ORDER);
+        siblings.add(index < 0 ? -index - 1 : index, entry);
+    }
+
+    /**
+     * 从上级下移除
+     * @param entry 节点
+     */
+    private void detach(Entry entry){
+        List<Entry> siblings = children.get(entry.parentId);
+        if(siblings == null){
+            return;
+        }
+        siblings.removeIf(e -> e.id.equals(entry.id));
+        if(siblings.isEmpty()){
+            children.remove(entry.parentId);
+        }
+    }
+
+    /**
+     * 计算 节点及其子树 的祖先路径
+     * @param entry 节点
+     */
+    private void refreshAncestors(Entry entry){
+        Deque<Entry> stack = new ArrayDeque<>();
+        stack.push(entry);
+        while (!stack.isEmpty()) {
+            Entry curr = stack.pop();
+            Entry parent = nodes.get(curr.parentId);
+            String[] parentPath = parent != null ? parent.ancestors : new String[0];
+            String[] path = new String[parentPath.length + 1];
+            System.arraycopy(parentPath, 0, path, 0, parentPath.length);
+            path[parentPath.length] = curr.parentId;
+            curr.ancestors = path;
+            pushChildren(stack, children.get(curr.id));
+        }
+    }
+
+    /**
+     * 是否为子孙节点
+     * @param id 节点ID
+     * @param ancestor 祖先节点
+     * @return boolean
+     */
+    private boolean isDescendant(String id, Entry ancestor){
+        Entry entry = nodes.get(id);
+        if(entry == null){
+            return false;
+        }
+        for (String a : entry.ancestors) {
+            if(ancestor.id.equals(a)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 清空
+     */
+    private void clear(){
+        nodes.clear();
+        children.clear();
+        loaded = false;
+    }
+
+    private static void pushChildren(Deque<Entry> stack, List<Entry> list){
+        if(list == null){
+            return;
+        }
+        // 逆序入栈 出栈时保持同级顺序
+        for (int i = list.size() - 1; i >= 0; i--) {
+            stack.push(list.get(i));
+        }
+    }
+
+    // ======================== 内部类 ========================
+
+    /**
+     * 树类型
+     */
+    public enum Type {
+
+        /** 菜单 */
+        MENU,
+
+        /** 地域 */
+        AREA,
+
+        /** 组织 */
+        ORG,
+
+        ;
+    }
+
+    /**
+     * 节点
+     */
+    public static final class Node {
+
+        /** ID */
+        private final String id;
+        /** 上级ID */
+        private final String parentId;
+        /** 排序 */
+        private final int weight;
+        /** 标记 (如 菜单类型) */
+        private final String tag;
+        /** 节点数据 (构建树节点使用 只读) */
+        private final Map<String, Object> data;
+
+        public Node(String id, String parentId, Integer weight, String tag) {
+            this(id, parentId, weight, tag, null);
+        }
+
+        public Node(String id, String parentId, Integer weight, String tag, Map<String, Object> data) {
+            this.id = id;
+            this.parentId = parentId;
+            this.weight = weight == null ? 0 : weight;
+            this.tag = tag;
+            this.data = data == null ? null : Collections.unmodifiableMap(data);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getParentId() {
+            return parentId;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public Map<String, Object> getData() {
+            return data;
+        }
+    }
+
+    /**
+     * 索引项
+     */
+    private static final class Entry {
+
+        private final String id;
+        private String parentId;
+        private int weight;
+        private String tag;
+        private Map<String, Object> data;
+        /** 祖先路径 (由根到上级) */
+        private String[] ancestors = new String[0];
+        /** 节点视图 (变更时重置) */
+        private volatile Node view;
+
+        private Entry(Node node) {
+            this.id = node.getId();
+            this.parentId = StringUtils.defaultString(node.getParentId());
+            this.weight = node.getWeight();
+            this.tag = node.getTag();
+            this.data = node.getData();
+        }
+
+        /**
+         * 节点视图 (持有读锁时调用，并发生成时结果相同)
+         * @return Node
+         */
+        private Node toNode() {
+            Node node = view;
+            if(node == null){
+                node = new Node(id, parentId, weight, tag, data);
+                view = node;
+            }
+            return node;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof Entry && Objects.equals(id, ((Entry) o).id));
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(id);
+        }
+    }
+}
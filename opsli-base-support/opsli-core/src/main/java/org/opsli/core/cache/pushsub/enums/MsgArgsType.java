@@ -62,6 +62,28 @@ public enum MsgArgsType {
     CACHE_DATA_VALUE,
     /** 缓存数据Type */
     CACHE_DATA_TYPE,
+
+    /** 本地缓存Key集合 */
+    LOCAL_CACHE_KEYS,
+
+    /** 防穿透过滤器 Key空间 */
+    GUARD_TYPE,
+    /** 防穿透过滤器 Key集合 */
+    GUARD_KEYS,
+    /** 防穿透过滤器 操作类型 */
+    GUARD_HANDLE_TYPE,
+
+    /** 凭证 用户名 */
+    TICKET_USERNAME,
+    /** 凭证 摘要集合 */
+    TICKET_DIGESTS,
+
+    /** 树结构索引 类型 */
+    TREE_TYPE,
+    /** 树结构索引 数据 */
+    TREE_DATA,
+    /** 树结构索引 操作类型 */
+    TREE_HANDLE_TYPE,
     ;
 
 }
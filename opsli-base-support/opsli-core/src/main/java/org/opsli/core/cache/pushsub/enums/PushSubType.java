@@ -44,6 +44,18 @@ public enum PushSubType {
     /** 热点数据 */
     HOT_DATA,
 
+    /** 本地缓存 */
+    LOCAL_CACHE,
+
+    /** 防穿透过滤器 */
+    PENETRATION_GUARD,
+
+    /** Token 凭证撤销 */
+    TICKET_REVOKE,
+
+    /** 树结构索引 */
+    TREE_INDEX,
+
     ;
 
 
@@ -31,6 +31,8 @@ public enum UserModelType {
     USER_PERMS_MODEL,
     /** 用户菜单集合模型 */
     USER_MENU_MODEL,
+    /** 用户授权信息模型 (数据为用户ID集合) */
+    USER_AUTHZ_MODEL,
 
     ;
 
@@ -90,8 +90,8 @@ public class DictHandler implements RedisPushSubHandler{
 
         // 缓存更新
         if(CacheHandleType.UPDATE == type){
-            ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, ehKeyByName);
-            ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, ehKeyByValue);
+            CacheUtil.removeLocal(ehKeyByName);
+            CacheUtil.removeLocal(ehKeyByValue);
 
             // 统一转换为 JSONObject
             String jsonStr = JSONObject.toJSONString(dictWrapperModel.getModel());
@@ -101,8 +101,8 @@ public class DictHandler implements RedisPushSubHandler{
         }
         // 缓存删除
         else if(CacheHandleType.DELETE == type){
-            ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, ehKeyByName);
-            ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, ehKeyByValue);
+            CacheUtil.removeLocal(ehKeyByName);
+            CacheUtil.removeLocal(ehKeyByValue);
         }
     }
 
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.pushsub.handler;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.opsli.core.cache.guard.GuardType;
+import org.opsli.core.cache.guard.PenetrationGuard;
+import org.opsli.core.cache.pushsub.enums.CacheHandleType;
+import org.opsli.core.cache.pushsub.enums.MsgArgsType;
+import org.opsli.core.cache.pushsub.enums.PushSubType;
+
+import java.util.List;
+
+/**
+ * 防穿透过滤器消息处理
+ *
+ * @author Parker
+ * @date 2021-06-03
+ */
+@Slf4j
+public class GuardHandler implements RedisPushSubHandler{
+
+    @Override
+    public PushSubType getType() {
+        return PushSubType.PENETRATION_GUARD;
+    }
+
+    @Override
+    public void handler(JSONObject msgJson) {
+        GuardType type = GuardType.valueOf((String) msgJson.get(MsgArgsType.GUARD_TYPE.toString()));
+        CacheHandleType handleType = CacheHandleType.valueOf(
+                (String) msgJson.get(MsgArgsType.GUARD_HANDLE_TYPE.toString()));
+        List<String> keys = Convert.toList(String.class,
+                msgJson.get(MsgArgsType.GUARD_KEYS.toString()));
+        // 数据为空则不执行
+        if(CollUtil.isEmpty(keys)){
+            return;
+        }
+
+        // 新增
+        if(CacheHandleType.UPDATE == handleType){
+            PenetrationGuard.putLocal(type, keys);
+        }
+        // 删除
+        else if(CacheHandleType.DELETE == handleType){
+            PenetrationGuard.removeLocal(type, keys);
+        }
+    }
+
+}
@@ -57,11 +57,12 @@ public class HotDataHandler implements RedisPushSubHandler{
         String cacheName = CacheUtil.handleKey(CacheConstants.HOT_DATA_PREFIX +":"+ key);
 
         if(CacheHandleType.UPDATE == type){
+            CacheUtil.removeLocal(cacheName);
             ehCachePlugin.put(CacheConstants.EHCACHE_SPACE, cacheName, value);
         }
         // 缓存删除
         else if(CacheHandleType.DELETE == type){
-            ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, cacheName);
+            CacheUtil.removeLocal(cacheName);
         }
     }
 
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.pushsub.handler;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.opsli.core.cache.local.CacheUtil;
+import org.opsli.core.cache.local.DataScopeCache;
+import org.opsli.core.cache.pushsub.enums.MsgArgsType;
+import org.opsli.core.cache.pushsub.enums.PushSubType;
+
+import java.util.List;
+
+/**
+ * 本地缓存消息处理
+ *
+ * @author Parker
+ * @date 2021-06-01
+ */
+@Slf4j
+public class LocalCacheHandler implements RedisPushSubHandler{
+
+    @Override
+    public PushSubType getType() {
+        return PushSubType.LOCAL_CACHE;
+    }
+
+    @Override
+    public void handler(JSONObject msgJson) {
+        List<String> cacheKeys = Convert.toList(String.class,
+                msgJson.get(MsgArgsType.LOCAL_CACHE_KEYS.toString()));
+        // 数据为空则不执行
+        if(CollUtil.isEmpty(cacheKeys)){
+            return;
+        }
+
+        // 只清除本地缓存 远端缓存已由发起方处理
+        for (String cacheKey : cacheKeys) {
+            CacheUtil.removeLocal(cacheKey);
+            // 用户组织 / 默认角色 变更 同步清除数据范围
+            DataScopeCache.removeByCacheKey(cacheKey);
+        }
+    }
+
+}
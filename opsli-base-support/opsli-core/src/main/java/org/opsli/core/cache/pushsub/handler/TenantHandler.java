@@ -18,13 +18,10 @@ package org.opsli.core.cache.pushsub.handler;
 import com.alibaba.fastjson.JSONObject;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.opsli.common.constants.CacheConstants;
 import org.opsli.core.cache.local.CacheUtil;
 import org.opsli.core.cache.pushsub.enums.MsgArgsType;
 import org.opsli.core.cache.pushsub.enums.PushSubType;
 import org.opsli.core.utils.TenantUtil;
-import org.opsli.plugins.cache.EhCachePlugin;
-import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * 租户消息处理
@@ -35,9 +32,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 @Slf4j
 public class TenantHandler implements RedisPushSubHandler{
 
-    @Autowired
-    private EhCachePlugin ehCachePlugin;
-
     @Override
     public PushSubType getType() {
         return PushSubType.TENANT;
@@ -69,7 +63,7 @@ public class TenantHandler implements RedisPushSubHandler{
         String cacheKey = CacheUtil.handleKey(TenantUtil.PREFIX_CODE + tenantId);
 
         // 先删除
-        ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, cacheKey);
+        CacheUtil.removeLocal(cacheKey);
     }
 
 
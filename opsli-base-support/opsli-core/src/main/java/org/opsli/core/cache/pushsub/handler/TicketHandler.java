@@ -0,0 +1,50 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.pushsub.handler;
+
+import cn.hutool.core.convert.Convert;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.opsli.core.cache.local.TicketCache;
+import org.opsli.core.cache.pushsub.enums.MsgArgsType;
+import org.opsli.core.cache.pushsub.enums.PushSubType;
+
+import java.util.List;
+
+/**
+ * Token 凭证撤销消息处理
+ *
+ * @author Parker
+ * @date 2021-06-07
+ */
+@Slf4j
+public class TicketHandler implements RedisPushSubHandler{
+
+    @Override
+    public PushSubType getType() {
+        return PushSubType.TICKET_REVOKE;
+    }
+
+    @Override
+    public void handler(JSONObject msgJson) {
+        String username = (String) msgJson.get(MsgArgsType.TICKET_USERNAME.toString());
+        List<String> digests = Convert.toList(String.class,
+                msgJson.get(MsgArgsType.TICKET_DIGESTS.toString()));
+
+        TicketCache.removeLocal(username, digests);
+    }
+
+}
@@ -19,14 +19,12 @@ import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.opsli.common.constants.CacheConstants;
 import org.opsli.core.cache.local.CacheUtil;
 import org.opsli.core.cache.pushsub.enums.MsgArgsType;
 import org.opsli.core.cache.pushsub.enums.PushSubType;
 import org.opsli.core.cache.pushsub.enums.UserModelType;
+import org.opsli.core.security.shiro.cache.AuthorizationCache;
 import org.opsli.core.utils.UserUtil;
-import org.opsli.plugins.cache.EhCachePlugin;
-import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * 用户消息处理
@@ -37,9 +35,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 @Slf4j
 public class UserHandler implements RedisPushSubHandler{
 
-    @Autowired
-    private EhCachePlugin ehCachePlugin;
-
     @Override
     public PushSubType getType() {
         return PushSubType.USER;
@@ -66,6 +61,10 @@ public class UserHandler implements RedisPushSubHandler{
         else if(UserModelType.USER_MENU_MODEL == userModelType){
             this.userMenusHandler(msgJson);
         }
+        // 用户授权信息刷新
+        else if(UserModelType.USER_AUTHZ_MODEL == userModelType){
+            this.userAuthzHandler(msgJson);
+        }
 
     }
 
@@ -91,8 +90,8 @@ public class UserHandler implements RedisPushSubHandler{
         String cacheKeyByName = CacheUtil.handleKey(UserUtil.PREFIX_USERNAME + username);
 
         // 先删除
-        ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, cacheKeyById);
-        ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, cacheKeyByName);
+        CacheUtil.removeLocal(cacheKeyById);
+        CacheUtil.removeLocal(cacheKeyByName);
     }
 
     /**
@@ -115,7 +114,8 @@ public class UserHandler implements RedisPushSubHandler{
         String cacheKey = CacheUtil.handleKey(UserUtil.PREFIX_ID_ROLES + userId);
 
         // 先删除
-        ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, cacheKey);
+        CacheUtil.removeLocal(cacheKey);
+        AuthorizationCache.removeLocal(userId);
     }
 
     /**
@@ -138,7 +138,8 @@ public class UserHandler implements RedisPushSubHandler{
         String cacheKey = CacheUtil.handleKey(UserUtil.PREFIX_ID_PERMISSIONS + userId);
 
         // 先删除
-        ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, cacheKey);
+        CacheUtil.removeLocal(cacheKey);
+        AuthorizationCache.removeLocal(userId);
     }
 
     /**
@@ -161,7 +162,22 @@ public class UserHandler implements RedisPushSubHandler{
         String cacheKey = CacheUtil.handleKey(UserUtil.PREFIX_ID_MENUS + userId);
 
         // 先删除
-        ehCachePlugin.delete(CacheConstants.EHCACHE_SPACE, cacheKey);
+        CacheUtil.removeLocal(cacheKey);
+    }
+
+    /**
+     * 用户授权信息处理
+     * @param msgJson 信息Json
+     */
+    private void userAuthzHandler(JSONObject msgJson){
+        JSONArray dataArray = msgJson.getJSONArray(MsgArgsType.USER_MODEL_DATA.toString());
+        // 数据为空则不执行
+        if(dataArray == null || dataArray.isEmpty()){
+            return;
+        }
+
+        // 清除本地授权信息
+        AuthorizationCache.removeLocal(dataArray.toJavaList(String.class));
     }
 
 
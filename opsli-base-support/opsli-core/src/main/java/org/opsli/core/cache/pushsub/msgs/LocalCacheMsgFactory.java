@@ -0,0 +1,59 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.pushsub.msgs;
+
+import com.alibaba.fastjson.JSONObject;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.opsli.core.cache.pushsub.enums.MsgArgsType;
+import org.opsli.core.cache.pushsub.enums.PushSubType;
+import org.opsli.core.cache.pushsub.receiver.RedisPushSubReceiver;
+import org.opsli.plugins.redis.pushsub.entity.BaseSubMessage;
+
+import java.util.Collection;
+
+/**
+ * 本地缓存消息
+ *
+ * @author Parker
+ * @date 2021-06-01
+ */
+@Data
+@Accessors(chain = true)
+public final class LocalCacheMsgFactory extends BaseSubMessage{
+
+    /** 通道 */
+    private static final String CHANNEL = RedisPushSubReceiver.BASE_CHANNEL + RedisPushSubReceiver.CHANNEL;
+
+    private LocalCacheMsgFactory(){}
+
+    /**
+     * 构建消息 - 清除本地缓存
+     * @param cacheKeys 完整缓存Key集合
+     * @return 消息
+     */
+    public static BaseSubMessage createMsg(Collection<String> cacheKeys){
+        BaseSubMessage baseSubMessage = new BaseSubMessage();
+        // 数据
+        JSONObject jsonObj = new JSONObject();
+        jsonObj.put(MsgArgsType.LOCAL_CACHE_KEYS.toString(), cacheKeys);
+
+        // 本地缓存
+        baseSubMessage.build(CHANNEL, PushSubType.LOCAL_CACHE.toString(), jsonObj);
+        return baseSubMessage;
+    }
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.pushsub.msgs;
+
+import com.alibaba.fastjson.JSONObject;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.opsli.core.cache.pushsub.enums.MsgArgsType;
+import org.opsli.core.cache.pushsub.enums.PushSubType;
+import org.opsli.core.cache.pushsub.receiver.RedisPushSubReceiver;
+import org.opsli.plugins.redis.pushsub.entity.BaseSubMessage;
+
+import java.util.Collection;
+
+/**
+ * Token 凭证撤销消息
+ *
+ * @author Parker
+ * @date 2021-06-07
+ */
+@Data
+@Accessors(chain = true)
+public final class TicketMsgFactory extends BaseSubMessage{
+
+    /** 通道 */
+    private static final String CHANNEL = RedisPushSubReceiver.BASE_CHANNEL + RedisPushSubReceiver.CHANNEL;
+
+    private TicketMsgFactory(){}
+
+    /**
+     * 构建消息 - 撤销凭证
+     * @param username 用户名
+     * @param digests 凭证摘要集合 (为空则撤销该用户全部凭证)
+     * @return 消息
+     */
+    public static BaseSubMessage createMsg(String username, Collection<String> digests){
+        BaseSubMessage baseSubMessage = new BaseSubMessage();
+        // 数据
+        JSONObject jsonObj = new JSONObject();
+        jsonObj.put(MsgArgsType.TICKET_USERNAME.toString(), username);
+        jsonObj.put(MsgArgsType.TICKET_DIGESTS.toString(), digests);
+
+        // 凭证撤销
+        baseSubMessage.build(CHANNEL, PushSubType.TICKET_REVOKE.toString(), jsonObj);
+        return baseSubMessage;
+    }
+
+}
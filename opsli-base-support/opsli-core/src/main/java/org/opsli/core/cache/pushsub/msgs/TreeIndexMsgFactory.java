@@ -0,0 +1,85 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.cache.pushsub.msgs;
+
+import com.alibaba.fastjson.JSONObject;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.opsli.core.cache.local.TreeIndex;
+import org.opsli.core.cache.pushsub.enums.CacheHandleType;
+import org.opsli.core.cache.pushsub.enums.MsgArgsType;
+import org.opsli.core.cache.pushsub.enums.PushSubType;
+import org.opsli.core.cache.pushsub.receiver.RedisPushSubReceiver;
+import org.opsli.plugins.redis.pushsub.entity.BaseSubMessage;
+
+import java.util.Collection;
+
+/**
+ * 树结构索引消息
+ *
+ * @author Parker
+ * @date 2021-06-09
+ */
+@Data
+@Accessors(chain = true)
+public final class TreeIndexMsgFactory extends BaseSubMessage{
+
+    /** 通道 */
+    private static final String CHANNEL = RedisPushSubReceiver.BASE_CHANNEL + RedisPushSubReceiver.CHANNEL;
+
+    private TreeIndexMsgFactory(){}
+
+    /**
+     * 构建消息 - 新增 / 修改节点 (接收方按ID重新读取)
+     * @param type 树类型
+     * @param ids 节点ID集合
+     * @return 消息
+     */
+    public static BaseSubMessage createPutMsg(TreeIndex.Type type, Collection<String> ids){
+        return createMsg(type, ids, CacheHandleType.UPDATE);
+    }
+
+    /**
+     * 构建消息 - 删除节点 (含子树)
+     * @param type 树类型
+     * @param ids 节点ID集合
+     * @return 消息
+     */
+    public static BaseSubMessage createRemoveMsg(TreeIndex.Type type, Collection<String> ids){
+        return createMsg(type, ids, CacheHandleType.DELETE);
+    }
+
+    /**
+     * 构建消息
+     * @param type 树类型
+     * @param data 数据
+     * @param handleType 操作类型
+     * @return 消息
+     */
+    private static BaseSubMessage createMsg(TreeIndex.Type type, Object data, CacheHandleType handleType){
+        BaseSubMessage baseSubMessage = new BaseSubMessage();
+        // 数据
+        JSONObject jsonObj = new JSONObject();
+        jsonObj.put(MsgArgsType.TREE_TYPE.toString(), type);
+        jsonObj.put(MsgArgsType.TREE_DATA.toString(), data);
+        jsonObj.put(MsgArgsType.TREE_HANDLE_TYPE.toString(), handleType);
+
+        // 树结构索引
+        baseSubMessage.build(CHANNEL, PushSubType.TREE_INDEX.toString(), jsonObj);
+        return baseSubMessage;
+    }
+
+}
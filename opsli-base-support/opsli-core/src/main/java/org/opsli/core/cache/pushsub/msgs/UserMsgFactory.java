@@ -26,6 +26,7 @@ import org.opsli.core.cache.pushsub.enums.UserModelType;
 import org.opsli.core.cache.pushsub.receiver.RedisPushSubReceiver;
 import org.opsli.plugins.redis.pushsub.entity.BaseSubMessage;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -119,4 +120,21 @@ public final class UserMsgFactory extends BaseSubMessage{
         return baseSubMessage;
     }
 
+    /**
+     * 构建消息 - 用户授权信息
+     * @param userIds 用户ID集合
+     * @return 消息
+     */
+    public static BaseSubMessage createUserAuthzMsg(Collection<String> userIds){
+        BaseSubMessage baseSubMessage = new BaseSubMessage();
+        // 数据
+        JSONObject jsonObj = new JSONObject();
+        jsonObj.put(MsgArgsType.USER_MODEL_TYPE.toString(), UserModelType.USER_AUTHZ_MODEL.toString());
+        jsonObj.put(MsgArgsType.USER_MODEL_DATA.toString(), userIds);
+
+        // 用户
+        baseSubMessage.build(CHANNEL,PushSubType.USER.toString(),jsonObj);
+        return baseSubMessage;
+    }
+
 }
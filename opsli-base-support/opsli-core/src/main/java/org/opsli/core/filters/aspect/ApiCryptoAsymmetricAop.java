@@ -21,8 +21,13 @@ import cn.hutool.core.util.ReflectUtil;
 import cn.hutool.core.util.TypeUtil;
 import lombok.extern.slf4j.Slf4j;
 import opsli.plugins.crypto.CryptoPlugin;
+import opsli.plugins.crypto.enums.CryptoAsymmetricMode;
+import opsli.plugins.crypto.exception.CryptoException;
 import opsli.plugins.crypto.model.CryptoAsymmetric;
+import opsli.plugins.crypto.model.CryptoEnvelope;
+import opsli.plugins.crypto.msg.CryptoMsg;
 import opsli.plugins.crypto.strategy.CryptoAsymmetricService;
+import opsli.plugins.crypto.strategy.CryptoEnvelopeService;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -32,6 +37,8 @@ import org.opsli.api.base.encrypt.BaseEncrypt;
 import org.opsli.api.base.result.ResultVo;
 import org.opsli.common.annotation.ApiCryptoAsymmetric;
 import org.opsli.common.exception.ServiceException;
+import org.opsli.core.api.TokenThreadLocal;
+import org.opsli.core.cache.CryptoSessionCache;
 import org.opsli.core.msg.CoreMsg;
 import org.opsli.core.options.CryptoConfigFactory;
 import org.springframework.core.annotation.Order;
@@ -124,7 +131,7 @@ public class ApiCryptoAsymmetricAop {
                 BaseEncrypt baseEncrypt = (BaseEncrypt) arg;
                 String encryptData = baseEncrypt.getEncryptData();
                 // 解密对象
-                Object dataToObj = asymmetric.decryptToObj(cryptoModel, encryptData);
+                Object dataToObj = decryptToObj(encryptData, asymmetric, cryptoModel);
 
                 // 根据方法类型转化对象
                 Type type = TypeUtil.getParamType(method, i);
@@ -165,10 +172,10 @@ public class ApiCryptoAsymmetricAop {
                     // 重新赋值 data
                     ResultVo<Object> ret = (ResultVo<Object>) returnValue;
                     ret.setData(
-                            asymmetric.encrypt(cryptoModel, ret.getData())
+                            encrypt(ret.getData(), asymmetric, cryptoModel)
                     );
                 }else {
-                    returnValue = asymmetric.encrypt(cryptoModel, returnValue);
+                    returnValue = encrypt(returnValue, asymmetric, cryptoModel);
                 }
             }catch (Exception e){
                 // 非对称加密失败
@@ -178,4 +185,65 @@ public class ApiCryptoAsymmetricAop {
         return returnValue;
     }
 
+    /**
+     * 解密数据 (按加密模式)
+     * @param encryptData 加密数据
+     * @param asymmetric 非对称加解密执行器
+     * @param cryptoModel 非对称加解密模型
+     * @return Object
+     */
+    private Object decryptToObj(String encryptData, CryptoAsymmetricService asymmetric, CryptoAsymmetric cryptoModel) {
+        CryptoAsymmetricMode mode = cryptoModel.getMode();
+        if(mode == null || !mode.isEnvelope()){
+            return asymmetric.decryptToObj(cryptoModel, encryptData);
+        }
+
+        CryptoEnvelopeService envelopeService = CryptoPlugin.getEnvelope();
+        CryptoEnvelope envelope = envelopeService.parse(encryptData);
+        if(envelope == null){
+            return null;
+        }
+
+        // 打开数字信封 获得数据密钥
+        byte[] dataKey = envelopeService.openKey(cryptoModel, envelope);
+        if(CryptoAsymmetricMode.ENVELOPE_SESSION == mode){
+            String token = TokenThreadLocal.get();
+            if(dataKey == null){
+                // 未携带数据密钥 使用会话密钥
+                dataKey = CryptoSessionCache.get(token);
+                if(dataKey == null){
+                    // 加密会话不存在或已过期
+                    throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_SESSION_NULL);
+                }
+            }else if(Boolean.TRUE.equals(envelope.getSession())){
+                // 建立会话 后续请求不再执行非对称运算
+                CryptoSessionCache.put(token, dataKey);
+            }
+        }
+        return envelopeService.decryptToObj(cryptoModel, dataKey, envelope);
+    }
+
+    /**
+     * 加密数据 (按加密模式)
+     * @param data 数据
+     * @param asymmetric 非对称加解密执行器
+     * @param cryptoModel 非对称加解密模型
+     * @return Object
+     */
+    private Object encrypt(Object data, CryptoAsymmetricService asymmetric, CryptoAsymmetric cryptoModel) {
+        CryptoAsymmetricMode mode = cryptoModel.getMode();
+        if(mode == null || !mode.isEnvelope()){
+            return asymmetric.encrypt(cryptoModel, data);
+        }
+
+        CryptoEnvelopeService envelopeService = CryptoPlugin.getEnvelope();
+        if(CryptoAsymmetricMode.ENVELOPE_SESSION == mode){
+            byte[] sessionKey = CryptoSessionCache.get(TokenThreadLocal.get());
+            if(sessionKey != null){
+                return envelopeService.encrypt(cryptoModel, sessionKey, data);
+            }
+        }
+        return envelopeService.encrypt(cryptoModel, data);
+    }
+
 }
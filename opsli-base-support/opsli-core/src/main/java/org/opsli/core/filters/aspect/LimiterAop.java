@@ -16,6 +16,7 @@
 package org.opsli.core.filters.aspect;
 
 
+import cn.hutool.core.util.StrUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
@@ -24,10 +25,13 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.opsli.common.annotation.Limiter;
 import org.opsli.common.enums.AlertType;
+import org.opsli.common.enums.LimiterDimension;
 import org.opsli.common.exception.ServiceException;
+import org.opsli.common.utils.IPUtil;
 import org.opsli.common.utils.OutputStreamUtil;
-import org.opsli.common.utils.RateLimiterUtil;
 import org.opsli.core.msg.CoreMsg;
+import org.opsli.core.utils.RateLimitUtil;
+import org.opsli.core.utils.UserTokenUtil;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestAttributes;
@@ -52,6 +56,8 @@ import static org.opsli.common.constants.OrderConstants.LIMITER_AOP_SORT;
 @Component
 public class LimiterAop {
 
+    /** 等待时间 响应头 */
+    private static final String HEADER_RETRY_AFTER = "Retry-After";
 
     @Pointcut("@annotation(org.opsli.common.annotation.Limiter)")
     public void requestMapping() {
@@ -74,11 +80,18 @@ public class LimiterAop {
                 Limiter limiter = method.getAnnotation(Limiter.class);
                 if(limiter != null){
                     AlertType alertType = limiter.alertType();
-                    double qps = limiter.qps();
 
-                    // 限流
-                    boolean enterFlag = RateLimiterUtil.enter(request, qps);
-                    if(!enterFlag){
+                    // 限流 (不阻塞 被拒绝时返回等待时间)
+                    String limiterKey = this.getLimiterKey(method, limiter, request);
+                    long retryAfter = RateLimitUtil.tryAcquire(limiterKey,
+                            limiter.algorithm(), limiter.qps(), limiter.burst());
+                    if(retryAfter > 0){
+                        log.warn("限流器 - 访问频繁 限流键: {}, 等待: {}ms", limiterKey, retryAfter);
+                        if(response != null){
+                            response.setHeader(HEADER_RETRY_AFTER,
+                                    String.valueOf((retryAfter + 999) / 1000));
+                        }
+
                         // alert 弹出
                         if(AlertType.ALERT == alertType){
                             OutputStreamUtil.exceptionResponse(
@@ -99,4 +112,60 @@ public class LimiterAop {
         }
     }
 
+    /**
+     * 获得限流键 方法 + 限流维度
+     * @param method 方法
+     * @param limiter 限流注解
+     * @param request request
+     * @return String
+     */
+    private String getLimiterKey(Method method, Limiter limiter, HttpServletRequest request) {
+        StringBuilder key = new StringBuilder()
+                .append(method.getDeclaringClass().getSimpleName())
+                .append('.').append(method.getName());
+        for (LimiterDimension dimension : limiter.dimension()) {
+            key.append(':');
+            switch (dimension){
+                case USER:
+                    key.append(StrUtil.blankToDefault(this.getUserId(),
+                            IPUtil.getClientIdBySingle(request)));
+                    break;
+                case TENANT:
+                    key.append(StrUtil.blankToDefault(this.getTenantId(),
+                            IPUtil.getClientIdBySingle(request)));
+                    break;
+                case URI:
+                    key.append(request.getRequestURI());
+                    break;
+                case IP:
+                default:
+                    key.append(IPUtil.getClientIdBySingle(request));
+                    break;
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 当前用户ID (未登录为空)
+     * @return String
+     */
+    private String getUserId() {
+        try {
+            return UserTokenUtil.getUserIdByToken();
+        }catch (Exception ignored){}
+        return null;
+    }
+
+    /**
+     * 当前租户ID (未登录为空)
+     * @return String
+     */
+    private String getTenantId() {
+        try {
+            return UserTokenUtil.getTenantIdByToken();
+        }catch (Exception ignored){}
+        return null;
+    }
+
 }
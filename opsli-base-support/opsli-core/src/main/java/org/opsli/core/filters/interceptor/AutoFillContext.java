@@ -0,0 +1,137 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.filters.interceptor;
+
+import cn.hutool.core.date.DateUtil;
+import org.opsli.api.wrapper.system.user.UserOrgRefModel;
+import org.opsli.core.utils.UserUtil;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * 自动填充 上下文
+ *
+ * 当前时间、当前用户ID、租户ID、默认组织 在一个上下文内只解析一次 (用到时才解析)
+ * 单条语句 每次新建；批量新增 通过 open 在整批范围内共用，已预先填充的数据 拦截器不再处理
+ *
+ * @author Parker
+ * @date 2021-06-08 09:30
+ */
+public final class AutoFillContext implements AutoCloseable {
+
+    /** 批量范围 上下文 */
+    private static final ThreadLocal<AutoFillContext> HOLDER = new ThreadLocal<>();
+
+    /** 当前时间 */
+    private final Date date = DateUtil.date();
+    /** 已填充数据 */
+    private final Set<Object> filled = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** 嵌套层数 */
+    private int depth;
+
+    /** 当前用户ID */
+    private String userId;
+    private boolean userIdResolved;
+    /** 租户ID */
+    private String tenantId;
+    private boolean tenantIdResolved;
+    /** 默认组织 */
+    private String orgIds;
+    private boolean orgIdsResolved;
+
+    private AutoFillContext(){}
+
+    /**
+     * 开启批量范围上下文 (需 close)
+     * @return AutoFillContext
+     */
+    public static AutoFillContext open(){
+        AutoFillContext context = HOLDER.get();
+        if(context == null){
+            context = new AutoFillContext();
+            HOLDER.set(context);
+        }
+        context.depth++;
+        return context;
+    }
+
+    /**
+     * 当前上下文 (未开启批量范围 则新建)
+     * @return AutoFillContext
+     */
+    static AutoFillContext current(){
+        AutoFillContext context = HOLDER.get();
+        return context != null ? context : new AutoFillContext();
+    }
+
+    @Override
+    public void close() {
+        if(--depth <= 0 && HOLDER.get() == this){
+            HOLDER.remove();
+        }
+    }
+
+    /**
+     * 标记已填充
+     * @param entity 数据
+     */
+    void markFilled(Object entity){
+        if(depth > 0){
+            filled.add(entity);
+        }
+    }
+
+    /**
+     * 是否已填充
+     * @param entity 数据
+     * @return boolean
+     */
+    boolean isFilled(Object entity){
+        return !filled.isEmpty() && filled.contains(entity);
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public String getUserId() {
+        if(!userIdResolved){
+            userId = UserUtil.getUser().getId();
+            userIdResolved = true;
+        }
+        return userId;
+    }
+
+    public String getTenantId() {
+        if(!tenantIdResolved){
+            tenantId = UserUtil.getTenantId();
+            tenantIdResolved = true;
+        }
+        return tenantId;
+    }
+
+    public String getOrgIds() {
+        if(!orgIdsResolved){
+            UserOrgRefModel userOrgRefModel = UserUtil.getUserDefOrgByUserId(this.getUserId());
+            orgIds = userOrgRefModel != null ? userOrgRefModel.getOrgIds() : null;
+            orgIdsResolved = true;
+        }
+        return orgIds;
+    }
+}
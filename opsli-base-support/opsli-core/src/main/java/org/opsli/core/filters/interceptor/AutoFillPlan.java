@@ -0,0 +1,300 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.filters.interceptor;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.bean.PropDesc;
+import cn.hutool.core.convert.BasicType;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.ReflectUtil;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.opsli.common.constants.MyBatisConstants;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 自动填充计划
+ *
+ * 每个实体类只解析一次：需要填充的字段 及其 getter / setter (MethodHandle)，
+ * 乐观锁、逻辑删除 的初始值也预先转换为字段类型
+ *
+ * 字段规则与原逐字段反射方式一致：按字段名匹配，@TableField(exist = false) 的字段不处理
+ *
+ * @author Parker
+ * @date 2021-06-08 09:30
+ */
+@Slf4j
+public final class AutoFillPlan {
+
+    /** 填充计划缓存 */
+    private static final Map<Class<?>, AutoFillPlan> PLAN_CACHE = new ConcurrentHashMap<>();
+
+    /** 创建人 */
+    private final Accessor createBy;
+    /** 更新人 */
+    private final Accessor updateBy;
+    /** 创建日期 */
+    private final Accessor createTime;
+    /** 更新日期 */
+    private final Accessor updateTime;
+    /** 乐观锁 */
+    private final Accessor version;
+    private final Object versionValue;
+    /** 逻辑删除 */
+    private final Accessor deleted;
+    private final Object deletedValue;
+    /** 多租户 */
+    private final Accessor tenant;
+    /** 组织机构 */
+    private final Accessor orgGroup;
+
+    private AutoFillPlan(Class<?> clazz){
+        Map<String, Field> fieldMap = Maps.newHashMap();
+        for (Field f : ReflectUtil.getFields(clazz)) {
+            // 子类字段优先 如果设置为忽略字段 则同名字段都不处理
+            if(fieldMap.containsKey(f.getName())){
+                continue;
+            }
+            TableField tableField = f.getAnnotation(TableField.class);
+            fieldMap.put(f.getName(), tableField != null && !tableField.exist() ? null : f);
+        }
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        this.createBy = Accessor.create(lookup, clazz, fieldMap.get(MyBatisConstants.FIELD_CREATE_BY));
+        this.updateBy = Accessor.create(lookup, clazz, fieldMap.get(MyBatisConstants.FIELD_UPDATE_BY));
+        this.createTime = Accessor.create(lookup, clazz, fieldMap.get(MyBatisConstants.FIELD_CREATE_TIME));
+        this.updateTime = Accessor.create(lookup, clazz, fieldMap.get(MyBatisConstants.FIELD_UPDATE_TIME));
+        this.version = Accessor.create(lookup, clazz, fieldMap.get(MyBatisConstants.FIELD_OPTIMISTIC_LOCK));
+        this.deleted = Accessor.create(lookup, clazz, fieldMap.get(MyBatisConstants.FIELD_DELETE_LOGIC));
+        this.tenant = Accessor.create(lookup, clazz, fieldMap.get(MyBatisConstants.FIELD_TENANT));
+        this.orgGroup = Accessor.create(lookup, clazz, fieldMap.get(MyBatisConstants.FIELD_ORG_GROUP));
+
+        this.versionValue = version != null ? version.convert(0) : null;
+        this.deletedValue = deleted != null ? deleted.convert(MyBatisConstants.LOGIC_NOT_DELETE_VALUE) : null;
+    }
+
+    /**
+     * 获得填充计划
+     * @param clazz 实体类
+     * @return AutoFillPlan
+     */
+    public static AutoFillPlan get(Class<?> clazz){
+        AutoFillPlan plan = PLAN_CACHE.get(clazz);
+        if(plan == null){
+            plan = PLAN_CACHE.computeIfAbsent(clazz, AutoFillPlan::new);
+        }
+        return plan;
+    }
+
+    /**
+     * 批量新增 预先填充 (整批只查找一次计划)
+     * 需在 AutoFillContext.open() 范围内执行，执行新增语句时 拦截器不再重复填充
+     * @param entities 数据
+     * @param context 上下文
+     */
+    public static void insertFill(Collection<?> entities, AutoFillContext context){
+        AutoFillPlan plan = null;
+        Class<?> planClass = null;
+        for (Object entity : entities) {
+            if(entity == null){
+                continue;
+            }
+            if(entity.getClass() != planClass){
+                planClass = entity.getClass();
+                plan = get(planClass);
+            }
+            plan.insertFill(entity, context);
+            context.markFilled(entity);
+        }
+    }
+
+    /**
+     * 新增数据
+     * @param entity 数据
+     * @param context 上下文
+     */
+    public void insertFill(Object entity, AutoFillContext context){
+        // 创建人 如果为空则进行默认赋值
+        if(createBy != null && createBy.isBlank(entity)){
+            createBy.set(entity, context.getUserId());
+        }
+        // 更新人 如果为空则进行默认赋值
+        if(updateBy != null && updateBy.isBlank(entity)){
+            updateBy.set(entity, context.getUserId());
+        }
+        // 创建日期
+        if(createTime != null){
+            createTime.set(entity, context.getDate());
+        }
+        // 更新日期
+        if(updateTime != null){
+            updateTime.set(entity, context.getDate());
+        }
+        // 乐观锁
+        if(version != null){
+            version.setConverted(entity, versionValue);
+        }
+        // 逻辑删除
+        if(deleted != null){
+            deleted.setConverted(entity, deletedValue);
+        }
+        // 多租户设置 如果租户ID 为空则进行默认赋值
+        if(tenant != null && tenant.isBlank(entity)){
+            tenant.set(entity, context.getTenantId());
+        }
+        // 组织机构设置 如果组织IDs 为空则进行默认赋值
+        if(orgGroup != null && orgGroup.isBlank(entity)){
+            String orgIds = context.getOrgIds();
+            if(orgIds != null){
+                orgGroup.set(entity, orgIds);
+            }
+        }
+    }
+
+    /**
+     * 修改数据
+     * @param entity 数据
+     * @param context 上下文
+     */
+    public void updateFill(Object entity, AutoFillContext context){
+        // 更新人 如果为空则进行默认赋值
+        if(updateBy != null && updateBy.isBlank(entity)){
+            updateBy.set(entity, context.getUserId());
+        }
+        // 更新日期
+        if(updateTime != null){
+            updateTime.set(entity, context.getDate());
+        }
+    }
+
+    // =======================================
+
+    /**
+     * 字段读写
+     */
+    private static final class Accessor {
+
+        /** (Object)Object */
+        private final MethodHandle getter;
+        /** (Object, Object)void */
+        private final MethodHandle setter;
+        /** 字段类型 (基本类型转为包装类型) */
+        private final Class<?> type;
+
+        private Accessor(MethodHandle getter, MethodHandle setter, Class<?> type) {
+            this.getter = getter;
+            this.setter = setter;
+            this.type = type;
+        }
+
+        /**
+         * 创建字段读写 (优先使用 setter 方法)
+         * @param lookup lookup
+         * @param clazz 实体类
+         * @param field 字段 为空则不处理
+         * @return Accessor
+         */
+        private static Accessor create(MethodHandles.Lookup lookup, Class<?> clazz, Field field){
+            if(field == null){
+                return null;
+            }
+            try {
+                field.setAccessible(true);
+                MethodHandle getter = lookup.unreflectGetter(field)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+
+                MethodHandle setter;
+                PropDesc prop = BeanUtil.getBeanDesc(clazz).getProp(field.getName());
+                Method setterMethod = prop != null ? prop.getSetter() : null;
+                if(setterMethod != null){
+                    setterMethod.setAccessible(true);
+                    setter = lookup.unreflect(setterMethod);
+                    // 链式 setter 返回值丢弃
+                    setter = setter.asType(setter.type().changeReturnType(void.class));
+                }else {
+                    setter = lookup.unreflectSetter(field);
+                }
+                setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+                return new Accessor(getter, setter, BasicType.wrap(field.getType()));
+            }catch (Exception e){
+                log.warn("无法生成填充字段 {}.{}: {}", clazz.getName(), field.getName(), e.getMessage());
+            }
+            return null;
+        }
+
+        /**
+         * 值是否为空
+         * @param entity 数据
+         * @return boolean
+         */
+        private boolean isBlank(Object entity){
+            try {
+                return StringUtils.isBlank(Convert.toStr(getter.invoke(entity)));
+            }catch (RuntimeException e){
+                throw e;
+            }catch (Throwable e){
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * 赋值 (类型不一致时转换)
+         * @param entity 数据
+         * @param value 值
+         */
+        private void set(Object entity, Object value){
+            this.setConverted(entity, this.convert(value));
+        }
+
+        /**
+         * 赋值 (值已是字段类型)
+         * @param entity 数据
+         * @param value 值
+         */
+        private void setConverted(Object entity, Object value){
+            try {
+                setter.invoke(entity, value);
+            }catch (RuntimeException e){
+                throw e;
+            }catch (Throwable e){
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * 转换为字段类型
+         * @param value 值
+         * @return Object
+         */
+        private Object convert(Object value){
+            if(value == null || type.isInstance(value)){
+                return value;
+            }
+            return Convert.convert(type, value);
+        }
+    }
+}
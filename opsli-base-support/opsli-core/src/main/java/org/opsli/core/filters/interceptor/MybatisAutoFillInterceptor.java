@@ -15,27 +15,16 @@
  */
 package org.opsli.core.filters.interceptor;
 
-import cn.hutool.core.bean.BeanUtil;
-import cn.hutool.core.convert.Convert;
-import cn.hutool.core.date.DateUtil;
-import cn.hutool.core.util.ReflectUtil;
-import com.baomidou.mybatisplus.annotation.TableField;
-import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.ibatis.binding.MapperMethod;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.plugin.*;
-import org.opsli.api.wrapper.system.user.UserOrgRefModel;
-import org.opsli.common.constants.MyBatisConstants;
-import org.opsli.core.utils.UserUtil;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.util.*;
+import java.util.Properties;
 
 /**
  * MyBatis 拦截器 注入属性用
@@ -60,9 +49,6 @@ public class MybatisAutoFillInterceptor implements Interceptor {
 
     private static final String ET = "et";
 
-    /** 实体类字段 */
-    static private final Map<Class<?>, Field[]> ENTITY_FIELD_MAP = new HashMap<>();
-
     @Override
     public Object intercept(Invocation invocation) throws IllegalAccessException, InvocationTargetException {
         fillField(invocation);
@@ -76,6 +62,8 @@ public class MybatisAutoFillInterceptor implements Interceptor {
     private void fillField(Invocation invocation) {
         Object[] args = invocation.getArgs();
         SqlCommandType sqlCommandType = null;
+        // 当前用户等信息 单条语句内只解析一次
+        AutoFillContext context = null;
         for (Object arg : args) {
             //第一个参数处理。根据它判断是否给“操作属性”赋值。
             //如果是第一个参数 MappedStatement
@@ -90,13 +78,17 @@ public class MybatisAutoFillInterceptor implements Interceptor {
                 }
             }
 
+            if(context == null){
+                context = AutoFillContext.current();
+            }
+
             if (sqlCommandType == SqlCommandType.INSERT) {
                 // 新增
-                this.insertFill(arg);
+                this.insertFill(arg, context);
 
             } else if (sqlCommandType == SqlCommandType.UPDATE) {
                 // 修改
-                this.updateFill(arg);
+                this.updateFill(arg, context);
             }
         }
     }
@@ -104,114 +96,31 @@ public class MybatisAutoFillInterceptor implements Interceptor {
     /**
      * 新增数据
      * @param arg 参数
+     * @param context 上下文
      */
-    public void insertFill(Object arg) {
+    public void insertFill(Object arg, AutoFillContext context) {
         if(arg == null ){
             return;
         }
 
-        // 排除字段
-        List<String> existField = Lists.newArrayList();
-
-        // 当前时间
-        Date currDate = DateUtil.date();
-
-        // 字段缓存 减少每次更新 反射
-        Field[] fields = ENTITY_FIELD_MAP.get(arg.getClass());
-        if(fields == null){
-            fields = ReflectUtil.getFields(arg.getClass());
-            ENTITY_FIELD_MAP.put(arg.getClass(), fields);
+        // 批量新增 已预先填充
+        if(context.isFilled(arg)){
+            return;
         }
 
-        for (Field f : fields) {
-            // 判断是否是排除字段
-            if(existField.contains(f.getName())){
-                continue;
-            }
-
-            // 如果设置为忽略字段 则直接跳过不处理
-            TableField tableField = f.getAnnotation(TableField.class);
-            if(tableField != null){
-                boolean exist = tableField.exist();
-                if(!exist){
-                    existField.add(f.getName());
-                    continue;
-                }
-            }
-
-            switch (f.getName()) {
-                // 创建人
-                case MyBatisConstants.FIELD_CREATE_BY:
-                    // 如果创建人 为空则进行默认赋值
-                    Object createValue = ReflectUtil.getFieldValue(arg, f.getName());
-                    if(StringUtils.isBlank(Convert.toStr(createValue))){
-                        BeanUtil.setProperty(arg, MyBatisConstants.FIELD_CREATE_BY, UserUtil.getUser().getId());
-                    }
-                    break;
-                // 更新人
-                case MyBatisConstants.FIELD_UPDATE_BY:
-                    // 如果更新人 为空则进行默认赋值
-                    Object updateValue = ReflectUtil.getFieldValue(arg, f.getName());
-                    if(StringUtils.isBlank(Convert.toStr(updateValue))){
-                        BeanUtil.setProperty(arg, MyBatisConstants.FIELD_UPDATE_BY, UserUtil.getUser().getId());
-                    }
-                    break;
-                // 创建日期
-                case MyBatisConstants.FIELD_CREATE_TIME:
-                    BeanUtil.setProperty(arg, MyBatisConstants.FIELD_CREATE_TIME, currDate);
-                    break;
-                // 更新日期
-                case MyBatisConstants.FIELD_UPDATE_TIME:
-                    BeanUtil.setProperty(arg, MyBatisConstants.FIELD_UPDATE_TIME, currDate);
-                    break;
-                // 乐观锁
-                case MyBatisConstants.FIELD_OPTIMISTIC_LOCK:
-                    BeanUtil.setProperty(arg, MyBatisConstants.FIELD_OPTIMISTIC_LOCK, 0);
-                    break;
-                // 逻辑删除
-                case MyBatisConstants.FIELD_DELETE_LOGIC:
-                    BeanUtil.setProperty(arg, MyBatisConstants.FIELD_DELETE_LOGIC,  MyBatisConstants.LOGIC_NOT_DELETE_VALUE);
-                    break;
-                // 多租户设置
-                case MyBatisConstants.FIELD_TENANT:
-                    // 2020-12-05 修复当前租户可能为空字符串报错问题
-                    // 如果租户ID 为空则进行默认赋值
-                    Object tenantValue = ReflectUtil.getFieldValue(arg, f.getName());
-                    if(StringUtils.isBlank(Convert.toStr(tenantValue))){
-                        BeanUtil.setProperty(arg, MyBatisConstants.FIELD_TENANT,  UserUtil.getTenantId());
-                    }
-                    break;
-                // 组织机构设置
-                case MyBatisConstants.FIELD_ORG_GROUP:
-                    // 如果组织IDs 为空则进行默认赋值
-                    Object orgValue = ReflectUtil.getFieldValue(arg, f.getName());
-                    if(StringUtils.isBlank(Convert.toStr(orgValue))){
-                        UserOrgRefModel userOrgRefModel =
-                                UserUtil.getUserDefOrgByUserId(UserUtil.getUser().getId());
-                        if(null != userOrgRefModel){
-                            String orgIds = userOrgRefModel.getOrgIds();
-                            BeanUtil.setProperty(arg, MyBatisConstants.FIELD_ORG_GROUP, orgIds);
-                        }
-                    }
-                    break;
-                default:
-                    break;
-            }
-        }
+        AutoFillPlan.get(arg.getClass()).insertFill(arg, context);
     }
 
     /**
      * 修改数据
      * @param arg 参数
+     * @param context 上下文
      */
-    public void updateFill(Object arg) {
+    public void updateFill(Object arg, AutoFillContext context) {
         if(arg == null ){
             return;
         }
 
-        // 排除字段
-        List<String> existField = Lists.newArrayList();
-
         // 2020-09-19
         // 修改这儿 有可能会拿到一个 MapperMethod，需要特殊处理
         if (arg instanceof MapperMethod.ParamMap) {
@@ -226,46 +135,7 @@ public class MybatisAutoFillInterceptor implements Interceptor {
             }
         }
 
-        // 字段缓存 减少每次更新 反射
-        Field[] fields = ENTITY_FIELD_MAP.get(arg.getClass());
-        if(fields == null){
-            fields = ReflectUtil.getFields(arg.getClass());
-            ENTITY_FIELD_MAP.put(arg.getClass(), fields);
-        }
-
-        for (Field f : fields) {
-            // 判断是否是排除字段
-            if(existField.contains(f.getName())){
-                continue;
-            }
-
-            // 如果设置为忽略字段 则直接跳过不处理
-            TableField tableField = f.getAnnotation(TableField.class);
-            if(tableField != null){
-                boolean exist = tableField.exist();
-                if(!exist){
-                    existField.add(f.getName());
-                    continue;
-                }
-            }
-
-            switch (f.getName()) {
-                // 更新人
-                case MyBatisConstants.FIELD_UPDATE_BY:
-                    // 如果更新人 为空则进行默认赋值
-                    Object updateValue = ReflectUtil.getFieldValue(arg, f.getName());
-                    if(StringUtils.isBlank(Convert.toStr(updateValue))){
-                        BeanUtil.setProperty(arg, MyBatisConstants.FIELD_UPDATE_BY, UserUtil.getUser().getId());
-                    }
-                    break;
-                // 更新日期
-                case MyBatisConstants.FIELD_UPDATE_TIME:
-                    BeanUtil.setProperty(arg, MyBatisConstants.FIELD_UPDATE_TIME, DateUtil.date());
-                    break;
-                default:
-                    break;
-            }
-        }
+        AutoFillPlan.get(arg.getClass()).updateFill(arg, context);
     }
 
     // =======================================
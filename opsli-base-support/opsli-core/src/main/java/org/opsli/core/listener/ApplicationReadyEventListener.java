@@ -1,6 +1,7 @@
 package org.opsli.core.listener;
 
 import lombok.extern.slf4j.Slf4j;
+import org.opsli.core.cache.guard.PenetrationGuard;
 import org.opsli.core.general.StartPrint;
 import org.opsli.core.utils.OptionsUtil;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -20,6 +21,8 @@ public class ApplicationReadyEventListener implements ApplicationListener<Applic
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
         event.getApplicationContext();
+        // 加载防穿透过滤器
+        PenetrationGuard.reload();
         // 输出启动日志
         StartPrint.getInstance().successPrint();
     }
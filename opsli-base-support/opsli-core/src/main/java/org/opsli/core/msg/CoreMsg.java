@@ -32,6 +32,7 @@ public enum CoreMsg implements BaseMsg {
     SQL_EXCEPTION_INTEGRITY_CONSTRAINT_VIOLATION(10105,"数据主键冲突或者已有该数据！"),
     SQL_EXCEPTION_NOT_HAVE_DEFAULT_VALUE(10106,"数据异常：{} 字段没有默认值！"),
     SQL_EXCEPTION_UNKNOWN(10106,"数据异常：未知异常，请联系系统管理员 {}"),
+    SQL_EXCEPTION_CURSOR_INVALID(10107,"分页游标已失效，请重新查询"),
 
     /**
      * Redis
@@ -48,6 +49,7 @@ public enum CoreMsg implements BaseMsg {
     EXCEL_IMPORT_ERROR(10303,"Excel导入失败!   -  耗时：{}  -  失败信息：{}"),
     EXCEL_IMPORT_NO(10304,"导入对象为空"),
     EXCEL_FILE_NULL(10305,"请选择文件"),
+    EXCEL_EXPORT_CANCEL(10306,"Excel 导出已取消"),
     EXCEL_HANDLE_MAX(10700, "超出最大操作数量, 当前数据[{}]条，允许最大阈值[{}]条"),
 
 
@@ -16,6 +16,7 @@
 package org.opsli.core.options;
 
 import lombok.Data;
+import opsli.plugins.crypto.enums.CryptoAsymmetricMode;
 import opsli.plugins.crypto.enums.CryptoAsymmetricType;
 import opsli.plugins.crypto.enums.CryptoSymmetricType;
 import opsli.plugins.crypto.model.CryptoAsymmetric;
@@ -108,6 +109,14 @@ public enum CryptoConfigFactory {
         @OptionDict("crypto_asymmetric_private_key")
         private String privateKey;
 
+        /** 加密模式 为空则直接加密 */
+        @OptionDict("crypto_asymmetric_mode")
+        private CryptoAsymmetricMode mode;
+
+        /** 数字信封 数据加密算法 为空则使用 AES */
+        @OptionDict("crypto_asymmetric_envelope")
+        private CryptoSymmetricType envelopeType;
+
     }
 
 }
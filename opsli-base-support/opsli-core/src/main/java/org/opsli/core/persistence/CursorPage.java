@@ -0,0 +1,409 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.persistence;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.core.util.ReflectUtil;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.github.pagehelper.PageHelper;
+import com.google.common.collect.Lists;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.opsli.api.base.warpper.ApiWrapper;
+import org.opsli.common.constants.MyBatisConstants;
+import org.opsli.common.exception.ServiceException;
+import org.opsli.core.base.entity.BaseEntity;
+import org.opsli.core.msg.CoreMsg;
+import org.opsli.core.persistence.querybuilder.QueryBuilder;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 游标分页类 (Keyset 分页)
+ *
+ * 不使用 offset，也不统计 count，按上一页最后一行的排序键 生成 seek 条件
+ * 排序键 = WebQueryBuilder 中的排序字段 + id (保证唯一)，游标对前端不透明
+ * 翻页期间有新数据写入 也不会出现重复或遗漏
+ *
+ * 注：排序字段需为非空字段 (如 update_time)，空值按 MySQL 规则处理 (升序在前 降序在后)
+ * 注：游标中的排序指纹只用于识别排序条件是否变更，并非安全签名；
+ *    游标值可被客户端修改，仅作为普通查询参数绑定，权限过滤等条件不受影响
+ *
+ * @param <T>
+ * @param <E>
+ * @author Parker
+ * @date 2021-06-05 10:20
+ */
+@Slf4j
+public class CursorPage<T extends BaseEntity,E extends ApiWrapper> {
+
+    /** 默认分页大小 */
+    public static final int DEFAULT_PAGE_SIZE = 10;
+    /** 最大分页大小 */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /** 游标 排序指纹 */
+    private static final String CURSOR_FINGERPRINT = "f";
+    /** 游标 排序键值 */
+    private static final String CURSOR_VALUES = "v";
+
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    /** 当前游标 (为空则为第一页) */
+    private String cursor;
+    /** 查询条件构造器 */
+    private QueryWrapper<T> queryWrapper;
+    /** 排序字段 */
+    private List<Order> orders = Lists.newArrayList();
+
+    /** 数据 */
+    private List<E> list = Collections.emptyList();
+    /** 下一页游标 */
+    private String nextCursor;
+    /** 是否还有下一页 */
+    private boolean hasMore;
+
+    public CursorPage(){
+        super();
+    }
+
+    /**
+     * 游标分页 构造函数
+     * @param cursor 游标
+     * @param pageSize 分页大小
+     */
+    public CursorPage(String cursor, int pageSize) {
+        super();
+        this.cursor = cursor;
+        this.pageSize = CursorPage.clampPageSize(pageSize);
+    }
+
+    /**
+     * 游标分页 构造函数
+     * @param cursor 游标
+     * @param pageSize 分页大小
+     * @param queryBuilder 条件构造器 (排序参数一并带入)
+     */
+    public CursorPage(String cursor, int pageSize, QueryBuilder<T> queryBuilder) {
+        super();
+        this.cursor = cursor;
+        this.pageSize = CursorPage.clampPageSize(pageSize);
+        this.queryWrapper = queryBuilder.build();
+        this.orders = Lists.newArrayList(queryBuilder.getOrders());
+    }
+
+    /**
+     * 准备查询 (追加 id 排序 与 seek 条件，并限制条数)
+     * @param entityClazz Entity Clazz
+     */
+    public void begin(Class<T> entityClazz){
+        if(queryWrapper == null){
+            queryWrapper = new QueryWrapper<>();
+        }
+
+        List<Order> sortKeys = this.getSortKeys();
+
+        // id 兜底排序 保证排序键唯一
+        Order idOrder = sortKeys.get(sortKeys.size() - 1);
+        if(orders.isEmpty() || !StringUtils.equals(orders.get(orders.size() - 1).getField(), idOrder.getField())){
+            queryWrapper.orderBy(true, idOrder.isAsc(), idOrder.getColumn());
+        }
+
+        // 解析游标 生成 seek 条件
+        if(StringUtils.isNotEmpty(cursor)){
+            List<Object> values = this.decodeCursor(entityClazz, sortKeys);
+            queryWrapper.and(wrapper -> this.seek(wrapper, sortKeys, values));
+        }
+
+        // 多查一条 用于判断是否还有下一页
+        PageHelper.startPage(1, pageSize + 1, false);
+    }
+
+    /**
+     * 结束查询
+     */
+    public void end(){
+        PageHelper.clearPage();
+    }
+
+    /**
+     * 设置数据
+     * @param entityList 查询结果 (最多 pageSize + 1 条)
+     * @param list 转化后数据
+     */
+    public void instance(List<T> entityList, List<E> list) {
+        this.hasMore = entityList.size() > pageSize;
+        if(hasMore){
+            list = list.subList(0, pageSize);
+            this.nextCursor = this.encodeCursor(entityList.get(pageSize - 1));
+        }else {
+            this.nextCursor = null;
+        }
+        this.list = list;
+    }
+
+    /**
+     * 获取游标分页数据
+     * @return 分页对象
+     */
+    public CursorPageData getPageData(){
+        CursorPageData pageData = new CursorPageData();
+        pageData.setRows(this.list);
+        pageData.setNextCursor(this.nextCursor);
+        pageData.setHasMore(this.hasMore);
+        return pageData;
+    }
+
+    // =======================================================
+
+    /**
+     * 获得排序键 (排序字段 + id)
+     * @return List
+     */
+    private List<Order> getSortKeys(){
+        List<Order> sortKeys = Lists.newArrayList(orders);
+        if(sortKeys.isEmpty()){
+            sortKeys.add(new Order(MyBatisConstants.FIELD_ID, MyBatisConstants.FIELD_ID, false));
+            return sortKeys;
+        }
+
+        Order last = sortKeys.get(sortKeys.size() - 1);
+        if(!StringUtils.equals(last.getField(), MyBatisConstants.FIELD_ID)){
+            sortKeys.add(new Order(MyBatisConstants.FIELD_ID, MyBatisConstants.FIELD_ID, last.isAsc()));
+        }
+        return sortKeys;
+    }
+
+    /**
+     * seek 条件
+     * (c1 > v1) OR (c1 = v1 AND c2 > v2) OR ...
+     * @param wrapper 条件构造器
+     * @param sortKeys 排序键
+     * @param values 游标值
+     */
+    private void seek(QueryWrapper<T> wrapper, List<Order> sortKeys, List<Object> values){
+        for (int i = 0; i < sortKeys.size(); i++) {
+            final int index = i;
+            if(index > 0){
+                wrapper.or();
+            }
+            wrapper.nested(w -> {
+                for (int j = 0; j < index; j++) {
+                    Order order = sortKeys.get(j);
+                    Object value = values.get(j);
+                    if(value == null){
+                        w.isNull(order.getColumn());
+                    }else {
+                        w.eq(order.getColumn(), value);
+                    }
+                }
+                this.after(w, sortKeys.get(index), values.get(index));
+            });
+        }
+    }
+
+    /**
+     * 排在游标值之后
+     * @param wrapper 条件构造器
+     * @param order 排序
+     * @param value 游标值
+     */
+    private void after(QueryWrapper<T> wrapper, Order order, Object value){
+        if(value == null){
+            if(order.isAsc()){
+                // 升序 空值在前
+                wrapper.isNotNull(order.getColumn());
+            }else {
+                // 降序 空值在后 之后没有数据
+                wrapper.apply("1 = 0");
+            }
+            return;
+        }
+
+        if(order.isAsc()){
+            wrapper.gt(order.getColumn(), value);
+        }else {
+            // 降序 空值在后
+            wrapper.nested(w -> w.lt(order.getColumn(), value).or().isNull(order.getColumn()));
+        }
+    }
+
+    /**
+     * 生成游标
+     * @param entity 当前页最后一行
+     * @return String
+     */
+    private String encodeCursor(T entity){
+        List<Order> sortKeys = this.getSortKeys();
+        JSONArray values = new JSONArray(sortKeys.size());
+        for (Order order : sortKeys) {
+            values.add(ReflectUtil.getFieldValue(entity, order.getField()));
+        }
+
+        JSONObject cursorJson = new JSONObject();
+        cursorJson.put(CURSOR_FINGERPRINT, this.getFingerprint(sortKeys));
+        cursorJson.put(CURSOR_VALUES, values);
+        return Base64.encodeUrlSafe(cursorJson.toJSONString());
+    }
+
+    /**
+     * 解析游标
+     * @param entityClazz Entity Clazz
+     * @param sortKeys 排序键
+     * @return List
+     */
+    private List<Object> decodeCursor(Class<T> entityClazz, List<Order> sortKeys){
+        try {
+            JSONObject cursorJson = JSONObject.parseObject(Base64.decodeStr(cursor, StandardCharsets.UTF_8));
+            // 排序条件已变更 游标失效
+            if(!StringUtils.equals(this.getFingerprint(sortKeys), cursorJson.getString(CURSOR_FINGERPRINT))){
+                throw new ServiceException(CoreMsg.SQL_EXCEPTION_CURSOR_INVALID);
+            }
+
+            JSONArray values = cursorJson.getJSONArray(CURSOR_VALUES);
+            if(values == null || values.size() != sortKeys.size()){
+                throw new ServiceException(CoreMsg.SQL_EXCEPTION_CURSOR_INVALID);
+            }
+
+            List<Object> ret = Lists.newArrayListWithCapacity(sortKeys.size());
+            for (int i = 0; i < sortKeys.size(); i++) {
+                Field field = ReflectUtil.getField(entityClazz, sortKeys.get(i).getField());
+                Object value = values.get(i);
+                ret.add(value == null || field == null ? value : Convert.convert(field.getType(), value));
+            }
+            return ret;
+        }catch (ServiceException e){
+            throw e;
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+            throw new ServiceException(CoreMsg.SQL_EXCEPTION_CURSOR_INVALID);
+        }
+    }
+
+    /**
+     * 排序指纹 (识别排序条件是否变更)
+     * @param sortKeys 排序键
+     * @return String
+     */
+    private String getFingerprint(List<Order> sortKeys){
+        StringBuilder sb = new StringBuilder();
+        for (Order order : sortKeys) {
+            sb.append(order.getColumn()).append(order.isAsc() ? "+" : "-").append(",");
+        }
+        return DigestUtil.md5Hex16(sb.toString());
+    }
+
+    /**
+     * 分页大小 限制在 [1, MAX_PAGE_SIZE]
+     * @param pageSize 分页大小
+     * @return int
+     */
+    private static int clampPageSize(int pageSize){
+        return Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+    }
+
+    // =======================================================
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = CursorPage.clampPageSize(pageSize);
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public QueryWrapper<T> getQueryWrapper() {
+        return queryWrapper;
+    }
+
+    public void setQueryWrapper(QueryWrapper<T> queryWrapper) {
+        this.queryWrapper = queryWrapper;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<Order> orders) {
+        this.orders = orders == null ? Lists.newArrayList() : orders;
+    }
+
+    public List<E> getList() {
+        return list;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    //////////////////////////////////////////////////////////
+
+    /**
+     * 排序字段
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Order {
+
+        /** Entity 字段 */
+        private final String field;
+
+        /** 数据库字段 */
+        private final String column;
+
+        /** 是否升序 */
+        private final boolean asc;
+    }
+
+    /**
+     * 游标分页对象
+     */
+    @Data
+    public static class CursorPageData {
+
+        /** 行 */
+        private List<?> rows;
+
+        /** 下一页游标 */
+        private String nextCursor;
+
+        /** 是否还有下一页 */
+        private Boolean hasMore;
+
+    }
+
+}
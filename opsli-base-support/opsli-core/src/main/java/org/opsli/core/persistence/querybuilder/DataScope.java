@@ -0,0 +1,156 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.persistence.querybuilder;
+
+import com.google.common.collect.Lists;
+import org.opsli.core.persistence.querybuilder.chain.QueryDataPermsHandler.ConditionType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 用户数据范围
+ *
+ * 由 用户默认角色的数据权限 与 用户组织 计算得出，按用户缓存
+ * 本部门及以下 的组织路径去掉了被其他路径覆盖的下级路径 (右模糊匹配结果不变)
+ *
+ * @author Parker
+ * @date 2021-06-07 16:40
+ */
+public final class DataScope {
+
+    /** 用户ID */
+    private final String userId;
+    /** 条件类型 */
+    private final ConditionType conditionType;
+    /** 组织路径 (有序 去重) */
+    private final List<String> orgIds;
+
+    private DataScope(String userId, ConditionType conditionType, List<String> orgIds) {
+        this.userId = userId;
+        this.conditionType = conditionType;
+        this.orgIds = orgIds;
+    }
+
+    /**
+     * 全部数据 (超级管理员)
+     * @param userId 用户ID
+     * @return DataScope
+     */
+    public static DataScope all(String userId){
+        return new DataScope(userId, ConditionType.ALL, Collections.emptyList());
+    }
+
+    /**
+     * 创建数据范围
+     * @param userId 用户ID
+     * @param conditionType 条件类型
+     * @param orgIds 用户组织路径
+     * @return DataScope
+     */
+    public static DataScope create(String userId, ConditionType conditionType, Collection<String> orgIds){
+        TreeSet<String> sorted = new TreeSet<>();
+        if(orgIds != null){
+            for (String orgId : orgIds) {
+                if(orgId != null){
+                    sorted.add(orgId);
+                }
+            }
+        }
+
+        // 如果组织为空 则默认权限为查自己的数据
+        if(sorted.isEmpty()){
+            conditionType = ConditionType.SELF;
+        }
+
+        List<String> orgList;
+        switch (conditionType) {
+            case DEPT:
+                orgList = Collections.unmodifiableList(Lists.newArrayList(sorted));
+                break;
+            case DEPT_AND_BELOW:
+                orgList = Collections.unmodifiableList(removeCovered(sorted));
+                break;
+            default:
+                orgList = Collections.emptyList();
+                break;
+        }
+        return new DataScope(userId, conditionType, orgList);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public ConditionType getConditionType() {
+        return conditionType;
+    }
+
+    public List<String> getOrgIds() {
+        return orgIds;
+    }
+
+    /**
+     * 数据是否在范围内 (与 数据权限 查询条件一致，用于内存中过滤)
+     * @param dataOrgIds 数据组织路径
+     * @param dataCreateBy 数据创建人
+     * @return boolean
+     */
+    public boolean contains(String dataOrgIds, String dataCreateBy){
+        switch (conditionType) {
+            case ALL:
+                return true;
+            case DEPT:
+                return dataOrgIds != null && orgIds.contains(dataOrgIds);
+            case DEPT_AND_BELOW:
+                if(dataOrgIds == null){
+                    return false;
+                }
+                for (String orgId : orgIds) {
+                    if(dataOrgIds.startsWith(orgId)){
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                return userId != null && userId.equals(dataCreateBy);
+        }
+    }
+
+    // ==================
+
+    /**
+     * 去掉被覆盖的路径
+     * 排序后 以某路径为前缀的路径紧随其后，只需与上一个保留的路径比较
+     * @param sorted 有序路径
+     * @return List
+     */
+    private static List<String> removeCovered(TreeSet<String> sorted){
+        List<String> ret = Lists.newArrayListWithCapacity(sorted.size());
+        String last = null;
+        for (String orgId : sorted) {
+            if(last != null && orgId.startsWith(last)){
+                continue;
+            }
+            ret.add(orgId);
+            last = orgId;
+        }
+        return ret;
+    }
+
+}
@@ -17,6 +17,10 @@ package org.opsli.core.persistence.querybuilder;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.opsli.core.base.entity.BaseEntity;
+import org.opsli.core.persistence.CursorPage;
+
+import java.util.Collections;
+import java.util.List;
 
 
 /**
@@ -33,4 +37,12 @@ public interface QueryBuilder<T extends BaseEntity> {
      */
     QueryWrapper<T> build();
 
+    /**
+     * 已生效的排序字段 (游标分页使用，需先 build)
+     * @return List
+     */
+    default List<CursorPage.Order> getOrders() {
+        return Collections.emptyList();
+    }
+
 }
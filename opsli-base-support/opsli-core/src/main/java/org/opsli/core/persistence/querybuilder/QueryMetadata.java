@@ -0,0 +1,253 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.persistence.querybuilder;
+
+import cn.hutool.core.util.ReflectUtil;
+import com.google.common.collect.Maps;
+import org.opsli.common.constants.MyBatisConstants;
+import org.opsli.common.utils.FieldUtil;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 查询元数据
+ *
+ * 每个 Entity 只解析一次：可查询字段、数据库字段名、是否多租户、是否有组织字段，
+ * 以及 字段 x 操作 预先展开的参数规则 (如 username_EQ)
+ * 查询构造器与责任链直接查表，不再每次请求 反射判断字段 / 驼峰转下划线
+ *
+ * @author Parker
+ * @date 2021-06-07 10:20
+ */
+public final class QueryMetadata {
+
+    /** 元数据缓存 */
+    private static final Map<Class<?>, QueryMetadata> CACHE = new ConcurrentHashMap<>();
+
+    /** 参数分隔符 */
+    private static final char SEPARATOR = '_';
+
+    /** 字段 - 数据库字段 */
+    private final Map<String, String> columnMap;
+    /** 参数 - 规则 (字段 x 操作) */
+    private final Map<String, Rule> ruleMap;
+    /** 是否多租户 */
+    private final boolean tenant;
+    /** 是否有组织字段 */
+    private final boolean orgGroup;
+
+    private QueryMetadata(Class<?> entityClazz){
+        Map<String, String> columns = Maps.newHashMap();
+        if(entityClazz != null){
+            for (Field field : ReflectUtil.getFields(entityClazz)) {
+                if(Modifier.isStatic(field.getModifiers())){
+                    continue;
+                }
+                columns.putIfAbsent(field.getName(), FieldUtil.humpToUnderline(field.getName()));
+            }
+        }
+
+        Map<String, Rule> rules = Maps.newHashMapWithExpectedSize(columns.size() * Operator.values().length);
+        for (Map.Entry<String, String> entry : columns.entrySet()) {
+            for (Operator operator : Operator.values()) {
+                rules.put(entry.getKey() + SEPARATOR + operator.name(),
+                        new Rule(entry.getKey(), entry.getValue(), operator));
+            }
+        }
+
+        this.columnMap = Collections.unmodifiableMap(columns);
+        this.ruleMap = Collections.unmodifiableMap(rules);
+        this.tenant = columns.containsKey(MyBatisConstants.FIELD_TENANT);
+        this.orgGroup = columns.containsKey(MyBatisConstants.FIELD_ORG_GROUP);
+    }
+
+    /**
+     * 获得 Entity 查询元数据
+     * @param entityClazz Entity Clazz
+     * @return QueryMetadata
+     */
+    public static QueryMetadata get(Class<?> entityClazz){
+        if(entityClazz == null){
+            return new QueryMetadata(null);
+        }
+        QueryMetadata metadata = CACHE.get(entityClazz);
+        if(metadata == null){
+            metadata = CACHE.computeIfAbsent(entityClazz, QueryMetadata::new);
+        }
+        return metadata;
+    }
+
+    /**
+     * 是否包含该字段
+     * @param field 字段
+     * @return boolean
+     */
+    public boolean hasField(String field){
+        return field != null && columnMap.containsKey(field);
+    }
+
+    /**
+     * 获得数据库字段名
+     * @param field 字段
+     * @return String 不存在返回 null
+     */
+    public String getColumn(String field){
+        return field == null ? null : columnMap.get(field);
+    }
+
+    /**
+     * 解析参数 (如 username_EQ)
+     * 只认 Entity 字段 与 白名单操作，其他参数一律返回 null
+     * @param param 参数名
+     * @return Rule
+     */
+    public Rule getRule(String param){
+        if(param == null){
+            return null;
+        }
+        Rule rule = ruleMap.get(param);
+        if(rule != null){
+            return rule;
+        }
+
+        // 兼容 字段_操作_其他 格式
+        int first = param.indexOf(SEPARATOR);
+        if(first < 0){
+            return null;
+        }
+        int second = param.indexOf(SEPARATOR, first + 1);
+        if(second < 0){
+            return null;
+        }
+        return ruleMap.get(param.substring(0, second));
+    }
+
+    /**
+     * 拆分参数 字段 与 操作
+     * @param param 参数名
+     * @return String[] {字段, 操作} 格式不合法返回 null
+     */
+    public static String[] split(String param){
+        if(param == null){
+            return null;
+        }
+        int first = param.indexOf(SEPARATOR);
+        if(first <= 0){
+            return null;
+        }
+        int second = param.indexOf(SEPARATOR, first + 1);
+        String handle = second < 0 ? param.substring(first + 1) : param.substring(first + 1, second);
+        if(handle.isEmpty()){
+            return null;
+        }
+        return new String[]{param.substring(0, first), handle};
+    }
+
+    public boolean isTenant() {
+        return tenant;
+    }
+
+    public boolean isOrgGroup() {
+        return orgGroup;
+    }
+
+    // =======================
+
+    /**
+     * 查询操作 (白名单)
+     */
+    public enum Operator {
+
+        /** 全值匹配 */
+        EQ,
+        /** 模糊匹配 */
+        LIKE,
+        /** 左模糊匹配 */
+        LIKEL,
+        /** 右模糊匹配 */
+        LIKER,
+        /** 大于等于 */
+        BEGIN,
+        /** 小于等于 */
+        END,
+        /** 排序 */
+        ORDER;
+
+        /**
+         * 获得操作
+         * @param handle 操作
+         * @return Operator 不合法返回 null
+         */
+        public static Operator getOperator(String handle){
+            if(handle == null){
+                return null;
+            }
+            switch (handle) {
+                case "EQ":
+                    return EQ;
+                case "LIKE":
+                    return LIKE;
+                case "LIKEL":
+                    return LIKEL;
+                case "LIKER":
+                    return LIKER;
+                case "BEGIN":
+                    return BEGIN;
+                case "END":
+                    return END;
+                case "ORDER":
+                    return ORDER;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * 参数规则
+     */
+    public static final class Rule {
+
+        /** 字段 */
+        private final String field;
+        /** 数据库字段 */
+        private final String column;
+        /** 操作 */
+        private final Operator operator;
+
+        private Rule(String field, String column, Operator operator) {
+            this.field = field;
+            this.column = column;
+            this.operator = operator;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public Operator getOperator() {
+            return operator;
+        }
+    }
+}
@@ -15,14 +15,16 @@
  */
 package org.opsli.core.persistence.querybuilder;
 
-import cn.hutool.core.util.ReflectUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 import org.opsli.common.constants.MyBatisConstants;
 import org.opsli.common.utils.FieldUtil;
 import org.opsli.core.base.entity.BaseEntity;
+import org.opsli.core.persistence.CursorPage;
 import org.opsli.core.persistence.querybuilder.conf.WebQueryConf;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -33,31 +35,20 @@ import java.util.Map;
  */
 public class WebQueryBuilder<T extends BaseEntity> implements QueryBuilder<T>{
 
-    // == 匹配条件 ==
-    /** 全值匹配 */
-    private static final String EQ = "EQ";
-    /** 模糊匹配 */
-    private static final String LIKE = "LIKE";
-    /** 左模糊匹配 */
-    private static final String LIKE_LEFT = "LIKEL";
-    /** 右模糊匹配 */
-    private static final String LIKE_RIGHT = "LIKER";
-    /** 日期匹配 */
-    private static final String BEGIN = "BEGIN";
-    private static final String END = "END";
     /** 排序方式 */
-    private static final String ORDER = "ORDER";
     private static final String ORDER_ASC = "ASC";
     private static final String ORDER_DESC = "DESC";
 
     /** 参数 */
     private final Map<String, String[]> parameterMap;
-    /** Entity Clazz */
-    private final Class<? extends BaseEntity> entityClazz;
+    /** Entity 查询元数据 */
+    private final QueryMetadata metadata;
     /** 默认排序字段 */
     private final String defaultOrderField;
     /** 配置类 */
     private WebQueryConf conf;
+    /** 已生效的排序字段 (游标分页使用) */
+    private final List<CursorPage.Order> orders = Lists.newArrayList();
 
     /**
      * 构造函数 只是生产 查询器
@@ -66,7 +57,7 @@ public class WebQueryBuilder<T extends BaseEntity> implements QueryBuilder<T>{
      */
     public WebQueryBuilder(Class<T> entityClazz, Map<String, String[]> parameterMap){
         this.parameterMap = parameterMap;
-        this.entityClazz = entityClazz;
+        this.metadata = QueryMetadata.get(entityClazz);
         this.defaultOrderField = MyBatisConstants.FIELD_UPDATE_TIME;
     }
 
@@ -77,7 +68,7 @@ public class WebQueryBuilder<T extends BaseEntity> implements QueryBuilder<T>{
      */
     public WebQueryBuilder(Class<T> entityClazz, Map<String, String[]> parameterMap, WebQueryConf conf){
         this.parameterMap = parameterMap;
-        this.entityClazz = entityClazz;
+        this.metadata = QueryMetadata.get(entityClazz);
         this.defaultOrderField = MyBatisConstants.FIELD_UPDATE_TIME;
         this.conf = conf;
     }
@@ -91,7 +82,7 @@ public class WebQueryBuilder<T extends BaseEntity> implements QueryBuilder<T>{
     public WebQueryBuilder(Class<T> entityClazz, Map<String, String[]> parameterMap,
                            String defaultOrderField){
         this.parameterMap = parameterMap;
-        this.entityClazz = entityClazz;
+        this.metadata = QueryMetadata.get(entityClazz);
         this.defaultOrderField = defaultOrderField;
     }
 
@@ -105,7 +96,7 @@ public class WebQueryBuilder<T extends BaseEntity> implements QueryBuilder<T>{
     public WebQueryBuilder(Class<T> entityClazz, Map<String, String[]> parameterMap,
                            String defaultOrderField, WebQueryConf conf){
         this.parameterMap = parameterMap;
-        this.entityClazz = entityClazz;
+        this.metadata = QueryMetadata.get(entityClazz);
         this.defaultOrderField = defaultOrderField;
         this.conf = conf;
     }
@@ -114,9 +105,15 @@ public class WebQueryBuilder<T extends BaseEntity> implements QueryBuilder<T>{
     @Override
     public QueryWrapper<T> build() {
         QueryWrapper<T> queryWrapper = new QueryWrapper<>();
+        this.orders.clear();
         return this.createQueryWrapper(queryWrapper);
     }
 
+    @Override
+    public List<CursorPage.Order> getOrders() {
+        return Lists.newArrayList(orders);
+    }
+
     /**
      * 创建 查询条件构造器
      * @return QueryWrapper
@@ -135,32 +132,37 @@ public class WebQueryBuilder<T extends BaseEntity> implements QueryBuilder<T>{
                 continue;
             }
 
-            // 键 和 操作
-            String[] keyHandle = keys.split("_");
-            if(keyHandle.length < 2){
-                continue;
-            }
+            // 处理值
+            String value = values[0];
 
-            // 键
-            String key = keyHandle[0];
             // 操作
-            String handle = keyHandle[1];
-
-            // 判断 字段是否合法
-            boolean hasField = this.validationField(key);
-            if(hasField){
-                // 验证操作是否合法
-                boolean hasHandle = this.validationHandle(handle);
-                if(hasHandle){
-                    // 处理值
-                    String value = values[0];
-                    // 赋值
-                    this.handlerValue(queryWrapper, handle, key ,value);
-                    // 如果有排序 就+1
-                    if(ORDER.equals(handle)){
-                        orderCount++;
-                    }
+            QueryMetadata.Operator operator;
+            // 先判断 conf 文件中是否包含 该 key
+            String[] keyHandle = conf != null ? QueryMetadata.split(keys) : null;
+            if(keyHandle != null && conf.hashKey(keyHandle[0])){
+                operator = QueryMetadata.Operator.getOperator(keyHandle[1]);
+                if(operator == null){
+                    continue;
+                }
+                String field = keyHandle[0];
+                // 检测 Conf 配置中是否已经指定该配置
+                String column = StringUtils.isNotEmpty(conf.get(field))
+                        ? conf.get(field)
+                        : FieldUtil.humpToUnderline(field);
+                this.handlerValue(queryWrapper, operator, field, column, value);
+            }else {
+                // 只认 Entity 字段 与 白名单操作 其余参数直接丢弃
+                QueryMetadata.Rule rule = this.metadata.getRule(keys);
+                if(rule == null){
+                    continue;
                 }
+                operator = rule.getOperator();
+                this.handlerValue(queryWrapper, operator, rule.getField(), rule.getColumn(), value);
+            }
+
+            // 如果有排序 就+1
+            if(QueryMetadata.Operator.ORDER == operator){
+                orderCount++;
             }
         }
         // 如果没有排序 默认按照 修改时间倒叙排序
@@ -175,14 +177,15 @@ public class WebQueryBuilder<T extends BaseEntity> implements QueryBuilder<T>{
                 // 如果Key 与 默认Key 想等，且Entity 不包含这个字段 则不进行排序
                 if(StringUtils.equals(key, this.defaultOrderField)) {
                     // 如果Entity 不包含这个字段 则不进行排序
-                    if(!ReflectUtil.hasField(entityClazz, key)) {
+                    if(!this.metadata.hasField(key)) {
                         return queryWrapper;
                     }
 
-                    // 转换驼峰 为 数据库下划线字段
-                    key = FieldUtil.humpToUnderline(key);
+                    // 数据库字段
+                    key = this.metadata.getColumn(key);
                 }
                 queryWrapper.orderByDesc(key);
+                orders.add(new CursorPage.Order(this.defaultOrderField, key, false));
             }
         }
         return queryWrapper;
@@ -191,117 +194,51 @@ public class WebQueryBuilder<T extends BaseEntity> implements QueryBuilder<T>{
     /**
      * 处理值
      * @param queryWrapper 查询构造器
-     * @param handle 操作
-     * @param key 键
+     * @param operator 操作
+     * @param field 字段
+     * @param column 数据库字段
      * @param value 值
      */
-    private <T extends BaseEntity> void handlerValue(QueryWrapper<T> queryWrapper, String handle, String key, String value){
-        if(queryWrapper == null || StringUtils.isEmpty(handle)
-                || StringUtils.isEmpty(key) || StringUtils.isEmpty(value)
-        ){
-            return;
-        }
-        String keyStr = null;
-        if(conf != null){
-            keyStr = conf.get(key);
-        }
-
-        // 检测 Conf 配置中是否已经指定该配置
-        if(StringUtils.isNotEmpty(keyStr)){
-            key = keyStr;
-        }else{
-            // 转换驼峰 为 数据库下划线字段
-            key = FieldUtil.humpToUnderline(key);
-        }
-
-        switch (handle) {
+    private <T extends BaseEntity> void handlerValue(QueryWrapper<T> queryWrapper, QueryMetadata.Operator operator,
+                                                     String field, String column, String value){
+        switch (operator) {
             case EQ:
                 // 全值匹配
-                queryWrapper.eq(key, value);
+                queryWrapper.eq(column, value);
                 break;
             case LIKE:
                 // 模糊匹配
-                queryWrapper.like(key, value);
+                queryWrapper.like(column, value);
                 break;
-            case LIKE_LEFT:
+            case LIKEL:
                 // 模糊匹配 左
-                queryWrapper.likeLeft(key, value);
+                queryWrapper.likeLeft(column, value);
                 break;
-            case LIKE_RIGHT:
+            case LIKER:
                 // 模糊匹配 右
-                queryWrapper.likeRight(key, value);
+                queryWrapper.likeRight(column, value);
                 break;
             case BEGIN:
                 // 大于等于
-                queryWrapper.ge(key, value);
+                queryWrapper.ge(column, value);
                 break;
             case END:
                 // 小于等于
-                queryWrapper.le(key, value);
+                queryWrapper.le(column, value);
                 break;
             case ORDER:
                 // 排序
                 if (ORDER_ASC.equals(value)) {
-                    queryWrapper.orderByAsc(key);
+                    queryWrapper.orderByAsc(column);
                 } else if (ORDER_DESC.equals(value)) {
-                    queryWrapper.orderByDesc(key);
+                    queryWrapper.orderByDesc(column);
                 } else {
-                    queryWrapper.orderByAsc(key);
+                    queryWrapper.orderByAsc(column);
                 }
+                orders.add(new CursorPage.Order(field, column, !ORDER_DESC.equals(value)));
                 break;
             default:
                 break;
         }
     }
-
-    /**
-     * 检测 字段是否合法
-     * @param key key值
-     * @return boolean
-     */
-    private boolean validationField(String key){
-        if(StringUtils.isEmpty(key)){
-            return false;
-        }
-
-        boolean ret;
-        // 先判断 conf 文件中是否包含 改 key
-        if(conf != null){
-            ret = conf.hashKey(key);
-            if(ret){
-                return true;
-            }
-        }
-
-        // entity 对象是否为空
-        if(entityClazz == null){
-            return false;
-        }
-
-        // 判断当前传入参数 是否是Entity的字段
-        return ReflectUtil.hasField(entityClazz, key);
-    }
-
-
-    /**
-     * 检测 操作是否合法
-     * @param handle 操作
-     * @return boolean
-     */
-    private boolean validationHandle(String handle){
-        if(StringUtils.isEmpty(handle)){
-            return false;
-        }
-        switch (handle) {
-            case EQ:
-            case END:
-            case LIKE:
-            case LIKE_LEFT:
-            case LIKE_RIGHT:
-            case BEGIN:
-                return true;
-            default:
-                return ORDER.equals(handle);
-        }
-    }
 }
@@ -15,8 +15,6 @@
  */
 package org.opsli.core.persistence.querybuilder.chain;
 
-import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.util.ReflectUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
@@ -25,8 +23,10 @@ import org.opsli.api.wrapper.system.user.UserModel;
 import org.opsli.api.wrapper.system.user.UserOrgRefModel;
 import org.opsli.common.constants.MyBatisConstants;
 import org.opsli.common.utils.FieldUtil;
-import org.opsli.common.utils.ListDistinctUtil;
 import org.opsli.core.base.entity.BaseEntity;
+import org.opsli.core.cache.local.DataScopeCache;
+import org.opsli.core.persistence.querybuilder.DataScope;
+import org.opsli.core.persistence.querybuilder.QueryMetadata;
 import org.opsli.core.persistence.querybuilder.conf.WebQueryConf;
 import org.opsli.core.utils.UserUtil;
 
@@ -40,13 +40,20 @@ import java.util.List;
  */
 public class QueryDataPermsHandler implements QueryBuilderChain{
 
+    /** 创建人 数据库字段 */
+    private static final String CREATE_BY_COLUMN = FieldUtil.humpToUnderline(MyBatisConstants.FIELD_CREATE_BY);
+    /** 组织 数据库字段 */
+    private static final String ORG_GROUP_COLUMN = FieldUtil.humpToUnderline(MyBatisConstants.FIELD_ORG_GROUP);
+
     /**
      * 子 责任链
      */
-    private QueryBuilderChain queryBuilderChain;
+    private final QueryBuilderChain queryBuilderChain;
 
 
-    public QueryDataPermsHandler(){}
+    public QueryDataPermsHandler(){
+        this.queryBuilderChain = null;
+    }
 
     /**
      * 构造函数
@@ -64,8 +71,7 @@ public class QueryDataPermsHandler implements QueryBuilderChain{
         }
 
         // 自身责任 -- 判断组织
-        boolean flag = ReflectUtil.hasField(entityClazz, MyBatisConstants.FIELD_ORG_GROUP);
-        if(flag) {
+        if(QueryMetadata.get(entityClazz).isOrgGroup()) {
             // 处理查询条件
             handleDataPermsCondition(null, wrapper);
         }
@@ -81,8 +87,7 @@ public class QueryDataPermsHandler implements QueryBuilderChain{
         }
 
         // 自身责任 -- 判断组织
-        boolean flag = ReflectUtil.hasField(entityClazz, MyBatisConstants.FIELD_ORG_GROUP);
-        if(flag) {
+        if(QueryMetadata.get(entityClazz).isOrgGroup()) {
             // 处理查询条件
             handleDataPermsCondition(webQueryConf, wrapper);
         }
@@ -101,9 +106,9 @@ public class QueryDataPermsHandler implements QueryBuilderChain{
             WebQueryConf webQueryConf, QueryWrapper<T> queryWrapper) {
 
         // 创建人字段
-        String createByFiled = FieldUtil.humpToUnderline(MyBatisConstants.FIELD_CREATE_BY);
+        String createByFiled = CREATE_BY_COLUMN;
         // 组织字段
-        String orgFiled = FieldUtil.humpToUnderline(MyBatisConstants.FIELD_ORG_GROUP);
+        String orgFiled = ORG_GROUP_COLUMN;
         if(null != webQueryConf){
             if(StringUtils.isNotEmpty(webQueryConf.get(MyBatisConstants.FIELD_CREATE_BY))){
                 createByFiled = FieldUtil.humpToUnderline(
@@ -117,43 +122,14 @@ public class QueryDataPermsHandler implements QueryBuilderChain{
             }
         }
 
-        // 1. 当前用户
-        UserModel currUser = UserUtil.getUser();
-        String userId = currUser.getId();
-
-        // 2. 当前用户 组织机构集合
-        List<UserOrgRefModel> userOrgRefModelList = UserUtil.getOrgListByUserId(userId);
-        List<String> orgIdGroupList = Lists.newArrayListWithCapacity(userOrgRefModelList.size());
-        for (UserOrgRefModel userOrgRefModel : userOrgRefModelList) {
-            orgIdGroupList.add(userOrgRefModel.getOrgIds());
-        }
-        // 组织机构集合 去重
-        orgIdGroupList = ListDistinctUtil.distinct(orgIdGroupList);
-
-        // 3. 获得查询类型
-        // 如果是超级管理员 则查询类型为全部
-        ConditionType conditionType = ConditionType.SELF;
-        if(StringUtils.equals(UserUtil.SUPER_ADMIN, currUser.getUsername())){
-            conditionType = ConditionType.ALL;
-        }else{
-            // 如果不是超级管理员 则获得当前用户的默认角色下的 授权数据权限类型
-            RoleModel defRole = UserUtil.getUserDefRoleByUserId(userId);
-            if(null != defRole){
-                conditionType = ConditionType.getConditionType(defRole.getDataScope());
-            }
-
-            // 如果组织为空 则默认权限为查自己的数据
-            if(!ConditionType.SELF.equals(conditionType) &&
-                    CollUtil.isEmpty(orgIdGroupList)){
-                conditionType = ConditionType.SELF;
-            }
-        }
+        // 1. 当前用户 数据范围
+        DataScope dataScope = getCurrDataScope();
 
         // 常量
-        final ConditionType finalConditionType = conditionType;
+        final ConditionType finalConditionType = dataScope.getConditionType();
         final String finalOrgField = orgFiled;
         final String finalCreateByField = createByFiled;
-        final List<String> finalOrgIdGroupList = orgIdGroupList;
+        final List<String> finalOrgIdGroupList = dataScope.getOrgIds();
 
         // 查询 全部
         if(ConditionType.ALL.equals(finalConditionType)){
@@ -166,21 +142,26 @@ public class QueryDataPermsHandler implements QueryBuilderChain{
                 }
                 // 部门及以下
                 else if(ConditionType.DEPT_AND_BELOW.equals(finalConditionType)){
-                    wra.and(wraConfine -> {
-                        // 增加右模糊 查询条件
-                        for (int i = 0; i < finalOrgIdGroupList.size(); i++) {
-                            // 右模糊匹配
-                            wraConfine.likeRight(
-                                    finalOrgField, finalOrgIdGroupList.get(i));
-
-                            if(i < finalOrgIdGroupList.size() - 1){
-                                wraConfine.or();
+                    if(finalOrgIdGroupList.size() == 1){
+                        // 右模糊匹配
+                        wra.likeRight(finalOrgField, finalOrgIdGroupList.get(0));
+                    }else {
+                        wra.and(wraConfine -> {
+                            // 增加右模糊 查询条件
+                            for (int i = 0; i < finalOrgIdGroupList.size(); i++) {
+                                // 右模糊匹配
+                                wraConfine.likeRight(
+                                        finalOrgField, finalOrgIdGroupList.get(i));
+
+                                if(i < finalOrgIdGroupList.size() - 1){
+                                    wraConfine.or();
+                                }
                             }
-                        }
-                    });
+                        });
+                    }
                 }else {
                     // 查自身
-                    wra.eq(finalCreateByField, userId);
+                    wra.eq(finalCreateByField, dataScope.getUserId());
                 }
             });
         }
@@ -188,6 +169,47 @@ public class QueryDataPermsHandler implements QueryBuilderChain{
         return queryWrapper;
     }
 
+    /**
+     * 获得 当前用户数据范围 (按用户缓存)
+     * @return DataScope
+     */
+    public static DataScope getCurrDataScope(){
+        UserModel currUser = UserUtil.getUser();
+        return DataScopeCache.get(currUser.getId(),
+                () -> createDataScope(currUser));
+    }
+
+    /**
+     * 创建 用户数据范围
+     * @param currUser 当前用户
+     * @return DataScope
+     */
+    private static DataScope createDataScope(UserModel currUser){
+        String userId = currUser.getId();
+
+        // 如果是超级管理员 则查询类型为全部
+        if(StringUtils.equals(UserUtil.SUPER_ADMIN, currUser.getUsername())){
+            return DataScope.all(userId);
+        }
+
+        // 当前用户 组织机构集合
+        List<UserOrgRefModel> userOrgRefModelList = UserUtil.getOrgListByUserId(userId);
+        List<String> orgIdGroupList = Lists.newArrayListWithCapacity(userOrgRefModelList.size());
+        for (UserOrgRefModel userOrgRefModel : userOrgRefModelList) {
+            orgIdGroupList.add(userOrgRefModel.getOrgIds());
+        }
+
+        // 如果不是超级管理员 则获得当前用户的默认角色下的 授权数据权限类型
+        ConditionType conditionType = ConditionType.SELF;
+        RoleModel defRole = UserUtil.getUserDefRoleByUserId(userId);
+        if(null != defRole){
+            conditionType = ConditionType.getConditionType(defRole.getDataScope());
+        }
+
+        // 组织去重 去掉被覆盖的下级 (组织为空时 默认权限为查自己的数据)
+        return DataScope.create(userId, conditionType, orgIdGroupList);
+    }
+
     // =================================
 
     /**
@@ -15,13 +15,12 @@
  */
 package org.opsli.core.persistence.querybuilder.chain;
 
-import cn.hutool.core.util.ReflectUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.apache.commons.lang3.StringUtils;
 import org.opsli.api.wrapper.system.user.UserModel;
 import org.opsli.common.constants.MyBatisConstants;
-import org.opsli.common.utils.FieldUtil;
 import org.opsli.core.base.entity.BaseEntity;
+import org.opsli.core.persistence.querybuilder.QueryMetadata;
 import org.opsli.core.persistence.querybuilder.conf.WebQueryConf;
 import org.opsli.core.utils.UserUtil;
 
@@ -36,10 +35,12 @@ public class QueryTenantHandler implements QueryBuilderChain{
     /**
      * 子 责任链
      */
-    private QueryBuilderChain queryBuilderChain;
+    private final QueryBuilderChain queryBuilderChain;
 
 
-    public QueryTenantHandler(){}
+    public QueryTenantHandler(){
+        this.queryBuilderChain = null;
+    }
 
     /**
      * 构造函数
@@ -57,14 +58,14 @@ public class QueryTenantHandler implements QueryBuilderChain{
         }
 
         // 自身责任 -- 判断多租户
-        boolean tenantFlag = ReflectUtil.hasField(entityClazz, MyBatisConstants.FIELD_TENANT);
-        if(tenantFlag) {
+        QueryMetadata metadata = QueryMetadata.get(entityClazz);
+        if(metadata.isTenant()) {
             UserModel currUser = UserUtil.getUser();
 
             // 切换运营商后 组织ID 不同
             String tenantId = currUser.getTenantId();
 
-            wrapper.eq(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_TENANT), tenantId);
+            wrapper.eq(metadata.getColumn(MyBatisConstants.FIELD_TENANT), tenantId);
         }
         return wrapper;
     }
@@ -77,8 +78,8 @@ public class QueryTenantHandler implements QueryBuilderChain{
         }
 
         // 自身责任 -- 判断多租户
-        boolean tenantFlag = ReflectUtil.hasField(entityClazz, MyBatisConstants.FIELD_TENANT);
-        if(tenantFlag) {
+        QueryMetadata metadata = QueryMetadata.get(entityClazz);
+        if(metadata.isTenant()) {
             UserModel currUser = UserUtil.getUser();
 
             // 切换运营商后 组织ID 不同
@@ -86,7 +87,7 @@ public class QueryTenantHandler implements QueryBuilderChain{
 
             String fieldName = webQueryConf.get(MyBatisConstants.FIELD_TENANT);
             if(StringUtils.isEmpty(fieldName)){
-                fieldName = FieldUtil.humpToUnderline(MyBatisConstants.FIELD_TENANT);
+                fieldName = metadata.getColumn(MyBatisConstants.FIELD_TENANT);
             }
             wrapper.eq(fieldName, tenantId);
         }
@@ -0,0 +1,27 @@
+package org.opsli.core.security.shiro.authz;
+
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+
+/**
+ * 带权限索引的 授权信息
+ *
+ * 权限索引不参与序列化，反序列化后由 Realm 按需重新编译
+ *
+ * @author Parker
+ * @date 2021-06-07 15:20
+ */
+public class IndexedAuthorizationInfo extends SimpleAuthorizationInfo {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 权限索引 */
+    private transient PermissionIndex permissionIndex;
+
+    public PermissionIndex getPermissionIndex() {
+        return permissionIndex;
+    }
+
+    public void setPermissionIndex(PermissionIndex permissionIndex) {
+        this.permissionIndex = permissionIndex;
+    }
+}
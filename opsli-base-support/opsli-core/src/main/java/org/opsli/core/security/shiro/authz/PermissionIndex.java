@@ -0,0 +1,243 @@
+package org.opsli.core.security.shiro.authz;
+
+import cn.hutool.core.collection.CollUtil;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户权限索引
+ *
+ * 由用户权限列表编译而成，随授权信息 (AuthorizationCache) 一同缓存
+ * 用户权限刷新 / 收到清除通知时 随授权信息一同清除，下次访问重新编译
+ * 普通权限 放入 HashSet，O(1) 命中
+ * 通配权限 (如 system:user:*) 按 ":" 拆分后放入前缀树，按层级匹配 O(depth)
+ *
+ * 通配规则：中间的 * 匹配任意一段，末尾的 * 匹配剩余的任意段 (通配匹配不区分大小写)
+ *
+ * 不区分大小写校验时 与 Shiro WildcardPermission 一致，较短的权限 同时拥有其后的任意段 (a:b 包含 a:b:c)
+ * 全部权限均为简单权限 (无 "," 多值段，* 只作为整段出现，无空段) 时
+ * 不区分大小写的校验结果与 Shiro 完全一致，拒绝时无需再交由 Shiro 校验
+ *
+ * @author Parker
+ * @date 2021-06-07 15:20
+ */
+public final class PermissionIndex {
+
+    /** 分段符 */
+    private static final String PART_DIVIDER = ":";
+    /** 多值分隔符 */
+    private static final String SUBPART_DIVIDER = ",";
+    /** 通配符 */
+    private static final String WILDCARD = "*";
+
+    /** 空索引 */
+    public static final PermissionIndex EMPTY = new PermissionIndex(Collections.emptyList());
+
+    /** 普通权限 */
+    private final Set<String> exactSet;
+    /** 普通权限 (小写) */
+    private final Set<String> lowerSet;
+    /** 通配权限 前缀树 */
+    private final Node root = new Node();
+    /** 是否存在通配权限 */
+    private final boolean hasWildcard;
+    /** 是否全部为简单权限 */
+    private final boolean allSimple;
+
+    /**
+     * 编译权限索引
+     * @param perms 权限列表
+     */
+    public PermissionIndex(Collection<String> perms) {
+        int size = perms == null ? 0 : perms.size();
+        int capacity = Math.max(16, (int) (size / 0.75f) + 1);
+        this.exactSet = new HashSet<>(capacity);
+        this.lowerSet = new HashSet<>(capacity);
+
+        boolean wildcard = false;
+        boolean simple = true;
+        if(CollUtil.isNotEmpty(perms)){
+            for (String perm : perms) {
+                if(StringUtils.isEmpty(perm)){
+                    continue;
+                }
+                simple = simple && isSimple(perm);
+                if(perm.contains(WILDCARD)){
+                    this.insert(perm.toLowerCase(Locale.ROOT).split(PART_DIVIDER));
+                    wildcard = true;
+                }else {
+                    exactSet.add(perm);
+                    lowerSet.add(perm.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        this.hasWildcard = wildcard;
+        this.allSimple = simple;
+    }
+
+    /**
+     * 是否拥有权限 (普通权限区分大小写)
+     * @param perm 权限
+     * @return boolean
+     */
+    public boolean isPermitted(String perm) {
+        if(StringUtils.isEmpty(perm)){
+            return false;
+        }
+        return exactSet.contains(perm) || this.matchWildcard(perm);
+    }
+
+    /**
+     * 是否拥有权限 (不区分大小写，与 Shiro WildcardPermission 一致)
+     * @param perm 权限
+     * @return boolean
+     */
+    public boolean isPermittedIgnoreCase(String perm) {
+        if(StringUtils.isEmpty(perm)){
+            return false;
+        }
+        String lowerPerm = perm.toLowerCase(Locale.ROOT);
+        return lowerSet.contains(lowerPerm) || this.matchPrefix(lowerPerm) || this.matchWildcard(perm);
+    }
+
+    /**
+     * 是否拥有全部权限
+     * @param perms 权限集合
+     * @return boolean
+     */
+    public boolean isPermittedAll(Collection<String> perms) {
+        if(perms == null){
+            return true;
+        }
+        for (String perm : perms) {
+            if(!this.isPermitted(perm)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 是否全部为简单权限 (isPermittedIgnoreCase 的拒绝结果可作为最终结果)
+     * @return boolean
+     */
+    public boolean isAllSimple() {
+        return allSimple;
+    }
+
+    /**
+     * 是否为空
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return exactSet.isEmpty() && !hasWildcard;
+    }
+
+    // ==================
+
+    /**
+     * 是否为简单权限
+     * 不含 "," 多值段，* 只作为整段出现，无空段 且首尾无空白 (与 Shiro 解析结果一致)
+     * @param perm 权限
+     * @return boolean
+     */
+    private static boolean isSimple(String perm) {
+        if(perm.contains(SUBPART_DIVIDER) || !perm.equals(perm.trim())){
+            return false;
+        }
+        if(perm.startsWith(PART_DIVIDER) || perm.endsWith(PART_DIVIDER)){
+            return false;
+        }
+        for (String part : perm.split(PART_DIVIDER)) {
+            if(part.isEmpty() || (part.contains(WILDCARD) && !WILDCARD.equals(part))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 普通权限 前缀匹配 (已拥有 a:b 时 a:b:c 视为匹配)
+     * @param lowerPerm 权限 (小写)
+     * @return boolean
+     */
+    private boolean matchPrefix(String lowerPerm) {
+        int end = lowerPerm.lastIndexOf(PART_DIVIDER);
+        while (end > 0){
+            if(lowerSet.contains(lowerPerm.substring(0, end))){
+                return true;
+            }
+            end = lowerPerm.lastIndexOf(PART_DIVIDER, end - 1);
+        }
+        return false;
+    }
+
+    /**
+     * 通配匹配
+     * @param perm 权限
+     * @return boolean
+     */
+    private boolean matchWildcard(String perm) {
+        if(!hasWildcard){
+            return false;
+        }
+        return this.match(root, perm.toLowerCase(Locale.ROOT).split(PART_DIVIDER), 0);
+    }
+
+    /**
+     * 插入通配权限
+     * @param parts 分段
+     */
+    private void insert(String[] parts) {
+        if(parts.length == 0){
+            return;
+        }
+        Node node = root;
+        for (String part : parts) {
+            node = node.children.computeIfAbsent(part, k -> new Node());
+        }
+        node.terminal = true;
+    }
+
+    /**
+     * 按层级匹配
+     * @param node 当前节点
+     * @param parts 待匹配权限分段
+     * @param index 当前层级
+     * @return boolean
+     */
+    private boolean match(Node node, String[] parts, int index) {
+        Node star = node.children.get(WILDCARD);
+        if(index == parts.length){
+            // 待匹配权限已结束 剩余部分全部为通配 也视为匹配
+            return node.terminal || (star != null && this.match(star, parts, index));
+        }
+        if(node.terminal){
+            // 已拥有的权限已结束 (含末尾通配) 匹配剩余全部分段
+            return true;
+        }
+
+        Node child = node.children.get(parts[index]);
+        if(child != null && this.match(child, parts, index + 1)){
+            return true;
+        }
+        return star != null && this.match(star, parts, index + 1);
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+        /** 子节点 */
+        private final Map<String, Node> children = new HashMap<>(4);
+        /** 是否为一条完整权限的结尾 */
+        private boolean terminal;
+    }
+}
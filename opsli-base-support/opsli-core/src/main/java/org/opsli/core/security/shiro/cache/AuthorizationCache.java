@@ -0,0 +1,335 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.security.shiro.cache;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.opsli.core.cache.pushsub.msgs.UserMsgFactory;
+import org.opsli.core.security.shiro.authz.IndexedAuthorizationInfo;
+import org.opsli.core.security.shiro.authz.PermissionIndex;
+import org.opsli.plugins.redis.RedisPlugin;
+import org.opsli.plugins.redis.scripts.enums.RedisScriptsEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
+
+/**
+ * 用户授权信息 二级缓存
+ *
+ * 一级：本地缓存，清除时写入空占位，加载结果只能替换加载开始时看到的那一项，清除前开始加载的结果不会再放入本地
+ * 二级：Redis (RedisCache 索引 + 管道)，存放 角色 / 权限 快照，命中后在本地重新编译权限索引
+ *
+ * 每个用户在 Redis 中有一个版本号，清除时递增；快照记录加载前读取的版本号，
+ * 只有版本号一致时才写入 (Lua 比较后写入) 且读取时版本号不一致的快照视为不存在，
+ * 任意服务器在清除前开始的加载 都不会再写入 Redis
+ *
+ * 用户角色 / 权限 刷新时 同步清除两级缓存，并广播通知其他服务器清除本地缓存
+ *
+ * @author Parker
+ * @date 2021-06-09 10:20
+ */
+@Slf4j
+@Order(UTIL_ORDER)
+@Component
+@Lazy(false)
+public class AuthorizationCache {
+
+    /** 缓存名称 */
+    public static final String CACHE_NAME = "authorization";
+    /** 本地 最大缓存条数 */
+    private static final int LOCAL_MAX_SIZE = 10_000;
+    /** 本地 最长存活时间 (分钟) */
+    private static final int LOCAL_EXPIRE_AFTER_WRITE = 10;
+    /** 快照字段 */
+    private static final String FIELD_ROLES = "roles";
+    private static final String FIELD_PERMS = "perms";
+    private static final String FIELD_VERSION = "version";
+    /** 版本号 Key (缓存前缀下 不登记索引，不过期) */
+    private static final String VERSION_KEY = "version:";
+
+    /** 本地缓存 用户ID - 授权信息 (清除后为空占位，与授权信息共用容量上限) */
+    private static final Cache<String, Entry> LOCAL = CacheBuilder.newBuilder()
+            .maximumSize(LOCAL_MAX_SIZE)
+            .expireAfterWrite(LOCAL_EXPIRE_AFTER_WRITE, TimeUnit.MINUTES)
+            .build();
+
+    /** Redis 缓存 */
+    private static RedisCache<String, Object> remote;
+    /** Redis 插件 */
+    private static RedisPlugin redisPlugin;
+
+    /**
+     * 获得授权信息 (不存在则加载)
+     * @param userId 用户ID
+     * @param loader 加载
+     * @return AuthorizationInfo
+     */
+    public static AuthorizationInfo get(String userId, Supplier<AuthorizationInfo> loader){
+        if(StringUtils.isEmpty(userId)){
+            return loader.get();
+        }
+
+        // 加载开始时看到的本地项 (为空 或 清除占位)
+        Entry base = LOCAL.getIfPresent(userId);
+        if(base != null && base.info != null){
+            return base.info;
+        }
+
+        // 版本号 在加载前读取
+        Snapshot snapshot = getRemote(userId);
+        AuthorizationInfo info = snapshot != null ? snapshot.info : null;
+        if(info == null){
+            info = loader.get();
+            // 加载期间未被清除 才写入 Redis (其他服务器的清除 由版本号判断)
+            if(info != null && snapshot != null && LOCAL.getIfPresent(userId) == base){
+                putRemote(userId, info, snapshot.version);
+            }
+        }
+
+        // 加载期间未被清除 才写入本地 (清除会替换本地项 导致此处替换失败)
+        if(info != null){
+            Entry entry = new Entry(info);
+            if(base == null){
+                LOCAL.asMap().putIfAbsent(userId, entry);
+            }else {
+                LOCAL.asMap().replace(userId, base, entry);
+            }
+        }
+        return info;
+    }
+
+    /**
+     * 清除 (本地 + Redis) 并通知其他服务器
+     * @param userId 用户ID
+     */
+    public static void remove(String userId){
+        if(StringUtils.isEmpty(userId)){
+            return;
+        }
+        remove(Collections.singletonList(userId));
+    }
+
+    /**
+     * 批量清除 (本地 + Redis) 并通知其他服务器
+     * @param userIds 用户ID集合
+     */
+    public static void remove(Collection<String> userIds){
+        if(CollUtil.isEmpty(userIds)){
+            return;
+        }
+
+        removeLocal(userIds);
+
+        if(isRemoteEnabled()){
+            try {
+                // 先递增版本号 使清除前开始的加载无法写入
+                for (String userId : userIds) {
+                    redisPlugin.increment(getVersionKey(userId));
+                }
+                remote.removeAll(userIds);
+            }catch (Exception e){
+                log.error(e.getMessage(), e);
+            }
+        }
+
+        if(redisPlugin != null){
+            try {
+                redisPlugin.sendMessage(UserMsgFactory.createUserAuthzMsg(userIds));
+            }catch (Exception e){
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 清除 (本地)
+     * @param userId 用户ID
+     */
+    public static void removeLocal(String userId){
+        if(StringUtils.isEmpty(userId)){
+            return;
+        }
+        // 写入新的空占位 使清除前开始的加载无法写入本地
+        LOCAL.put(userId, new Entry(null));
+    }
+
+    /**
+     * 批量清除 (本地)
+     * @param userIds 用户ID集合
+     */
+    public static void removeLocal(Collection<String> userIds){
+        if(CollUtil.isEmpty(userIds)){
+            return;
+        }
+        for (String userId : userIds) {
+            removeLocal(userId);
+        }
+    }
+
+    // ======================
+
+    /**
+     * 读取 Redis 版本号 及 快照 (MGET 一次往返)
+     * @param userId 用户ID
+     * @return Snapshot 版本号 (快照不存在 或 版本号不一致时 授权信息为空)，Redis 不可用返回 null
+     */
+    private static Snapshot getRemote(String userId){
+        if(!isRemoteEnabled()){
+            return null;
+        }
+        try {
+            List<Object> values = redisPlugin.getAll(
+                    Arrays.asList(getVersionKey(userId), remote.getRedisCacheKey(userId)));
+            if(values == null){
+                return null;
+            }
+            long version = Convert.toLong(values.get(0), 0L);
+            Object obj = values.size() > 1 ? values.get(1) : null;
+            if(obj == null){
+                return new Snapshot(version, null);
+            }
+            JSONObject snapshot = obj instanceof JSONObject ? (JSONObject) obj : (JSONObject) JSON.toJSON(obj);
+            // 版本号不一致 (清除前写入的快照) 视为不存在
+            if(version != Convert.toLong(snapshot.get(FIELD_VERSION), -1L)){
+                return new Snapshot(version, null);
+            }
+
+            List<String> perms = toList(snapshot.getJSONArray(FIELD_PERMS));
+            List<String> roles = toList(snapshot.getJSONArray(FIELD_ROLES));
+
+            IndexedAuthorizationInfo info = new IndexedAuthorizationInfo();
+            if(CollUtil.isNotEmpty(perms)){
+                info.addStringPermissions(perms);
+            }
+            info.setPermissionIndex(CollUtil.isEmpty(perms) ? PermissionIndex.EMPTY : new PermissionIndex(perms));
+            if(CollUtil.isNotEmpty(roles)){
+                info.addRoles(roles);
+            }
+            return new Snapshot(version, info);
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+        }
+        return null;
+    }
+
+    /**
+     * 写入 Redis 快照 (只保留 角色 / 权限 字符串)
+     * 版本号与加载前读取的一致时才写入
+     * @param userId 用户ID
+     * @param info 授权信息
+     * @param version 加载前读取的版本号
+     */
+    private static void putRemote(String userId, AuthorizationInfo info, long version){
+        try {
+            JSONObject snapshot = new JSONObject();
+            snapshot.put(FIELD_VERSION, version);
+            snapshot.put(FIELD_ROLES, info.getRoles() != null
+                    ? Lists.newArrayList(info.getRoles()) : Collections.emptyList());
+            snapshot.put(FIELD_PERMS, info.getStringPermissions() != null
+                    ? Lists.newArrayList(info.getStringPermissions()) : Collections.emptyList());
+
+            String cacheKey = remote.getRedisCacheKey(userId);
+            Object ret = redisPlugin.callScript(RedisScriptsEnum.REDIS_VERSION_SET,
+                    Arrays.asList(getVersionKey(userId), cacheKey, remote.getIndexKey()),
+                    version, snapshot, remote.getExpire(), cacheKey);
+            if(!Long.valueOf(1L).equals(ret)){
+                log.debug("用户[{}]授权信息 版本号已变更 不写入快照", userId);
+            }
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 版本号 Key
+     * @param userId 用户ID
+     * @return String
+     */
+    static String getVersionKey(String userId){
+        return remote.getKeyPrefix() + VERSION_KEY + userId;
+    }
+
+    /**
+     * Redis 是否可用
+     * @return boolean
+     */
+    private static boolean isRemoteEnabled(){
+        return remote != null && redisPlugin != null;
+    }
+
+    private static List<String> toList(JSONArray array){
+        return array == null ? Collections.emptyList() : array.toJavaList(String.class);
+    }
+
+    /**
+     * Redis 快照 (加载前读取的版本号 + 授权信息)
+     */
+    private static final class Snapshot {
+
+        private final long version;
+        private final AuthorizationInfo info;
+
+        private Snapshot(long version, AuthorizationInfo info) {
+            this.version = version;
+            this.info = info;
+        }
+    }
+
+    /**
+     * 本地缓存项 (按引用比较，info 为空则为清除占位)
+     */
+    private static final class Entry {
+
+        private final AuthorizationInfo info;
+
+        private Entry(AuthorizationInfo info) {
+            this.info = info;
+        }
+    }
+
+    // =====================================
+
+    /**
+     * 初始化
+     * @param redisCacheManager Shiro Redis 缓存管理器
+     * @param redisPlugin Redis 插件
+     */
+    @Autowired
+    public void init(RedisCacheManager redisCacheManager, RedisPlugin redisPlugin){
+        AuthorizationCache.remote = (RedisCache<String, Object>) redisCacheManager.<String, Object>getCache(CACHE_NAME);
+        AuthorizationCache.redisPlugin = redisPlugin;
+    }
+
+}
@@ -18,11 +18,17 @@ import java.util.*;
  * @author: sunzhiqiang
  * @date: 2018/6/22
  * @description: 参考 shiro-redis 开源项目 Git地址 https://github.com/alexxiyang/shiro-redis
+ *
+ * 同一前缀下的缓存Key 登记在索引 (Set) 中，keys / values / size / clear 基于索引处理，不再 SCAN 整个键空间
+ * 批量读写 使用 MGET / 管道，避免逐个Key往返
  */
 public class RedisCache<K, V> implements Cache<K, V> {
 
 	private static Logger logger = LoggerFactory.getLogger(RedisCache.class);
 
+	/** 索引键后缀 */
+	private static final String INDEX_SUFFIX = "@index";
+
 	private RedisManager redisManager;
 	private String keyPrefix = "";
 	private int expire = 0;
@@ -78,7 +84,7 @@ public class RedisCache<K, V> implements Cache<K, V> {
 		}
 		try {
 			String redisCacheKey = getRedisCacheKey(key);
-			redisManager.set(redisCacheKey, value != null ? value : null, expire);
+			redisManager.setAndIndex(getIndexKey(), redisCacheKey, value, expire);
 			return value;
 		} catch (Exception e) {
 			throw new CacheException(e);
@@ -93,16 +99,47 @@ public class RedisCache<K, V> implements Cache<K, V> {
 		}
 		try {
 			String redisCacheKey = getRedisCacheKey(key);
-			Object rawValue = redisManager.get(redisCacheKey);
-			V previous = (V) rawValue;
-			redisManager.del(redisCacheKey);
-			return previous;
+			return (V) redisManager.getAndDelIndexed(getIndexKey(), redisCacheKey);
+		} catch (Exception e) {
+			throw new CacheException(e);
+		}
+	}
+
+	/**
+	 * 批量删除 (管道 一次往返)
+	 * @param keys 键集合
+	 */
+	public void removeAll(Collection<K> keys) throws CacheException {
+		if (CollectionUtils.isEmpty(keys)) {
+			return;
+		}
+		try {
+			List<String> redisCacheKeys = new ArrayList<>(keys.size());
+			for (K key : keys) {
+				if (key != null) {
+					redisCacheKeys.add(getRedisCacheKey(key));
+				}
+			}
+			redisManager.delIndexed(getIndexKey(), redisCacheKeys);
 		} catch (Exception e) {
 			throw new CacheException(e);
 		}
 	}
 
-	private String getRedisCacheKey(K key) {
+	/**
+	 * 索引键 (Set 成员为缓存键)
+	 * @return 索引键
+	 */
+	public String getIndexKey() {
+		return this.keyPrefix + INDEX_SUFFIX;
+	}
+
+	/**
+	 * 缓存键 (前缀 + Key)
+	 * @param key 键
+	 * @return 缓存键
+	 */
+	public String getRedisCacheKey(K key) {
 		if (key == null) {
 			return null;
 		}
@@ -158,37 +195,32 @@ public class RedisCache<K, V> implements Cache<K, V> {
 	@Override
 	public void clear() throws CacheException {
 		logger.debug("clear cache");
-		Set<String> keys = null;
 		try {
-			keys = redisManager.scan(this.keyPrefix + "*");
+			redisManager.clearIndexed(getIndexKey());
 		} catch (Exception e) {
-			logger.error("get keys error", e);
-		}
-		if (keys == null || keys.size() == 0) {
-			return;
-		}
-		for (String key: keys) {
-			redisManager.del(key);
+			logger.error("clear cache error", e);
 		}
 	}
 
+	/**
+	 * 索引成员数 (可能包含已过期 尚未清理的Key)
+	 */
 	@Override
 	public int size() {
-		Long longSize = 0L;
 		try {
-			longSize = new Long(redisManager.scanSize(this.keyPrefix + "*"));
+			return (int) redisManager.indexSize(getIndexKey());
 		} catch (Exception e) {
 			logger.error("get keys error", e);
 		}
-		return longSize.intValue();
+		return 0;
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public Set<K> keys() {
-		Set<String> keys = null;
+		Set<String> keys;
 		try {
-			keys = redisManager.scan(this.keyPrefix + "*");
+			keys = redisManager.indexMembers(getIndexKey());
 		} catch (Exception e) {
 			logger.error("get keys error", e);
 			return Collections.emptySet();
@@ -209,30 +241,43 @@ public class RedisCache<K, V> implements Cache<K, V> {
 		return convertedKeys;
 	}
 
+	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<V> values() {
-		Set<String> keys = null;
+		List<String> keys;
+		List<Object> rawValues;
 		try {
-			keys = redisManager.scan(this.keyPrefix + "*");
+			keys = new ArrayList<>(redisManager.indexMembers(getIndexKey()));
+			if (CollectionUtils.isEmpty(keys)) {
+				return Collections.emptySet();
+			}
+			rawValues = redisManager.multiGet(keys);
 		} catch (Exception e) {
 			logger.error("get values error", e);
 			return Collections.emptySet();
 		}
 
-		if (CollectionUtils.isEmpty(keys)) {
-			return Collections.emptySet();
-		}
-
 		List<V> values = new ArrayList<V>(keys.size());
-		for (String key : keys) {
-			V value = null;
+		List<String> expiredKeys = new ArrayList<>();
+		for (int i = 0; i < keys.size(); i++) {
+			Object rawValue = i < rawValues.size() ? rawValues.get(i) : null;
+			if (rawValue == null) {
+				expiredKeys.add(keys.get(i));
+				continue;
+			}
 			try {
-				value = (V) redisManager.get(key);
+				values.add((V) rawValue);
 			} catch (Exception e) {
 				logger.error("deserialize values= error", e);
 			}
-			if (value != null) {
-				values.add(value);
+		}
+
+		// 顺带清理索引中 已过期的Key
+		if (!expiredKeys.isEmpty()) {
+			try {
+				redisManager.unindex(getIndexKey(), expiredKeys);
+			} catch (Exception e) {
+				logger.error("clean index error", e);
 			}
 		}
 		return Collections.unmodifiableList(values);
@@ -242,6 +287,10 @@ public class RedisCache<K, V> implements Cache<K, V> {
 		return keyPrefix;
 	}
 
+	public int getExpire() {
+		return expire;
+	}
+
 	public void setKeyPrefix(String keyPrefix) {
 		this.keyPrefix = keyPrefix;
 	}
@@ -5,12 +5,17 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -99,6 +104,147 @@ public class RedisManager {
 		}
 	}
 
+	/**
+	 * 批量获取 (MGET 一次往返)
+	 * @param keys 键集合
+	 * @return 值 与键顺序一致，不存在为 null
+	 */
+	public List<Object> multiGet(Collection<String> keys){
+		if(CollectionUtils.isEmpty(keys)){
+			return Collections.emptyList();
+		}
+		List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+		return values != null ? values : Collections.emptyList();
+	}
+
+	//============================Index=============================
+
+	/**
+	 * 放入缓存 并登记到索引 (管道 一次往返)
+	 * @param indexKey 索引键 (Set)
+	 * @param key 键
+	 * @param value 值
+	 * @param time 时间(秒) 索引有效期同步延长
+	 */
+	public void setAndIndex(String indexKey, String key, Object value, long time){
+		this.executePipelined(operations -> {
+			if(time > 0){
+				operations.opsForValue().set(key, value, time, TimeUnit.SECONDS);
+			}else{
+				operations.opsForValue().set(key, value);
+			}
+			operations.opsForSet().add(indexKey, key);
+			if(time > 0){
+				operations.expire(indexKey, time, TimeUnit.SECONDS);
+			}
+		});
+	}
+
+	/**
+	 * 获取并删除缓存 同时移出索引 (管道 一次往返)
+	 * @param indexKey 索引键 (Set)
+	 * @param key 键
+	 * @return 删除前的值
+	 */
+	public Object getAndDelIndexed(String indexKey, String key){
+		List<Object> results = this.executePipelined(operations -> {
+			operations.opsForValue().get(key);
+			operations.delete(key);
+			operations.opsForSet().remove(indexKey, key);
+		});
+		return CollectionUtils.isEmpty(results) ? null : results.get(0);
+	}
+
+	/**
+	 * 批量删除缓存 同时移出索引 (管道 一次往返)
+	 * @param indexKey 索引键 (Set)
+	 * @param keys 键集合
+	 */
+	public void delIndexed(String indexKey, Collection<String> keys){
+		if(CollectionUtils.isEmpty(keys)){
+			return;
+		}
+		Object[] members = keys.toArray();
+		this.executePipelined(operations -> {
+			operations.delete(keys);
+			operations.opsForSet().remove(indexKey, members);
+		});
+	}
+
+	/**
+	 * 获得索引成员
+	 * 成员对应的缓存可能已过期，取值时需判空
+	 * @param indexKey 索引键 (Set)
+	 * @return 键集合
+	 */
+	public Set<String> indexMembers(String indexKey){
+		Set<Object> members = redisTemplate.opsForSet().members(indexKey);
+		if(CollectionUtils.isEmpty(members)){
+			return Collections.emptySet();
+		}
+		Set<String> keys = new HashSet<>(members.size());
+		for (Object member : members) {
+			keys.add(String.valueOf(member));
+		}
+		return keys;
+	}
+
+	/**
+	 * 获得索引成员数 (包含已过期但尚未清理的成员)
+	 * @param indexKey 索引键 (Set)
+	 * @return 成员数
+	 */
+	public long indexSize(String indexKey){
+		Long size = redisTemplate.opsForSet().size(indexKey);
+		return size != null ? size : 0L;
+	}
+
+	/**
+	 * 清理索引中已过期的成员
+	 * @param indexKey 索引键 (Set)
+	 * @param keys 已过期的键
+	 */
+	public void unindex(String indexKey, Collection<String> keys){
+		if(CollectionUtils.isEmpty(keys)){
+			return;
+		}
+		redisTemplate.opsForSet().remove(indexKey, keys.toArray());
+	}
+
+	/**
+	 * 删除索引下全部缓存 及索引本身 (一次 DEL)
+	 * @param indexKey 索引键 (Set)
+	 */
+	public void clearIndexed(String indexKey){
+		List<String> keys = new ArrayList<>(this.indexMembers(indexKey));
+		keys.add(indexKey);
+		redisTemplate.delete(keys);
+	}
+
+	/**
+	 * 管道执行
+	 * @param callback 回调
+	 * @return 各命令结果
+	 */
+	private List<Object> executePipelined(PipelineCallback callback){
+		return redisTemplate.executePipelined(new SessionCallback<Object>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+				callback.doInPipeline((RedisOperations<String, Object>) operations);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * 管道回调
+	 */
+	@FunctionalInterface
+	private interface PipelineCallback {
+		void doInPipeline(RedisOperations<String, Object> operations);
+	}
+
 	/**
 	 * 使用scan命令 查询某些前缀的key
 	 * @param key
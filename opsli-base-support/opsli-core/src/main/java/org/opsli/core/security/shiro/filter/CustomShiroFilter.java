@@ -2,13 +2,20 @@ package org.opsli.core.security.shiro.filter;
 
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.util.ThreadContext;
 import org.apache.shiro.web.filter.authc.AuthenticatingFilter;
+import org.apache.shiro.web.subject.WebSubject;
 import org.opsli.api.base.result.ResultVo;
+import org.opsli.api.wrapper.system.user.UserModel;
 import org.opsli.common.constants.SignConstants;
 import org.opsli.common.constants.TokenTypeConstants;
+import org.opsli.common.exception.TokenException;
 import org.opsli.core.msg.TokenMsg;
+import org.opsli.core.security.shiro.realm.JwtRealm;
 import org.opsli.core.security.shiro.token.ExternalToken;
 import org.opsli.core.security.shiro.token.JwtToken;
 import org.opsli.core.utils.JwtUtil;
@@ -34,6 +41,24 @@ import java.io.IOException;
  */
 public class CustomShiroFilter extends AuthenticatingFilter {
 
+    /** 无状态模式 认证失败信息 (请求属性) */
+    private static final String STATELESS_ERROR_ATTR = CustomShiroFilter.class.getName() + ".STATELESS_ERROR";
+
+    /** 是否无状态模式 */
+    private final boolean stateless;
+
+    public CustomShiroFilter() {
+        this(false);
+    }
+
+    /**
+     * 构造函数
+     * @param stateless 无状态模式 校验 Token 后直接绑定用户，不走登录流程、不创建会话
+     */
+    public CustomShiroFilter(boolean stateless) {
+        this.stateless = stateless;
+    }
+
     @Override
     protected AuthenticationToken createToken(ServletRequest request, ServletResponse response) throws Exception {
         //获取请求token
@@ -65,9 +90,52 @@ public class CustomShiroFilter extends AuthenticatingFilter {
         }
         // remeberMe  ,remeberMe特殊页面，需要授权，
 
+        // 无状态模式
+        if(stateless){
+            return this.bindStatelessSubject(request, response);
+        }
+
         return false;
     }
 
+    /**
+     * 无状态模式 绑定当前用户
+     * Token 校验通过后 直接以用户为身份绑定 Subject (请求结束后由 ShiroFilter 解绑)
+     * 授权信息 只在需要鉴权时 由 Realm 按需加载
+     * @return boolean 是否绑定成功 失败则交由 onAccessDenied 处理
+     */
+    private boolean bindStatelessSubject(ServletRequest request, ServletResponse response) {
+        String token = UserTokenUtil.getRequestToken((HttpServletRequest) request);
+        if(StringUtils.isBlank(token)){
+            return false;
+        }
+
+        // 其他登录方式 仍走登录流程
+        String tokenType = "";
+        try {
+            tokenType = JwtUtil.getClaim(token, SignConstants.TYPE);
+        }catch (Exception ignored){}
+        if(TokenTypeConstants.TYPE_EXTERNAL.equals(tokenType)){
+            return false;
+        }
+
+        UserModel user;
+        try {
+            user = JwtRealm.verifyToken(token);
+        }catch (TokenException e){
+            request.setAttribute(STATELESS_ERROR_ATTR, e);
+            return false;
+        }
+
+        WebSubject subject = new WebSubject.Builder(SecurityUtils.getSecurityManager(), request, response)
+                .principals(new SimplePrincipalCollection(user, JwtRealm.REALM_NAME))
+                .authenticated(true)
+                .sessionCreationEnabled(false)
+                .buildWebSubject();
+        ThreadContext.bind(subject);
+        return true;
+    }
+
     @Override
     protected boolean onAccessDenied(ServletRequest request, ServletResponse response) throws Exception {
         HttpServletRequest httpServletRequest = (HttpServletRequest) request;
@@ -87,6 +155,13 @@ public class CustomShiroFilter extends AuthenticatingFilter {
             return false;
         }
 
+        // 无状态模式 Token 校验失败
+        Object statelessError = request.getAttribute(STATELESS_ERROR_ATTR);
+        if(statelessError instanceof TokenException){
+            return onLoginFailure(null,
+                    new AuthenticationException((TokenException) statelessError), request, response);
+        }
+
         return executeLogin(request, response);
     }
 
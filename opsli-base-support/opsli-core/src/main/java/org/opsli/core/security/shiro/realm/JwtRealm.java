@@ -5,7 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.authc.*;
 import org.apache.shiro.authz.AuthorizationInfo;
-import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.opsli.api.wrapper.system.tenant.TenantModel;
@@ -14,6 +15,9 @@ import org.opsli.common.enums.DictType;
 import org.opsli.core.api.TokenThreadLocal;
 import org.opsli.common.exception.TokenException;
 import org.opsli.core.msg.TokenMsg;
+import org.opsli.core.security.shiro.authz.IndexedAuthorizationInfo;
+import org.opsli.core.security.shiro.authz.PermissionIndex;
+import org.opsli.core.security.shiro.cache.AuthorizationCache;
 import org.opsli.core.security.shiro.token.JwtToken;
 import org.opsli.core.utils.TenantUtil;
 import org.opsli.core.utils.UserTokenUtil;
@@ -32,27 +36,55 @@ import java.util.List;
 @Slf4j
 public class JwtRealm extends AuthorizingRealm implements FlagRealm {
 
+    /** Realm 名称 */
+    public static final String REALM_NAME = "jwtRealm";
+
+    public JwtRealm() {
+        super.setName(REALM_NAME);
+        // 授权信息 由 AuthorizationCache 缓存
+        super.setAuthorizationCachingEnabled(false);
+    }
 
     @Override
     public boolean supports(AuthenticationToken token) {
         return token instanceof JwtToken;
     }
 
+    /**
+     * 获得授权信息 (二级缓存)
+     */
+    @Override
+    protected AuthorizationInfo getAuthorizationInfo(PrincipalCollection principals) {
+        if(principals == null){
+            return null;
+        }
+        UserModel user = (UserModel) principals.getPrimaryPrincipal();
+        return AuthorizationCache.get(user.getId(), () -> this.doGetAuthorizationInfo(principals));
+    }
+
     /**
      * 授权(验证权限时调用)
      */
     @Override
     protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
-        SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
-
         UserModel user = (UserModel) principals.getPrimaryPrincipal();
-        String userId = user.getId();
+        return loadAuthorizationInfo(user.getId());
+    }
+
+    /**
+     * 加载授权信息 并编译权限索引
+     * @param userId 用户ID
+     * @return AuthorizationInfo
+     */
+    private static AuthorizationInfo loadAuthorizationInfo(String userId) {
+        IndexedAuthorizationInfo info = new IndexedAuthorizationInfo();
 
         //用户权限列表
         List<String> permsSet = UserUtil.getUserAllPermsByUserId(userId);
         if(CollUtil.isNotEmpty(permsSet)){
             info.addStringPermissions(permsSet);
         }
+        info.setPermissionIndex(CollUtil.isEmpty(permsSet) ? PermissionIndex.EMPTY : new PermissionIndex(permsSet));
 
         //用户角色列表
         List<String> rolesSet = UserUtil.getUserRolesByUserId(userId);
@@ -63,6 +95,30 @@ public class JwtRealm extends AuthorizingRealm implements FlagRealm {
         return info;
     }
 
+    /**
+     * 权限校验 优先使用权限索引
+     * 用户权限全部为简单权限时 索引结果即为最终结果，否则索引未命中时 按 Shiro 原有规则校验
+     */
+    @Override
+    protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
+        if(info instanceof IndexedAuthorizationInfo && permission instanceof WildcardPermission){
+            PermissionIndex index = ((IndexedAuthorizationInfo) info).getPermissionIndex();
+            String perm = permission.toString();
+            // 多值权限 (a:b,c) 交由 Shiro 处理
+            if(index != null && perm.indexOf(',') < 0){
+                if(index.isPermittedIgnoreCase(perm)){
+                    return true;
+                }
+                // 无对象权限 / 角色权限 等其他来源时 拒绝结果与 Shiro 一致
+                if(index.isAllSimple() && CollUtil.isEmpty(info.getObjectPermissions())
+                        && super.getRolePermissionResolver() == null){
+                    return false;
+                }
+            }
+        }
+        return super.isPermitted(permission, info);
+    }
+
     /**
      * 认证(登录时调用)
      */
@@ -71,7 +127,16 @@ public class JwtRealm extends AuthorizingRealm implements FlagRealm {
             throws AuthenticationException,TokenException {
 
         String accessToken = (String) token.getPrincipal();
+        UserModel user = verifyToken(accessToken);
+        return new SimpleAuthenticationInfo(user, accessToken, getName());
+    }
 
+    /**
+     * 校验 Token 并获得用户 (登录认证 与 无状态模式 共用)
+     * @param accessToken Token
+     * @return UserModel
+     */
+    public static UserModel verifyToken(String accessToken) throws TokenException {
         // 1. 校验 token 是否有效
         boolean verify = UserTokenUtil.verify(accessToken);
         if(!verify){
@@ -109,7 +174,7 @@ public class JwtRealm extends AuthorizingRealm implements FlagRealm {
             }
         }
 
-        return new SimpleAuthenticationInfo(user, accessToken, getName());
+        return user;
     }
 
 
@@ -156,17 +221,17 @@ public class JwtRealm extends AuthorizingRealm implements FlagRealm {
         // 查询 用户信息
         String userId = UserTokenUtil.getUserIdByToken(accessToken);
 
-        //用户权限列表
-        List<String> permsSet = UserUtil.getUserAllPermsByUserId(userId);
+        //用户权限索引
+        PermissionIndex permissionIndex = getPermissionIndex(userId);
 
-        if(CollUtil.isEmpty(permsSet)){
+        if(permissionIndex.isEmpty()){
             // 无权访问该方法
             throw new TokenException(
                     TokenMsg.EXCEPTION_NOT_AUTH);
         }
 
         for (String currPerm : currPerms) {
-            if(!permsSet.contains(currPerm)){
+            if(!permissionIndex.isPermitted(currPerm)){
                 // 无权访问该方法
                 throw new TokenException(
                         TokenMsg.EXCEPTION_NOT_AUTH);
@@ -174,4 +239,24 @@ public class JwtRealm extends AuthorizingRealm implements FlagRealm {
         }
     }
 
+    /**
+     * 获得用户权限索引 (随授权信息缓存，用户权限刷新时由 AuthorizationCache 清除)
+     * @param userId 用户ID
+     * @return PermissionIndex
+     */
+    public static PermissionIndex getPermissionIndex(String userId) {
+        AuthorizationInfo info = AuthorizationCache.get(userId, () -> loadAuthorizationInfo(userId));
+        if(info == null){
+            return PermissionIndex.EMPTY;
+        }
+        if(info instanceof IndexedAuthorizationInfo){
+            PermissionIndex index = ((IndexedAuthorizationInfo) info).getPermissionIndex();
+            if(index != null){
+                return index;
+            }
+        }
+        return CollUtil.isEmpty(info.getStringPermissions())
+                ? PermissionIndex.EMPTY : new PermissionIndex(info.getStringPermissions());
+    }
+
 }
@@ -0,0 +1,24 @@
+package org.opsli.core.security.shiro.session;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.SubjectContext;
+import org.apache.shiro.web.mgt.DefaultWebSubjectFactory;
+
+/**
+ * 无状态 Subject 工厂
+ *
+ * 全程使用 Token 认证，创建 Subject 时禁止创建会话
+ *
+ * @author Parker
+ * @date 2021-06-09 14:30
+ */
+public class StatelessSubjectFactory extends DefaultWebSubjectFactory {
+
+    @Override
+    public Subject createSubject(SubjectContext context) {
+        // 不创建 session
+        context.setSessionCreationEnabled(false);
+        return super.createSubject(context);
+    }
+
+}
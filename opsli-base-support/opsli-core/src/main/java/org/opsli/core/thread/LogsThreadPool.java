@@ -1,17 +1,40 @@
 package org.opsli.core.thread;
 
+import cn.hutool.core.io.FileUtil;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.Lists;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.opsli.api.base.result.ResultVo;
 import org.opsli.api.web.system.logs.LogsApi;
 import org.opsli.api.wrapper.system.logs.LogsModel;
-import org.opsli.common.thread.AsyncProcessExecutor;
-import org.opsli.common.thread.AsyncProcessExecutorFactory;
+import org.opsli.common.enums.LogsOverflowPolicy;
+import org.opsli.core.autoconfigure.properties.GlobalProperties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * 日志保存线程
  *
+ * 请求线程只负责入队，由单独的日志线程 按条数或时间间隔 批量写入
+ * 队列满时 按配置的溢出策略处理 (丢弃最旧 / 溢出到本地文件 / 阻塞等待)
+ * 停机时 排空队列后退出
+ *
  * @author Parker
  * @date 2020-09-16
  */
@@ -19,9 +42,42 @@ import org.springframework.stereotype.Component;
 @Component
 public class LogsThreadPool {
 
+    /** 线程名称 */
+    private static final String THREAD_NAME = "opsli-logs-writer";
+    /** 溢出文件默认名称 */
+    private static final String SPILL_FILE_NAME = "opsli-logs-spill.log";
+    /** 回放文件后缀 */
+    private static final String REPLAY_SUFFIX = ".replay";
+    /** 回放失败后 重试间隔 (毫秒) */
+    private static final long REPLAY_RETRY_INTERVAL = 60_000;
+    /** 阻塞策略 每次等待 (纳秒) */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
 
     /** 日志API */
     private static LogsApi logsApi;
+    /** 配置 */
+    private static GlobalProperties.Logs conf = new GlobalProperties.Logs();
+
+    /** 队列 */
+    private static volatile RingBuffer<LogsModel> queue;
+    /** 日志线程 */
+    private static volatile Thread worker;
+    /** 运行状态 */
+    private static volatile boolean running;
+    /** 溢出文件锁 */
+    private static final Object SPILL_LOCK = new Object();
+    /** 下次允许回放时间 */
+    private static long nextReplayTime;
+
+    /** 统计 */
+    private static final LongAdder WRITTEN_COUNT = new LongAdder();
+    private static final LongAdder FAILED_COUNT = new LongAdder();
+    private static final LongAdder DROPPED_COUNT = new LongAdder();
+    private static final LongAdder SPILLED_COUNT = new LongAdder();
+    private static final LongAdder FLUSH_COUNT = new LongAdder();
+    private static final LongAdder FLUSH_TOTAL_MILLIS = new LongAdder();
+    private static final AtomicLong FLUSH_MAX_MILLIS = new AtomicLong();
+    private static volatile long flushLastMillis;
 
     /**
      * 执行
@@ -32,23 +88,334 @@ public class LogsThreadPool {
             return;
         }
 
-        AsyncProcessExecutor normalExecutor = AsyncProcessExecutorFactory.createNormalExecutor();
-        normalExecutor.put(()->{
-            // 存储临时 token
-            ResultVo<?> ret = logsApi.insert(logsModel);
+        RingBuffer<LogsModel> q = queue;
+        if(q == null || !running){
+            // 未启动 或 已停机 直接写入
+            flush(Collections.singletonList(logsModel));
+            return;
+        }
+
+        if(!q.offer(logsModel)){
+            switch (conf.getOverflowPolicy()){
+                case SPILL:
+                    spill(logsModel);
+                    break;
+                case BLOCK:
+                    block(q, logsModel);
+                    break;
+                case DROP_OLDEST:
+                default:
+                    dropOldest(q, logsModel);
+                    break;
+            }
+        }
+
+        // 攒够一批 唤醒日志线程
+        if(q.size() >= conf.getBatchSize()){
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * 获得统计信息
+     * @return Stats
+     */
+    public static Stats getStats(){
+        RingBuffer<LogsModel> q = queue;
+        Stats stats = new Stats();
+        stats.setQueueDepth(q == null ? 0 : q.size());
+        stats.setCapacity(q == null ? 0 : q.getCapacity());
+        stats.setOverflowPolicy(conf.getOverflowPolicy());
+        stats.setWrittenCount(WRITTEN_COUNT.sum());
+        stats.setFailedCount(FAILED_COUNT.sum());
+        stats.setDroppedCount(DROPPED_COUNT.sum());
+        stats.setSpilledCount(SPILLED_COUNT.sum());
+        long flushCount = FLUSH_COUNT.sum();
+        stats.setFlushCount(flushCount);
+        stats.setFlushLastMillis(flushLastMillis);
+        stats.setFlushMaxMillis(FLUSH_MAX_MILLIS.get());
+        stats.setFlushAvgMillis(flushCount == 0 ? 0 : FLUSH_TOTAL_MILLIS.sum() / flushCount);
+        return stats;
+    }
+
+    // ========================
+
+    /**
+     * 丢弃最旧
+     * @param q 队列
+     * @param logsModel 日志模型
+     */
+    private static void dropOldest(RingBuffer<LogsModel> q, LogsModel logsModel){
+        do {
+            if(q.poll() != null){
+                DROPPED_COUNT.increment();
+            }
+        }while (!q.offer(logsModel));
+    }
+
+    /**
+     * 阻塞等待
+     * @param q 队列
+     * @param logsModel 日志模型
+     */
+    private static void block(RingBuffer<LogsModel> q, LogsModel logsModel){
+        while (!q.offer(logsModel)){
+            if(!running){
+                flush(Collections.singletonList(logsModel));
+                return;
+            }
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+    }
+
+    /**
+     * 溢出到本地文件
+     * @param logsModel 日志模型
+     */
+    private static void spill(LogsModel logsModel){
+        String line = JSONObject.toJSONString(logsModel) + System.lineSeparator();
+        synchronized (SPILL_LOCK){
+            try {
+                File spillFile = getSpillFile();
+                FileUtil.mkParentDirs(spillFile);
+                Files.write(spillFile.toPath(), line.getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                SPILLED_COUNT.increment();
+            }catch (Exception e){
+                DROPPED_COUNT.increment();
+                log.error("日志溢出文件写入失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 回放溢出文件
+     */
+    private static void replaySpill(){
+        if(conf.getOverflowPolicy() != LogsOverflowPolicy.SPILL ||
+                System.currentTimeMillis() < nextReplayTime){
+            return;
+        }
+
+        File replayFile = new File(getSpillFile().getPath() + REPLAY_SUFFIX);
+        if(!replayFile.exists()){
+            synchronized (SPILL_LOCK){
+                File spillFile = getSpillFile();
+                if(!spillFile.exists() || !spillFile.renameTo(replayFile)){
+                    return;
+                }
+            }
+        }
+
+        List<LogsModel> batch = Lists.newArrayListWithCapacity(conf.getBatchSize());
+        try (BufferedReader reader = Files.newBufferedReader(replayFile.toPath(), StandardCharsets.UTF_8)){
+            String line;
+            while ((line = reader.readLine()) != null){
+                if(StringUtils.isBlank(line)){
+                    continue;
+                }
+                batch.add(JSONObject.parseObject(line, LogsModel.class));
+                if(batch.size() >= conf.getBatchSize()){
+                    flushOrThrow(batch);
+                    batch.clear();
+                }
+            }
+            if(!batch.isEmpty()){
+                flushOrThrow(batch);
+            }
+            FileUtil.del(replayFile);
+        }catch (Exception e){
+            // 稍后重试 (已写入部分可能重复)
+            nextReplayTime = System.currentTimeMillis() + REPLAY_RETRY_INTERVAL;
+            log.error("日志溢出文件回放失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 溢出文件
+     * @return File
+     */
+    private static File getSpillFile(){
+        if(StringUtils.isNotEmpty(conf.getSpillFile())){
+            return new File(conf.getSpillFile());
+        }
+        return new File(System.getProperty("java.io.tmpdir"), SPILL_FILE_NAME);
+    }
+
+    /**
+     * 日志线程
+     */
+    private static void runWorker(){
+        final RingBuffer<LogsModel> q = queue;
+        final int batchSize = conf.getBatchSize();
+        final long flushInterval = conf.getFlushInterval();
+        List<LogsModel> batch = Lists.newArrayListWithCapacity(batchSize);
+        long lastFlushTime = System.currentTimeMillis();
+
+        while (running || !q.isEmpty()){
+            q.drainTo(batch, batchSize - batch.size());
+
+            long now = System.currentTimeMillis();
+            if(batch.size() >= batchSize ||
+                    (!batch.isEmpty() && (!running || now - lastFlushTime >= flushInterval))){
+                flush(batch);
+                batch.clear();
+                lastFlushTime = now;
+                continue;
+            }
+
+            if(batch.isEmpty()){
+                lastFlushTime = now;
+                // 空闲时 回放溢出文件
+                if(running){
+                    replaySpill();
+                }
+            }
+
+            if(running && q.isEmpty()){
+                long waitMillis = Math.max(1, flushInterval - (now - lastFlushTime));
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(waitMillis));
+            }
+        }
+
+        if(!batch.isEmpty()){
+            flush(batch);
+        }
+    }
+
+    /**
+     * 批量写入
+     * @param batch 日志集合
+     */
+    private static void flush(List<LogsModel> batch){
+        try {
+            flushOrThrow(batch);
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 批量写入 失败抛出异常
+     * @param batch 日志集合
+     */
+    private static void flushOrThrow(List<LogsModel> batch){
+        if(logsApi == null || batch.isEmpty()){
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            ResultVo<?> ret = logsApi.insertBatch(batch);
             if(!ret.isSuccess()){
+                FAILED_COUNT.add(batch.size());
                 log.error(ret.getMsg());
+                return;
             }
-        });
-        normalExecutor.execute();
+            WRITTEN_COUNT.add(batch.size());
+        }catch (RuntimeException e){
+            FAILED_COUNT.add(batch.size());
+            throw e;
+        }finally {
+            long cost = System.currentTimeMillis() - start;
+            flushLastMillis = cost;
+            FLUSH_COUNT.increment();
+            FLUSH_TOTAL_MILLIS.add(cost);
+            FLUSH_MAX_MILLIS.accumulateAndGet(cost, Math::max);
+        }
     }
 
-
     // ========================
 
+    /**
+     * 启动日志线程
+     */
+    @PostConstruct
+    public void start(){
+        queue = new RingBuffer<>(conf.getCapacity());
+        running = true;
+        Thread thread = new Thread(LogsThreadPool::runWorker, THREAD_NAME);
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    /**
+     * 停机 排空队列
+     */
+    @PreDestroy
+    public void shutdown(){
+        running = false;
+        Thread thread = worker;
+        if(thread == null){
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(conf.getDrainTimeout());
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        RingBuffer<LogsModel> q = queue;
+        if(thread.isAlive() && q != null && !q.isEmpty()){
+            log.warn("日志队列未能在停机前排空, 剩余: {}", q.size());
+        }
+    }
+
     @Autowired
     public  void setLogsApi(LogsApi logsApi) {
         LogsThreadPool.logsApi = logsApi;
     }
 
+    @Autowired
+    public void setGlobalProperties(GlobalProperties globalProperties) {
+        if(globalProperties.getLogs() != null){
+            LogsThreadPool.conf = globalProperties.getLogs();
+        }
+    }
+
+    // ========================
+
+    /**
+     * 统计信息
+     */
+    @Data
+    public static class Stats {
+
+        /** 队列当前条数 */
+        private int queueDepth;
+
+        /** 队列容量 */
+        private int capacity;
+
+        /** 溢出策略 */
+        private LogsOverflowPolicy overflowPolicy;
+
+        /** 写入成功条数 */
+        private long writtenCount;
+
+        /** 写入失败条数 */
+        private long failedCount;
+
+        /** 丢弃条数 */
+        private long droppedCount;
+
+        /** 溢出到文件条数 */
+        private long spilledCount;
+
+        /** 批量写入次数 */
+        private long flushCount;
+
+        /** 最近一次写入耗时 (毫秒) */
+        private long flushLastMillis;
+
+        /** 最大写入耗时 (毫秒) */
+        private long flushMaxMillis;
+
+        /** 平均写入耗时 (毫秒) */
+        private long flushAvgMillis;
+
+    }
+
 }
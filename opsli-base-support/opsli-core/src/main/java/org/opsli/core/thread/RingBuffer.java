@@ -0,0 +1,154 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.thread;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界环形队列 (无锁)
+ *
+ * 每个槽位带序号，生产者 / 消费者 通过 CAS 抢占位置 (Vyukov bounded queue)
+ * 多生产者写入，日志线程消费；生产者在 丢弃最旧 策略下也会出队，所以消费端同样按 CAS 实现
+ *
+ * @author Parker
+ * @date 2021-06-06 10:15
+ */
+public class RingBuffer<E> {
+
+    /** 容量 (2 的幂) */
+    private final int capacity;
+    private final int mask;
+    /** 槽位序号 */
+    private final AtomicLongArray sequences;
+    /** 槽位数据 */
+    private final AtomicReferenceArray<E> buffer;
+    /** 写位置 */
+    private final AtomicLong tail = new AtomicLong();
+    /** 读位置 */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * 构造函数
+     * @param capacity 容量 (向上取整为 2 的幂)
+     */
+    public RingBuffer(int capacity) {
+        int size = 1;
+        while (size < Math.max(capacity, 2)){
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.buffer = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队
+     * @param e 元素
+     * @return boolean 队列已满返回 false
+     */
+    public boolean offer(E e) {
+        while (true){
+            long pos = tail.get();
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if(diff == 0){
+                if(tail.compareAndSet(pos, pos + 1)){
+                    buffer.lazySet(index, e);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+            }else if(diff < 0){
+                // 已满
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 出队
+     * @return E 队列为空返回 null
+     */
+    public E poll() {
+        while (true){
+            long pos = head.get();
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if(diff == 0){
+                if(head.compareAndSet(pos, pos + 1)){
+                    E e = buffer.get(index);
+                    buffer.lazySet(index, null);
+                    sequences.set(index, pos + capacity);
+                    return e;
+                }
+            }else if(diff < 0){
+                // 为空
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 批量出队
+     * @param collection 目标集合
+     * @param max 最大条数
+     * @return int 出队条数
+     */
+    public int drainTo(Collection<? super E> collection, int max) {
+        int count = 0;
+        while (count < max){
+            E e = this.poll();
+            if(e == null){
+                break;
+            }
+            collection.add(e);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 当前条数 (近似值)
+     * @return int
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    /**
+     * 是否为空
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * 容量
+     * @return int
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.utils;
+
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 预生成验证码池
+ *
+ * 每种验证码策略 一个有界队列，存放已渲染好的图片字节 与 答案，请求时直接取出使用 (每张只使用一次)
+ * 低优先级后台线程 按平滑后的请求速率 补充到目标数量，每轮补充限制耗时，避免与业务线程争抢 CPU
+ * 池中无可用验证码时 退回到请求线程同步渲染
+ *
+ * @author Parker
+ * @date 2021-06-10 15:30
+ */
+@Slf4j
+public final class CaptchaPool {
+
+    /** 单个策略 最大预生成数 */
+    private static final int MAX_SIZE = 256;
+    /** 单个策略 最小预生成数 */
+    private static final int MIN_SIZE = 4;
+    /** 补充间隔 (毫秒) */
+    private static final long REFILL_INTERVAL = 500;
+    /** 单轮补充 最长耗时 (毫秒) */
+    private static final long REFILL_BUDGET = 200;
+    /** 预留时长 (秒) 按请求速率 预留该时长内的用量 */
+    private static final int COVER_SECONDS = 5;
+    /** 速率平滑系数 */
+    private static final double RATE_ALPHA = 0.3;
+    /** 预生成验证码 最长存活 (毫秒) 超过后丢弃 */
+    private static final long MAX_AGE = TimeUnit.MINUTES.toMillis(10);
+
+    /** 渲染器 (按策略) */
+    private final List<Supplier<Rendered>> renderers;
+    /** 预生成队列 (按策略) */
+    private final List<BlockingQueue<Rendered>> queues;
+    /** 补充线程 */
+    private final ScheduledExecutorService worker;
+
+    /** 请求数 */
+    private final AtomicLong requestCount = new AtomicLong();
+    /** 未命中数 (同步渲染) */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /** 平滑后的请求速率 (次/秒) */
+    private volatile double rate;
+    /** 上一轮请求数 (只在补充线程中访问) */
+    private long lastRequestCount;
+
+    /**
+     * 构造函数
+     * @param renderers 渲染器 (按策略)
+     */
+    public CaptchaPool(List<Supplier<Rendered>> renderers){
+        this.renderers = renderers;
+        this.queues = Lists.newArrayListWithCapacity(renderers.size());
+        for (int i = 0; i < renderers.size(); i++) {
+            this.queues.add(new ArrayBlockingQueue<>(MAX_SIZE));
+        }
+
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "opsli-captcha-refill");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.worker.scheduleWithFixedDelay(this::refill, 0, REFILL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 取出验证码 (池中没有则同步渲染)
+     * @param index 策略下标
+     * @return Rendered
+     */
+    public Rendered take(int index){
+        requestCount.incrementAndGet();
+
+        BlockingQueue<Rendered> queue = queues.get(index);
+        long now = System.currentTimeMillis();
+        Rendered rendered;
+        while ((rendered = queue.poll()) != null) {
+            if(now - rendered.getCreateTime() <= MAX_AGE){
+                return rendered;
+            }
+        }
+
+        missCount.incrementAndGet();
+        return renderers.get(index).get();
+    }
+
+    /**
+     * 获得策略 当前预生成数
+     * @param index 策略下标
+     * @return int
+     */
+    public int getSize(int index){
+        return queues.get(index).size();
+    }
+
+    /**
+     * 获得请求数
+     * @return long
+     */
+    public long getRequestCount(){
+        return requestCount.get();
+    }
+
+    /**
+     * 获得未命中数 (同步渲染)
+     * @return long
+     */
+    public long getMissCount(){
+        return missCount.get();
+    }
+
+    /**
+     * 获得平滑后的请求速率 (次/秒)
+     * @return double
+     */
+    public double getRate(){
+        return rate;
+    }
+
+    /**
+     * 关闭
+     */
+    public void shutdown(){
+        worker.shutdownNow();
+    }
+
+    // ======================
+
+    /**
+     * 补充
+     * 各策略轮流渲染 避免单个耗时策略 (GIF) 挤占其他策略
+     */
+    private void refill(){
+        try {
+            // 请求速率
+            long count = requestCount.get();
+            double curr = (count - lastRequestCount) * 1000D / REFILL_INTERVAL;
+            lastRequestCount = count;
+            rate = rate * (1 - RATE_ALPHA) + curr * RATE_ALPHA;
+
+            // 目标数量
+            int target = (int) Math.ceil(rate * COVER_SECONDS / queues.size());
+            target = Math.max(MIN_SIZE, Math.min(MAX_SIZE, target));
+
+            // 丢弃过期
+            long now = System.currentTimeMillis();
+            for (BlockingQueue<Rendered> queue : queues) {
+                Rendered head;
+                while ((head = queue.peek()) != null && now - head.getCreateTime() > MAX_AGE) {
+                    queue.remove(head);
+                }
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REFILL_BUDGET);
+            boolean filling = true;
+            while (filling && System.nanoTime() < deadline) {
+                filling = false;
+                for (int i = 0; i < queues.size(); i++) {
+                    BlockingQueue<Rendered> queue = queues.get(i);
+                    if(queue.size() < target){
+                        queue.offer(renderers.get(i).get());
+                        filling = true;
+                    }
+                }
+            }
+        }catch (Throwable e){
+            // 不抛出 避免周期任务终止
+            log.error("验证码预生成失败：{}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 已渲染验证码
+     */
+    public static final class Rendered {
+
+        /** 图片 */
+        private final byte[] image;
+        /** 答案 */
+        private final String text;
+        /** 生成时间 */
+        private final long createTime;
+
+        public Rendered(byte[] image, String text) {
+            this.image = image;
+            this.text = text;
+            this.createTime = System.currentTimeMillis();
+        }
+
+        public byte[] getImage() {
+            return image;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public long getCreateTime() {
+            return createTime;
+        }
+    }
+
+}
@@ -21,6 +21,7 @@ import com.wf.captcha.ArithmeticCaptcha;
 import com.wf.captcha.GifCaptcha;
 import com.wf.captcha.SpecCaptcha;
 import com.wf.captcha.base.Captcha;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.opsli.common.exception.TokenException;
 import org.opsli.core.cache.local.CacheUtil;
@@ -32,8 +33,12 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
 
@@ -41,9 +46,12 @@ import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
 /**
  * 验证码
  *
+ * 验证码由 CaptchaPool 预先渲染，请求时直接输出
+ *
  * @author parker
  * @date 2021年5月19日12:47:20
  */
+@Slf4j
 @Component
 @Order(UTIL_ORDER)
 @Lazy(false)
@@ -57,6 +65,8 @@ public class CaptchaUtil {
     private static final int CAPTCHA_LEN = 4;
     /** 验证码策略 */
     private static final List<CaptchaStrategy> CAPTCHA_STRATEGY_LIST;
+    /** 预生成验证码池 */
+    private static CaptchaPool CAPTCHA_POOL;
 
     /** 缓存前缀 */
     private static final String PREFIX = "temp:captcha:";
@@ -92,20 +102,39 @@ public class CaptchaUtil {
         // 随机生成验证码
         int randomInt = RandomUtil.randomInt(0, CAPTCHA_STRATEGY_LIST.size());
 
-        // 获得验证码生成策略
-        CaptchaStrategy captchaStrategy = CAPTCHA_STRATEGY_LIST.get(randomInt);
-
-        // 生成验证码
-        Captcha captcha = captchaStrategy.createCaptcha();
+        // 获得验证码 (预生成池中没有 则同步渲染)
+        CaptchaPool.Rendered captcha = CAPTCHA_POOL != null
+                ? CAPTCHA_POOL.take(randomInt)
+                : render(CAPTCHA_STRATEGY_LIST.get(randomInt));
 
         // 保存至缓存
-        boolean ret = redisPlugin.put(CacheUtil.getPrefixName() + PREFIX + uuid, captcha.text(), TIME_OUT);
+        boolean ret = redisPlugin.put(CacheUtil.getPrefixName() + PREFIX + uuid, captcha.getText(), TIME_OUT);
         if(ret){
             // 输出
-            captcha.out(out);
+            try {
+                out.write(captcha.getImage());
+                out.flush();
+            }catch (IOException e){
+                log.error(e.getMessage(), e);
+            }
         }
     }
 
+    /**
+     * 渲染验证码
+     * @param captchaStrategy 验证码生成策略
+     * @return CaptchaPool.Rendered
+     */
+    private static CaptchaPool.Rendered render(CaptchaStrategy captchaStrategy) {
+        // 生成验证码
+        Captcha captcha = captchaStrategy.createCaptcha();
+        // 答案需先于图片生成
+        String text = captcha.text();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        captcha.out(bos);
+        return new CaptchaPool.Rendered(bos.toByteArray(), text);
+    }
+
     /**
      * 校验验证码
      *
@@ -211,6 +240,17 @@ public class CaptchaUtil {
 
     // ==========================
 
+    /**
+     * 停机
+     */
+    @PreDestroy
+    public void shutdown(){
+        CaptchaPool pool = CAPTCHA_POOL;
+        if(pool != null){
+            pool.shutdown();
+        }
+    }
+
     /**
      * 初始化
      */
@@ -218,6 +258,16 @@ public class CaptchaUtil {
     public void init(RedisPlugin redisPlugin) {
         CaptchaUtil.redisPlugin = redisPlugin;
 
+        // 预生成验证码池
+        if(CAPTCHA_POOL == null){
+            List<Supplier<CaptchaPool.Rendered>> renderers =
+                    Lists.newArrayListWithCapacity(CAPTCHA_STRATEGY_LIST.size());
+            for (CaptchaStrategy captchaStrategy : CAPTCHA_STRATEGY_LIST) {
+                renderers.add(() -> render(captchaStrategy));
+            }
+            CAPTCHA_POOL = new CaptchaPool(renderers);
+        }
+
         IS_INIT = true;
     }
 
@@ -26,6 +26,9 @@ import org.opsli.api.web.system.dict.DictDetailApi;
 import org.opsli.api.wrapper.system.dict.DictDetailModel;
 import org.opsli.api.wrapper.system.dict.DictWrapper;
 import org.opsli.common.constants.DictConstants;
+import org.opsli.core.cache.SingleFlight;
+import org.opsli.core.cache.guard.GuardType;
+import org.opsli.core.cache.guard.PenetrationGuard;
 import org.opsli.core.cache.local.CacheUtil;
 import org.opsli.core.msg.CoreMsg;
 import org.opsli.plugins.redis.RedisPlugin;
@@ -74,9 +77,6 @@ public class DictUtil {
         // 缓存Key + VALUE
         String cacheKeyVal = cacheKey + ":" + dictValue;
 
-        // 字典名称
-        String dictName = null;
-
         DictDetailModel cacheModel = CacheUtil.getHash(DictDetailModel.class, cacheKey,
                 dictValue);
         // 如果缓存有值 直接返回
@@ -85,57 +85,68 @@ public class DictUtil {
             return cacheModel.getDictName();
         }
 
-        // 防止缓存穿透判断
+        // 防止缓存穿透判断 - 字典类型不存在 直接返回
+        if(!PenetrationGuard.mightExist(GuardType.DICT_TYPE, typeCode)){
+            return defaultVal;
+        }
         boolean hasNilFlag = CacheUtil.hasNilFlag(cacheKeyVal);
         if(hasNilFlag){
             return defaultVal;
         }
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKeyVal)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return null;
-            }
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        String dictName = SingleFlight.execute(cacheKeyVal, () -> {
+            String ret = null;
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKeyVal)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return null;
+                }
 
-            // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
-            cacheModel = CacheUtil.getHash(DictDetailModel.class, cacheKey,
-                    dictValue);
-            // 如果缓存有值 直接返回
-            if (cacheModel != null &&
-                    StringUtils.isNotEmpty(cacheModel.getDictName())){
-                return cacheModel.getDictName();
-            }
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                DictDetailModel model = CacheUtil.getHash(DictDetailModel.class, cacheKey,
+                        dictValue);
+                // 如果缓存有值 直接返回
+                if (model != null &&
+                        StringUtils.isNotEmpty(model.getDictName())){
+                    return model.getDictName();
+                }
 
-            // 查询数据库 并保存到缓存内
-            ResultVo<List<DictDetailModel>> resultVo = dictDetailApi.findListByTypeCode(typeCode);
-            if(resultVo.isSuccess()){
-                List<DictDetailModel> dictDetailModels = resultVo.getData();
-                for (DictDetailModel model : dictDetailModels) {
-                    if(model.getDictValue().equals(dictValue)){
-                        // 保存至缓存
-                        DictWrapper dictWrapper = DictUtil.putByModel(model);
-                        // 缓存名
-                        dictName = dictWrapper.getDictName();
-                        break;
+                // 查询数据库 并保存到缓存内
+                ResultVo<List<DictDetailModel>> resultVo = dictDetailApi.findListByTypeCode(typeCode);
+                if(resultVo.isSuccess()){
+                    List<DictDetailModel> dictDetailModels = resultVo.getData();
+                    for (DictDetailModel detailModel : dictDetailModels) {
+                        if(detailModel.getDictValue().equals(dictValue)){
+                            // 保存至缓存
+                            DictWrapper dictWrapper = DictUtil.putByModel(detailModel);
+                            // 缓存名
+                            ret = dictWrapper.getDictName();
+                            break;
+                        }
                     }
                 }
+
+            }catch (Exception e){
+                log.error(e.getMessage(),e);
+                return null;
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKeyVal);
             }
 
-        }catch (Exception e){
-            log.error(e.getMessage(),e);
-            return defaultVal;
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKeyVal);
-        }
+            if(StringUtils.isEmpty(ret)){
+                // 加入缓存防穿透
+                // 设置空变量 用于防止穿透判断
+                CacheUtil.putNilFlag(cacheKeyVal);
+            }
+            return ret;
+        });
 
         // 如果名称还是 为空 则赋默认值
         if(StringUtils.isEmpty(dictName)){
-            // 加入缓存防穿透
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKeyVal);
             dictName = defaultVal;
         }
         return dictName;
@@ -158,9 +169,6 @@ public class DictUtil {
         // 缓存Key + VALUE
         String cacheKeyVal = cacheKey + ":" + dictName;
 
-        // 字典值
-        String dictValue = null;
-
         DictDetailModel cacheModel = CacheUtil.getHash(DictDetailModel.class, cacheKey,
                 dictName);
         // 如果缓存有值 直接返回
@@ -169,56 +177,68 @@ public class DictUtil {
             return cacheModel.getDictValue();
         }
 
-        // 防止缓存穿透判断
+        // 防止缓存穿透判断 - 字典类型不存在 直接返回
+        if(!PenetrationGuard.mightExist(GuardType.DICT_TYPE, typeCode)){
+            return defaultVal;
+        }
         boolean hasNilFlag = CacheUtil.hasNilFlag(cacheKeyVal);
         if(hasNilFlag){
             return defaultVal;
         }
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKeyVal)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return null;
-            }
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        String dictValue = SingleFlight.execute(cacheKeyVal, () -> {
+            String ret = null;
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKeyVal)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return null;
+                }
 
-            cacheModel = CacheUtil.getHash(DictDetailModel.class, cacheKey,
-                    dictName);
-            // 如果缓存有值 直接返回
-            if (cacheModel != null &&
-                    StringUtils.isNotEmpty(cacheModel.getDictValue())){
-                return cacheModel.getDictValue();
-            }
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                DictDetailModel model = CacheUtil.getHash(DictDetailModel.class, cacheKey,
+                        dictName);
+                // 如果缓存有值 直接返回
+                if (model != null &&
+                        StringUtils.isNotEmpty(model.getDictValue())){
+                    return model.getDictValue();
+                }
 
-            // 查询数据库 并保存到缓存内
-            ResultVo<List<DictDetailModel>> resultVo = dictDetailApi.findListByTypeCode(typeCode);
-            if(resultVo.isSuccess()){
-                List<DictDetailModel> dictDetailModels = resultVo.getData();
-                for (DictDetailModel model : dictDetailModels) {
-                    if(model.getDictName().equals(dictName)){
-                        // 保存至缓存
-                        DictWrapper dictWrapper = DictUtil.putByModel(model);
-                        // 值
-                        dictValue = dictWrapper.getDictValue();
-                        break;
+                // 查询数据库 并保存到缓存内
+                ResultVo<List<DictDetailModel>> resultVo = dictDetailApi.findListByTypeCode(typeCode);
+                if(resultVo.isSuccess()){
+                    List<DictDetailModel> dictDetailModels = resultVo.getData();
+                    for (DictDetailModel detailModel : dictDetailModels) {
+                        if(detailModel.getDictName().equals(dictName)){
+                            // 保存至缓存
+                            DictWrapper dictWrapper = DictUtil.putByModel(detailModel);
+                            // 值
+                            ret = dictWrapper.getDictValue();
+                            break;
+                        }
                     }
                 }
+
+            }catch (Exception e){
+                log.error(e.getMessage(),e);
+                return null;
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKeyVal);
             }
 
-        }catch (Exception e){
-            log.error(e.getMessage(),e);
-            return defaultVal;
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKeyVal);
-        }
+            if(StringUtils.isEmpty(ret)){
+                // 加入缓存防穿透
+                // 设置空变量 用于防止穿透判断
+                CacheUtil.putNilFlag(cacheKeyVal);
+            }
+            return ret;
+        });
 
         // 如果值还是 为空 则赋默认值
         if(StringUtils.isEmpty(dictValue)){
-            // 加入缓存防穿透
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKeyVal);
             dictValue = defaultVal;
         }
         return dictValue;
@@ -244,62 +264,72 @@ public class DictUtil {
             return sortDictWrappers(dictWrapperModels);
         }
 
-        // 防止缓存穿透判断
+        // 防止缓存穿透判断 - 字典类型不存在 直接返回
+        if(!PenetrationGuard.mightExist(GuardType.DICT_TYPE, typeCode)){
+            return dictWrapperModels;
+        }
         boolean hasNilFlag = CacheUtil.hasNilFlag(cacheKey);
         if(hasNilFlag){
             return sortDictWrappers(dictWrapperModels);
         }
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKey)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return sortDictWrappers(dictWrapperModels);
-            }
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        // 返回结果已排序, 跟随者共享同一集合 不再重复排序
+        dictWrapperModels = SingleFlight.execute(cacheKey, () -> {
+            List<DictWrapper> list = Lists.newArrayList();
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKey)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return list;
+                }
 
-            // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
-            // 处理集合数据
-            dictWrapperModels = handleDictList(
-                    CacheUtil.getHashAll(cacheKey), typeCode);
-            if(CollUtil.isNotEmpty(dictWrapperModels)){
-                return sortDictWrappers(dictWrapperModels);
-            }
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                // 处理集合数据
+                list = handleDictList(
+                        CacheUtil.getHashAll(cacheKey), typeCode);
+                if(CollUtil.isNotEmpty(list)){
+                    return sortDictWrappers(list);
+                }
 
 
-            // 查询数据库 并保存到缓存内
-            ResultVo<List<DictDetailModel>> resultVo = dictDetailApi.findListByTypeCode(typeCode);
-            if(resultVo.isSuccess()){
-                List<DictDetailModel> dictDetailModels = resultVo.getData();
-                // 处理数据库查询数据
-                if(CollUtil.isNotEmpty(dictDetailModels)){
-                    dictWrapperModels = Lists.newArrayListWithCapacity(dictDetailModels.size());
-                    for (DictDetailModel model : dictDetailModels) {
-                        // 保存至缓存
-                        DictWrapper dictWrapper = DictUtil.putByModel(model);
-                        dictWrapperModels.add(dictWrapper);
+                // 查询数据库 并保存到缓存内
+                ResultVo<List<DictDetailModel>> resultVo = dictDetailApi.findListByTypeCode(typeCode);
+                if(resultVo.isSuccess()){
+                    List<DictDetailModel> dictDetailModels = resultVo.getData();
+                    // 处理数据库查询数据
+                    if(CollUtil.isNotEmpty(dictDetailModels)){
+                        list = Lists.newArrayListWithCapacity(dictDetailModels.size());
+                        for (DictDetailModel model : dictDetailModels) {
+                            // 保存至缓存
+                            DictWrapper dictWrapper = DictUtil.putByModel(model);
+                            list.add(dictWrapper);
+                        }
+
+                        return sortDictWrappers(list);
                     }
-
-                    return sortDictWrappers(dictWrapperModels);
                 }
+
+            }catch (Exception e){
+                log.error(e.getMessage(),e);
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKey);
             }
 
-        }catch (Exception e){
-            log.error(e.getMessage(),e);
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKey);
-        }
+            // 如果值还是 为空 则赋默认值
+            if(CollUtil.isEmpty(list)){
+                // 加入缓存防穿透
+                // 设置空变量 用于防止穿透判断
+                CacheUtil.putNilFlag(cacheKey);
+            }
 
-        // 如果值还是 为空 则赋默认值
-        if(CollUtil.isEmpty(dictWrapperModels)){
-            // 加入缓存防穿透
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKey);
-        }
+            // 排序
+            return sortDictWrappers(list);
+        });
 
-        // 排序
-        return sortDictWrappers(dictWrapperModels);
+        return dictWrapperModels != null ? dictWrapperModels : Lists.newArrayList();
     }
 
     /**
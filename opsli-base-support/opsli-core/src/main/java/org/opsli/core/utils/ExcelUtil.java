@@ -34,6 +34,7 @@ import org.opsli.core.utils.excel.factory.ModelFactoryHelper;
 import org.opsli.plugins.excel.ExcelPlugin;
 import org.opsli.plugins.excel.annotation.ExcelInfo;
 import org.opsli.plugins.excel.exception.ExcelPluginException;
+import org.opsli.plugins.excel.factory.ExcelStreamWriter;
 import org.opsli.plugins.excel.listener.BatchExcelListener;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -118,6 +119,21 @@ public final class ExcelUtil {
         ExcelUtilSingletonHolder.EXCEL_PLUGIN.writeExcel(response, ts, fileName, sheetName, classType, excelTypeEnum);
     }
 
+    /**
+     * 创建分批写入的 Writer
+     * 每批数据需先经过 handleDatas 处理字典
+     * @param response response
+     * @param fileName 文件名称
+     * @param sheetName sheet 名称
+     * @param classType 数据类型
+     * @param excelTypeEnum 文件类型
+     * @param <T> 泛型
+     * @return ExcelStreamWriter
+     */
+    public <T> ExcelStreamWriter<T> createStreamWriter(HttpServletResponse response, String fileName, String sheetName, Class<T> classType, ExcelTypeEnum excelTypeEnum) {
+        return ExcelUtilSingletonHolder.EXCEL_PLUGIN.createStreamWriter(response, fileName, sheetName, classType, excelTypeEnum);
+    }
+
     /**
      * 处理字典
      * @param datas 数据
@@ -135,9 +151,32 @@ public final class ExcelUtil {
         }
 
         try {
-            JSONObject fieldsJson = this.getFields(typeClazz);
-            JSONObject fieldsDictJson = this.getFieldsDict(fieldsJson);
+            return this.handleDatas(datas, typeClazz, operate,
+                    this.getFieldsDict(this.getFields(typeClazz)));
+        }finally {
+            // 花费毫秒数
+            long timerCount = timer.interval();
+            log.info("Excel 处理数据耗时："+ DateUtil.formatBetween(timerCount));
+        }
+    }
+
+    /**
+     * 处理字典 (分批处理时 字典只需获取一次)
+     * @param datas 数据
+     * @param typeClazz 数据CLazz
+     * @param operate 操作方式
+     * @param fieldsDictJson 字段字典 getFieldsDict(getFields(typeClazz))
+     * @param <T> 泛型
+     * @return List<T>
+     */
+    public <T> List<T> handleDatas(List<T> datas, Class<T> typeClazz, ExcelOperate operate,
+                                   JSONObject fieldsDictJson){
+        // 空处理
+        if(datas == null || datas.size() == 0){
+            return datas;
+        }
 
+        try {
             // 获得 helper类
             AbstractModelHelper modelHelper = ModelFactoryHelper.getModelHelper(typeClazz);
             // 字典赋值
@@ -157,10 +196,6 @@ public final class ExcelUtil {
         }catch (Exception e){
             log.error(e.getMessage(), e);
             return datas;
-        }finally {
-            // 花费毫秒数
-            long timerCount = timer.interval();
-            log.info("Excel 处理数据耗时："+ DateUtil.formatBetween(timerCount));
         }
 
         return datas;
@@ -8,7 +8,9 @@ import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTDecodeException;
-import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.opsli.core.autoconfigure.properties.GlobalProperties;
 import org.opsli.common.constants.SignConstants;
@@ -22,6 +24,7 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
 
@@ -50,8 +53,15 @@ public class JwtUtil {
     /** 增加初始状态开关 防止异常使用 */
     private static boolean IS_INIT;
 
+    /** 帐号校验器 (校验器线程安全 可复用) */
+    private static final Cache<String, JWTVerifier> VERIFIER_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
     /**
      * 校验验证帐号加JWT私钥解密 是否正确
+     * 校验结果按 Token 缓存，同一 Token 只校验一次签名
      * @param token Token
      * @return boolean 是否正确
      */
@@ -60,10 +70,22 @@ public class JwtUtil {
         ThrowExceptionUtil.isThrowException(!IS_INIT,
                 CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
 
-        String secret = getClaim(token, SignConstants.ACCOUNT) + Base64.decodeStr(ENCRYPT_JWT_INITIAL_SECRET);
-        Algorithm algorithm = Algorithm.HMAC256(secret);
-        JWTVerifier verifier = JWT.require(algorithm).build();
-        verifier.verify(token);
+        JwtVerifyCache.Entry entry = getEntry(token);
+        Boolean verified = entry.getVerified();
+        if(verified == null){
+            try {
+                getVerifier(entry.getClaim(SignConstants.ACCOUNT)).verify(entry.getJwt());
+                entry.setVerified(true, null);
+            }catch (JWTVerificationException e){
+                entry.setVerified(false, e.getMessage());
+                throw e;
+            }
+            return true;
+        }
+
+        if(!verified){
+            throw new JWTVerificationException(entry.getError());
+        }
         return true;
     }
 
@@ -78,9 +100,17 @@ public class JwtUtil {
         ThrowExceptionUtil.isThrowException(!IS_INIT,
                 CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
 
+        return getEntry(token).getClaim(claim);
+    }
+
+    /**
+     * 获得 Token 缓存 (不存在则解析)
+     * @param token token
+     * @return JwtVerifyCache.Entry
+     */
+    private static JwtVerifyCache.Entry getEntry(String token) {
         try {
-            DecodedJWT jwt = JWT.decode(token);
-            return jwt.getClaim(claim).asString();
+            return JwtVerifyCache.get(token);
         } catch (JWTDecodeException e) {
             // 解密异常
             String msg = StrUtil.format(JwtMsg.EXCEPTION_DECODE.getMessage(), e.getMessage());
@@ -88,6 +118,23 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * 获得帐号校验器
+     * @param account 帐号
+     * @return JWTVerifier
+     */
+    private static JWTVerifier getVerifier(String account) {
+        String key = StrUtil.nullToEmpty(account);
+        JWTVerifier verifier = VERIFIER_CACHE.getIfPresent(key);
+        if(verifier == null){
+            verifier = JWT.require(
+                    Algorithm.HMAC256(account + Base64.decodeStr(ENCRYPT_JWT_INITIAL_SECRET))
+            ).build();
+            VERIFIER_CACHE.put(key, verifier);
+        }
+        return verifier;
+    }
+
     /**
      * 生成签名
      * @param tokenType token类型
@@ -144,6 +191,10 @@ public class JwtUtil {
             // 获得 Token初始盐值
             JwtUtil.ENCRYPT_JWT_INITIAL_SECRET = globalProperties.getAuth()
                     .getToken().getSecret();
+
+            // 盐值变更 校验器与校验结果全部作废
+            VERIFIER_CACHE.invalidateAll();
+            JwtVerifyCache.clear();
         }
 
         IS_INIT = true;
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.utils;
+
+import cn.hutool.crypto.SecureUtil;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 解析 / 校验结果缓存
+ *
+ * 以 Token 摘要为键，缓存解析后的 Claims 与签名校验结果
+ * 同一个 Token 在一次请求中会被多次读取 (校验、用户ID、用户名、租户ID)，
+ * 每次请求也都会重复校验签名，缓存后只需解析、校验一次
+ *
+ * 条数有上限，长时间不访问自动清除；Token 到达 exp 后 读取时即清除
+ *
+ * @author Parker
+ * @date 2021-06-06 15:30
+ */
+@Slf4j
+public final class JwtVerifyCache {
+
+    /** 最大缓存条数 */
+    private static final int MAX_SIZE = 10_000;
+    /** 不访问 自动清除时间 (分钟) */
+    private static final int EXPIRE_AFTER_ACCESS = 30;
+
+    /** 缓存 */
+    private static final Cache<String, Entry> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SIZE)
+            .expireAfterAccess(EXPIRE_AFTER_ACCESS, TimeUnit.MINUTES)
+            .build();
+
+    /** 私有化构造函数 */
+    private JwtVerifyCache(){}
+
+    /**
+     * 获得缓存 (不存在则解析)
+     * @param token token
+     * @return Entry
+     */
+    public static Entry get(String token){
+        String key = SecureUtil.sha256(token);
+        Entry entry = CACHE.getIfPresent(key);
+        if(entry != null){
+            // 已到期 清除
+            if(entry.isExpired()){
+                CACHE.invalidate(key);
+            }else {
+                return entry;
+            }
+        }
+
+        // 解析失败 直接抛出异常 不做缓存
+        DecodedJWT jwt = JWT.decode(token);
+        entry = new Entry(jwt);
+        CACHE.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * 清除
+     * @param token token
+     */
+    public static void remove(String token){
+        CACHE.invalidate(SecureUtil.sha256(token));
+    }
+
+    /**
+     * 清除全部
+     */
+    public static void clear(){
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * 缓存条数
+     * @return long
+     */
+    public static long size(){
+        return CACHE.size();
+    }
+
+    // ==================
+
+    /**
+     * 缓存项
+     */
+    public static final class Entry {
+
+        /** 解析后的 Token */
+        private final DecodedJWT jwt;
+        /** 到期时间 (毫秒) Long.MAX_VALUE 为不过期 */
+        private final long expiresAt;
+        /** 校验结果 null 为未校验 */
+        private volatile Boolean verified;
+        /** 校验失败信息 */
+        private volatile String error;
+
+        private Entry(DecodedJWT jwt) {
+            this.jwt = jwt;
+            Date exp = jwt.getExpiresAt();
+            this.expiresAt = exp == null ? Long.MAX_VALUE : exp.getTime();
+        }
+
+        public DecodedJWT getJwt() {
+            return jwt;
+        }
+
+        public String getClaim(String claim) {
+            return jwt.getClaim(claim).asString();
+        }
+
+        public Boolean getVerified() {
+            return verified;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+
+        /**
+         * 记录校验结果
+         * @param verified 是否通过
+         * @param error 失败信息
+         */
+        void setVerified(boolean verified, String error) {
+            this.error = error;
+            this.verified = verified;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.opsli.common.enums.LimiterAlgorithm;
+import org.opsli.core.cache.local.CacheUtil;
+import org.opsli.core.msg.CoreMsg;
+import org.opsli.plugins.redis.RedisPlugin;
+import org.opsli.plugins.redis.scripts.enums.RedisScriptsEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
+
+/**
+ * 集群限流工具类
+ *
+ * 令牌桶 / GCRA 由 Redis Lua 脚本原子执行，集群共享同一个桶，不阻塞请求线程
+ * 被拒绝时返回需要等待的毫秒数 (Retry-After)
+ *
+ * 本地预过滤 (不访问 Redis 直接拒绝)：
+ * 1. 本机同参数令牌桶已耗尽 —— 本机消耗 不会大于 集群消耗，集群桶必然也已耗尽
+ * 2. 处于 Redis 返回的等待时间内 —— 等待期间集群桶不会补充出令牌
+ *
+ * Redis 不可用时 退化为单机限流
+ *
+ * @author Parker
+ * @date 2021-06-07 17:30
+ */
+@Slf4j
+@Order(UTIL_ORDER)
+@Component
+@Lazy(false)
+public class RateLimitUtil {
+
+    /** 缓存前缀 */
+    private static final String PREFIX = "limiter:";
+    /** 本地缓存个数 超出后自动清理 */
+    private static final int LOCAL_CACHE_COUNT = 10_0000;
+    /** 本地缓存时效 (分钟) 超出后自动清理 */
+    private static final int LOCAL_CACHE_TIME = 5;
+
+    /** 本地令牌桶 */
+    private static final Cache<String, LocalBucket> LOCAL_BUCKETS = CacheBuilder.newBuilder()
+            .maximumSize(LOCAL_CACHE_COUNT)
+            .expireAfterAccess(LOCAL_CACHE_TIME, TimeUnit.MINUTES)
+            .build();
+
+    /** 集群拒绝后 本地拒绝截止时间 (毫秒) */
+    private static final Cache<String, Long> BLOCKED_UNTIL = CacheBuilder.newBuilder()
+            .maximumSize(LOCAL_CACHE_COUNT)
+            .expireAfterWrite(LOCAL_CACHE_TIME, TimeUnit.MINUTES)
+            .build();
+
+    /** Redis插件 */
+    private static RedisPlugin redisPlugin;
+
+    /** 增加初始状态开关 防止异常使用 */
+    private static boolean IS_INIT;
+
+    /**
+     * 申请通过 (非阻塞)
+     * @param key 限流键
+     * @param algorithm 限流算法
+     * @param qps 每秒允许请求数 小于等于 0 为不限流
+     * @param burst 突发容量 小于 1 时按 QPS 计算
+     * @return long 0 为通过，大于 0 为需要等待的毫秒数
+     */
+    public static long tryAcquire(String key, LimiterAlgorithm algorithm, double qps, int burst){
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        // 不限流
+        if(qps <= 0){
+            return 0L;
+        }
+        int capacity = burst > 0 ? burst : (int) Math.max(1, Math.ceil(qps));
+
+        // 1. 处于集群等待时间内 直接拒绝
+        long now = System.currentTimeMillis();
+        Long blockedUntil = BLOCKED_UNTIL.getIfPresent(key);
+        if(blockedUntil != null){
+            if(blockedUntil > now){
+                return blockedUntil - now;
+            }
+            BLOCKED_UNTIL.invalidate(key);
+        }
+
+        // 2. 本机令牌桶
+        LocalBucket localBucket;
+        try {
+            localBucket = LOCAL_BUCKETS.get(key, LocalBucket::new);
+        }catch (ExecutionException e){
+            log.error(e.getMessage(), e);
+            return 0L;
+        }
+        long localWait = localBucket.tryAcquire(qps, capacity);
+        if(localWait > 0 || LimiterAlgorithm.LOCAL == algorithm){
+            return localWait;
+        }
+
+        // 3. 集群令牌桶
+        RedisScriptsEnum script = LimiterAlgorithm.GCRA == algorithm
+                ? RedisScriptsEnum.REDIS_GCRA : RedisScriptsEnum.REDIS_TOKEN_BUCKET;
+        try {
+            Object ret = redisPlugin.callScript(script,
+                    Collections.singletonList(CacheUtil.getPrefixName() + PREFIX + key),
+                    qps, capacity, 1);
+            if(!(ret instanceof Long)){
+                // 脚本未加载 退化为单机限流
+                return 0L;
+            }
+
+            long wait = (Long) ret;
+            if(wait > 0){
+                // 集群拒绝 本机令牌退还
+                localBucket.refund(capacity);
+                BLOCKED_UNTIL.put(key, now + wait);
+            }
+            return wait;
+        }catch (Exception e){
+            // Redis 不可用 退化为单机限流
+            log.error(e.getMessage(), e);
+        }
+        return 0L;
+    }
+
+    // ==================
+
+    /**
+     * 本地令牌桶
+     */
+    private static final class LocalBucket {
+
+        /** 当前令牌数 */
+        private double tokens = -1;
+        /** 上次补充时间 (纳秒) */
+        private long lastNanos;
+
+        /**
+         * 申请令牌
+         * @param rate 每秒生成令牌数
+         * @param capacity 桶容量
+         * @return long 0 为通过，大于 0 为需要等待的毫秒数
+         */
+        private synchronized long tryAcquire(double rate, int capacity){
+            long nowNanos = System.nanoTime();
+            if(tokens < 0){
+                tokens = capacity;
+            }else {
+                double elapsed = (nowNanos - lastNanos) / 1_000_000_000d;
+                tokens = Math.min(capacity, tokens + elapsed * rate);
+            }
+            lastNanos = nowNanos;
+
+            if(tokens < 1){
+                return Math.max(1L, (long) Math.ceil((1 - tokens) * 1000 / rate));
+            }
+            tokens -= 1;
+            return 0L;
+        }
+
+        /**
+         * 退还令牌
+         * @param capacity 桶容量
+         */
+        private synchronized void refund(int capacity){
+            tokens = Math.min(capacity, tokens + 1);
+        }
+    }
+
+    // =====================================
+
+    /**
+     * 初始化
+     */
+    @Autowired
+    public void init(RedisPlugin redisPlugin){
+        RateLimitUtil.redisPlugin = redisPlugin;
+
+        IS_INIT = true;
+    }
+}
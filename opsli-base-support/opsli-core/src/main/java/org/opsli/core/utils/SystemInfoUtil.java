@@ -10,7 +10,6 @@ import cn.hutool.system.oshi.OshiUtil;
 import com.google.common.collect.Lists;
 import lombok.Data;
 import org.opsli.common.utils.ConvertBytesUtil;
-import oshi.SystemInfo;
 import oshi.hardware.GlobalMemory;
 import oshi.software.os.FileSystem;
 import oshi.software.os.OSFileStore;
@@ -55,14 +54,29 @@ public enum SystemInfoUtil {
     }
 
     /**
-     * 获得磁盘信息
+     * 获得磁盘信息 (优先使用后台采样)
      * @return List DiskInfo
      */
     public List<DiskInfo> getDiskInfo(){
         List<DiskInfo> diskInfoList = Lists.newArrayList();
-        SystemInfo si = new SystemInfo();
 
-        FileSystem fileSystem = si.getOperatingSystem().getFileSystem();
+        SystemMetricsUtil.MetricsPoint point = SystemMetricsUtil.getLatest();
+        if(point != null && point.getDisks() != null){
+            for (SystemMetricsUtil.DiskPoint disk : point.getDisks()) {
+                DiskInfo diskInfo = new DiskInfo();
+                diskInfo.setDiskName(disk.getDiskName());
+                diskInfo.setDiskType(disk.getDiskType());
+                diskInfo.setFileName(disk.getFileName());
+                diskInfo.setTotal(ConvertBytesUtil.convertFileSizeToString(disk.getTotal()));
+                diskInfo.setFree(ConvertBytesUtil.convertFileSizeToString(disk.getFree()));
+                diskInfo.setUsed(ConvertBytesUtil.convertFileSizeToString(disk.getUsed()));
+                diskInfo.setUsage(disk.getUsage());
+                diskInfoList.add(diskInfo);
+            }
+            return diskInfoList;
+        }
+
+        FileSystem fileSystem = OshiUtil.getOs().getFileSystem();
         List<OSFileStore> fileStores = fileSystem.getFileStores();
         for (OSFileStore fs : fileStores) {
             long free = fs.getUsableSpace();
@@ -85,11 +99,27 @@ public enum SystemInfoUtil {
 
 
     /**
-     * 获得内存信息
+     * 获得内存信息 (优先使用后台采样)
      * @return MemoryInfo
      */
     public MemoryInfo getMemoryInfo(){
         MemoryInfo memoryInfo = new MemoryInfo();
+
+        SystemMetricsUtil.MetricsPoint point = SystemMetricsUtil.getLatest();
+        if(point != null){
+            memoryInfo.setTotal(
+                    ConvertBytesUtil
+                            .convertFileSizeToString(point.getMemTotal()));
+            memoryInfo.setUsed(
+                    ConvertBytesUtil
+                            .convertFileSizeToString(point.getMemUsed()));
+            memoryInfo.setFree(
+                    ConvertBytesUtil
+                            .convertFileSizeToString(point.getMemTotal() - point.getMemUsed()));
+            memoryInfo.setUsage(point.getMemUsage());
+            return memoryInfo;
+        }
+
         GlobalMemory memory = OshiUtil.getMemory();
         if(memory != null){
             String total = Convert.toStr(memory.getTotal());
@@ -111,10 +141,16 @@ public enum SystemInfoUtil {
     }
 
     /**
-     * 获得CPU信息
+     * 获得CPU信息 (优先使用后台采样 未采样时 阻塞等待监控时间)
      * @return CpuInfo
      */
     public CpuInfo getCpuInfo(){
+        SystemMetricsUtil.MetricsPoint point = SystemMetricsUtil.getLatest();
+        if(point != null){
+            return new CpuInfo(point.getCpuNum(), point.getCpuTotal(), point.getCpuSys(),
+                    point.getCpuUser(), point.getCpuWait(), point.getCpuFree(),
+                    OshiUtil.getProcessor().toString());
+        }
         return OshiUtil.getCpuInfo(WAITING_TIME);
     }
 
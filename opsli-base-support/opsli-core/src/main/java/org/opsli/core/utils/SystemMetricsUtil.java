@@ -0,0 +1,473 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.utils;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.system.oshi.OshiUtil;
+import com.google.common.collect.Lists;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.opsli.core.autoconfigure.properties.GlobalProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import oshi.hardware.CentralProcessor;
+import oshi.hardware.GlobalMemory;
+import oshi.software.os.OSFileStore;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
+
+/**
+ * 系统指标 后台采样
+ *
+ * 单个后台线程按固定间隔采集 CPU、内存、磁盘、JVM 堆、GC、线程、Tomcat 线程池 指标，
+ * 写入固定大小的环形缓冲 (超出后覆盖最旧)，监控接口直接读取最新快照 或 时间窗口内的历史，不再阻塞请求
+ *
+ * CPU 使用率 由相邻两次采样的 CPU 时钟差值计算，无需在采样时等待
+ * 只依赖 OSHI 与 JMX，无需外部代理
+ *
+ * @author Parker
+ * @date 2021-06-10 10:20
+ */
+@Slf4j
+@Order(UTIL_ORDER)
+@Component
+@Lazy(false)
+public class SystemMetricsUtil {
+
+    /** 首次采样延迟 (毫秒) 需要间隔一段时间 才能计算 CPU 使用率 */
+    private static final long FIRST_SAMPLE_DELAY = 1000;
+
+    /** 环形缓冲 锁 */
+    private static final Object RING_LOCK = new Object();
+    /** 环形缓冲 */
+    private static MetricsPoint[] ring;
+    /** 已写入采样点数 */
+    private static long writeCount;
+
+    /** 最新采样点 */
+    private static volatile MetricsPoint latest;
+
+    /** 采样线程 */
+    private static ScheduledExecutorService SAMPLE_EXECUTOR;
+
+    /** Tomcat 工作线程池 */
+    private static volatile ThreadPoolExecutor tomcatExecutor;
+
+    /** 上次 CPU 时钟 (只在采样线程中访问) */
+    private static long[] prevTicks;
+    /** 上次 GC 次数 (只在采样线程中访问) */
+    private static long prevGcCount = -1;
+    /** 上次 GC 耗时 (只在采样线程中访问) */
+    private static long prevGcTime = -1;
+
+    /**
+     * 获得最新采样点
+     * @return MetricsPoint 尚未采样返回 null
+     */
+    public static MetricsPoint getLatest(){
+        return latest;
+    }
+
+    /**
+     * 获得全部历史采样点 (由旧到新)
+     * @return List
+     */
+    public static List<MetricsPoint> getHistory(){
+        return getHistory(0L);
+    }
+
+    /**
+     * 获得时间窗口内的历史采样点 (由旧到新)
+     * @param windowMillis 时间窗口 (毫秒) 小于等于 0 则返回全部
+     * @return List
+     */
+    public static List<MetricsPoint> getHistory(long windowMillis){
+        long since = windowMillis > 0 ? System.currentTimeMillis() - windowMillis : 0L;
+        synchronized (RING_LOCK){
+            if(ring == null || writeCount == 0){
+                return Collections.emptyList();
+            }
+            int size = (int) Math.min(writeCount, ring.length);
+            List<MetricsPoint> ret = Lists.newArrayListWithCapacity(size);
+            for (long i = writeCount - size; i < writeCount; i++) {
+                MetricsPoint point = ring[(int) (i % ring.length)];
+                if(point.getTimestamp() >= since){
+                    ret.add(point);
+                }
+            }
+            return ret;
+        }
+    }
+
+    // =====================================
+
+    /**
+     * 采样
+     */
+    private static void sample(){
+        try {
+            MetricsPoint point = new MetricsPoint();
+            point.setTimestamp(System.currentTimeMillis());
+            sampleCpu(point);
+            sampleMemory(point);
+            sampleJvm(point);
+            sampleTomcat(point);
+            sampleDisk(point);
+
+            synchronized (RING_LOCK){
+                ring[(int) (writeCount % ring.length)] = point;
+                writeCount++;
+            }
+            latest = point;
+        }catch (Throwable e){
+            // 不抛出 避免周期任务终止
+            log.error("系统指标采样失败：{}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * CPU (相邻两次采样的时钟差值)
+     * @param point 采样点
+     */
+    private static void sampleCpu(MetricsPoint point){
+        CentralProcessor processor = OshiUtil.getProcessor();
+        long[] ticks = processor.getSystemCpuLoadTicks();
+        long[] prev = prevTicks != null ? prevTicks : ticks;
+        prevTicks = ticks;
+
+        long user = tickDelta(ticks, prev, CentralProcessor.TickType.USER)
+                + tickDelta(ticks, prev, CentralProcessor.TickType.NICE);
+        long sys = tickDelta(ticks, prev, CentralProcessor.TickType.SYSTEM);
+        long wait = tickDelta(ticks, prev, CentralProcessor.TickType.IOWAIT);
+        long idle = tickDelta(ticks, prev, CentralProcessor.TickType.IDLE);
+        long other = tickDelta(ticks, prev, CentralProcessor.TickType.IRQ)
+                + tickDelta(ticks, prev, CentralProcessor.TickType.SOFTIRQ)
+                + tickDelta(ticks, prev, CentralProcessor.TickType.STEAL);
+        long total = user + sys + wait + idle + other;
+
+        point.setCpuNum(processor.getLogicalProcessorCount());
+        point.setCpuTotal(total);
+        point.setCpuSys(percent(sys, total));
+        point.setCpuUser(percent(user, total));
+        point.setCpuWait(percent(wait, total));
+        point.setCpuFree(percent(idle, total));
+        point.setCpuUsage(total > 0 ? percent(total - idle, total) : 0D);
+    }
+
+    /**
+     * 内存
+     * @param point 采样点
+     */
+    private static void sampleMemory(MetricsPoint point){
+        GlobalMemory memory = OshiUtil.getMemory();
+        long total = memory.getTotal();
+        long used = total - memory.getAvailable();
+        point.setMemTotal(total);
+        point.setMemUsed(used);
+        point.setMemUsage(percent(used, total));
+    }
+
+    /**
+     * JVM 堆、GC、线程
+     * @param point 采样点
+     */
+    private static void sampleJvm(MetricsPoint point){
+        MemoryMXBean memoryMxBean = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = memoryMxBean.getHeapMemoryUsage();
+        point.setHeapUsed(heap.getUsed());
+        point.setHeapCommitted(heap.getCommitted());
+        point.setHeapMax(heap.getMax());
+        point.setNonHeapUsed(memoryMxBean.getNonHeapMemoryUsage().getUsed());
+
+        // GC 为累计值 记录采样间隔内的增量
+        long gcCount = 0;
+        long gcTime = 0;
+        for (GarbageCollectorMXBean gcMxBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(gcMxBean.getCollectionCount(), 0);
+            gcTime += Math.max(gcMxBean.getCollectionTime(), 0);
+        }
+        point.setGcCount(prevGcCount < 0 ? 0 : gcCount - prevGcCount);
+        point.setGcTime(prevGcTime < 0 ? 0 : gcTime - prevGcTime);
+        prevGcCount = gcCount;
+        prevGcTime = gcTime;
+
+        ThreadMXBean threadMxBean = ManagementFactory.getThreadMXBean();
+        point.setThreadCount(threadMxBean.getThreadCount());
+        point.setDaemonThreadCount(threadMxBean.getDaemonThreadCount());
+        point.setPeakThreadCount(threadMxBean.getPeakThreadCount());
+    }
+
+    /**
+     * Tomcat 工作线程池
+     * @param point 采样点
+     */
+    private static void sampleTomcat(MetricsPoint point){
+        ThreadPoolExecutor executor = tomcatExecutor;
+        if(executor == null){
+            point.setTomcatMaxThreads(-1);
+            point.setTomcatPoolSize(-1);
+            point.setTomcatBusyThreads(-1);
+            point.setTomcatQueueSize(-1);
+            return;
+        }
+        point.setTomcatMaxThreads(executor.getMaximumPoolSize());
+        point.setTomcatPoolSize(executor.getPoolSize());
+        point.setTomcatBusyThreads(executor.getActiveCount());
+        point.setTomcatQueueSize(executor.getQueue().size());
+    }
+
+    /**
+     * 磁盘
+     * @param point 采样点
+     */
+    private static void sampleDisk(MetricsPoint point){
+        List<OSFileStore> fileStores = OshiUtil.getOs().getFileSystem().getFileStores();
+        if(CollUtil.isEmpty(fileStores)){
+            point.setDisks(Collections.emptyList());
+            return;
+        }
+        List<DiskPoint> disks = Lists.newArrayListWithCapacity(fileStores.size());
+        for (OSFileStore fs : fileStores) {
+            long free = fs.getUsableSpace();
+            long total = fs.getTotalSpace();
+            long used = total - free;
+
+            DiskPoint disk = new DiskPoint();
+            disk.setDiskName(fs.getMount());
+            disk.setDiskType(fs.getType());
+            disk.setFileName(fs.getName());
+            disk.setTotal(total);
+            disk.setFree(free);
+            disk.setUsed(used);
+            disk.setUsage(percent(used, total));
+            disks.add(disk);
+        }
+        point.setDisks(disks);
+    }
+
+    private static long tickDelta(long[] ticks, long[] prev, CentralProcessor.TickType type){
+        return Math.max(ticks[type.getIndex()] - prev[type.getIndex()], 0);
+    }
+
+    private static double percent(long value, long total){
+        if(total <= 0){
+            return 0D;
+        }
+        return NumberUtil.round(100D * value / total, 2).doubleValue();
+    }
+
+    // =====================================
+
+    /**
+     * 采样点
+     */
+    @Data
+    public static class MetricsPoint {
+
+        /** 采样时间戳 */
+        private long timestamp;
+
+        /** CPU 核数 */
+        private int cpuNum;
+
+        /** CPU 采样间隔内总时钟 */
+        private long cpuTotal;
+
+        /** CPU 系统使用率 */
+        private double cpuSys;
+
+        /** CPU 用户使用率 */
+        private double cpuUser;
+
+        /** CPU 等待率 */
+        private double cpuWait;
+
+        /** CPU 空闲率 */
+        private double cpuFree;
+
+        /** CPU 使用率 */
+        private double cpuUsage;
+
+        /** 内存总量 (字节) */
+        private long memTotal;
+
+        /** 已用内存 (字节) */
+        private long memUsed;
+
+        /** 内存使用率 */
+        private double memUsage;
+
+        /** 堆 已使用 (字节) */
+        private long heapUsed;
+
+        /** 堆 已提交 (字节) */
+        private long heapCommitted;
+
+        /** 堆 最大 (字节) 未限制为 -1 */
+        private long heapMax;
+
+        /** 非堆 已使用 (字节) */
+        private long nonHeapUsed;
+
+        /** 采样间隔内 GC 次数 */
+        private long gcCount;
+
+        /** 采样间隔内 GC 耗时 (毫秒) */
+        private long gcTime;
+
+        /** 线程数 */
+        private int threadCount;
+
+        /** 守护线程数 */
+        private int daemonThreadCount;
+
+        /** 峰值线程数 */
+        private int peakThreadCount;
+
+        /** Tomcat 最大线程数 不可用为 -1 */
+        private int tomcatMaxThreads;
+
+        /** Tomcat 当前线程数 不可用为 -1 */
+        private int tomcatPoolSize;
+
+        /** Tomcat 繁忙线程数 不可用为 -1 */
+        private int tomcatBusyThreads;
+
+        /** Tomcat 排队请求数 不可用为 -1 */
+        private int tomcatQueueSize;
+
+        /** 磁盘 */
+        private List<DiskPoint> disks;
+
+    }
+
+    /**
+     * 磁盘采样点
+     */
+    @Data
+    public static class DiskPoint {
+
+        /** 盘符路径 */
+        private String diskName;
+
+        /** 盘符类型 */
+        private String diskType;
+
+        /** 文件系统 */
+        private String fileName;
+
+        /** 总大小 (字节) */
+        private long total;
+
+        /** 剩余大小 (字节) */
+        private long free;
+
+        /** 已经使用量 (字节) */
+        private long used;
+
+        /** 资源的使用率 */
+        private double usage;
+
+    }
+
+    // =====================================
+
+    /**
+     * Web 容器启动后 获取 Tomcat 工作线程池
+     * @param event 事件
+     */
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event){
+        if(!(event.getWebServer() instanceof TomcatWebServer)){
+            return;
+        }
+        try {
+            Executor executor = ((TomcatWebServer) event.getWebServer())
+                    .getTomcat().getConnector().getProtocolHandler().getExecutor();
+            if(executor instanceof ThreadPoolExecutor){
+                tomcatExecutor = (ThreadPoolExecutor) executor;
+            }
+        }catch (Exception e){
+            log.warn("获取 Tomcat 线程池失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 停机
+     */
+    @PreDestroy
+    public void shutdown(){
+        ScheduledExecutorService executor = SAMPLE_EXECUTOR;
+        if(executor != null){
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 初始化
+     */
+    @Autowired
+    public void init(GlobalProperties globalProperties){
+        GlobalProperties.Monitor monitor = globalProperties != null && globalProperties.getMonitor() != null
+                ? globalProperties.getMonitor() : new GlobalProperties.Monitor();
+        if(!monitor.isEnable() || SAMPLE_EXECUTOR != null){
+            return;
+        }
+
+        synchronized (RING_LOCK){
+            ring = new MetricsPoint[Math.max(monitor.getHistorySize(), 1)];
+            writeCount = 0;
+        }
+
+        long interval = Math.max(monitor.getSampleInterval(), 1000L);
+        SAMPLE_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "opsli-metrics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 先记录一次 CPU 时钟 作为首次采样的基准
+        SAMPLE_EXECUTOR.execute(() -> {
+            try {
+                prevTicks = OshiUtil.getProcessor().getSystemCpuLoadTicks();
+            }catch (Throwable e){
+                log.error("系统指标采样失败：{}", e.getMessage(), e);
+            }
+        });
+        SAMPLE_EXECUTOR.scheduleAtFixedRate(SystemMetricsUtil::sample,
+                Math.min(FIRST_SAMPLE_DELAY, interval), interval, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -20,6 +20,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.opsli.api.base.result.ResultVo;
 import org.opsli.api.web.system.tenant.TenantApi;
 import org.opsli.api.wrapper.system.tenant.TenantModel;
+import org.opsli.core.cache.guard.GuardType;
+import org.opsli.core.cache.guard.PenetrationGuard;
 import org.opsli.core.cache.local.CacheUtil;
 import org.opsli.core.msg.CoreMsg;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -74,7 +76,7 @@ public class TenantUtil {
 
         // 拿不到 --------
         // 防止缓存穿透判断
-        boolean hasNilFlag = CacheUtil.hasNilFlag(cacheKey);
+        boolean hasNilFlag = PenetrationGuard.hasNilFlag(GuardType.TENANT_ID, tenantId, cacheKey);
         if(hasNilFlag){
             return null;
         }
@@ -109,7 +111,7 @@ public class TenantUtil {
 
         if(tenantModel == null){
             // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKey);
+            PenetrationGuard.putNilFlag(GuardType.TENANT_ID, tenantId, cacheKey);
             return null;
         }
 
@@ -24,6 +24,8 @@ import cn.hutool.core.lang.tree.TreeNodeConfig;
 import cn.hutool.core.lang.tree.TreeUtil;
 import cn.hutool.core.util.ObjectUtil;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.opsli.core.cache.local.TreeIndex;
 
 import java.util.List;
 import java.util.Map;
@@ -171,6 +173,75 @@ public enum TreeBuildUtil {
         return treeNodes;
     }
 
+    /**
+     * 构建Tree (树结构索引)
+     * 节点已按 先序 同级有序 排列，直接挂接，不再分组排序；
+     * 与 TreeUtil.build 一致 最大层级的节点 下级置空
+     * @param nodes 索引子树节点
+     * @param config 配置
+     * @return List<Tree<Object>>
+     */
+    public List<Tree<Object>> buildByIndex(List<TreeIndex.Node> nodes, TreeNodeConfig config){
+        if(CollUtil.isEmpty(nodes)){
+            return ListUtil.empty();
+        }
+
+        // 默认值处理
+        final TreeNodeConfig treeConfig = ObjectUtil.defaultIfNull(config, TreeNodeConfig.DEFAULT_CONFIG);
+        List<String> excludeFields = ListUtil.list(false);
+        excludeFields.addAll(DEF_EXCLUDE_FIELDS);
+        excludeFields.add(treeConfig.getIdKey());
+        excludeFields.add(treeConfig.getParentIdKey());
+        excludeFields.add(treeConfig.getWeightKey());
+
+        final Integer deep = treeConfig.getDeep();
+        List<Tree<Object>> treeNodes = Lists.newArrayList();
+        Map<String, Tree<Object>> treeMap = Maps.newHashMapWithExpectedSize(nodes.size());
+        Map<String, Integer> depthMap = Maps.newHashMapWithExpectedSize(nodes.size());
+        for (TreeIndex.Node node : nodes) {
+            Tree<Object> tree = new Tree<>(treeConfig);
+            tree.setId(node.getId());
+            tree.setParentId(node.getParentId());
+
+            Map<String, Object> data = node.getData();
+            if(data != null){
+                // 与 Bean 构建一致 排序取节点数据
+                tree.setWeight(cast(data.get(treeConfig.getWeightKey())));
+                // 扩展属性 ...
+                for (Map.Entry<String, Object> entry : data.entrySet()) {
+                    if(excludeFields.contains(entry.getKey())){
+                        continue;
+                    }
+                    tree.putExtra(entry.getKey(), entry.getValue());
+                }
+            }else {
+                tree.setWeight(node.getWeight());
+            }
+
+            // 上级已在先序中出现 则挂到上级下，否则为顶级节点
+            int depth = 1;
+            Tree<Object> parent = treeMap.get(node.getParentId());
+            if(parent != null){
+                depth = depthMap.get(node.getParentId()) + 1;
+                List<Tree<Object>> siblings = parent.getChildren();
+                if(siblings == null){
+                    siblings = Lists.newArrayList();
+                    parent.setChildren(siblings);
+                }
+                siblings.add(tree);
+            }else {
+                treeNodes.add(tree);
+            }
+
+            // 剪枝
+            if(deep != null && depth == deep){
+                tree.setChildren(null);
+            }
+            treeMap.put(node.getId(), tree);
+            depthMap.put(node.getId(), depth);
+        }
+        return treeNodes;
+    }
 
     /**
      * 处理 树节点
@@ -0,0 +1,226 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.utils;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.lang.tree.Tree;
+import cn.hutool.core.lang.tree.TreeNodeConfig;
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.opsli.core.base.entity.HasChildren;
+import org.opsli.core.cache.local.TreeIndex;
+import org.opsli.core.cache.pushsub.msgs.TreeIndexMsgFactory;
+import org.opsli.plugins.redis.RedisPlugin;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
+
+/**
+ * 树结构索引工具类
+ *
+ * 增删改 在事务提交后更新本地索引，并通知其他服务器同步更新
+ * 查询 索引不可用时返回 null，调用方退回数据库查询
+ * 构建树 直接由索引中的子树及节点数据组装，不再查库后全量组装
+ *
+ * @author Parker
+ * @date 2021-06-09 16:40
+ */
+@Slf4j
+@Order(UTIL_ORDER)
+@Component
+@Lazy(false)
+public class TreeIndexUtil {
+
+    /** Redis 插件 */
+    private static RedisPlugin redisPlugin;
+
+    /**
+     * 是否有下级
+     * @param type 树类型
+     * @param parentIds 上级ID集合
+     * @return List 索引不可用返回 null
+     */
+    public static List<HasChildren> hasChildren(TreeIndex.Type type, Collection<String> parentIds){
+        return hasChildren(type, parentIds, (Predicate<TreeIndex.Node>) null);
+    }
+
+    /**
+     * 是否有指定标记的下级
+     * @param type 树类型
+     * @param parentIds 上级ID集合
+     * @param tag 下级标记 为空则不限
+     * @return List 索引不可用返回 null
+     */
+    public static List<HasChildren> hasChildren(TreeIndex.Type type, Collection<String> parentIds, String tag){
+        return hasChildren(type, parentIds,
+                tag == null ? null : node -> tag.equals(node.getTag()));
+    }
+
+    /**
+     * 是否有满足条件的下级
+     * @param type 树类型
+     * @param parentIds 上级ID集合
+     * @param filter 下级过滤 为空则不限
+     * @return List 索引不可用返回 null
+     */
+    public static List<HasChildren> hasChildren(TreeIndex.Type type, Collection<String> parentIds,
+                                                Predicate<TreeIndex.Node> filter){
+        Map<String, Integer> countMap = TreeIndex.of(type).countChildren(parentIds, filter);
+        if(countMap == null){
+            return null;
+        }
+
+        List<HasChildren> hasChildrenList = Lists.newArrayListWithCapacity(countMap.size());
+        for (Map.Entry<String, Integer> entry : countMap.entrySet()) {
+            HasChildren hasChildren = new HasChildren();
+            hasChildren.setParentId(entry.getKey());
+            hasChildren.setCount(entry.getValue());
+            hasChildrenList.add(hasChildren);
+        }
+        return hasChildrenList;
+    }
+
+    /**
+     * 直接下级 (有序)
+     * @param type 树类型
+     * @param parentId 上级ID
+     * @param filter 下级过滤 为空则不限
+     * @return List 索引不可用返回 null
+     */
+    public static List<TreeIndex.Node> getChildren(TreeIndex.Type type, String parentId,
+                                                   Predicate<TreeIndex.Node> filter){
+        return TreeIndex.of(type).getChildren(parentId, filter);
+    }
+
+    /**
+     * 构建树 (由索引子树组装)
+     * @param type 树类型
+     * @param parentId 上级ID
+     * @param config 配置 (最大层级 为空则不限)
+     * @param filter 节点过滤 不满足的节点连同其子树跳过 为空则不限
+     * @return List 索引不可用返回 null
+     */
+    public static List<Tree<Object>> buildTree(TreeIndex.Type type, String parentId,
+                                               TreeNodeConfig config, Predicate<TreeIndex.Node> filter){
+        Integer deep = config != null ? config.getDeep() : null;
+        List<TreeIndex.Node> nodes = TreeIndex.of(type).getSubTree(
+                parentId, deep != null ? deep : -1, filter);
+        if(nodes == null){
+            return null;
+        }
+        return TreeBuildUtil.INSTANCE.buildByIndex(nodes, config);
+    }
+
+    /**
+     * 新增 / 修改节点 (事务提交后 重新读取节点)
+     * @param type 树类型
+     * @param id 节点ID
+     */
+    public static void put(TreeIndex.Type type, String id){
+        if(id == null){
+            return;
+        }
+        put(type, Collections.singletonList(id));
+    }
+
+    /**
+     * 新增 / 修改节点 (事务提交后 重新读取节点)
+     * @param type 树类型
+     * @param ids 节点ID集合
+     */
+    public static void put(TreeIndex.Type type, Collection<String> ids){
+        if(CollUtil.isEmpty(ids)){
+            return;
+        }
+        List<String> idList = Lists.newArrayList(ids);
+        afterCommit(() -> {
+            TreeIndex.of(type).refresh(idList);
+            sendMessage(() -> redisPlugin.sendMessage(TreeIndexMsgFactory.createPutMsg(type, idList)));
+        });
+    }
+
+    /**
+     * 删除节点 及其子树 (事务提交后执行)
+     * @param type 树类型
+     * @param ids 节点ID集合
+     */
+    public static void remove(TreeIndex.Type type, Collection<String> ids){
+        if(CollUtil.isEmpty(ids)){
+            return;
+        }
+        List<String> idList = Lists.newArrayList(ids);
+        afterCommit(() -> {
+            TreeIndex.of(type).remove(idList);
+            sendMessage(() -> redisPlugin.sendMessage(TreeIndexMsgFactory.createRemoveMsg(type, idList)));
+        });
+    }
+
+    // =====================================
+
+    /**
+     * 事务提交后执行 (无事务则直接执行)
+     * @param r 任务
+     */
+    private static void afterCommit(Runnable r){
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        }else {
+            r.run();
+        }
+    }
+
+    /**
+     * 发送消息
+     * @param r 发送
+     */
+    private static void sendMessage(Runnable r){
+        if(redisPlugin == null){
+            return;
+        }
+        try {
+            r.run();
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    // =====================================
+
+    /**
+     * 初始化
+     */
+    @Autowired
+    public void init(RedisPlugin redisPlugin) {
+        TreeIndexUtil.redisPlugin = redisPlugin;
+    }
+
+}
@@ -35,7 +35,10 @@ import org.opsli.common.enums.LoginLimitRefuse;
 import org.opsli.common.exception.TokenException;
 import org.opsli.core.api.TokenThreadLocal;
 import org.opsli.core.autoconfigure.properties.GlobalProperties;
+import org.opsli.core.cache.CryptoSessionCache;
 import org.opsli.core.cache.local.CacheUtil;
+import org.opsli.core.cache.local.TicketCache;
+import org.opsli.core.cache.pushsub.msgs.TicketMsgFactory;
 import org.opsli.core.msg.CoreMsg;
 import org.opsli.core.msg.TokenMsg;
 import org.opsli.plugins.redis.RedisPlugin;
@@ -44,8 +47,15 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
@@ -78,6 +88,12 @@ public class UserTokenUtil {
     private static RedisPlugin redisPlugin;
     /** 增加初始状态开关 防止异常使用 */
     private static boolean IS_INIT;
+    /** 续命 最长合并周期 (毫秒) */
+    private static final long REVIVE_MAX_PERIOD = TimeUnit.SECONDS.toMillis(30);
+    /** 续命 待刷新用户 */
+    private static final Set<String> REVIVE_PENDING = ConcurrentHashMap.newKeySet();
+    /** 续命 刷新线程 */
+    private static ScheduledExecutorService REVIVE_EXECUTOR;
 
     /**
      * 根据 user 创建Token
@@ -110,7 +126,12 @@ public class UserTokenUtil {
                     }
                     // 如果是拒绝前者 则弹出前者
                     else {
-                        redisPlugin.sPop(CacheUtil.getPrefixName() + TICKET_PREFIX + user.getUsername());
+                        Object popToken =
+                                redisPlugin.sPop(CacheUtil.getPrefixName() + TICKET_PREFIX + user.getUsername());
+                        if(popToken != null){
+                            // 通知各服务器 清除被弹出的凭证
+                            revokeTicket(user.getUsername(), Convert.toStr(popToken));
+                        }
                     }
                 }
             }
@@ -250,6 +271,10 @@ public class UserTokenUtil {
                 // 删除Token信息
                 redisPlugin.sRemove(
                         CacheUtil.getPrefixName() + TICKET_PREFIX + user.getUsername(), token);
+                // 清除本地 Token 校验缓存
+                JwtVerifyCache.remove(token);
+                // 通知各服务器 清除本地凭证缓存
+                revokeTicket(user.getUsername(), token);
 
                 // 如果缓存中 无该用户任何Token信息 则删除用户缓存
                 Long size = redisPlugin.sSize(
@@ -291,22 +316,22 @@ public class UserTokenUtil {
             }
 
             // 2. 校验当前缓存中token是否失效
-            // 生成MD5 16进制码 用于缩减存储
-            // 删除相关信息
             String username = getUserNameByToken(token);
 
-            boolean hashKey = redisPlugin.sHashKey(
-                    CacheUtil.getPrefixName() + TICKET_PREFIX + username, token);
-            if(!hashKey){
-                return false;
+            // 本地凭证缓存 未命中时 以 Redis 为准
+            if(!TicketCache.contains(token)){
+                boolean hashKey = redisPlugin.sHashKey(
+                        CacheUtil.getPrefixName() + TICKET_PREFIX + username, token);
+                if(!hashKey){
+                    return false;
+                }
+                TicketCache.put(username, token);
             }
 
             // 3. 校验通过后 如果开启续命模式 则整体延长登录时效
+            // 不在每次请求时刷新，记录后由刷新线程定期合并处理
             if(BooleanUtil.isTrue(LOGIN_PROPERTIES.getReviveMode())){
-                // 设置该用户全部token失效时间， 如果这时又有新设备登录 则续命
-                redisPlugin.expire(
-                        CacheUtil.getPrefixName() + TICKET_PREFIX + username,
-                        JwtUtil.EXPIRE_MILLISECOND, TimeUnit.MILLISECONDS);
+                REVIVE_PENDING.add(username);
             }
 
         } catch (Exception e){
@@ -447,6 +472,65 @@ public class UserTokenUtil {
         return token;
     }
 
+    // ============================ 凭证 操作
+
+    /**
+     * 撤销凭证 并通知各服务器清除本地凭证缓存
+     * @param username 用户名
+     * @param token token
+     */
+    private static void revokeTicket(String username, String token){
+        // 清除 数字信封会话密钥
+        CryptoSessionCache.remove(token);
+
+        String digest = TicketCache.digest(token);
+        TicketCache.removeLocal(username, Collections.singletonList(digest));
+        try {
+            redisPlugin.sendMessage(
+                    TicketMsgFactory.createMsg(username, Collections.singletonList(digest))
+            );
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 续命 批量刷新用户凭证失效时间
+     */
+    private static void flushRevive(){
+        Iterator<String> iterator = REVIVE_PENDING.iterator();
+        while (iterator.hasNext()){
+            String username = iterator.next();
+            iterator.remove();
+            try {
+                // 设置该用户全部token失效时间， 如果这时又有新设备登录 则续命
+                redisPlugin.expire(
+                        CacheUtil.getPrefixName() + TICKET_PREFIX + username,
+                        JwtUtil.EXPIRE_MILLISECOND, TimeUnit.MILLISECONDS);
+            }catch (Exception e){
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 停机 刷新剩余续命用户
+     */
+    @PreDestroy
+    public void shutdown(){
+        ScheduledExecutorService executor = REVIVE_EXECUTOR;
+        if(executor == null){
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        flushRevive();
+    }
+
     /**
      * 初始化
      */
@@ -462,6 +546,30 @@ public class UserTokenUtil {
         // Redis 插件
         UserTokenUtil.redisPlugin = redisPlugin;
 
+        // Token 有效期 (JwtUtil 可能尚未初始化 直接读取配置)
+        long effectiveTime = REVIVE_MAX_PERIOD * 4;
+        if(globalProperties != null && globalProperties.getAuth() != null
+                && globalProperties.getAuth().getToken() != null
+                && globalProperties.getAuth().getToken().getEffectiveTime() != null){
+            effectiveTime = TimeUnit.MINUTES.toMillis(
+                    globalProperties.getAuth().getToken().getEffectiveTime());
+        }
+
+        // 本地凭证缓存 存活时间不超过 Token 有效期
+        TicketCache.setTtl(effectiveTime);
+
+        // 续命刷新线程 周期不超过 Token 有效期的 1/4
+        if(REVIVE_EXECUTOR == null){
+            long period = Math.max(1000L, Math.min(REVIVE_MAX_PERIOD, effectiveTime / 4));
+            REVIVE_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "opsli-ticket-revive");
+                thread.setDaemon(true);
+                return thread;
+            });
+            REVIVE_EXECUTOR.scheduleWithFixedDelay(UserTokenUtil::flushRevive,
+                    period, period, TimeUnit.MILLISECONDS);
+        }
+
         IS_INIT = true;
     }
 
@@ -18,6 +18,7 @@ package org.opsli.core.utils;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.convert.Convert;
+import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.crypto.hash.Md5Hash;
@@ -33,14 +34,20 @@ import org.opsli.api.wrapper.system.user.UserOrgRefWebModel;
 import org.opsli.common.exception.TokenException;
 import org.opsli.core.api.TokenThreadLocal;
 import org.opsli.core.autoconfigure.properties.GlobalProperties;
+import org.opsli.core.cache.SingleFlight;
+import org.opsli.core.cache.guard.GuardType;
+import org.opsli.core.cache.guard.PenetrationGuard;
 import org.opsli.core.cache.local.CacheUtil;
+import org.opsli.core.cache.local.DataScopeCache;
 import org.opsli.core.msg.CoreMsg;
 import org.opsli.core.msg.TokenMsg;
+import org.opsli.core.security.shiro.cache.AuthorizationCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.List;
 
 import static org.opsli.common.constants.OrderConstants.UTIL_ORDER;
@@ -187,47 +194,55 @@ public class UserUtil {
 
         // 拿不到 --------
         // 防止缓存穿透判断
-        boolean hasNilFlag = CacheUtil.hasNilFlag(cacheKey);
+        boolean hasNilFlag = PenetrationGuard.hasNilFlag(GuardType.USER_ID, userId, cacheKey);
         if(hasNilFlag){
             return null;
         }
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKey)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return null;
-            }
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        userModel = SingleFlight.execute(cacheKey, () -> {
+            UserModel model = null;
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKey)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return null;
+                }
 
-            // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
-            userModel = CacheUtil.getTimed(UserModel.class, cacheKey);
-            if (userModel != null){
-                return userModel;
-            }
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                model = CacheUtil.getTimed(UserModel.class, cacheKey);
+                if (model != null){
+                    return model;
+                }
 
-            // 查询数据库
-            UserModel userModelTemp = new UserModel();
-            userModelTemp.setId(userId);
-            // 设置为系统内部调用 否则 会拿到 空值
-            userModelTemp.setIzApi(true);
-            ResultVo<UserModel> resultVo = userApi.get(userModelTemp);
-            if(resultVo.isSuccess()){
-                userModel = resultVo.getData();
-                // 存入缓存
-                CacheUtil.put(cacheKey, userModel);
+                // 查询数据库
+                UserModel userModelTemp = new UserModel();
+                userModelTemp.setId(userId);
+                // 设置为系统内部调用 否则 会拿到 空值
+                userModelTemp.setIzApi(true);
+                ResultVo<UserModel> resultVo = userApi.get(userModelTemp);
+                if(resultVo.isSuccess()){
+                    model = resultVo.getData();
+                    // 存入缓存
+                    CacheUtil.put(cacheKey, model);
+                }
+
+            }catch (Exception e){
+                log.error(e.getMessage(), e);
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKey);
             }
 
-        }catch (Exception e){
-            log.error(e.getMessage(), e);
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKey);
-        }
+            if(model == null){
+                // 设置空变量 用于防止穿透判断
+                PenetrationGuard.putNilFlag(GuardType.USER_ID, userId, cacheKey);
+            }
+            return model;
+        });
 
         if(userModel == null){
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKey);
             return null;
         }
 
@@ -265,42 +280,50 @@ public class UserUtil {
 
         // 拿不到 --------
         // 防止缓存穿透判断
-        boolean hasNilFlag = CacheUtil.hasNilFlag(cacheKey);
+        boolean hasNilFlag = PenetrationGuard.hasNilFlag(GuardType.USERNAME, userName, cacheKey);
         if(hasNilFlag){
             return null;
         }
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKey)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return null;
-            }
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        userModel = SingleFlight.execute(cacheKey, () -> {
+            UserModel model = null;
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKey)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return null;
+                }
+
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                model = CacheUtil.getTimed(UserModel.class, cacheKey);
+                if (model != null) {
+                    return model;
+                }
 
-            // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
-            userModel = CacheUtil.getTimed(UserModel.class, cacheKey);
-            if (userModel != null) {
-                return userModel;
+                // 查询数据库
+                ResultVo<UserModel> resultVo = userApi.getUserByUsername(userName);
+                if (resultVo.isSuccess()) {
+                    model = resultVo.getData();
+                    // 存入缓存
+                    CacheUtil.put(cacheKey, model);
+                }
+            }catch (Exception e){
+                log.error(e.getMessage(), e);
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKey);
             }
 
-            // 查询数据库
-            ResultVo<UserModel> resultVo = userApi.getUserByUsername(userName);
-            if (resultVo.isSuccess()) {
-                userModel = resultVo.getData();
-                // 存入缓存
-                CacheUtil.put(cacheKey, userModel);
+            if(model == null){
+                // 设置空变量 用于防止穿透判断
+                PenetrationGuard.putNilFlag(GuardType.USERNAME, userName, cacheKey);
             }
-        }catch (Exception e){
-            log.error(e.getMessage(), e);
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKey);
-        }
+            return model;
+        });
 
         if(userModel == null){
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKey);
             return null;
         }
 
@@ -343,38 +366,48 @@ public class UserUtil {
             return ListUtil.empty();
         }
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKey)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return ListUtil.empty();
-            }
+        // 实际查询用户ID
+        final String realUserId = userId;
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        roles = SingleFlight.execute(cacheKey, () -> {
+            List<String> list = null;
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKey)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return ListUtil.empty();
+                }
+
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                Object cacheObj = CacheUtil.getTimed(cacheKey);
+                list = Convert.toList(String.class, cacheObj);
+                if(CollUtil.isNotEmpty(list)){
+                    return list;
+                }
 
-            // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
-            obj = CacheUtil.getTimed(cacheKey);
-            roles = Convert.toList(String.class, obj);
-            if(CollUtil.isNotEmpty(roles)){
-                return roles;
+                // 查询数据库
+                ResultVo<List<String>> resultVo = userRoleRefApi.getRolesByUserId(realUserId);
+                if(resultVo.isSuccess()){
+                    list = resultVo.getData();
+                    // 存入缓存
+                    CacheUtil.put(cacheKey, list);
+                }
+            }catch (Exception e){
+                log.error(e.getMessage(), e);
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKey);
             }
 
-            // 查询数据库
-            ResultVo<List<String>> resultVo = userRoleRefApi.getRolesByUserId(userId);
-            if(resultVo.isSuccess()){
-                roles = resultVo.getData();
-                // 存入缓存
-                CacheUtil.put(cacheKey, roles);
+            if(CollUtil.isEmpty(list)){
+                // 设置空变量 用于防止穿透判断
+                CacheUtil.putNilFlag(cacheKey);
             }
-        }catch (Exception e){
-            log.error(e.getMessage(), e);
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKey);
-        }
+            return list;
+        });
 
         if(CollUtil.isEmpty(roles)){
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKey);
             return ListUtil.empty();
         }
 
@@ -418,38 +451,48 @@ public class UserUtil {
             return ListUtil.empty();
         }
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKey)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return ListUtil.empty();
-            }
+        // 实际查询用户ID
+        final String realUserId = userId;
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        permissions = SingleFlight.execute(cacheKey, () -> {
+            List<String> list = null;
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKey)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return ListUtil.empty();
+                }
+
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                Object cacheObj = CacheUtil.getTimed(cacheKey);
+                list = Convert.toList(String.class, cacheObj);
+                if(CollUtil.isNotEmpty(list)){
+                    return list;
+                }
 
-            // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
-            obj = CacheUtil.getTimed(cacheKey);
-            permissions = Convert.toList(String.class, obj);
-            if(CollUtil.isNotEmpty(permissions)){
-                return permissions;
+                // 查询数据库
+                ResultVo<List<String>> resultVo = userRoleRefApi.getAllPerms(realUserId);
+                if(resultVo.isSuccess()){
+                    list = resultVo.getData();
+                    // 存入缓存
+                    CacheUtil.put(cacheKey, list);
+                }
+            }catch (Exception e){
+                log.error(e.getMessage(), e);
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKey);
             }
 
-            // 查询数据库
-            ResultVo<List<String>> resultVo = userRoleRefApi.getAllPerms(userId);
-            if(resultVo.isSuccess()){
-                permissions = resultVo.getData();
-                // 存入缓存
-                CacheUtil.put(cacheKey, permissions);
+            if(CollUtil.isEmpty(list)){
+                // 设置空变量 用于防止穿透判断
+                CacheUtil.putNilFlag(cacheKey);
             }
-        }catch (Exception e){
-            log.error(e.getMessage(), e);
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKey);
-        }
+            return list;
+        });
 
         if(CollUtil.isEmpty(permissions)){
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKey);
             return ListUtil.empty();
         }
 
@@ -493,38 +536,48 @@ public class UserUtil {
         }
 
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKey)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return ListUtil.empty();
-            }
+        // 实际查询用户ID
+        final String realUserId = userId;
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        orgList = SingleFlight.execute(cacheKey, () -> {
+            List<UserOrgRefModel> list = null;
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKey)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return ListUtil.empty();
+                }
+
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                Object cacheObj = CacheUtil.getTimed(cacheKey);
+                list = Convert.toList(UserOrgRefModel.class, cacheObj);
+                if(CollUtil.isNotEmpty(list)){
+                    return list;
+                }
 
-            // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
-            obj = CacheUtil.getTimed(cacheKey);
-            orgList = Convert.toList(UserOrgRefModel.class, obj);
-            if(CollUtil.isNotEmpty(orgList)){
-                return orgList;
+                // 查询数据库
+                ResultVo<List<UserOrgRefModel>> resultVo = userOrgRefApi.findListByUserId(realUserId);
+                if(resultVo.isSuccess()){
+                    list = resultVo.getData();
+                    // 存入缓存
+                    CacheUtil.put(cacheKey, list);
+                }
+            }catch (Exception e){
+                log.error(e.getMessage(), e);
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKey);
             }
 
-            // 查询数据库
-            ResultVo<List<UserOrgRefModel>> resultVo = userOrgRefApi.findListByUserId(userId);
-            if(resultVo.isSuccess()){
-                orgList = resultVo.getData();
-                // 存入缓存
-                CacheUtil.put(cacheKey, orgList);
+            if(CollUtil.isEmpty(list)){
+                // 设置空变量 用于防止穿透判断
+                CacheUtil.putNilFlag(cacheKey);
             }
-        }catch (Exception e){
-            log.error(e.getMessage(), e);
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKey);
-        }
+            return list;
+        });
 
         if(CollUtil.isEmpty(orgList)){
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKey);
             return ListUtil.empty();
         }
 
@@ -581,38 +634,48 @@ public class UserUtil {
         }
 
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKey)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return ListUtil.empty();
-            }
+        // 实际查询用户ID
+        final String realUserId = userId;
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        menus = SingleFlight.execute(cacheKey, () -> {
+            List<MenuModel> list = null;
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKey)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return ListUtil.empty();
+                }
+
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                Object cacheObj = CacheUtil.getTimed(cacheKey);
+                list = Convert.toList(MenuModel.class, cacheObj);
+                if(CollUtil.isNotEmpty(list)){
+                    return list;
+                }
 
-            // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
-            obj = CacheUtil.getTimed(cacheKey);
-            menus = Convert.toList(MenuModel.class, obj);
-            if(CollUtil.isNotEmpty(menus)){
-                return menus;
+                // 查询数据库
+                ResultVo<List<MenuModel>> resultVo = userRoleRefApi.getMenuListByUserId(realUserId);
+                if(resultVo.isSuccess()){
+                    list = resultVo.getData();
+                    // 存入缓存
+                    CacheUtil.put(cacheKey, list);
+                }
+            }catch (Exception e){
+                log.error(e.getMessage(), e);
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKey);
             }
 
-            // 查询数据库
-            ResultVo<List<MenuModel>> resultVo = userRoleRefApi.getMenuListByUserId(userId);
-            if(resultVo.isSuccess()){
-                menus = resultVo.getData();
-                // 存入缓存
-                CacheUtil.put(cacheKey, menus);
+            if(CollUtil.isEmpty(list)){
+                // 设置空变量 用于防止穿透判断
+                CacheUtil.putNilFlag(cacheKey);
             }
-        }catch (Exception e){
-            log.error(e.getMessage(), e);
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKey);
-        }
+            return list;
+        });
 
         if(CollUtil.isEmpty(menus)){
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKey);
             return ListUtil.empty();
         }
 
@@ -653,37 +716,47 @@ public class UserUtil {
             return null;
         }
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKey)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return null;
-            }
+        // 实际查询用户ID
+        final String realUserId = userId;
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        roleModel = SingleFlight.execute(cacheKey, () -> {
+            RoleModel model = null;
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKey)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return null;
+                }
 
-            // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
-            roleModel = CacheUtil.getTimed(RoleModel.class, cacheKey);
-            if (roleModel != null){
-                return roleModel;
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                model = CacheUtil.getTimed(RoleModel.class, cacheKey);
+                if (model != null){
+                    return model;
+                }
+
+                // 查询数据库
+                ResultVo<RoleModel> resultVo = userRoleRefApi.getDefRoleByUserId(realUserId);
+                if(resultVo.isSuccess()){
+                    model = resultVo.getData();
+                    // 存入缓存
+                    CacheUtil.put(cacheKey, model);
+                }
+            }catch (Exception e){
+                log.error(e.getMessage(),e);
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKey);
             }
 
-            // 查询数据库
-            ResultVo<RoleModel> resultVo = userRoleRefApi.getDefRoleByUserId(userId);
-            if(resultVo.isSuccess()){
-                roleModel = resultVo.getData();
-                // 存入缓存
-                CacheUtil.put(cacheKey, roleModel);
+            if(model == null){
+                // 设置空变量 用于防止穿透判断
+                CacheUtil.putNilFlag(cacheKey);
             }
-        }catch (Exception e){
-            log.error(e.getMessage(),e);
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKey);
-        }
+            return model;
+        });
 
         if(roleModel == null){
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKey);
             return null;
         }
 
@@ -725,37 +798,47 @@ public class UserUtil {
             return null;
         }
 
-        try {
-            // 分布式加锁
-            if(!DistributedLockUtil.lock(cacheKey)){
-                // 无法申领分布式锁
-                log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
-                return null;
-            }
+        // 实际查询用户ID
+        final String realUserId = userId;
+        // 单飞加载 本节点内相同Key的并发请求合并为一次, 只有领航者申领分布式锁
+        orgModel = SingleFlight.execute(cacheKey, () -> {
+            UserOrgRefModel model = null;
+            try {
+                // 分布式加锁
+                if(!DistributedLockUtil.lock(cacheKey)){
+                    // 无法申领分布式锁
+                    log.error(CoreMsg.REDIS_EXCEPTION_LOCK.getMessage());
+                    return null;
+                }
+
+                // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
+                model = CacheUtil.getTimed(UserOrgRefModel.class, cacheKey);
+                if (model != null){
+                    return model;
+                }
 
-            // 如果获得锁 则 再次检查缓存里有没有， 如果有则直接退出， 没有的话才发起数据库请求
-            orgModel = CacheUtil.getTimed(UserOrgRefModel.class, cacheKey);
-            if (orgModel != null){
-                return orgModel;
+                // 查询数据库
+                ResultVo<UserOrgRefModel> resultVo = userOrgRefApi.getDefOrgByUserId(realUserId);
+                if(resultVo.isSuccess()){
+                    model = resultVo.getData();
+                    // 存入缓存
+                    CacheUtil.put(cacheKey, model);
+                }
+            }catch (Exception e){
+                log.error(e.getMessage(),e);
+            }finally {
+                // 释放锁
+                DistributedLockUtil.unlock(cacheKey);
             }
 
-            // 查询数据库
-            ResultVo<UserOrgRefModel> resultVo = userOrgRefApi.getDefOrgByUserId(userId);
-            if(resultVo.isSuccess()){
-                orgModel = resultVo.getData();
-                // 存入缓存
-                CacheUtil.put(cacheKey, orgModel);
+            if(model == null){
+                // 设置空变量 用于防止穿透判断
+                CacheUtil.putNilFlag(cacheKey);
             }
-        }catch (Exception e){
-            log.error(e.getMessage(),e);
-        }finally {
-            // 释放锁
-            DistributedLockUtil.unlock(cacheKey);
-        }
+            return model;
+        });
 
         if(orgModel == null){
-            // 设置空变量 用于防止穿透判断
-            CacheUtil.putNilFlag(cacheKey);
             return null;
         }
 
@@ -911,6 +994,9 @@ public class UserUtil {
             }
         }
 
+        // 清除授权信息 (角色缓存删除后 防止并发加载读到旧角色)
+        AuthorizationCache.remove(userId);
+
         return count == 0;
     }
 
@@ -928,6 +1014,9 @@ public class UserUtil {
             return true;
         }
 
+        // 清除数据范围
+        DataScopeCache.remove(userId);
+
         // 计数器
         int count = 0;
 
@@ -968,7 +1057,6 @@ public class UserUtil {
         ThrowExceptionUtil.isThrowException(!IS_INIT,
                 CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
 
-
         Object obj = CacheUtil.getTimed(PREFIX_ID_PERMISSIONS + userId);
         boolean hasNilFlag = CacheUtil.hasNilFlag(PREFIX_ID_PERMISSIONS + userId);
 
@@ -994,6 +1082,8 @@ public class UserUtil {
             }
         }
 
+        // 清除授权信息 (权限缓存删除后 防止并发加载读到旧权限)
+        AuthorizationCache.remove(userId);
 
         return count == 0;
     }
@@ -1012,6 +1102,9 @@ public class UserUtil {
             return true;
         }
 
+        // 清除数据范围
+        DataScopeCache.remove(userId);
+
         // 计数器
         int count = 0;
 
@@ -1121,6 +1214,134 @@ public class UserUtil {
         return count == 0;
     }
 
+    // ============== 批量刷新缓存 ==============
+
+    /**
+     * 批量刷新用户 - 删就完了
+     * @param users 用户集合
+     * @return boolean
+     */
+    public static boolean refreshUsers(Collection<UserModel> users){
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        if(CollUtil.isEmpty(users)){
+            return true;
+        }
+
+        List<String> keys = Lists.newArrayListWithCapacity(users.size() * 2);
+        for (UserModel user : users) {
+            if(user == null || StringUtils.isEmpty(user.getId())){
+                continue;
+            }
+            keys.add(PREFIX_ID + user.getId());
+            keys.add(PREFIX_USERNAME + user.getUsername());
+        }
+
+        return CacheUtil.delMulti(keys, true);
+    }
+
+    /**
+     * 批量刷新用户角色 - 删就完了
+     * @param userIds 用户ID集合
+     * @return boolean
+     */
+    public static boolean refreshUserRoles(Collection<String> userIds){
+        return refreshUserCache(userIds, PREFIX_ID_ROLES);
+    }
+
+    /**
+     * 批量刷新用户默认角色 - 删就完了
+     * @param userIds 用户ID集合
+     * @return boolean
+     */
+    public static boolean refreshUserDefRole(Collection<String> userIds){
+        return refreshUserCache(userIds, PREFIX_ID_DEF_ROLE);
+    }
+
+    /**
+     * 批量刷新用户权限 - 删就完了
+     * @param userIds 用户ID集合
+     * @return boolean
+     */
+    public static boolean refreshUserAllPerms(Collection<String> userIds){
+        return refreshUserCache(userIds, PREFIX_ID_PERMISSIONS);
+    }
+
+    /**
+     * 批量刷新用户组织 - 删就完了
+     * @param userIds 用户ID集合
+     * @return boolean
+     */
+    public static boolean refreshUserOrgs(Collection<String> userIds){
+        return refreshUserCache(userIds, PREFIX_ID_ORGS);
+    }
+
+    /**
+     * 批量刷新用户默认组织 - 删就完了
+     * @param userIds 用户ID集合
+     * @return boolean
+     */
+    public static boolean refreshUserDefOrg(Collection<String> userIds){
+        return refreshUserCache(userIds, PREFIX_ID_DEF_ORG);
+    }
+
+    /**
+     * 批量刷新用户菜单 - 删就完了
+     * @param userIds 用户ID集合
+     * @return boolean
+     */
+    public static boolean refreshUserMenus(Collection<String> userIds){
+        return refreshUserCache(userIds, PREFIX_ID_MENUS);
+    }
+
+    /**
+     * 批量刷新用户缓存 - 删就完了
+     * 多个前缀合并为一次删除 例：refreshUserCache(userIds, PREFIX_ID_ROLES, PREFIX_ID_MENUS)
+     * @param userIds 用户ID集合
+     * @param prefixes 缓存前缀
+     * @return boolean
+     */
+    public static boolean refreshUserCache(Collection<String> userIds, String... prefixes){
+        // 判断 工具类是否初始化完成
+        ThrowExceptionUtil.isThrowException(!IS_INIT,
+                CoreMsg.OTHER_EXCEPTION_UTILS_INIT);
+
+        if(CollUtil.isEmpty(userIds) || prefixes == null || prefixes.length == 0){
+            return true;
+        }
+
+        // 清除数据范围
+        for (String prefix : prefixes) {
+            if(DataScopeCache.isScopePrefix(prefix)){
+                DataScopeCache.remove(userIds);
+                break;
+            }
+        }
+
+        List<String> keys = Lists.newArrayListWithCapacity(userIds.size() * prefixes.length);
+        for (String userId : userIds) {
+            if(StringUtils.isEmpty(userId)){
+                continue;
+            }
+            for (String prefix : prefixes) {
+                keys.add(prefix + userId);
+            }
+        }
+
+        boolean ret = CacheUtil.delMulti(keys, true);
+
+        // 清除授权信息 (角色 / 权限缓存删除后 防止并发加载读到旧数据)
+        for (String prefix : prefixes) {
+            if(PREFIX_ID_ROLES.equals(prefix) || PREFIX_ID_PERMISSIONS.equals(prefix)){
+                AuthorizationCache.remove(userIds);
+                break;
+            }
+        }
+        return ret;
+    }
+
     /**
      * 获得 租户ID
      * @return String
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.core.utils.excel;
+
+/**
+ * Excel 分批导出 进度监听
+ *
+ * @author Parker
+ * @date 2021-06-05 15:10
+ */
+@FunctionalInterface
+public interface ExcelExportListener {
+
+    /**
+     * 每写完一批回调
+     * @param exportedCount 已写入行数
+     * @return boolean 返回 false 则取消导出
+     */
+    boolean onProgress(long exportedCount);
+
+}
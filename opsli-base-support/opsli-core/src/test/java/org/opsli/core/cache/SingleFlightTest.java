@@ -0,0 +1,139 @@
+package org.opsli.core.cache;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单飞加载器测试
+ *
+ * @author Parker
+ * @date 2021-06-02 16:40
+ */
+public class SingleFlightTest {
+
+    /** 并发线程数 */
+    private static final int THREAD_COUNT = 500;
+
+    /**
+     * 500 线程同时加载同一 Key 只执行一次加载，且每个线程拿到独立的对象
+     */
+    @Test
+    public void concurrentLoad() throws Exception {
+        String key = "test:concurrent";
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<List<String>> results = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                        List<String> list = SingleFlight.execute(key, () -> {
+                            loadCount.incrementAndGet();
+                            try {
+                                // 由测试线程 在其余线程全部进入等待后放行
+                                Assert.assertTrue(loading.await(30, TimeUnit.SECONDS));
+                            }catch (InterruptedException e){
+                                Thread.currentThread().interrupt();
+                            }
+                            return Lists.newArrayList("a", "b", "c");
+                        });
+                        // 修改结果 不能影响其他线程
+                        list.removeIf("a"::equals);
+                        results.add(list);
+                    }catch (Throwable e){
+                        errors.add(e);
+                    }
+                });
+            }
+            start.countDown();
+
+            // 其余线程全部在等待领航者结果后 再放行加载
+            awaitWaiting(key, THREAD_COUNT - 1);
+            loading.countDown();
+
+            pool.shutdown();
+            Assert.assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        }finally {
+            loading.countDown();
+            pool.shutdownNow();
+        }
+
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        Assert.assertEquals(THREAD_COUNT, results.size());
+        Assert.assertEquals(1, loadCount.get());
+        for (List<String> result : results) {
+            Assert.assertEquals(Lists.newArrayList("b", "c"), result);
+        }
+        Assert.assertEquals(0, SingleFlight.getInFlightCount());
+    }
+
+    /**
+     * 同一线程重入相同 Key 不会阻塞
+     */
+    @Test
+    public void reentrant() {
+        long begin = System.currentTimeMillis();
+        String ret = SingleFlight.execute("test:reentrant", () ->
+                SingleFlight.execute("test:reentrant", () -> "inner") + "-outer");
+        Assert.assertEquals("inner-outer", ret);
+        Assert.assertTrue(System.currentTimeMillis() - begin < 1000);
+    }
+
+    /**
+     * 结果无法生成快照时 跟随者直接加载 不共享对象
+     */
+    @Test
+    public void notSerializable() throws Exception {
+        CountDownLatch leaderIn = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.execute(() -> SingleFlight.execute("test:notSerializable", () -> {
+                leaderIn.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+                return new Object();
+            }));
+            Assert.assertTrue(leaderIn.await(5, TimeUnit.SECONDS));
+
+            Object follower = new Object();
+            new Thread(release::countDown).start();
+            Object ret = SingleFlight.execute("test:notSerializable", () -> follower);
+            Assert.assertSame(follower, ret);
+        }finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 等待跟随者全部进入等待
+     * @param key 键
+     * @param count 跟随者数量
+     */
+    private static void awaitWaiting(String key, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (SingleFlight.getWaitingCount(key) < count){
+            Assert.assertTrue("等待跟随者超时: " + SingleFlight.getWaitingCount(key),
+                    System.nanoTime() < deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.opsli.core.cache.local;
+
+import com.alibaba.fastjson.JSONObject;
+import lombok.Data;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 近端缓存测试
+ *
+ * 命中时直接返回已转换好的对象引用 不再解析 / 转换，容量超出时淘汰
+ *
+ * @author Parker
+ * @date 2021-06-10 17:00
+ */
+public class NearCacheTest {
+
+    /** 读取次数 */
+    private static final int READ_COUNT = 200_000;
+    /** 轮数 (首轮预热) */
+    private static final int ROUNDS = 3;
+
+    /**
+     * 命中 返回同一个类型转换结果
+     */
+    @Test
+    public void typedHit() {
+        NearCache nearCache = new NearCache(16, 60, 0);
+        JSONObject data = createData();
+        TestModel model = data.toJavaObject(TestModel.class);
+        nearCache.put("key", data, TestModel.class, model);
+
+        Assert.assertSame(model, nearCache.get("key", TestModel.class));
+        Assert.assertSame(data, nearCache.get("key"));
+
+        // 其他类型 首次转换后同样保存
+        TestView view = nearCache.get("key", TestView.class);
+        Assert.assertEquals("name", view.getName());
+        Assert.assertSame(view, nearCache.get("key", TestView.class));
+
+        nearCache.remove("key");
+        Assert.assertNull(nearCache.get("key", TestModel.class));
+        Assert.assertEquals(4, nearCache.getStats().getHitCount());
+    }
+
+    /**
+     * 超出容量 淘汰到保留比例
+     */
+    @Test
+    public void evict() {
+        NearCache nearCache = new NearCache(100, 60, 0.2);
+        for (int i = 0; i < 1000; i++) {
+            nearCache.put("key" + i, i);
+        }
+        NearCache.Stats stats = nearCache.getStats();
+        Assert.assertTrue(stats.getSize() <= 100);
+        Assert.assertTrue(stats.getEvictionCount() > 0);
+    }
+
+    /**
+     * 命中读取 对比 每次从 Json 字符串转换
+     */
+    @Test
+    public void readCost() {
+        NearCache nearCache = new NearCache(16, 60, 0);
+        JSONObject data = createData();
+        nearCache.put("key", data, TestModel.class, data.toJavaObject(TestModel.class));
+        String json = data.toJSONString();
+
+        long nearCost = 0;
+        long jsonCost = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < READ_COUNT; i++) {
+                Assert.assertNotNull(nearCache.get("key", TestModel.class));
+            }
+            nearCost = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            for (int i = 0; i < READ_COUNT; i++) {
+                Assert.assertNotNull(JSONObject.parseObject(json).toJavaObject(TestModel.class));
+            }
+            jsonCost = System.nanoTime() - begin;
+        }
+
+        System.out.println("读取次数: " + READ_COUNT);
+        System.out.println("近端缓存 耗时: " + TimeUnit.NANOSECONDS.toMillis(nearCost) + "ms");
+        System.out.println("Json 转换 耗时: " + TimeUnit.NANOSECONDS.toMillis(jsonCost) + "ms");
+    }
+
+    /**
+     * 远端缓存数据
+     * @return JSONObject
+     */
+    private static JSONObject createData() {
+        JSONObject data = new JSONObject();
+        data.put("id", "1");
+        data.put("name", "name");
+        data.put("enable", "1");
+        return data;
+    }
+
+    @Data
+    public static class TestModel {
+        private String id;
+        private String name;
+        private String enable;
+    }
+
+    @Data
+    public static class TestView {
+        private String name;
+    }
+
+}
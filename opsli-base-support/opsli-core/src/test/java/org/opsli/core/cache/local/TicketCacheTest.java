@@ -0,0 +1,222 @@
+package org.opsli.core.cache.local;
+
+import cn.hutool.core.codec.Base64;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opsli.common.constants.TokenTypeConstants;
+import org.opsli.core.autoconfigure.properties.GlobalProperties;
+import org.opsli.core.cache.pushsub.enums.MsgArgsType;
+import org.opsli.core.cache.pushsub.handler.TicketHandler;
+import org.opsli.core.utils.JwtUtil;
+import org.opsli.core.utils.UserTokenUtil;
+import org.opsli.plugins.redis.RedisPlugin;
+import org.opsli.plugins.redis.jsonserializer.FastJson2JsonRedisSerializer;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 凭证缓存测试 (内嵌 Redis，无法启动时跳过)
+ *
+ * 本地凭证缓存命中时不访问 Redis，收到撤销通知后 以 Redis 为准
+ *
+ * @author Parker
+ * @date 2021-06-09 20:10
+ */
+public class TicketCacheTest {
+
+    /** 缓存前缀 */
+    private static final String PREFIX = "opsli-test:";
+    /** 凭证前缀 */
+    private static final String TICKET_PREFIX = "ticket:";
+    /** 校验次数 */
+    private static final int VERIFY_COUNT = 20_000;
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory factory;
+    private static RedisPlugin redisPlugin;
+
+    @BeforeClass
+    public static void startRedis() {
+        try {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            server = new RedisServer(port);
+            server.start();
+
+            factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+            factory.afterPropertiesSet();
+
+            // 与 RedisPluginConfig 保持一致的序列化方式
+            FastJson2JsonRedisSerializer<Object> serializer = new FastJson2JsonRedisSerializer<>(Object.class);
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(factory);
+            template.setKeySerializer(RedisSerializer.string());
+            template.setHashKeySerializer(RedisSerializer.string());
+            template.setValueSerializer(serializer);
+            template.setHashValueSerializer(serializer);
+            template.afterPropertiesSet();
+
+            redisPlugin = new RedisPlugin();
+            ReflectionTestUtils.setField(redisPlugin, "redisTemplate", template);
+        } catch (Exception e) {
+            stopRedis();
+            return;
+        }
+
+        GlobalProperties.Auth.Token token = new GlobalProperties.Auth.Token();
+        token.setSecret(Base64.encode("opsli-test-secret"));
+        token.setEffectiveTime(120);
+        GlobalProperties.Auth.Login login = new GlobalProperties.Auth.Login();
+        login.setReviveMode(false);
+        login.setLimitCount(-1);
+        GlobalProperties.Auth auth = new GlobalProperties.Auth();
+        auth.setToken(token);
+        auth.setLogin(login);
+        GlobalProperties globalProperties = new GlobalProperties();
+        globalProperties.setAuth(auth);
+
+        ReflectionTestUtils.setField(CacheUtil.class, "PREFIX_NAME", PREFIX);
+        ReflectionTestUtils.setField(CacheUtil.class, "IS_INIT", true);
+        new JwtUtil().init(globalProperties);
+        new UserTokenUtil().init(globalProperties, redisPlugin);
+    }
+
+    @AfterClass
+    public static void stopRedis() {
+        if (factory != null) {
+            factory.destroy();
+            factory = null;
+        }
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+        redisPlugin = null;
+    }
+
+    @Before
+    public void setUp() {
+        Assume.assumeNotNull(redisPlugin);
+    }
+
+    /**
+     * 命中本地缓存后 Redis 中凭证被移除，收到撤销通知前仍有效，收到后失效
+     */
+    @Test
+    public void revokeByDigest() {
+        String username = "ticket-digest";
+        String token = this.login(username);
+
+        Assert.assertTrue(UserTokenUtil.verify(token));
+        Assert.assertTrue(TicketCache.contains(token));
+
+        // 其他服务器 退出登录
+        redisPlugin.sRemove(PREFIX + TICKET_PREFIX + username, token);
+        Assert.assertTrue(UserTokenUtil.verify(token));
+
+        this.revoke(username, Collections.singletonList(TicketCache.digest(token)));
+        Assert.assertFalse(TicketCache.contains(token));
+        Assert.assertFalse(UserTokenUtil.verify(token));
+    }
+
+    /**
+     * 按用户名撤销 清除该用户全部凭证
+     */
+    @Test
+    public void revokeByUsername() {
+        String username = "ticket-username";
+        String token1 = this.login(username);
+        String token2 = this.login(username);
+        String other = this.login("ticket-other");
+
+        Assert.assertTrue(UserTokenUtil.verify(token1));
+        Assert.assertTrue(UserTokenUtil.verify(token2));
+        Assert.assertTrue(UserTokenUtil.verify(other));
+
+        redisPlugin.del(PREFIX + TICKET_PREFIX + username);
+        this.revoke(username, null);
+
+        Assert.assertFalse(UserTokenUtil.verify(token1));
+        Assert.assertFalse(UserTokenUtil.verify(token2));
+        Assert.assertTrue(TicketCache.contains(other));
+    }
+
+    /**
+     * 未经过本地缓存的凭证 以 Redis 为准
+     */
+    @Test
+    public void missFallsBackToRedis() {
+        String token = JwtUtil.sign(TokenTypeConstants.TYPE_SYSTEM, "ticket-miss", "1", "0", true);
+        Assert.assertFalse(UserTokenUtil.verify(token));
+        Assert.assertFalse(TicketCache.contains(token));
+    }
+
+    /**
+     * 凭证校验 本地缓存 对比 每次访问 Redis
+     */
+    @Test
+    public void verifyCost() {
+        String username = "ticket-bench";
+        String token = this.login(username);
+        String key = PREFIX + TICKET_PREFIX + username;
+        Assert.assertTrue(UserTokenUtil.verify(token));
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < VERIFY_COUNT; i++) {
+            Assert.assertTrue(TicketCache.contains(token));
+        }
+        long localCost = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < VERIFY_COUNT; i++) {
+            Assert.assertTrue(redisPlugin.sHashKey(key, token));
+        }
+        long redisCost = System.nanoTime() - begin;
+
+        System.out.println("校验次数: " + VERIFY_COUNT);
+        System.out.println("本地凭证缓存 耗时: " + TimeUnit.NANOSECONDS.toMillis(localCost) + "ms");
+        System.out.println("Redis 凭证集合 耗时: " + TimeUnit.NANOSECONDS.toMillis(redisCost) + "ms");
+    }
+
+    /**
+     * 登录 (写入 Redis 凭证集合)
+     * @param username 用户名
+     * @return token
+     */
+    private String login(String username) {
+        // 用户ID 加入序号 保证同一毫秒内生成的 Token 不同
+        String token = JwtUtil.sign(TokenTypeConstants.TYPE_SYSTEM, username,
+                username + "-" + System.nanoTime(), "0", true);
+        redisPlugin.sPut(PREFIX + TICKET_PREFIX + username, token);
+        return token;
+    }
+
+    /**
+     * 处理撤销通知
+     * @param username 用户名
+     * @param digests 凭证摘要
+     */
+    private void revoke(String username, Collection<String> digests) {
+        JSONObject msgJson = new JSONObject();
+        msgJson.put(MsgArgsType.TICKET_USERNAME.toString(), username);
+        msgJson.put(MsgArgsType.TICKET_DIGESTS.toString(), digests);
+        new TicketHandler().handler(msgJson);
+    }
+
+}
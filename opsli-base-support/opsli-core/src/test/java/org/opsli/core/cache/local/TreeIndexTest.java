@@ -0,0 +1,417 @@
+package org.opsli.core.cache.local;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.lang.tree.Tree;
+import cn.hutool.core.lang.tree.TreeNodeConfig;
+import lombok.Data;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opsli.core.utils.TreeBuildUtil;
+import org.opsli.core.utils.TreeIndexUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 树结构索引测试
+ *
+ * 下级 / 子树 查询、按ID重新读取，以及由索引组装的树 与 原有全量构建 结果一致
+ *
+ * @author Parker
+ * @date 2021-06-09 19:00
+ */
+public class TreeIndexTest {
+
+    /** 对比测试 节点数 */
+    private static final int NODE_COUNT = 100_000;
+    /** 对比测试 每个节点下级数 */
+    private static final int FAN_OUT = 10;
+    /** 对比测试 每次统计的上级数 */
+    private static final int PARENT_COUNT = 1000;
+    /** 对比测试 轮数 (首轮预热) */
+    private static final int ROUNDS = 3;
+    /** 构建对比测试 节点数 */
+    private static final int BUILD_NODE_COUNT = 20_000;
+    /** 排序字段 */
+    private static final String SORT_FIELD = "sortNo";
+
+    /**
+     * 统计下级数量 及 增量更新
+     */
+    @Test
+    public void countAndUpdate() {
+        TreeIndex index = TreeIndex.of(TreeIndex.Type.MENU);
+        index.setLoader(() -> Arrays.asList(
+                new TreeIndex.Node("1", "0", 1, "1"),
+                new TreeIndex.Node("2", "1", 1, "2"),
+                new TreeIndex.Node("3", "1", 2, "1"),
+                new TreeIndex.Node("4", "3", 1, "1")
+        ));
+
+        Map<String, Integer> count = index.countChildren(Arrays.asList("0", "1", "3", "4"));
+        Assert.assertEquals(Integer.valueOf(1), count.get("0"));
+        Assert.assertEquals(Integer.valueOf(2), count.get("1"));
+        Assert.assertEquals(Integer.valueOf(1), count.get("3"));
+        Assert.assertFalse(count.containsKey("4"));
+        Assert.assertEquals(Integer.valueOf(1), index.countChildren(Collections.singletonList("1"), "2").get("1"));
+
+        // 移动子树
+        index.put(Collections.singletonList(new TreeIndex.Node("3", "2", 1, "1")));
+        count = index.countChildren(Arrays.asList("1", "2"));
+        Assert.assertEquals(Integer.valueOf(1), count.get("1"));
+        Assert.assertEquals(Integer.valueOf(1), count.get("2"));
+
+        // 挂到自身子树下 被拒绝
+        index.put(Collections.singletonList(new TreeIndex.Node("2", "4", 1, "2")));
+        Assert.assertEquals(Integer.valueOf(1), index.countChildren(Collections.singletonList("1")).get("1"));
+
+        // 删除子树
+        index.remove(Collections.singletonList("2"));
+        Assert.assertEquals(1, index.size());
+        Assert.assertTrue(index.countChildren(Arrays.asList("1", "2", "3")).isEmpty());
+    }
+
+    /**
+     * 加载失败后 退避期内不再执行加载器
+     */
+    @Test
+    public void loadFailureBackoff() {
+        TreeIndex index = TreeIndex.of(TreeIndex.Type.AREA);
+        AtomicInteger loadCount = new AtomicInteger();
+        index.setLoader(() -> {
+            loadCount.incrementAndGet();
+            throw new IllegalStateException("db down");
+        });
+
+        for (int i = 0; i < 100; i++) {
+            Assert.assertNull(index.countChildren(Collections.singletonList("0")));
+            Assert.assertEquals(-1, index.size());
+        }
+        Assert.assertEquals(1, loadCount.get());
+
+        // 重新注册加载器 立即加载
+        index.setLoader(() -> Collections.singletonList(new TreeIndex.Node("1", "0", null, null)));
+        Assert.assertEquals(1, index.size());
+    }
+
+    /**
+     * 10 万节点 统计下级数量 对比 逐次全量分组
+     */
+    @Test
+    public void countCost() {
+        List<TreeIndex.Node> nodes = new ArrayList<>(NODE_COUNT);
+        for (int i = 1; i <= NODE_COUNT; i++) {
+            String parentId = String.valueOf(i / FAN_OUT);
+            nodes.add(new TreeIndex.Node(String.valueOf(i), parentId, i % 7, null));
+        }
+        List<String> parentIds = new ArrayList<>(PARENT_COUNT);
+        for (int i = 0; i < PARENT_COUNT; i++) {
+            parentIds.add(String.valueOf(i * (NODE_COUNT / PARENT_COUNT)));
+        }
+
+        TreeIndex index = TreeIndex.of(TreeIndex.Type.MENU);
+        index.setLoader(() -> nodes);
+
+        long begin = System.nanoTime();
+        Assert.assertEquals(NODE_COUNT, index.size());
+        long loadCost = System.nanoTime() - begin;
+
+        long indexCost = 0;
+        long scanCost = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            begin = System.nanoTime();
+            Map<String, Integer> indexCount = index.countChildren(parentIds);
+            indexCost = System.nanoTime() - begin;
+
+            // 不使用索引时 每次都需对全部节点分组
+            begin = System.nanoTime();
+            Map<String, Integer> groups = new HashMap<>();
+            for (TreeIndex.Node node : nodes) {
+                groups.merge(node.getParentId(), 1, Integer::sum);
+            }
+            Map<String, Integer> scanCount = new HashMap<>();
+            for (String parentId : parentIds) {
+                Integer count = groups.get(parentId);
+                if(count != null){
+                    scanCount.put(parentId, count);
+                }
+            }
+            scanCost = System.nanoTime() - begin;
+
+            Assert.assertEquals(scanCount, indexCount);
+        }
+
+        System.out.println("节点数: " + NODE_COUNT + " 统计上级数: " + PARENT_COUNT);
+        System.out.println("索引加载 耗时: " + TimeUnit.NANOSECONDS.toMillis(loadCost) + "ms");
+        System.out.println("索引统计 耗时: " + TimeUnit.NANOSECONDS.toMicros(indexCost) + "us");
+        System.out.println("全量分组 耗时: " + TimeUnit.NANOSECONDS.toMicros(scanCost) + "us");
+    }
+
+    /**
+     * 直接下级 与 子树 (有序 / 层级 / 过滤)
+     */
+    @Test
+    public void childrenAndSubTree() {
+        TreeIndex index = TreeIndex.of(TreeIndex.Type.ORG);
+        index.setLoader(() -> Arrays.asList(
+                createNode("1", "0", 1, "a"),
+                createNode("2", "0", 2, "a"),
+                createNode("3", "1", 2, "a"),
+                createNode("4", "1", 1, "b"),
+                createNode("5", "3", 1, "a"),
+                createNode("6", "2", 1, "a")
+        ));
+
+        // 同级按排序
+        List<TreeIndex.Node> children = index.getChildren("1", null);
+        Assert.assertEquals(Arrays.asList("4", "3"), ids(children));
+        Assert.assertEquals("name4", children.get(0).getData().get("name"));
+        Assert.assertEquals(Collections.singletonList("3"),
+                ids(index.getChildren("1", node -> "a".equals(node.getData().get("tenantId")))));
+        Assert.assertTrue(index.getChildren("5", null).isEmpty());
+
+        // 先序
+        Assert.assertEquals(Arrays.asList("1", "4", "3", "5", "2", "6"), ids(index.getSubTree("0", -1, null)));
+        Assert.assertEquals(Arrays.asList("1", "2"), ids(index.getSubTree("0", 1, null)));
+        Assert.assertEquals(Arrays.asList("1", "4", "3", "2", "6"), ids(index.getSubTree("0", 2, null)));
+        Assert.assertEquals(Arrays.asList("4", "3"), ids(index.getSubTree("1", 1, null)));
+        Assert.assertEquals(Arrays.asList("4", "3", "5"), ids(index.getSubTree("1", -1, null)));
+        Assert.assertTrue(index.getSubTree("0", 0, null).isEmpty());
+
+        // 不满足过滤条件的节点 连同其子树跳过
+        Assert.assertEquals(Arrays.asList("1", "4", "2", "6"),
+                ids(index.getSubTree("0", -1, node -> !"3".equals(node.getId()))));
+    }
+
+    /**
+     * 按ID重新读取节点，读取失败 或 未注册读取器 则整体失效
+     */
+    @Test
+    public void refreshByReader() {
+        Map<String, TreeIndex.Node> db = new LinkedHashMap<>();
+        for (TreeIndex.Node node : Arrays.asList(
+                createNode("1", "0", 1, "a"),
+                createNode("2", "0", 2, "a"),
+                createNode("3", "1", 1, "a"),
+                createNode("4", "2", 2, "a"))) {
+            db.put(node.getId(), node);
+        }
+        AtomicInteger loadCount = new AtomicInteger();
+        AtomicInteger readCount = new AtomicInteger();
+        boolean[] readFailed = {false};
+
+        TreeIndex index = TreeIndex.of(TreeIndex.Type.ORG);
+        index.setLoader(() -> {
+            loadCount.incrementAndGet();
+            return new ArrayList<>(db.values());
+        }, ids -> {
+            readCount.incrementAndGet();
+            if(readFailed[0]){
+                throw new IllegalStateException("db down");
+            }
+            return ids.stream().map(db::get).collect(Collectors.toList());
+        });
+        Assert.assertEquals(4, index.size());
+
+        // 修改数据 并移动到其他上级
+        db.put("3", new TreeIndex.Node("3", "2", 1, null, createData("3", "2", 1, "a", "changed")));
+        index.refresh(Collections.singletonList("3"));
+        Assert.assertEquals(1, readCount.get());
+        Assert.assertTrue(index.getChildren("1", null).isEmpty());
+        List<TreeIndex.Node> children = index.getChildren("2", null);
+        Assert.assertEquals(Arrays.asList("3", "4"), ids(children));
+        Assert.assertEquals("changed", children.get(0).getData().get("name"));
+        Assert.assertEquals(1, loadCount.get());
+
+        // 读取失败 整体失效 下次使用时全量加载
+        readFailed[0] = true;
+        index.refresh(Collections.singletonList("4"));
+        Assert.assertEquals(4, index.size());
+        Assert.assertEquals(2, loadCount.get());
+
+        // 未注册读取器 整体失效
+        index.setLoader(() -> {
+            loadCount.incrementAndGet();
+            return new ArrayList<>(db.values());
+        });
+        Assert.assertEquals(4, index.size());
+        index.refresh(Collections.singletonList("4"));
+        Assert.assertEquals(4, index.size());
+        Assert.assertEquals(4, loadCount.get());
+    }
+
+    /**
+     * 由索引组装的树 与 原有全量构建 结果一致
+     */
+    @Test
+    public void buildParity() {
+        List<TestRow> rows = createRows(2000);
+        List<TreeIndex.Node> nodes = createNodes(rows);
+        TreeIndex.of(TreeIndex.Type.ORG).setLoader(() -> nodes);
+        List<Map<String, Object>> maps = rows.stream().map(BeanUtil::beanToMap).collect(Collectors.toList());
+
+        for (Integer deep : Arrays.asList(null, 1, 2, 3)) {
+            Assert.assertEquals(
+                    TreeBuildUtil.INSTANCE.build(maps, "0", createConfig(deep)),
+                    TreeIndexUtil.buildTree(TreeIndex.Type.ORG, "0", createConfig(deep), null));
+            Assert.assertEquals(
+                    TreeBuildUtil.INSTANCE.build(maps, "3", createConfig(deep)),
+                    TreeIndexUtil.buildTree(TreeIndex.Type.ORG, "3", createConfig(deep), null));
+        }
+
+        // 过滤后 上级不可见的节点 不再出现
+        Predicate<TreeIndex.Node> filter = node -> Integer.parseInt(node.getId()) % 3 != 0;
+        List<Map<String, Object>> filtered = maps.stream()
+                .filter(map -> Integer.parseInt((String) map.get("id")) % 3 != 0)
+                .collect(Collectors.toList());
+        Assert.assertEquals(
+                TreeBuildUtil.INSTANCE.build(filtered, "0", createConfig(null)),
+                TreeIndexUtil.buildTree(TreeIndex.Type.ORG, "0", createConfig(null), filter));
+    }
+
+    /**
+     * 2 万节点 由索引组装树 对比 逐行转 Map 后全量构建
+     */
+    @Test
+    public void buildCost() {
+        List<TestRow> rows = createRows(BUILD_NODE_COUNT);
+        List<TreeIndex.Node> nodes = createNodes(rows);
+        TreeIndex.of(TreeIndex.Type.ORG).setLoader(() -> nodes);
+        Assert.assertEquals(BUILD_NODE_COUNT, TreeIndex.of(TreeIndex.Type.ORG).size());
+
+        long indexCost = 0;
+        long indexLazyCost = 0;
+        long legacyCost = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            List<Tree<Object>> indexTrees = TreeIndexUtil.buildTree(
+                    TreeIndex.Type.ORG, "0", createConfig(null), null);
+            indexCost = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            for (int i = 0; i < PARENT_COUNT; i++) {
+                Assert.assertNotNull(TreeIndexUtil.buildTree(
+                        TreeIndex.Type.ORG, String.valueOf(i), createConfig(1), null));
+            }
+            indexLazyCost = System.nanoTime() - begin;
+
+            // 原有实现 每次查询全部数据 逐行反射转 Map 后全量构建
+            begin = System.nanoTime();
+            List<Map<String, Object>> maps = rows.stream().map(BeanUtil::beanToMap).collect(Collectors.toList());
+            List<Tree<Object>> legacyTrees = TreeBuildUtil.INSTANCE.build(maps, "0", createConfig(null));
+            legacyCost = System.nanoTime() - begin;
+
+            Assert.assertEquals(legacyTrees.size(), indexTrees.size());
+        }
+
+        System.out.println("节点数: " + BUILD_NODE_COUNT);
+        System.out.println("索引组装 全量树 耗时: " + TimeUnit.NANOSECONDS.toMillis(indexCost) + "ms");
+        System.out.println("索引组装 " + PARENT_COUNT + " 次直接下级 耗时: "
+                + TimeUnit.NANOSECONDS.toMillis(indexLazyCost) + "ms");
+        System.out.println("逐行转 Map 全量构建 耗时: " + TimeUnit.NANOSECONDS.toMillis(legacyCost) + "ms");
+    }
+
+    /**
+     * 节点 (带数据)
+     * @param id ID
+     * @param parentId 上级ID
+     * @param sortNo 排序
+     * @param tenantId 租户ID
+     * @return TreeIndex.Node
+     */
+    private static TreeIndex.Node createNode(String id, String parentId, int sortNo, String tenantId) {
+        return new TreeIndex.Node(id, parentId, sortNo, null,
+                createData(id, parentId, sortNo, tenantId, "name" + id));
+    }
+
+    /**
+     * 节点数据
+     * @param id ID
+     * @param parentId 上级ID
+     * @param sortNo 排序
+     * @param tenantId 租户ID
+     * @param name 名称
+     * @return Map
+     */
+    private static Map<String, Object> createData(String id, String parentId, int sortNo, String tenantId, String name) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", id);
+        data.put("parentId", parentId);
+        data.put(SORT_FIELD, sortNo);
+        data.put("tenantId", tenantId);
+        data.put("name", name);
+        return data;
+    }
+
+    /**
+     * 行数据 (同级排序与ID顺序相反)
+     * @param count 条数
+     * @return List
+     */
+    private static List<TestRow> createRows(int count) {
+        List<TestRow> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            TestRow row = new TestRow();
+            row.setId(String.valueOf(i));
+            row.setParentId(String.valueOf(i / FAN_OUT));
+            row.setSortNo(count - i);
+            row.setName("name" + i);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 索引节点 (数据在加载时转换一次)
+     * @param rows 行数据
+     * @return List
+     */
+    private static List<TreeIndex.Node> createNodes(List<TestRow> rows) {
+        List<TreeIndex.Node> nodes = new ArrayList<>(rows.size());
+        for (TestRow row : rows) {
+            nodes.add(new TreeIndex.Node(row.getId(), row.getParentId(), row.getSortNo(), null,
+                    BeanUtil.beanToMap(row)));
+        }
+        return nodes;
+    }
+
+    /**
+     * 树配置
+     * @param deep 最大层级 为空则不限
+     * @return TreeNodeConfig
+     */
+    private static TreeNodeConfig createConfig(Integer deep) {
+        TreeNodeConfig config = new TreeNodeConfig();
+        config.setWeightKey(SORT_FIELD);
+        config.setDeep(deep);
+        return config;
+    }
+
+    /**
+     * 节点ID
+     * @param nodes 节点集合
+     * @return List
+     */
+    private static List<String> ids(Collection<TreeIndex.Node> nodes) {
+        return nodes.stream().map(TreeIndex.Node::getId).collect(Collectors.toList());
+    }
+
+    @Data
+    public static class TestRow {
+        private String id;
+        private String parentId;
+        private Integer sortNo;
+        private String name;
+    }
+
+}
@@ -0,0 +1,308 @@
+package org.opsli.core.filters.interceptor;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.ReflectUtil;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.google.common.collect.Lists;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opsli.common.constants.MyBatisConstants;
+import org.opsli.core.base.entity.BaseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自动填充计划测试
+ *
+ * 以原有逐字段反射填充为准，校验 填充结果一致；多线程并发 构建计划 与 批量填充 互不干扰
+ *
+ * @author Parker
+ * @date 2021-06-09 21:20
+ */
+public class AutoFillPlanTest {
+
+    /** 并发线程数 */
+    private static final int THREAD_COUNT = 32;
+    /** 每个线程 填充条数 */
+    private static final int ROWS_PER_THREAD = 2000;
+    /** 对比测试 批量条数 */
+    private static final int BATCH_SIZE = 10_000;
+    /** 对比测试 轮数 (首轮预热) */
+    private static final int ROUNDS = 3;
+
+    /**
+     * 填充结果 与原有逐字段反射一致
+     */
+    @Test
+    public void fillParity() {
+        AutoFillContext context = context("1", "10", "1,2");
+
+        TestEntity blank = new TestEntity();
+        TestEntity expected = new TestEntity();
+        AutoFillPlan.get(TestEntity.class).insertFill(blank, context);
+        legacyInsertFill(expected, context.getDate(), "1", "10", "1,2");
+        Assert.assertEquals(BeanUtil.beanToMap(expected), BeanUtil.beanToMap(blank));
+        Assert.assertEquals(Integer.valueOf(0), blank.getVersion());
+        Assert.assertEquals(MyBatisConstants.LOGIC_NOT_DELETE_VALUE, blank.getDeleted());
+
+        // 已有值 不覆盖
+        TestEntity filled = new TestEntity();
+        filled.setCreateBy("2");
+        filled.setTenantId("20");
+        filled.setOrgIds("3");
+        AutoFillPlan.get(TestEntity.class).insertFill(filled, context);
+        Assert.assertEquals("2", filled.getCreateBy());
+        Assert.assertEquals("1", filled.getUpdateBy());
+        Assert.assertEquals("20", filled.getTenantId());
+        Assert.assertEquals("3", filled.getOrgIds());
+
+        // @TableField(exist = false) 的字段 不处理
+        IgnoreTenantEntity ignore = new IgnoreTenantEntity();
+        AutoFillPlan.get(IgnoreTenantEntity.class).insertFill(ignore, context);
+        Assert.assertNull(ignore.getTenantId());
+        Assert.assertEquals("1", ignore.getCreateBy());
+
+        // 修改 只填充 更新人 与 更新日期
+        TestEntity update = new TestEntity();
+        AutoFillPlan.get(TestEntity.class).updateFill(update, context);
+        Assert.assertEquals("1", update.getUpdateBy());
+        Assert.assertSame(context.getDate(), update.getUpdateTime());
+        Assert.assertNull(update.getCreateBy());
+        Assert.assertNull(update.getVersion());
+    }
+
+    /**
+     * 多线程 同时构建计划 并各自批量填充，数据只包含本线程上下文的值
+     */
+    @Test
+    public void concurrentFill() throws InterruptedException {
+        // 清空缓存 让各线程同时首次构建
+        Map<?, ?> planCache = (Map<?, ?>) ReflectionTestUtils.getField(AutoFillPlan.class, "PLAN_CACHE");
+        Assert.assertNotNull(planCache);
+        planCache.clear();
+
+        Set<AutoFillPlan> plans = Collections.synchronizedSet(
+                Collections.newSetFromMap(new IdentityHashMap<>()));
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch ready = new CountDownLatch(THREAD_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREAD_COUNT);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            String userId = "user-" + t;
+            executor.execute(() -> {
+                try {
+                    List<TestEntity> rows = createRows(ROWS_PER_THREAD);
+                    ready.countDown();
+                    start.await();
+
+                    plans.add(AutoFillPlan.get(TestEntity.class));
+                    AutoFillContext context;
+                    try (AutoFillContext batch = AutoFillContext.open()){
+                        context = batch;
+                        seed(batch, userId, "tenant-" + userId, "org-" + userId);
+                        AutoFillPlan.insertFill(rows, batch);
+                        for (TestEntity row : rows) {
+                            Assert.assertTrue(batch.isFilled(row));
+                        }
+                        // 批量范围内 当前上下文为同一个
+                        Assert.assertSame(batch, AutoFillContext.current());
+                    }
+                    // 关闭后 不再共用
+                    Assert.assertNotSame(context, AutoFillContext.current());
+
+                    for (TestEntity row : rows) {
+                        Assert.assertEquals(userId, row.getCreateBy());
+                        Assert.assertEquals(userId, row.getUpdateBy());
+                        Assert.assertEquals("tenant-" + userId, row.getTenantId());
+                        Assert.assertEquals("org-" + userId, row.getOrgIds());
+                        Assert.assertSame(context.getDate(), row.getCreateTime());
+                        Assert.assertEquals(Integer.valueOf(0), row.getVersion());
+                    }
+                }catch (Throwable e){
+                    errors.add(e);
+                }finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        ready.await();
+        start.countDown();
+        Assert.assertTrue(done.await(1, TimeUnit.MINUTES));
+        executor.shutdown();
+
+        if(!errors.isEmpty()){
+            throw new AssertionError(errors.peek());
+        }
+        Assert.assertEquals(1, plans.size());
+    }
+
+    /**
+     * 1 万条 批量新增填充 对比原有逐字段反射
+     */
+    @Test
+    public void fillCost() {
+        long planCost = 0;
+        long legacyCost = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            List<TestEntity> rows = createRows(BATCH_SIZE);
+            long begin = System.nanoTime();
+            try (AutoFillContext context = AutoFillContext.open()){
+                seed(context, "1", "10", "1,2");
+                AutoFillPlan.insertFill(rows, context);
+            }
+            planCost = System.nanoTime() - begin;
+
+            // 原有实现 每条数据逐字段反射 (当前用户按固定值计 不含 UserUtil 开销)
+            List<TestEntity> legacyRows = createRows(BATCH_SIZE);
+            begin = System.nanoTime();
+            Date date = new Date();
+            for (TestEntity row : legacyRows) {
+                legacyInsertFill(row, date, "1", "10", "1,2");
+            }
+            legacyCost = System.nanoTime() - begin;
+        }
+
+        System.out.println("批量条数: " + BATCH_SIZE);
+        System.out.println("填充计划 耗时: " + TimeUnit.NANOSECONDS.toMillis(planCost) + "ms");
+        System.out.println("逐字段反射 耗时: " + TimeUnit.NANOSECONDS.toMillis(legacyCost) + "ms");
+    }
+
+    /**
+     * 单条语句上下文 (预先设置当前用户)
+     * @param userId 用户ID
+     * @param tenantId 租户ID
+     * @param orgIds 组织
+     * @return AutoFillContext
+     */
+    private static AutoFillContext context(String userId, String tenantId, String orgIds) {
+        AutoFillContext context = AutoFillContext.current();
+        seed(context, userId, tenantId, orgIds);
+        return context;
+    }
+
+    /**
+     * 预先设置当前用户 不经过 UserUtil
+     * @param context 上下文
+     * @param userId 用户ID
+     * @param tenantId 租户ID
+     * @param orgIds 组织
+     */
+    private static void seed(AutoFillContext context, String userId, String tenantId, String orgIds) {
+        ReflectionTestUtils.setField(context, "userId", userId);
+        ReflectionTestUtils.setField(context, "userIdResolved", true);
+        ReflectionTestUtils.setField(context, "tenantId", tenantId);
+        ReflectionTestUtils.setField(context, "tenantIdResolved", true);
+        ReflectionTestUtils.setField(context, "orgIds", orgIds);
+        ReflectionTestUtils.setField(context, "orgIdsResolved", true);
+    }
+
+    /**
+     * 待新增数据
+     * @param count 条数
+     * @return List
+     */
+    private static List<TestEntity> createRows(int count) {
+        List<TestEntity> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TestEntity entity = new TestEntity();
+            entity.setName("name" + i);
+            rows.add(entity);
+        }
+        return rows;
+    }
+
+    /**
+     * 原有新增填充
+     * @param arg 数据
+     * @param currDate 当前时间
+     * @param userId 用户ID
+     * @param tenantId 租户ID
+     * @param orgIds 组织
+     */
+    private static void legacyInsertFill(Object arg, Date currDate, String userId, String tenantId, String orgIds) {
+        List<String> existField = Lists.newArrayList();
+        for (Field f : ReflectUtil.getFields(arg.getClass())) {
+            if(existField.contains(f.getName())){
+                continue;
+            }
+            TableField tableField = f.getAnnotation(TableField.class);
+            if(tableField != null && !tableField.exist()){
+                existField.add(f.getName());
+                continue;
+            }
+            switch (f.getName()) {
+                case MyBatisConstants.FIELD_CREATE_BY:
+                case MyBatisConstants.FIELD_UPDATE_BY:
+                    if(StringUtils.isBlank(Convert.toStr(ReflectUtil.getFieldValue(arg, f.getName())))){
+                        BeanUtil.setProperty(arg, f.getName(), userId);
+                    }
+                    break;
+                case MyBatisConstants.FIELD_CREATE_TIME:
+                case MyBatisConstants.FIELD_UPDATE_TIME:
+                    BeanUtil.setProperty(arg, f.getName(), currDate);
+                    break;
+                case MyBatisConstants.FIELD_OPTIMISTIC_LOCK:
+                    BeanUtil.setProperty(arg, f.getName(), 0);
+                    break;
+                case MyBatisConstants.FIELD_DELETE_LOGIC:
+                    BeanUtil.setProperty(arg, f.getName(), MyBatisConstants.LOGIC_NOT_DELETE_VALUE);
+                    break;
+                case MyBatisConstants.FIELD_TENANT:
+                    if(StringUtils.isBlank(Convert.toStr(ReflectUtil.getFieldValue(arg, f.getName())))){
+                        BeanUtil.setProperty(arg, f.getName(), tenantId);
+                    }
+                    break;
+                case MyBatisConstants.FIELD_ORG_GROUP:
+                    if(StringUtils.isBlank(Convert.toStr(ReflectUtil.getFieldValue(arg, f.getName())))){
+                        BeanUtil.setProperty(arg, f.getName(), orgIds);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class TestEntity extends BaseEntity {
+
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+        private String orgIds;
+    }
+
+    @Data
+    @Accessors(chain = true)
+    @EqualsAndHashCode(callSuper = false)
+    public static class IgnoreTenantEntity extends BaseEntity {
+
+        private static final long serialVersionUID = 1L;
+
+        @TableField(exist = false)
+        private String tenantId;
+    }
+
+}
@@ -0,0 +1,236 @@
+package org.opsli.core.persistence;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.github.pagehelper.PageInterceptor;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opsli.api.base.warpper.ApiWrapper;
+import org.opsli.common.exception.ServiceException;
+import org.opsli.core.base.entity.BaseEntity;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 游标分页测试 (H2 内存数据库)
+ *
+ * @author Parker
+ * @date 2021-06-05 15:30
+ */
+public class CursorPageTest {
+
+    /** 数据条数 */
+    private static final int ROW_COUNT = 50;
+
+    private JdbcDataSource dataSource;
+    private SqlSession sqlSession;
+    private TestMapper mapper;
+
+    @Before
+    public void init() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:cursor_page;MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()){
+            stmt.execute("DROP TABLE IF EXISTS cursor_test");
+            stmt.execute("CREATE TABLE cursor_test (id VARCHAR(32) PRIMARY KEY, name VARCHAR(32), " +
+                    "create_by VARCHAR(32), create_time TIMESTAMP, update_by VARCHAR(32), " +
+                    "update_time TIMESTAMP, version INT)");
+        }
+        // 每 5 条使用相同的更新时间 验证排序值重复时依旧不重不漏
+        for (int i = 0; i < ROW_COUNT; i++) {
+            this.insert(String.format("%04d", i), 1000L * (i / 5));
+        }
+
+        MybatisConfiguration configuration = new MybatisConfiguration(
+                new Environment("test", new JdbcTransactionFactory(), dataSource));
+        PageInterceptor pageInterceptor = new PageInterceptor();
+        Properties properties = new Properties();
+        properties.setProperty("helperDialect", "h2");
+        pageInterceptor.setProperties(properties);
+        configuration.addInterceptor(pageInterceptor);
+        configuration.addMapper(TestMapper.class);
+
+        SqlSessionFactory sqlSessionFactory = new MybatisSqlSessionFactoryBuilder().build(configuration);
+        sqlSession = sqlSessionFactory.openSession(true);
+        mapper = sqlSession.getMapper(TestMapper.class);
+    }
+
+    @After
+    public void destroy() {
+        if(sqlSession != null){
+            sqlSession.close();
+        }
+    }
+
+    /**
+     * 逐页读取 不重不漏 且顺序与 offset 查询一致
+     */
+    @Test
+    public void pageThrough() {
+        List<String> ids = this.readAll(7);
+        Assert.assertEquals(ROW_COUNT, ids.size());
+        Assert.assertEquals(ROW_COUNT, Sets.newHashSet(ids).size());
+
+        QueryWrapper<TestEntity> wrapper = new QueryWrapper<>();
+        wrapper.orderByDesc("update_time").orderByDesc("id");
+        List<String> expected = mapper.selectList(wrapper).stream()
+                .map(TestEntity::getId).collect(Collectors.toList());
+        Assert.assertEquals(expected, ids);
+    }
+
+    /**
+     * 翻页期间写入新数据 不会出现重复
+     */
+    @Test
+    public void insertWhilePaging() throws Exception {
+        CursorPage<TestEntity, TestModel> page = this.query(null, 10);
+        Set<String> ids = Sets.newHashSet(this.ids(page));
+
+        // 插入排在最前的数据
+        this.insert("new1", 1000L * ROW_COUNT);
+        this.insert("new2", 1000L * ROW_COUNT);
+
+        String cursor = page.getNextCursor();
+        while (cursor != null){
+            page = this.query(cursor, 10);
+            for (String id : this.ids(page)) {
+                Assert.assertTrue("重复数据 " + id, ids.add(id));
+            }
+            cursor = page.getNextCursor();
+        }
+        Assert.assertEquals(ROW_COUNT, ids.size());
+    }
+
+    /**
+     * 分页大小 限制在 [1, MAX_PAGE_SIZE]
+     */
+    @Test
+    public void clampPageSize() {
+        Assert.assertEquals(1, new CursorPage<TestEntity, TestModel>(null, 0).getPageSize());
+        Assert.assertEquals(1, new CursorPage<TestEntity, TestModel>(null, -5).getPageSize());
+        Assert.assertEquals(CursorPage.MAX_PAGE_SIZE,
+                new CursorPage<TestEntity, TestModel>(null, Integer.MAX_VALUE).getPageSize());
+
+        CursorPage<TestEntity, TestModel> page = this.query(null, 0);
+        Assert.assertEquals(1, page.getList().size());
+        Assert.assertTrue(page.isHasMore());
+    }
+
+    /**
+     * 排序条件变更 / 游标被篡改 时 游标失效
+     */
+    @Test
+    public void invalidCursor() {
+        CursorPage<TestEntity, TestModel> page = this.query(null, 10);
+        String cursor = page.getNextCursor();
+
+        CursorPage<TestEntity, TestModel> ascPage = new CursorPage<>(cursor, 10);
+        ascPage.setOrders(Lists.newArrayList(new CursorPage.Order("updateTime", "update_time", true)));
+        Assert.assertThrows(ServiceException.class, () -> ascPage.begin(TestEntity.class));
+
+        CursorPage<TestEntity, TestModel> badPage = new CursorPage<>("not-a-cursor", 10);
+        Assert.assertThrows(ServiceException.class, () -> badPage.begin(TestEntity.class));
+    }
+
+    // ====================================================================
+
+    /**
+     * 读取全部数据
+     * @param pageSize 分页大小
+     * @return List
+     */
+    private List<String> readAll(int pageSize) {
+        List<String> ids = Lists.newArrayList();
+        String cursor = null;
+        do {
+            CursorPage<TestEntity, TestModel> page = this.query(cursor, pageSize);
+            Assert.assertTrue(page.getList().size() <= pageSize);
+            ids.addAll(this.ids(page));
+            cursor = page.getNextCursor();
+        }while (cursor != null);
+        return ids;
+    }
+
+    private CursorPage<TestEntity, TestModel> query(String cursor, int pageSize) {
+        // 与 QueryBuilder 一致 排序字段同时写入条件构造器
+        QueryWrapper<TestEntity> wrapper = new QueryWrapper<>();
+        wrapper.orderByDesc("update_time");
+        CursorPage<TestEntity, TestModel> page = new CursorPage<>(cursor, pageSize);
+        page.setQueryWrapper(wrapper);
+        page.setOrders(Lists.newArrayList(new CursorPage.Order("updateTime", "update_time", false)));
+        page.begin(TestEntity.class);
+        List<TestEntity> entityList;
+        try {
+            entityList = mapper.selectList(page.getQueryWrapper());
+        }finally {
+            page.end();
+        }
+
+        List<TestModel> modelList = Lists.newArrayListWithCapacity(entityList.size());
+        for (TestEntity entity : entityList) {
+            TestModel model = new TestModel();
+            model.setId(entity.getId());
+            modelList.add(model);
+        }
+        page.instance(entityList, modelList);
+        return page;
+    }
+
+    private List<String> ids(CursorPage<TestEntity, TestModel> page) {
+        return page.getList().stream().map(TestModel::getId).collect(Collectors.toList());
+    }
+
+    private void insert(String id, long updateTime) throws Exception {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO cursor_test (id, name, update_time, version) VALUES (?, ?, ?, 0)")){
+            ps.setString(1, id);
+            ps.setString(2, "name" + id);
+            ps.setTimestamp(3, new Timestamp(updateTime));
+            ps.executeUpdate();
+        }
+    }
+
+    // ====================================================================
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    @TableName("cursor_test")
+    public static class TestEntity extends BaseEntity {
+        private static final long serialVersionUID = 1L;
+        private String name;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class TestModel extends ApiWrapper {
+        private static final long serialVersionUID = 1L;
+        private String name;
+    }
+
+    public interface TestMapper extends BaseMapper<TestEntity> {
+    }
+
+}
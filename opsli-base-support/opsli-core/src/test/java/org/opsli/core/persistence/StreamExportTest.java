@@ -0,0 +1,266 @@
+package org.opsli.core.persistence;
+
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.github.pagehelper.PageInterceptor;
+import com.google.common.collect.Lists;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opsli.api.base.warpper.ApiWrapper;
+import org.opsli.core.base.entity.BaseEntity;
+import org.opsli.plugins.excel.factory.ExcelStreamWriter;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 游标分批导出测试 (H2 文件数据库)
+ *
+ * 100 万条数据 在固定堆大小的子进程中导出：
+ * 游标分批读取 + Excel 分批写 可以完成，原有一次性读取 超出堆大小
+ *
+ * @author Parker
+ * @date 2021-06-10 18:30
+ */
+public class StreamExportTest {
+
+    /** 数据条数 */
+    private static final int ROW_COUNT = 1_000_000;
+    /** 每批数据量 (与 BaseRestController 一致) */
+    private static final int BATCH_SIZE = 1000;
+    /** 子进程 最大堆 */
+    private static final String HEAP_LIMIT = "-Xmx128m";
+    /** 子进程 超时时间 (分钟) */
+    private static final int TIMEOUT_MINUTES = 10;
+
+    /** 导出方式 游标分批 */
+    private static final String MODE_STREAM = "stream";
+    /** 导出方式 一次性读取 */
+    private static final String MODE_LEGACY = "legacy";
+    /** 子进程 导出行数不符 退出码 */
+    private static final int EXIT_COUNT_MISMATCH = 2;
+
+    private static Path dbDir;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        dbDir = Files.createTempDirectory("stream_export");
+
+        // 数据在父进程写入 子进程只读取
+        long begin = System.nanoTime();
+        try (Connection conn = createDataSource(dbDir).getConnection(); Statement stmt = conn.createStatement()){
+            stmt.execute("CREATE TABLE export_test (id VARCHAR(32) PRIMARY KEY, name VARCHAR(64), " +
+                    "remark VARCHAR(128), create_by VARCHAR(32), create_time TIMESTAMP, update_by VARCHAR(32), " +
+                    "update_time TIMESTAMP, version INT)");
+            stmt.execute("INSERT INTO export_test SELECT LPAD(CAST(X AS VARCHAR), 8, '0'), " +
+                    "CONCAT('name', X), CONCAT('remark-', X, '-', RAND()), '1', CURRENT_TIMESTAMP, " +
+                    "'1', CURRENT_TIMESTAMP, 0 FROM SYSTEM_RANGE(1, " + ROW_COUNT + ")");
+            stmt.execute("SHUTDOWN");
+        }
+        System.out.println("写入 " + ROW_COUNT + " 条 耗时: "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) + "ms");
+    }
+
+    @AfterClass
+    public static void destroy() throws Exception {
+        if(dbDir == null){
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dbDir)){
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * 固定堆大小下 游标分批导出 100 万条
+     */
+    @Test
+    public void streamWithinHeapLimit() throws Exception {
+        long begin = System.nanoTime();
+        int exitCode = fork(MODE_STREAM);
+        System.out.println("游标分批导出 " + HEAP_LIMIT + " 耗时: "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) + "ms");
+        Assert.assertEquals(0, exitCode);
+    }
+
+    /**
+     * 相同堆大小下 原有一次性读取 无法完成
+     */
+    @Test
+    public void legacyExceedsHeapLimit() throws Exception {
+        int exitCode = fork(MODE_LEGACY);
+        Assert.assertNotEquals(0, exitCode);
+        Assert.assertNotEquals(EXIT_COUNT_MISMATCH, exitCode);
+    }
+
+    /**
+     * 子进程 导出
+     * @param args 数据库目录, 导出方式
+     */
+    public static void main(String[] args) throws Exception {
+        Path dir = new File(args[0]).toPath();
+        String mode = args[1];
+
+        MybatisConfiguration configuration = new MybatisConfiguration(
+                new Environment("test", new JdbcTransactionFactory(), createDataSource(dir)));
+        PageInterceptor pageInterceptor = new PageInterceptor();
+        Properties properties = new Properties();
+        properties.setProperty("helperDialect", "h2");
+        pageInterceptor.setProperties(properties);
+        configuration.addInterceptor(pageInterceptor);
+        configuration.addMapper(TestMapper.class);
+        SqlSessionFactory sqlSessionFactory = new MybatisSqlSessionFactoryBuilder().build(configuration);
+
+        CountingOutputStream out = new CountingOutputStream();
+        ExcelStreamWriter<TestModel> excelWriter = new ExcelStreamWriter<>(() -> out, "sheet", TestModel.class);
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        long maxUsed = 0;
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)){
+            TestMapper mapper = sqlSession.getMapper(TestMapper.class);
+            if(MODE_LEGACY.equals(mode)){
+                // 原有实现 一次性读取
+                excelWriter.write(transform(mapper.selectList(new QueryWrapper<>())));
+            }else {
+                // 按游标分批读取 写入 (按主键升序 seek)
+                String cursor = null;
+                do {
+                    QueryWrapper<TestEntity> wrapper = new QueryWrapper<>();
+                    wrapper.orderByAsc("id");
+                    CursorPage<TestEntity, TestModel> page = new CursorPage<>(cursor, BATCH_SIZE);
+                    page.setQueryWrapper(wrapper);
+                    page.setOrders(Lists.newArrayList(new CursorPage.Order("id", "id", true)));
+                    page.begin(TestEntity.class);
+                    List<TestEntity> entityList;
+                    try {
+                        entityList = mapper.selectList(page.getQueryWrapper());
+                    }finally {
+                        page.end();
+                    }
+                    page.instance(entityList, transform(entityList));
+                    excelWriter.write(page.getList());
+                    cursor = page.getNextCursor();
+                    maxUsed = Math.max(maxUsed, memoryBean.getHeapMemoryUsage().getUsed());
+                }while (cursor != null);
+            }
+            excelWriter.finish();
+        }finally {
+            excelWriter.abort();
+        }
+
+        System.out.println("导出行数: " + excelWriter.getCount() + " 输出字节数: " + out.getCount()
+                + " 最大已用堆: " + (maxUsed >> 20) + "MB");
+        System.exit(excelWriter.getCount() == ROW_COUNT ? 0 : EXIT_COUNT_MISMATCH);
+    }
+
+    // ====================================================================
+
+    /**
+     * 固定堆大小 启动子进程导出
+     * @param mode 导出方式
+     * @return int 退出码
+     */
+    private static int fork(String mode) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, HEAP_LIMIT, "-XX:+ExitOnOutOfMemoryError",
+                "-cp", System.getProperty("java.class.path"),
+                StreamExportTest.class.getName(), dbDir.toString(), mode)
+                .inheritIO()
+                .start();
+        if(!process.waitFor(TIMEOUT_MINUTES, TimeUnit.MINUTES)){
+            process.destroyForcibly();
+            Assert.fail(mode + " 导出超时");
+        }
+        return process.exitValue();
+    }
+
+    private static JdbcDataSource createDataSource(Path dir) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        // 数据在磁盘 页缓存限制为 8MB 不计入导出的内存占用
+        dataSource.setURL("jdbc:h2:file:" + dir.resolve("export").toAbsolutePath()
+                + ";MODE=MySQL;CACHE_SIZE=8192");
+        return dataSource;
+    }
+
+    private static List<TestModel> transform(List<TestEntity> entityList) {
+        List<TestModel> modelList = Lists.newArrayListWithCapacity(entityList.size());
+        for (TestEntity entity : entityList) {
+            TestModel model = new TestModel();
+            model.setId(entity.getId());
+            model.setName(entity.getName());
+            model.setRemark(entity.getRemark());
+            modelList.add(model);
+        }
+        return modelList;
+    }
+
+    /**
+     * 只计数 不保存的输出流
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+
+    // ====================================================================
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    @TableName("export_test")
+    public static class TestEntity extends BaseEntity {
+        private static final long serialVersionUID = 1L;
+        private String name;
+        private String remark;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class TestModel extends ApiWrapper {
+        private static final long serialVersionUID = 1L;
+        @ExcelProperty(value = "名称", order = 1)
+        private String name;
+        @ExcelProperty(value = "备注", order = 2)
+        private String remark;
+    }
+
+    public interface TestMapper extends BaseMapper<TestEntity> {
+    }
+
+}
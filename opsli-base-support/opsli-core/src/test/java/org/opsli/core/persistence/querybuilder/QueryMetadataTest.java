@@ -0,0 +1,212 @@
+package org.opsli.core.persistence.querybuilder;
+
+import cn.hutool.core.util.ReflectUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opsli.common.utils.FieldUtil;
+import org.opsli.core.base.entity.BaseEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询元数据测试
+ *
+ * 以原有解析 (拆分参数 + 反射判断字段 + 驼峰转下划线) 为准，校验 生成条件一致，非 Entity 字段被丢弃
+ *
+ * @author Parker
+ * @date 2021-06-09 21:00
+ */
+public class QueryMetadataTest {
+
+    /** 构造次数 */
+    private static final int BUILD_COUNT = 20_000;
+    /** 轮数 (首轮预热) */
+    private static final int ROUNDS = 3;
+
+    /**
+     * 元数据 字段与能力
+     */
+    @Test
+    public void metadata() {
+        QueryMetadata metadata = QueryMetadata.get(TestEntity.class);
+        Assert.assertSame(metadata, QueryMetadata.get(TestEntity.class));
+        Assert.assertTrue(metadata.isTenant());
+        Assert.assertTrue(metadata.isOrgGroup());
+        Assert.assertEquals("real_name", metadata.getColumn("realName"));
+        Assert.assertEquals("update_time", metadata.getColumn("updateTime"));
+        Assert.assertFalse(metadata.hasField("serialVersionUID"));
+
+        QueryMetadata.Rule rule = metadata.getRule("realName_LIKE_1");
+        Assert.assertEquals("real_name", rule.getColumn());
+        Assert.assertEquals(QueryMetadata.Operator.LIKE, rule.getOperator());
+
+        Assert.assertNull(metadata.getRule("realName_IN"));
+        Assert.assertNull(metadata.getRule("password_EQ"));
+        Assert.assertNull(metadata.getRule("realName"));
+    }
+
+    /**
+     * 生成条件 与原有解析一致
+     */
+    @Test
+    public void buildParity() {
+        Map<String, String[]> parameterMap = createParameterMap();
+        QueryWrapper<TestEntity> wrapper = new WebQueryBuilder<>(TestEntity.class, parameterMap).build();
+        QueryWrapper<TestEntity> expected = legacy(TestEntity.class, parameterMap);
+
+        Assert.assertEquals(expected.getSqlSegment(), wrapper.getSqlSegment());
+        Assert.assertEquals(expected.getParamNameValuePairs(), wrapper.getParamNameValuePairs());
+
+        // 非 Entity 字段 与 非白名单操作 不进入条件
+        Assert.assertFalse(wrapper.getSqlSegment().contains("password"));
+        Assert.assertFalse(wrapper.getSqlSegment().contains("drop"));
+        Assert.assertFalse(wrapper.getParamNameValuePairs().containsValue("in-value"));
+
+        // 无排序参数时 默认按修改时间倒序
+        Map<String, String[]> noOrder = new LinkedHashMap<>();
+        noOrder.put("username_EQ", new String[]{"admin"});
+        Assert.assertEquals(legacy(TestEntity.class, noOrder).getSqlSegment(),
+                new WebQueryBuilder<>(TestEntity.class, noOrder).build().getSqlSegment());
+    }
+
+    /**
+     * 20 个参数 构造查询条件 对比原有解析
+     */
+    @Test
+    public void buildCost() {
+        Map<String, String[]> parameterMap = createParameterMap();
+
+        long metadataCost = 0;
+        long legacyCost = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < BUILD_COUNT; i++) {
+                new WebQueryBuilder<>(TestEntity.class, parameterMap).build();
+            }
+            metadataCost = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            for (int i = 0; i < BUILD_COUNT; i++) {
+                legacy(TestEntity.class, parameterMap);
+            }
+            legacyCost = System.nanoTime() - begin;
+        }
+
+        System.out.println("参数个数: " + parameterMap.size() + " 构造次数: " + BUILD_COUNT);
+        System.out.println("查询元数据 耗时: " + TimeUnit.NANOSECONDS.toMillis(metadataCost) + "ms");
+        System.out.println("原有解析 耗时: " + TimeUnit.NANOSECONDS.toMillis(legacyCost) + "ms");
+    }
+
+    /**
+     * 20 个参数 (含 非法字段、非法操作)
+     * @return Map
+     */
+    private static Map<String, String[]> createParameterMap() {
+        Map<String, String[]> parameterMap = new LinkedHashMap<>();
+        parameterMap.put("username_EQ", new String[]{"admin"});
+        parameterMap.put("realName_LIKE", new String[]{"张"});
+        parameterMap.put("mobile_LIKER", new String[]{"138"});
+        parameterMap.put("email_LIKEL", new String[]{"@opsli.com"});
+        parameterMap.put("enable_EQ", new String[]{"1"});
+        parameterMap.put("locked_EQ", new String[]{"0"});
+        parameterMap.put("sex_EQ", new String[]{"1"});
+        parameterMap.put("no_LIKE", new String[]{"001"});
+        parameterMap.put("orgIds_LIKER", new String[]{"1,2"});
+        parameterMap.put("tenantId_EQ", new String[]{"1"});
+        parameterMap.put("createBy_EQ", new String[]{"1"});
+        parameterMap.put("createTime_BEGIN", new String[]{"2021-01-01 00:00:00"});
+        parameterMap.put("createTime_END", new String[]{"2021-12-31 23:59:59"});
+        parameterMap.put("updateTime_ORDER", new String[]{"DESC"});
+        parameterMap.put("username_ORDER", new String[]{"ASC"});
+        parameterMap.put("remark_LIKE_1", new String[]{"备注"});
+        parameterMap.put("password_EQ", new String[]{"123456"});
+        parameterMap.put("username;drop_EQ", new String[]{"x"});
+        parameterMap.put("username_IN", new String[]{"in-value"});
+        parameterMap.put("pageNo", new String[]{"1"});
+        return parameterMap;
+    }
+
+    /**
+     * 原有解析
+     * @param entityClazz Entity Clazz
+     * @param parameterMap 参数
+     * @return QueryWrapper
+     */
+    private static <T extends BaseEntity> QueryWrapper<T> legacy(Class<T> entityClazz,
+                                                                 Map<String, String[]> parameterMap) {
+        QueryWrapper<T> queryWrapper = new QueryWrapper<>();
+        int orderCount = 0;
+        for (Map.Entry<String, String[]> stringEntry : parameterMap.entrySet()) {
+            String keys = stringEntry.getKey();
+            String[] values = stringEntry.getValue();
+            if(StringUtils.isEmpty(keys) || values == null || StringUtils.isEmpty(values[0])){
+                continue;
+            }
+            String[] keyHandle = keys.split("_");
+            if(keyHandle.length < 2 || !ReflectUtil.hasField(entityClazz, keyHandle[0])){
+                continue;
+            }
+            String key = FieldUtil.humpToUnderline(keyHandle[0]);
+            String value = values[0];
+            switch (keyHandle[1]) {
+                case "EQ":
+                    queryWrapper.eq(key, value);
+                    break;
+                case "LIKE":
+                    queryWrapper.like(key, value);
+                    break;
+                case "LIKEL":
+                    queryWrapper.likeLeft(key, value);
+                    break;
+                case "LIKER":
+                    queryWrapper.likeRight(key, value);
+                    break;
+                case "BEGIN":
+                    queryWrapper.ge(key, value);
+                    break;
+                case "END":
+                    queryWrapper.le(key, value);
+                    break;
+                case "ORDER":
+                    if ("DESC".equals(value)) {
+                        queryWrapper.orderByDesc(key);
+                    } else {
+                        queryWrapper.orderByAsc(key);
+                    }
+                    orderCount++;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if(orderCount == 0 && ReflectUtil.hasField(entityClazz, "updateTime")){
+            queryWrapper.orderByDesc(FieldUtil.humpToUnderline("updateTime"));
+        }
+        return queryWrapper;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class TestEntity extends BaseEntity {
+
+        private static final long serialVersionUID = 1L;
+
+        private String username;
+        private String realName;
+        private String mobile;
+        private String email;
+        private String enable;
+        private String locked;
+        private String sex;
+        private String no;
+        private String orgIds;
+        private String remark;
+    }
+
+}
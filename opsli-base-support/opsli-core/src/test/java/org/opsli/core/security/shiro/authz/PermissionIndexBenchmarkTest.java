@@ -0,0 +1,149 @@
+package org.opsli.core.security.shiro.authz;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 权限索引 对比测试
+ *
+ * 对比 权限索引 与 Shiro 逐条 WildcardPermission.implies 的校验耗时
+ * 索引随授权信息缓存，校验时不再遍历 / 计算整个权限列表
+ *
+ * @author Parker
+ * @date 2021-06-09 17:10
+ */
+public class PermissionIndexBenchmarkTest {
+
+    /** 权限条数 */
+    private static final int PERM_COUNT = 2000;
+    /** 校验次数 */
+    private static final int CHECK_COUNT = 200_000;
+    /** 轮数 (首轮预热) */
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void matchRule() {
+        List<String> perms = new ArrayList<>();
+        perms.add("system_user_select");
+        perms.add("system:role:*");
+        perms.add("system:*:export");
+        PermissionIndex index = new PermissionIndex(perms);
+
+        Assert.assertTrue(index.isPermitted("system_user_select"));
+        Assert.assertFalse(index.isPermitted("SYSTEM_USER_SELECT"));
+        Assert.assertTrue(index.isPermittedIgnoreCase("SYSTEM_USER_SELECT"));
+        Assert.assertTrue(index.isPermitted("system:role:update"));
+        Assert.assertTrue(index.isPermitted("system:role:update:all"));
+        Assert.assertTrue(index.isPermitted("system:menu:export"));
+        Assert.assertFalse(index.isPermitted("system:menu:import"));
+        Assert.assertTrue(PermissionIndex.EMPTY.isEmpty());
+    }
+
+    /**
+     * 简单权限 索引结果 (允许 / 拒绝) 与 Shiro WildcardPermission.implies 完全一致
+     */
+    @Test
+    public void shiroParity() {
+        List<String> perms = new ArrayList<>();
+        perms.add("system_user_select");
+        perms.add("System:Menu");
+        perms.add("system:role:*");
+        perms.add("system:*:export");
+        perms.add("system:*:import:file");
+        perms.add("*:log:select");
+        PermissionIndex index = new PermissionIndex(perms);
+        Assert.assertTrue(index.isAllSimple());
+
+        List<Permission> shiroPerms = new ArrayList<>(perms.size());
+        for (String perm : perms) {
+            shiroPerms.add(new WildcardPermission(perm));
+        }
+
+        String[] checks = {
+                "system_user_select", "SYSTEM_USER_SELECT", "system_user_select:all", "system_user",
+                "system", "system:menu", "system:menu:select", "SYSTEM:MENU:SELECT:ALL", "system:menus",
+                "system:role", "system:role:update", "system:role:update:all", "system:*",
+                "system:user:export", "system:user:export:all", "system:user", "system:user:import",
+                "system:user:import:file", "system:user:import:file:xls", "system:user:import:url",
+                "tenant:log:select", "tenant:log:select:all", "tenant:log", "tenant:log:delete", "*",
+                "other", "other:select"
+        };
+        for (String check : checks) {
+            Permission permission = new WildcardPermission(check);
+            boolean expected = false;
+            for (Permission perm : shiroPerms) {
+                if(perm.implies(permission)){
+                    expected = true;
+                    break;
+                }
+            }
+            Assert.assertEquals(check, expected, index.isPermittedIgnoreCase(permission.toString()));
+        }
+
+        // 多值段 / 段内通配 / 空段 不是简单权限
+        Assert.assertFalse(new PermissionIndex(Collections.singletonList("system:user:select,update")).isAllSimple());
+        Assert.assertFalse(new PermissionIndex(Collections.singletonList("system:user*")).isAllSimple());
+        Assert.assertFalse(new PermissionIndex(Collections.singletonList("system::select")).isAllSimple());
+        Assert.assertFalse(new PermissionIndex(Collections.singletonList("system:")).isAllSimple());
+        Assert.assertTrue(PermissionIndex.EMPTY.isAllSimple());
+    }
+
+    @Test
+    public void checkCost() {
+        List<String> perms = new ArrayList<>(PERM_COUNT);
+        List<Permission> shiroPerms = new ArrayList<>(PERM_COUNT);
+        for (int i = 0; i < PERM_COUNT; i++) {
+            String perm = i % 100 == 0 ? "module" + i + ":*" : "module" + i + "_select";
+            perms.add(perm);
+            shiroPerms.add(new WildcardPermission(perm));
+        }
+        PermissionIndex index = new PermissionIndex(perms);
+
+        String[] checks = new String[64];
+        for (int i = 0; i < checks.length; i++) {
+            int n = (i * 997) % PERM_COUNT;
+            checks[i] = n % 100 == 0 ? "module" + n + ":update" : "module" + n + "_select";
+        }
+
+        long indexCost = 0;
+        long shiroCost = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            int hit = 0;
+            for (int i = 0; i < CHECK_COUNT; i++) {
+                if(index.isPermittedIgnoreCase(checks[i % checks.length])){
+                    hit++;
+                }
+            }
+            indexCost = System.nanoTime() - begin;
+            Assert.assertEquals(CHECK_COUNT, hit);
+
+            begin = System.nanoTime();
+            hit = 0;
+            for (int i = 0; i < CHECK_COUNT / 100; i++) {
+                Permission permission = new WildcardPermission(checks[i % checks.length]);
+                for (Permission perm : shiroPerms) {
+                    if(perm.implies(permission)){
+                        hit++;
+                        break;
+                    }
+                }
+            }
+            // 按相同校验次数折算
+            shiroCost = (System.nanoTime() - begin) * 100;
+            Assert.assertEquals(CHECK_COUNT / 100, hit);
+        }
+
+        System.out.println("权限条数: " + PERM_COUNT + " 校验次数: " + CHECK_COUNT);
+        System.out.println("权限索引 耗时: " + TimeUnit.NANOSECONDS.toMillis(indexCost) + "ms");
+        System.out.println("逐条 implies 耗时 (折算): " + TimeUnit.NANOSECONDS.toMillis(shiroCost) + "ms");
+    }
+
+}
@@ -0,0 +1,352 @@
+package org.opsli.core.security.shiro.cache;
+
+import com.alibaba.fastjson.JSONObject;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opsli.plugins.redis.RedisPlugin;
+import org.opsli.plugins.redis.conf.RedisPluginConfig;
+import org.opsli.plugins.redis.jsonserializer.FastJson2JsonRedisSerializer;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用户授权信息 缓存测试
+ *
+ * 本地缓存 (不连接 Redis)；Redis 快照 版本号 (内嵌 Redis，无法启动时跳过)
+ *
+ * @author Parker
+ * @date 2021-06-09 16:20
+ */
+public class AuthorizationCacheTest {
+
+    private static final String PREFIX = "opsli:test:authorization:";
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory factory;
+    private static RedisTemplate<String, Object> template;
+
+    private RedisCache<String, Object> cache;
+
+    @BeforeClass
+    public static void startRedis() {
+        try {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            server = new RedisServer(port);
+            server.start();
+
+            factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+            factory.afterPropertiesSet();
+
+            // 与 RedisPluginConfig 保持一致的序列化方式
+            FastJson2JsonRedisSerializer<Object> serializer = new FastJson2JsonRedisSerializer<>(Object.class);
+            template = new RedisTemplate<>();
+            template.setConnectionFactory(factory);
+            template.setKeySerializer(RedisSerializer.string());
+            template.setHashKeySerializer(RedisSerializer.string());
+            template.setValueSerializer(serializer);
+            template.setHashValueSerializer(serializer);
+            template.afterPropertiesSet();
+        } catch (Exception e) {
+            stopRedis();
+        }
+    }
+
+    @AfterClass
+    public static void stopRedis() {
+        if (factory != null) {
+            factory.destroy();
+            factory = null;
+        }
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+        template = null;
+    }
+
+    @After
+    public void tearDown() {
+        ReflectionTestUtils.setField(AuthorizationCache.class, "remote", null);
+        ReflectionTestUtils.setField(AuthorizationCache.class, "redisPlugin", null);
+    }
+
+    // ======================== 本地 ========================
+
+    /**
+     * 加载一次后命中本地
+     */
+    @Test
+    public void loadOnce() {
+        String userId = "local-load-once";
+        AtomicInteger loadCount = new AtomicInteger();
+
+        AuthorizationInfo first = AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            return info("sys_user_select");
+        });
+        AuthorizationInfo second = AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            return info("sys_user_select");
+        });
+
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertSame(first, second);
+    }
+
+    /**
+     * 清除后重新加载
+     */
+    @Test
+    public void removeThenReload() {
+        String userId = "local-remove";
+        AuthorizationCache.get(userId, () -> info("sys_user_select"));
+
+        AuthorizationCache.remove(userId);
+
+        AuthorizationInfo reloaded = AuthorizationCache.get(userId, () -> info("sys_user_update"));
+        Assert.assertTrue(reloaded.getStringPermissions().contains("sys_user_update"));
+    }
+
+    /**
+     * 加载期间被清除 (权限刷新) 加载结果只返回给本次调用，不写入本地
+     */
+    @Test
+    public void removeDuringLoad() {
+        String userId = "local-remove-during-load";
+        AtomicInteger loadCount = new AtomicInteger();
+
+        AuthorizationInfo stale = AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            // 模拟 加载过程中 其他线程刷新了用户权限
+            AuthorizationCache.remove(Collections.singletonList(userId));
+            return info("stale_perm");
+        });
+        Assert.assertTrue(stale.getStringPermissions().contains("stale_perm"));
+
+        AuthorizationInfo fresh = AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            return info("fresh_perm");
+        });
+
+        Assert.assertEquals(2, loadCount.get());
+        Assert.assertTrue(fresh.getStringPermissions().contains("fresh_perm"));
+    }
+
+    /**
+     * 清除占位 之后的加载可正常写入
+     */
+    @Test
+    public void loadAfterTombstone() {
+        String userId = "local-tombstone";
+        AuthorizationCache.removeLocal(userId);
+        AtomicInteger loadCount = new AtomicInteger();
+
+        AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            return info("sys_user_select");
+        });
+        AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            return info("sys_user_select");
+        });
+
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    // ======================== Redis ========================
+
+    /**
+     * 本地清除后 命中 Redis 快照；权限刷新 递增版本号 两级同时清除后 重新加载
+     */
+    @Test
+    public void snapshotRestore() {
+        this.enableRemote();
+        String userId = "redis-snapshot";
+        AtomicInteger loadCount = new AtomicInteger();
+
+        AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            return info("admin", "sys_user_select");
+        });
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(0L, this.snapshotVersion(userId));
+
+        // 只清除本地 (其他服务器收到通知时) 从 Redis 快照恢复
+        AuthorizationCache.removeLocal(userId);
+        AuthorizationInfo restored = AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            return info("admin", "sys_user_select");
+        });
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertTrue(restored.getRoles().contains("admin"));
+        Assert.assertTrue(restored.getStringPermissions().contains("sys_user_select"));
+
+        // 权限刷新 两级同时清除
+        AuthorizationCache.remove(userId);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1L, this.version(userId));
+        AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            return info("admin", "sys_user_update");
+        });
+        Assert.assertEquals(2, loadCount.get());
+        Assert.assertEquals(1L, this.snapshotVersion(userId));
+    }
+
+    /**
+     * 同一服务器 加载期间被清除 结果不写入 Redis
+     */
+    @Test
+    public void removeDuringLoadNotWritten() {
+        this.enableRemote();
+        String userId = "redis-remove-during-load";
+
+        AuthorizationCache.get(userId, () -> {
+            AuthorizationCache.remove(userId);
+            return info("admin", "stale_perm");
+        });
+
+        Assert.assertNull(cache.get(userId));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    /**
+     * 其他服务器 加载期间清除 (本地占位不变) 由版本号拒绝写入
+     */
+    @Test
+    public void otherServerRemoveDuringLoad() throws Exception {
+        this.enableRemote();
+        String userId = "redis-other-server";
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch removed = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<AuthorizationInfo> future = executor.submit(() -> AuthorizationCache.get(userId, () -> {
+                loading.countDown();
+                try {
+                    Assert.assertTrue(removed.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return info("admin", "stale_perm");
+            }));
+
+            Assert.assertTrue(loading.await(10, TimeUnit.SECONDS));
+            // 其他服务器清除 只影响 Redis
+            template.opsForValue().increment(AuthorizationCache.getVersionKey(userId));
+            cache.remove(userId);
+            removed.countDown();
+
+            Assert.assertTrue(future.get(10, TimeUnit.SECONDS).getStringPermissions().contains("stale_perm"));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertNull(cache.get(userId));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    /**
+     * 版本号不一致的快照 (清除前开始的写入) 视为不存在
+     */
+    @Test
+    public void staleSnapshotIgnored() {
+        this.enableRemote();
+        String userId = "redis-stale-snapshot";
+        AtomicInteger loadCount = new AtomicInteger();
+
+        AuthorizationCache.remove(userId);
+        Assert.assertEquals(1L, this.version(userId));
+
+        // 模拟 清除前开始的加载 在清除之后直接写入了旧版本快照
+        JSONObject stale = new JSONObject();
+        stale.put("version", 0L);
+        stale.put("roles", Collections.singletonList("admin"));
+        stale.put("perms", Collections.singletonList("stale_perm"));
+        cache.put(userId, stale);
+
+        AuthorizationInfo info = AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            return info("admin", "fresh_perm");
+        });
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertTrue(info.getStringPermissions().contains("fresh_perm"));
+        // 重新写入当前版本快照
+        Assert.assertEquals(1L, this.snapshotVersion(userId));
+
+        AuthorizationCache.removeLocal(userId);
+        AuthorizationInfo restored = AuthorizationCache.get(userId, () -> {
+            loadCount.incrementAndGet();
+            return info("admin", "fresh_perm");
+        });
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertTrue(restored.getStringPermissions().contains("fresh_perm"));
+    }
+
+    // ====================================================================
+
+    /**
+     * 启用 Redis (内嵌 Redis 不可用时跳过)
+     */
+    private void enableRemote() {
+        Assume.assumeNotNull(template);
+        RedisManager redisManager = new RedisManager();
+        ReflectionTestUtils.setField(redisManager, "redisTemplate", template);
+        cache = new RedisCache<>(redisManager, PREFIX, 600, null);
+        cache.clear();
+
+        RedisPlugin redisPlugin = new RedisPlugin();
+        ReflectionTestUtils.setField(redisPlugin, "redisTemplate", template);
+        ReflectionTestUtils.setField(redisPlugin, "redisScriptCache", new RedisPluginConfig().loadScripts());
+
+        ReflectionTestUtils.setField(AuthorizationCache.class, "remote", cache);
+        ReflectionTestUtils.setField(AuthorizationCache.class, "redisPlugin", redisPlugin);
+    }
+
+    private long version(String userId) {
+        Object version = template.opsForValue().get(AuthorizationCache.getVersionKey(userId));
+        return version == null ? 0L : Long.parseLong(version.toString());
+    }
+
+    private long snapshotVersion(String userId) {
+        JSONObject snapshot = (JSONObject) cache.get(userId);
+        Assert.assertNotNull(snapshot);
+        return snapshot.getLongValue("version");
+    }
+
+    private static SimpleAuthorizationInfo info(String perm) {
+        SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+        info.addStringPermission(perm);
+        return info;
+    }
+
+    private static SimpleAuthorizationInfo info(String role, String perm) {
+        SimpleAuthorizationInfo info = info(perm);
+        info.addRole(role);
+        return info;
+    }
+
+}
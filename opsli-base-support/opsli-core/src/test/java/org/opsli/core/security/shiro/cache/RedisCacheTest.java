@@ -0,0 +1,151 @@
+package org.opsli.core.security.shiro.cache;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opsli.plugins.redis.jsonserializer.FastJson2JsonRedisSerializer;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+
+/**
+ * Shiro Redis 缓存 索引测试 (内嵌 Redis，无法启动时跳过)
+ *
+ * @author Parker
+ * @date 2021-06-09 16:40
+ */
+public class RedisCacheTest {
+
+    private static final String PREFIX = "opsli:test:authorization:";
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory factory;
+    private static RedisManager redisManager;
+
+    private RedisCache<String, Object> cache;
+
+    @BeforeClass
+    public static void startRedis() {
+        try {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            server = new RedisServer(port);
+            server.start();
+
+            factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+            factory.afterPropertiesSet();
+
+            // 与 RedisPluginConfig 保持一致的序列化方式
+            FastJson2JsonRedisSerializer<Object> serializer = new FastJson2JsonRedisSerializer<>(Object.class);
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(factory);
+            template.setKeySerializer(RedisSerializer.string());
+            template.setHashKeySerializer(RedisSerializer.string());
+            template.setValueSerializer(serializer);
+            template.setHashValueSerializer(serializer);
+            template.afterPropertiesSet();
+
+            redisManager = new RedisManager();
+            ReflectionTestUtils.setField(redisManager, "redisTemplate", template);
+        } catch (Exception e) {
+            stopRedis();
+        }
+    }
+
+    @AfterClass
+    public static void stopRedis() {
+        ReflectionTestUtils.setField(AuthorizationCache.class, "remote", null);
+        if (factory != null) {
+            factory.destroy();
+            factory = null;
+        }
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+        redisManager = null;
+    }
+
+    @Before
+    public void setUp() {
+        Assume.assumeNotNull(redisManager);
+        cache = new RedisCache<>(redisManager, PREFIX, 600, null);
+        cache.clear();
+    }
+
+    /**
+     * 写入后登记索引，keys / size / values 基于索引
+     */
+    @Test
+    public void putAndIndex() {
+        cache.put("u1", "v1");
+        cache.put("u2", "v2");
+        cache.put("u3", "v3");
+
+        Assert.assertEquals(3, cache.size());
+        Assert.assertTrue(cache.keys().containsAll(Arrays.asList(PREFIX + "u1", PREFIX + "u2", PREFIX + "u3")));
+        Assert.assertEquals(3, cache.values().size());
+        Assert.assertEquals("v2", cache.get("u2"));
+    }
+
+    /**
+     * 删除 同时移出索引
+     */
+    @Test
+    public void removeAndUnindex() {
+        cache.put("u1", "v1");
+        cache.put("u2", "v2");
+        cache.put("u3", "v3");
+
+        Assert.assertEquals("v1", cache.remove("u1"));
+        Assert.assertNull(cache.get("u1"));
+        Assert.assertEquals(2, cache.size());
+
+        cache.removeAll(Arrays.asList("u2", "u3"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertTrue(cache.keys().isEmpty());
+    }
+
+    /**
+     * 取值时 清理索引中已失效的Key
+     */
+    @Test
+    public void valuesCleanExpired() {
+        cache.put("u1", "v1");
+        cache.put("u2", "v2");
+        // 模拟过期
+        redisManager.del(PREFIX + "u2");
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.values().size());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    /**
+     * 清空 只处理索引内的Key
+     */
+    @Test
+    public void clear() {
+        cache.put("u1", "v1");
+        redisManager.set(PREFIX + "other", "other");
+
+        cache.clear();
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.get("u1"));
+        Assert.assertEquals("other", redisManager.get(PREFIX + "other"));
+        redisManager.del(PREFIX + "other");
+    }
+
+}
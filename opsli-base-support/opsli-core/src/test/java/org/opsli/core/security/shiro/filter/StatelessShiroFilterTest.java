@@ -0,0 +1,308 @@
+package org.opsli.core.security.shiro.filter;
+
+import cn.hutool.core.codec.Base64;
+import com.alibaba.fastjson.JSONObject;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.session.mgt.DefaultSessionManager;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.web.mgt.DefaultWebSecurityManager;
+import org.apache.shiro.web.subject.WebSubject;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opsli.api.wrapper.system.user.UserModel;
+import org.opsli.common.constants.TokenTypeConstants;
+import org.opsli.core.autoconfigure.conf.ShiroConfig;
+import org.opsli.core.autoconfigure.properties.GlobalProperties;
+import org.opsli.core.cache.local.CacheUtil;
+import org.opsli.core.utils.JwtUtil;
+import org.opsli.core.utils.UserTokenUtil;
+import org.opsli.core.utils.UserUtil;
+import org.opsli.plugins.redis.RedisPlugin;
+import org.opsli.plugins.redis.jsonserializer.FastJson2JsonRedisSerializer;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无状态模式 负载测试 (内嵌 Redis，无法启动时跳过)
+ *
+ * 以真实 ShiroConfig 与 CustomShiroFilter 处理请求，对比 无状态模式 与 原有登录模式：
+ * 会话数 (堆内存占用)、认证耗时
+ *
+ * @author Parker
+ * @date 2021-06-09 22:00
+ */
+public class StatelessShiroFilterTest {
+
+    /** 缓存前缀 */
+    private static final String PREFIX = "opsli-test:";
+    /** 凭证前缀 */
+    private static final String TICKET_PREFIX = "ticket:";
+    /** 超级管理员 */
+    private static final String SUPER_ADMIN = "system";
+    /** 请求数 */
+    private static final int REQUEST_COUNT = 20_000;
+    /** 轮数 (首轮预热) */
+    private static final int ROUNDS = 3;
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory factory;
+    private static RedisPlugin redisPlugin;
+    private static String token;
+
+    @BeforeClass
+    public static void startRedis() {
+        try {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            server = new RedisServer(port);
+            server.start();
+
+            factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+            factory.afterPropertiesSet();
+
+            // 与 RedisPluginConfig 保持一致的序列化方式
+            FastJson2JsonRedisSerializer<Object> serializer = new FastJson2JsonRedisSerializer<>(Object.class);
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(factory);
+            template.setKeySerializer(RedisSerializer.string());
+            template.setHashKeySerializer(RedisSerializer.string());
+            template.setValueSerializer(serializer);
+            template.setHashValueSerializer(serializer);
+            template.afterPropertiesSet();
+
+            redisPlugin = new RedisPlugin();
+            ReflectionTestUtils.setField(redisPlugin, "redisTemplate", template);
+        } catch (Exception e) {
+            stopRedis();
+            return;
+        }
+
+        GlobalProperties globalProperties = createGlobalProperties(true);
+        ReflectionTestUtils.setField(CacheUtil.class, "PREFIX_NAME", PREFIX);
+        ReflectionTestUtils.setField(CacheUtil.class, "redisPlugin", redisPlugin);
+        ReflectionTestUtils.setField(CacheUtil.class, "IS_INIT", true);
+        new JwtUtil().init(globalProperties);
+        new UserTokenUtil().init(globalProperties, redisPlugin);
+        new UserUtil().init(globalProperties, null, null, null);
+
+        // 超级管理员 不校验租户
+        UserModel user = new UserModel();
+        user.setId("stateless-user");
+        user.setUsername(SUPER_ADMIN);
+        user.setEnable("1");
+        CacheUtil.put(UserUtil.PREFIX_ID + user.getId(), user);
+
+        token = JwtUtil.sign(TokenTypeConstants.TYPE_SYSTEM, user.getUsername(), user.getId(), "0", true);
+        redisPlugin.sPut(PREFIX + TICKET_PREFIX + user.getUsername(), token);
+    }
+
+    @AfterClass
+    public static void stopRedis() {
+        SecurityUtils.setSecurityManager(null);
+        if (factory != null) {
+            factory.destroy();
+            factory = null;
+        }
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+        redisPlugin = null;
+    }
+
+    @Before
+    public void setUp() {
+        Assume.assumeNotNull(redisPlugin);
+    }
+
+    /**
+     * 无状态模式 绑定已认证用户 不创建会话；原有模式 每次请求登录 并创建会话
+     */
+    @Test
+    public void noSessionPerRequest() throws Exception {
+        DefaultWebSecurityManager statelessManager = createSecurityManager(true);
+        CustomShiroFilter statelessFilter = new CustomShiroFilter(true);
+        for (int i = 0; i < 100; i++) {
+            Subject subject = this.handle(statelessManager, statelessFilter, token);
+            Assert.assertNotNull(subject);
+            Assert.assertTrue(subject.isAuthenticated());
+            Assert.assertEquals("stateless-user", ((UserModel) subject.getPrincipal()).getId());
+            Assert.assertNull(subject.getSession(false));
+        }
+        Assert.assertEquals(0, activeSessions(statelessManager));
+
+        DefaultWebSecurityManager loginManager = createSecurityManager(false);
+        CustomShiroFilter loginFilter = new CustomShiroFilter(false);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertNotNull(this.handle(loginManager, loginFilter, token));
+        }
+        Assert.assertEquals(100, activeSessions(loginManager));
+    }
+
+    /**
+     * 无状态模式 Token 无效时 返回与原有模式一致的错误
+     */
+    @Test
+    public void invalidToken() throws Exception {
+        // 未登记凭证的 Token
+        String invalid = JwtUtil.sign(TokenTypeConstants.TYPE_SYSTEM, "stateless-missing", "stateless-user", "0", true);
+
+        MockHttpServletResponse statelessResponse = new MockHttpServletResponse();
+        Assert.assertNull(this.handle(createSecurityManager(true), new CustomShiroFilter(true),
+                invalid, statelessResponse));
+
+        MockHttpServletResponse loginResponse = new MockHttpServletResponse();
+        Assert.assertNull(this.handle(createSecurityManager(false), new CustomShiroFilter(false),
+                invalid, loginResponse));
+
+        JSONObject statelessError = JSONObject.parseObject(statelessResponse.getContentAsString());
+        JSONObject loginError = JSONObject.parseObject(loginResponse.getContentAsString());
+        Assert.assertNotNull(statelessError);
+        Assert.assertEquals(loginError.getInteger("code"), statelessError.getInteger("code"));
+        Assert.assertEquals(loginError.getString("msg"), statelessError.getString("msg"));
+    }
+
+    /**
+     * 负载测试 无状态模式 对比 原有登录模式 (会话数、堆内存增长、认证耗时)
+     */
+    @Test
+    public void load() throws Exception {
+        DefaultWebSecurityManager statelessManager = createSecurityManager(true);
+        DefaultWebSecurityManager loginManager = createSecurityManager(false);
+        CustomShiroFilter statelessFilter = new CustomShiroFilter(true);
+        CustomShiroFilter loginFilter = new CustomShiroFilter(false);
+
+        long statelessCost = 0;
+        long loginCost = 0;
+        long statelessHeap = 0;
+        long loginHeap = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long heap = usedHeap();
+            long begin = System.nanoTime();
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                this.handle(statelessManager, statelessFilter, token);
+            }
+            statelessCost = System.nanoTime() - begin;
+            statelessHeap = usedHeap() - heap;
+
+            heap = usedHeap();
+            begin = System.nanoTime();
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                this.handle(loginManager, loginFilter, token);
+            }
+            loginCost = System.nanoTime() - begin;
+            loginHeap = usedHeap() - heap;
+        }
+
+        Assert.assertEquals(0, activeSessions(statelessManager));
+        Assert.assertEquals((long) REQUEST_COUNT * ROUNDS, activeSessions(loginManager));
+
+        System.out.println("请求数: " + REQUEST_COUNT);
+        System.out.println("无状态模式 耗时: " + TimeUnit.NANOSECONDS.toMillis(statelessCost) + "ms"
+                + " 会话数: " + activeSessions(statelessManager)
+                + " 堆增长: " + statelessHeap / 1024 + "KB");
+        System.out.println("登录模式 耗时: " + TimeUnit.NANOSECONDS.toMillis(loginCost) + "ms"
+                + " 会话数: " + activeSessions(loginManager)
+                + " 堆增长: " + loginHeap / 1024 + "KB");
+    }
+
+    /**
+     * 处理请求 (同 ShiroFilter：先绑定请求 Subject，再执行过滤器)
+     * @param securityManager 安全管理器
+     * @param filter 过滤器
+     * @param accessToken Token
+     * @return Subject 认证通过后的 Subject 失败返回 null
+     */
+    private Subject handle(DefaultWebSecurityManager securityManager, CustomShiroFilter filter,
+                           String accessToken) throws Exception {
+        return this.handle(securityManager, filter, accessToken, new MockHttpServletResponse());
+    }
+
+    /**
+     * 处理请求 (同 ShiroFilter：先绑定请求 Subject，再执行过滤器)
+     * @param securityManager 安全管理器
+     * @param filter 过滤器
+     * @param accessToken Token
+     * @param response 响应
+     * @return Subject 认证通过后的 Subject 失败返回 null
+     */
+    private Subject handle(DefaultWebSecurityManager securityManager, CustomShiroFilter filter,
+                           String accessToken, MockHttpServletResponse response) throws Exception {
+        SecurityUtils.setSecurityManager(securityManager);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/test");
+        request.addHeader(UserTokenUtil.TOKEN_NAME, accessToken);
+
+        WebSubject subject = new WebSubject.Builder(securityManager, request, response).buildWebSubject();
+        return subject.execute(() ->
+                filter.onPreHandle(request, response, null) ? SecurityUtils.getSubject() : null);
+    }
+
+    /**
+     * 创建安全管理器 (与 ShiroConfig 一致)
+     * @param stateless 无状态模式
+     * @return DefaultWebSecurityManager
+     */
+    private static DefaultWebSecurityManager createSecurityManager(boolean stateless) {
+        GlobalProperties globalProperties = createGlobalProperties(stateless);
+        ShiroConfig shiroConfig = new ShiroConfig();
+        return shiroConfig.securityManager(shiroConfig.sessionManager(globalProperties), globalProperties);
+    }
+
+    /**
+     * 全局配置
+     * @param stateless 无状态模式
+     * @return GlobalProperties
+     */
+    private static GlobalProperties createGlobalProperties(boolean stateless) {
+        GlobalProperties.Auth.Token token = new GlobalProperties.Auth.Token();
+        token.setSecret(Base64.encode("opsli-test-secret"));
+        token.setEffectiveTime(120);
+        token.setStateless(stateless);
+        GlobalProperties.Auth.Login login = new GlobalProperties.Auth.Login();
+        login.setReviveMode(false);
+        login.setLimitCount(-1);
+        GlobalProperties.Auth auth = new GlobalProperties.Auth();
+        auth.setToken(token);
+        auth.setLogin(login);
+        auth.setSuperAdmin(SUPER_ADMIN);
+        GlobalProperties globalProperties = new GlobalProperties();
+        globalProperties.setAuth(auth);
+        return globalProperties;
+    }
+
+    /**
+     * 当前会话数
+     * @param securityManager 安全管理器
+     * @return long
+     */
+    private static long activeSessions(DefaultWebSecurityManager securityManager) {
+        return ((DefaultSessionManager) securityManager.getSessionManager())
+                .getSessionDAO().getActiveSessions().size();
+    }
+
+    /**
+     * 已用堆内存 (GC 后)
+     * @return long
+     */
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
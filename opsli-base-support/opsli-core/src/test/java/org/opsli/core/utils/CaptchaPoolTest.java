@@ -0,0 +1,201 @@
+package org.opsli.core.utils;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 预生成验证码池测试
+ *
+ * 使用 CaptchaUtil 的真实验证码策略渲染 (无可用字体时跳过)，
+ * 对比 登录高峰 (平稳请求后突发请求) 下 预生成池 与 同步渲染 的 p99 耗时
+ *
+ * @author Parker
+ * @date 2021-06-10 16:00
+ */
+public class CaptchaPoolTest {
+
+    /** 平稳阶段 请求速率 (次/秒) */
+    private static final int STEADY_RATE = 25;
+    /** 平稳阶段 时长 (秒) */
+    private static final int STEADY_SECONDS = 4;
+    /** 突发请求数 */
+    private static final int BURST_COUNT = 100;
+    /** 突发请求 并发线程数 */
+    private static final int BURST_THREADS = 4;
+
+    private static List<Supplier<CaptchaPool.Rendered>> renderers;
+
+    @BeforeClass
+    @SuppressWarnings("unchecked")
+    public static void init() {
+        System.setProperty("java.awt.headless", "true");
+
+        List<CaptchaUtil.CaptchaStrategy> strategies =
+                (List<CaptchaUtil.CaptchaStrategy>) ReflectionTestUtils.getField(CaptchaUtil.class, "CAPTCHA_STRATEGY_LIST");
+        Assert.assertNotNull(strategies);
+
+        renderers = new ArrayList<>(strategies.size());
+        for (CaptchaUtil.CaptchaStrategy strategy : strategies) {
+            renderers.add(() -> ReflectionTestUtils.invokeMethod(CaptchaUtil.class, "render", strategy));
+        }
+
+        // 运行环境 无法渲染 (缺少字体) 时跳过
+        try {
+            for (Supplier<CaptchaPool.Rendered> renderer : renderers) {
+                renderer.get();
+            }
+        }catch (Throwable e){
+            renderers = null;
+        }
+    }
+
+    /**
+     * 预生成后 每张只取出一次
+     */
+    @Test
+    public void takeOnce() throws InterruptedException {
+        Assume.assumeNotNull(renderers);
+        CaptchaPool pool = new CaptchaPool(renderers);
+        try {
+            awaitFilled(pool, 4);
+
+            Set<CaptchaPool.Rendered> taken = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < renderers.size(); i++) {
+                for (int j = 0; j < 4; j++) {
+                    CaptchaPool.Rendered rendered = pool.take(i);
+                    Assert.assertTrue(rendered.getImage().length > 0);
+                    Assert.assertFalse(rendered.getText().isEmpty());
+                    Assert.assertTrue(taken.add(rendered));
+                }
+            }
+            Assert.assertEquals(0, pool.getMissCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 平稳请求后突发请求 p99 耗时 对比 同步渲染
+     */
+    @Test
+    public void burstP99() throws Exception {
+        Assume.assumeNotNull(renderers);
+        CaptchaPool pool = new CaptchaPool(renderers);
+        try {
+            Random random = new Random(1L);
+            awaitFilled(pool, 4);
+
+            // 平稳阶段 让补充目标跟随请求速率
+            List<Long> steady = new ArrayList<>();
+            long interval = TimeUnit.SECONDS.toNanos(1) / STEADY_RATE;
+            for (int i = 0; i < STEADY_RATE * STEADY_SECONDS; i++) {
+                long begin = System.nanoTime();
+                pool.take(random.nextInt(renderers.size()));
+                long cost = System.nanoTime() - begin;
+                steady.add(cost);
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, interval - cost));
+            }
+            long steadyMiss = pool.getMissCount();
+
+            List<Long> pooled = burst(index -> pool.take(index));
+            long burstMiss = pool.getMissCount() - steadyMiss;
+            List<Long> sync = burst(index -> renderers.get(index).get());
+
+            System.out.println("平稳阶段 " + STEADY_RATE + " 次/秒 x " + STEADY_SECONDS + "秒 命中率: "
+                    + (steady.size() - steadyMiss) * 100 / steady.size() + "% p99: " + p99(steady) + "us");
+            System.out.println("突发 " + BURST_COUNT + " 次 预生成池 p99: " + p99(pooled) + "us"
+                    + " 未命中: " + burstMiss);
+            System.out.println("突发 " + BURST_COUNT + " 次 同步渲染 p99: " + p99(sync) + "us");
+
+            Assert.assertTrue(steadyMiss < steady.size());
+            Assert.assertTrue(burstMiss < BURST_COUNT);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 突发请求
+     * @param taker 获取方式 (参数为策略下标)
+     * @return List 每次请求耗时 纳秒
+     */
+    private static List<Long> burst(Taker taker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BURST_THREADS);
+        try {
+            Random random = new Random(2L);
+            List<Future<Long>> futures = new ArrayList<>(BURST_COUNT);
+            for (int i = 0; i < BURST_COUNT; i++) {
+                int index = random.nextInt(renderers.size());
+                futures.add(executor.submit(() -> {
+                    long begin = System.nanoTime();
+                    Assert.assertNotNull(taker.take(index));
+                    return System.nanoTime() - begin;
+                }));
+            }
+            List<Long> costs = new ArrayList<>(BURST_COUNT);
+            for (Future<Long> future : futures) {
+                costs.add(future.get(1, TimeUnit.MINUTES));
+            }
+            return costs;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 等待各策略 预生成到指定数量
+     * @param pool 预生成池
+     * @param size 数量
+     */
+    private static void awaitFilled(CaptchaPool pool, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (int i = 0; i < renderers.size(); i++) {
+            while (pool.getSize(i) < size && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assert.assertTrue(pool.getSize(i) >= size);
+        }
+    }
+
+    /**
+     * p99 耗时
+     * @param costs 耗时 纳秒
+     * @return long 微秒
+     */
+    private static long p99(List<Long> costs) {
+        List<Long> sorted = new ArrayList<>(costs);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(sorted.size() * 0.99) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(sorted.get(Math.max(index, 0)));
+    }
+
+    /**
+     * 获取方式
+     */
+    @FunctionalInterface
+    private interface Taker {
+
+        /**
+         * 获取验证码
+         * @param index 策略下标
+         * @return CaptchaPool.Rendered
+         */
+        CaptchaPool.Rendered take(int index);
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.opsli.core.utils;
+
+import cn.hutool.core.codec.Base64;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opsli.common.constants.SignConstants;
+import org.opsli.common.constants.TokenTypeConstants;
+import org.opsli.core.autoconfigure.properties.GlobalProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 校验缓存测试
+ *
+ * @author Parker
+ * @date 2021-06-09 19:50
+ */
+public class JwtVerifyCacheTest {
+
+    /** 盐值 */
+    private static final String SECRET = "opsli-test-secret";
+    /** 请求数 */
+    private static final int REQUEST_COUNT = 20_000;
+    /** 轮数 (首轮预热) */
+    private static final int ROUNDS = 3;
+
+    @BeforeClass
+    public static void init() {
+        GlobalProperties.Auth.Token token = new GlobalProperties.Auth.Token();
+        token.setSecret(Base64.encode(SECRET));
+        token.setEffectiveTime(120);
+        GlobalProperties.Auth auth = new GlobalProperties.Auth();
+        auth.setToken(token);
+        GlobalProperties globalProperties = new GlobalProperties();
+        globalProperties.setAuth(auth);
+        new JwtUtil().init(globalProperties);
+    }
+
+    /**
+     * 同一 Token 只解析一次，退出后清除
+     */
+    @Test
+    public void cacheEntry() {
+        String token = JwtUtil.sign(TokenTypeConstants.TYPE_SYSTEM, "cache", "1", "0", true);
+
+        Assert.assertTrue(JwtUtil.verify(token));
+        Assert.assertSame(JwtVerifyCache.get(token), JwtVerifyCache.get(token));
+        Assert.assertEquals("1", JwtUtil.getClaim(token, SignConstants.USER_ID));
+        Assert.assertEquals(Boolean.TRUE, JwtVerifyCache.get(token).getVerified());
+
+        JwtVerifyCache.Entry entry = JwtVerifyCache.get(token);
+        JwtVerifyCache.remove(token);
+        Assert.assertNotSame(entry, JwtVerifyCache.get(token));
+        Assert.assertNull(JwtVerifyCache.get(token).getVerified());
+    }
+
+    /**
+     * 签名被篡改 每次校验均失败
+     */
+    @Test
+    public void tampered() {
+        String token = JwtUtil.sign(TokenTypeConstants.TYPE_SYSTEM, "tampered", "2", "0", true);
+        int index = token.lastIndexOf('.') + 1;
+        char c = token.charAt(index);
+        String forged = token.substring(0, index) + (c == 'A' ? 'B' : 'A') + token.substring(index + 1);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                JwtUtil.verify(forged);
+                Assert.fail();
+            }catch (JWTVerificationException ignored){}
+        }
+        Assert.assertEquals(Boolean.FALSE, JwtVerifyCache.get(forged).getVerified());
+        Assert.assertTrue(JwtUtil.verify(token));
+    }
+
+    /**
+     * 每次请求 校验签名 + 读取 3 个字段，对比 每次重新解析、创建校验器
+     */
+    @Test
+    public void verifyCost() {
+        String token = JwtUtil.sign(TokenTypeConstants.TYPE_SYSTEM, "bench", "3", "0", true);
+
+        long cachedCost = 0;
+        long uncachedCost = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                JwtUtil.verify(token);
+                JwtUtil.getClaim(token, SignConstants.USER_ID);
+                JwtUtil.getClaim(token, SignConstants.ACCOUNT);
+                JwtUtil.getClaim(token, SignConstants.TENANT_ID);
+            }
+            cachedCost = System.nanoTime() - begin;
+
+            // 原有实现 每次读取都重新解析 每次校验都重新创建校验器
+            begin = System.nanoTime();
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                String account = JWT.decode(token).getClaim(SignConstants.ACCOUNT).asString();
+                DecodedJWT jwt = JWT.require(Algorithm.HMAC256(account + SECRET)).build().verify(token);
+                Assert.assertNotNull(jwt);
+                JWT.decode(token).getClaim(SignConstants.USER_ID).asString();
+                JWT.decode(token).getClaim(SignConstants.ACCOUNT).asString();
+                JWT.decode(token).getClaim(SignConstants.TENANT_ID).asString();
+            }
+            uncachedCost = System.nanoTime() - begin;
+        }
+
+        System.out.println("请求数: " + REQUEST_COUNT);
+        System.out.println("缓存 耗时: " + TimeUnit.NANOSECONDS.toMillis(cachedCost) + "ms");
+        System.out.println("不缓存 耗时: " + TimeUnit.NANOSECONDS.toMillis(uncachedCost) + "ms");
+    }
+
+}
@@ -0,0 +1,217 @@
+package org.opsli.core.utils;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opsli.api.base.result.ResultVo;
+import org.opsli.api.web.system.user.UserApi;
+import org.opsli.api.wrapper.system.user.UserModel;
+import org.opsli.core.cache.SingleFlight;
+import org.opsli.core.cache.guard.PenetrationGuard;
+import org.opsli.core.cache.local.CacheUtil;
+import org.opsli.plugins.redis.RedisPlugin;
+import org.opsli.plugins.redis.jsonserializer.FastJson2JsonRedisSerializer;
+import org.opsli.plugins.redisson.RedissonLock;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.lang.reflect.Proxy;
+import java.net.ServerSocket;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用户工具类 并发加载测试 (内嵌 Redis，无法启动时跳过)
+ *
+ * 缓存未命中时 500 线程同时获取同一用户：
+ * 只有领航者申领一次分布式锁、查询一次数据库，其余线程共享结果
+ *
+ * @author Parker
+ * @date 2021-06-10 19:20
+ */
+public class UserUtilTest {
+
+    /** 缓存前缀 */
+    private static final String PREFIX = "opsli-test:";
+    /** 并发线程数 */
+    private static final int THREAD_COUNT = 500;
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory factory;
+    private static RedissonClient redisson;
+    private static RedisPlugin redisPlugin;
+    private static CountingRedissonLock redissonLock;
+
+    @BeforeClass
+    public static void startRedis() {
+        try {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            server = new RedisServer(port);
+            server.start();
+
+            factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+            factory.afterPropertiesSet();
+
+            // 与 RedisPluginConfig 保持一致的序列化方式
+            FastJson2JsonRedisSerializer<Object> serializer = new FastJson2JsonRedisSerializer<>(Object.class);
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(factory);
+            template.setKeySerializer(RedisSerializer.string());
+            template.setHashKeySerializer(RedisSerializer.string());
+            template.setValueSerializer(serializer);
+            template.setHashValueSerializer(serializer);
+            template.afterPropertiesSet();
+
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+            redisson = Redisson.create(config);
+
+            redisPlugin = new RedisPlugin();
+            ReflectionTestUtils.setField(redisPlugin, "redisTemplate", template);
+        } catch (Exception e) {
+            stopRedis();
+            return;
+        }
+
+        redissonLock = new CountingRedissonLock();
+        ReflectionTestUtils.setField(redissonLock, "redisson", redisson);
+
+        ReflectionTestUtils.setField(CacheUtil.class, "PREFIX_NAME", PREFIX);
+        ReflectionTestUtils.setField(CacheUtil.class, "redisPlugin", redisPlugin);
+        ReflectionTestUtils.setField(CacheUtil.class, "IS_INIT", true);
+        // 过滤器未启用 回退为 Redis 空属性判断
+        ReflectionTestUtils.setField(PenetrationGuard.class, "IS_INIT", true);
+        new DistributedLockUtil().init(redissonLock);
+    }
+
+    @AfterClass
+    public static void stopRedis() {
+        ReflectionTestUtils.setField(DistributedLockUtil.class, "REDISSON_LOCK", null);
+        ReflectionTestUtils.setField(UserUtil.class, "userApi", null);
+        if (redisson != null) {
+            redisson.shutdown();
+            redisson = null;
+        }
+        if (factory != null) {
+            factory.destroy();
+            factory = null;
+        }
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+        redisPlugin = null;
+        redissonLock = null;
+    }
+
+    /**
+     * 500 线程同时获取未缓存的用户 只查询一次数据库 只申领一次分布式锁
+     */
+    @Test
+    public void concurrentGetUser() throws Exception {
+        Assume.assumeNotNull(redisPlugin);
+        String userId = "single-flight-user";
+        String cacheKey = UserUtil.PREFIX_ID + userId;
+
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        UserApi userApi = (UserApi) Proxy.newProxyInstance(UserApi.class.getClassLoader(),
+                new Class<?>[]{UserApi.class}, (proxy, method, args) -> {
+                    if(!"get".equals(method.getName())){
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    loadCount.incrementAndGet();
+                    // 由测试线程 在其余线程全部进入等待后放行
+                    Assert.assertTrue(loading.await(30, TimeUnit.SECONDS));
+                    UserModel model = new UserModel();
+                    model.setId(((UserModel) args[0]).getId());
+                    model.setUsername("single-flight");
+                    model.setEnable("1");
+                    return ResultVo.success(model);
+                });
+        new UserUtil().init(null, userApi, null, null);
+        redissonLock.lockCount.set(0);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<UserModel> results = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                        results.add(UserUtil.getUser(userId));
+                    }catch (Throwable e){
+                        errors.add(e);
+                    }
+                });
+            }
+            start.countDown();
+
+            // 其余线程全部在等待领航者结果后 再放行查库
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (SingleFlight.getWaitingCount(cacheKey) < THREAD_COUNT - 1){
+                Assert.assertTrue("等待跟随者超时: " + SingleFlight.getWaitingCount(cacheKey),
+                        System.nanoTime() < deadline);
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            loading.countDown();
+
+            pool.shutdown();
+            Assert.assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        }finally {
+            loading.countDown();
+            pool.shutdownNow();
+        }
+
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        Assert.assertEquals(THREAD_COUNT, results.size());
+        for (UserModel user : results) {
+            Assert.assertNotNull(user);
+            Assert.assertEquals(userId, user.getId());
+        }
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertEquals(1, redissonLock.lockCount.get());
+        Assert.assertEquals(0, SingleFlight.getInFlightCount());
+
+        // 已写入缓存 再次获取不再查库
+        Assert.assertEquals(userId, UserUtil.getUser(userId).getId());
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    /**
+     * 记录申领次数的 分布式锁
+     */
+    private static final class CountingRedissonLock extends RedissonLock {
+
+        /** 申领成功次数 */
+        private final AtomicInteger lockCount = new AtomicInteger();
+
+        @Override
+        public boolean tryLock(String lockName, long leaseTime) {
+            boolean isLock = super.tryLock(lockName, leaseTime);
+            if(isLock){
+                lockCount.incrementAndGet();
+            }
+            return isLock;
+        }
+    }
+
+}
@@ -200,7 +200,7 @@ public class GenTemplateDetailRestController extends BaseRestController<GenTempl
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<GenTemplateDetail> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(GenTemplateDetailRestApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(GenTemplateDetailRestApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
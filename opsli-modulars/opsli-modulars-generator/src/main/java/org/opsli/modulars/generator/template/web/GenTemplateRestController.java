@@ -246,7 +246,7 @@ public class GenTemplateRestController extends BaseRestController<GenTemplate, G
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<GenTemplate> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(GenTemplateRestApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(GenTemplateRestApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
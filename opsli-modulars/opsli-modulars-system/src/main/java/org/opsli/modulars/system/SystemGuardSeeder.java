@@ -0,0 +1,89 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.modulars.system;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.google.common.collect.Sets;
+import org.opsli.common.constants.MyBatisConstants;
+import org.opsli.common.utils.FieldUtil;
+import org.opsli.core.cache.guard.GuardSeeder;
+import org.opsli.core.cache.guard.GuardType;
+import org.opsli.modulars.system.dict.entity.SysDict;
+import org.opsli.modulars.system.dict.mapper.DictMapper;
+import org.opsli.modulars.system.tenant.entity.SysTenant;
+import org.opsli.modulars.system.tenant.mapper.TenantMapper;
+import org.opsli.modulars.system.user.entity.SysUser;
+import org.opsli.modulars.system.user.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 系统 - 防穿透过滤器 数据加载
+ *
+ * @author Parker
+ * @date 2021-06-03 10:30
+ */
+@Component
+public class SystemGuardSeeder implements GuardSeeder {
+
+    @Autowired(required = false)
+    private UserMapper userMapper;
+
+    @Autowired(required = false)
+    private TenantMapper tenantMapper;
+
+    @Autowired(required = false)
+    private DictMapper dictMapper;
+
+    @Override
+    public Set<GuardType> getTypes() {
+        return Sets.newHashSet(GuardType.USER_ID, GuardType.USERNAME,
+                GuardType.TENANT_ID, GuardType.DICT_TYPE);
+    }
+
+    @Override
+    public void seed(BiConsumer<GuardType, String> consumer) {
+        // 用户 只查询 ID 与 用户名
+        QueryWrapper<SysUser> userWrapper = new QueryWrapper<>();
+        userWrapper.select(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_ID), "username");
+        List<SysUser> userList = userMapper.selectList(userWrapper);
+        for (SysUser sysUser : userList) {
+            consumer.accept(GuardType.USER_ID, sysUser.getId());
+            consumer.accept(GuardType.USERNAME, sysUser.getUsername());
+        }
+
+        // 租户 只查询 ID
+        QueryWrapper<SysTenant> tenantWrapper = new QueryWrapper<>();
+        tenantWrapper.select(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_ID));
+        List<SysTenant> tenantList = tenantMapper.selectList(tenantWrapper);
+        for (SysTenant sysTenant : tenantList) {
+            consumer.accept(GuardType.TENANT_ID, sysTenant.getId());
+        }
+
+        // 字典 只查询 类型编号
+        QueryWrapper<SysDict> dictWrapper = new QueryWrapper<>();
+        dictWrapper.select("type_code");
+        List<SysDict> dictList = dictMapper.selectList(dictWrapper);
+        for (SysDict sysDict : dictList) {
+            consumer.accept(GuardType.DICT_TYPE, sysDict.getTypeCode());
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.modulars.system.area.factory;
+
+import cn.hutool.core.bean.BeanUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.opsli.modulars.system.area.entity.SysArea;
+
+import java.util.Map;
+
+/**
+ * 地域树节点工厂
+ *
+ * @author Parker
+ * @date 2021-06-10 18:00
+ */
+public enum AreaFactory {
+
+    /** 实例 */
+    INSTANCE;
+
+    /** 地域树 排序字段 */
+    public static final String TREE_SORT_FIELD = "sortNo";
+
+    /**
+     * 生成地域树节点数据
+     * @param sysArea 地域
+     * @return Map
+     */
+    public Map<String, Object> createTreeData(SysArea sysArea){
+        Map<String, Object> beanToMap = BeanUtil.beanToMap(sysArea);
+        beanToMap.put(TREE_SORT_FIELD, this.getSortNo(sysArea));
+        return beanToMap;
+    }
+
+    /**
+     * 获得排序 (地域编码)
+     * @param sysArea 地域
+     * @return int
+     */
+    public int getSortNo(SysArea sysArea){
+        String areaCode = sysArea.getAreaCode();
+        int sort = 0;
+        if(StringUtils.isNotEmpty(areaCode)){
+            try {
+                sort = Integer.parseInt(areaCode);
+            }catch (Exception ignored){}
+        }
+        return sort;
+    }
+
+}
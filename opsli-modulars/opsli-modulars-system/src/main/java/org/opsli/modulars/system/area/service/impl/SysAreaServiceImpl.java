@@ -17,6 +17,7 @@ package org.opsli.modulars.system.area.service.impl;
 
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.apache.commons.lang3.StringUtils;
 import org.opsli.api.wrapper.system.area.SysAreaModel;
@@ -26,18 +27,25 @@ import org.opsli.common.exception.ServiceException;
 import org.opsli.common.utils.FieldUtil;
 import org.opsli.core.base.entity.HasChildren;
 import org.opsli.core.base.service.impl.CrudServiceImpl;
+import org.opsli.core.cache.local.TreeIndex;
 import org.opsli.core.persistence.querybuilder.GenQueryBuilder;
 import org.opsli.core.persistence.querybuilder.QueryBuilder;
+import org.opsli.core.utils.TreeIndexUtil;
 import org.opsli.modulars.system.SystemMsg;
 import org.opsli.modulars.system.area.entity.SysArea;
+import org.opsli.modulars.system.area.factory.AreaFactory;
 import org.opsli.modulars.system.area.mapper.SysAreaMapper;
 import org.opsli.modulars.system.area.service.ISysAreaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 
 /**
@@ -81,7 +89,12 @@ public class SysAreaServiceImpl extends CrudServiceImpl<SysAreaMapper, SysArea,
             model.setParentId("0");
         }
 
-        return super.insert(model);
+        SysAreaModel areaModel = super.insert(model);
+        if(areaModel != null){
+            // 更新树结构索引
+            TreeIndexUtil.put(TreeIndex.Type.AREA, areaModel.getId());
+        }
+        return areaModel;
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -98,7 +111,12 @@ public class SysAreaServiceImpl extends CrudServiceImpl<SysAreaMapper, SysArea,
             throw new ServiceException(SystemMsg.EXCEPTION_AREA_UNIQUE);
         }
 
-        return super.update(model);
+        SysAreaModel areaModel = super.update(model);
+        if(areaModel != null){
+            // 更新树结构索引
+            TreeIndexUtil.put(TreeIndex.Type.AREA, model.getId());
+        }
+        return areaModel;
     }
 
 
@@ -108,7 +126,12 @@ public class SysAreaServiceImpl extends CrudServiceImpl<SysAreaMapper, SysArea,
         // 先删除子数据
         this.deleteByParentId(id);
 
-        return super.delete(id);
+        boolean ret = super.delete(id);
+        if(ret){
+            // 更新树结构索引 (含子树)
+            TreeIndexUtil.remove(TreeIndex.Type.AREA, Collections.singletonList(id));
+        }
+        return ret;
     }
 
     @Override
@@ -119,7 +142,12 @@ public class SysAreaServiceImpl extends CrudServiceImpl<SysAreaMapper, SysArea,
             this.deleteByParentId(id);
         }
 
-        return super.deleteAll(ids);
+        boolean ret = super.deleteAll(ids);
+        if(ret){
+            // 更新树结构索引 (含子树)
+            TreeIndexUtil.remove(TreeIndex.Type.AREA, Convert.toList(String.class, ids));
+        }
+        return ret;
     }
 
     /**
@@ -178,6 +206,13 @@ public class SysAreaServiceImpl extends CrudServiceImpl<SysAreaMapper, SysArea,
         if(CollUtil.isEmpty(parentIds)){
             return null;
         }
+
+        // 优先走树结构索引
+        List<HasChildren> hasChildrenList = TreeIndexUtil.hasChildren(TreeIndex.Type.AREA, parentIds);
+        if(hasChildrenList != null){
+            return hasChildrenList;
+        }
+
         QueryWrapper<SysArea> wrapper = new QueryWrapper<>();
 
         wrapper.in(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentIds)
@@ -186,4 +221,31 @@ public class SysAreaServiceImpl extends CrudServiceImpl<SysAreaMapper, SysArea,
 
         return mapper.hasChildren(wrapper);
     }
+
+    /**
+     * 注册 树结构索引 加载器
+     */
+    @PostConstruct
+    public void initTreeIndex(){
+        TreeIndex.of(TreeIndex.Type.AREA).setLoader(
+                () -> this.findTreeNodes(null), this::findTreeNodes);
+    }
+
+    /**
+     * 获得树节点 (含地域树节点数据 按地域编码排序)
+     * @param ids 地域ID集合 为空则全部
+     * @return Collection
+     */
+    private Collection<TreeIndex.Node> findTreeNodes(Collection<String> ids){
+        QueryWrapper<SysArea> wrapper = new QueryWrapper<>();
+        wrapper.eq(MyBatisConstants.FIELD_DELETE_LOGIC,  DictType.NO_YES_NO.getValue());
+        if(ids != null){
+            wrapper.in(MyBatisConstants.FIELD_ID, ids);
+        }
+        return mapper.selectList(wrapper).stream()
+                .map(area -> new TreeIndex.Node(area.getId(), area.getParentId(),
+                        AreaFactory.INSTANCE.getSortNo(area), null,
+                        AreaFactory.INSTANCE.createTreeData(area)))
+                .collect(Collectors.toList());
+    }
 }
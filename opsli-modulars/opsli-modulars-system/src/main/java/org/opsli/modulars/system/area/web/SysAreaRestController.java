@@ -15,7 +15,6 @@
 */
 package org.opsli.modulars.system.area.web;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.convert.Convert;
 import cn.hutool.core.io.IoUtil;
@@ -33,7 +32,6 @@ import com.google.common.collect.Sets;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.opsli.api.base.result.ResultVo;
 import org.opsli.api.web.system.area.SysAreaRestApi;
@@ -46,10 +44,13 @@ import org.opsli.common.constants.TreeConstants;
 import org.opsli.common.utils.FieldUtil;
 import org.opsli.core.base.controller.BaseRestController;
 import org.opsli.core.base.entity.HasChildren;
+import org.opsli.core.cache.local.TreeIndex;
 import org.opsli.core.persistence.querybuilder.QueryBuilder;
 import org.opsli.core.persistence.querybuilder.WebQueryBuilder;
 import org.opsli.core.utils.TreeBuildUtil;
+import org.opsli.core.utils.TreeIndexUtil;
 import org.opsli.modulars.system.area.entity.SysArea;
+import org.opsli.modulars.system.area.factory.AreaFactory;
 import org.opsli.modulars.system.area.service.ISysAreaService;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
@@ -76,7 +77,7 @@ public class SysAreaRestController extends BaseRestController<SysArea, SysAreaMo
     implements SysAreaRestApi {
 
     /** 排序字段 */
-    private static final String SORT_FIELD = "sortNo";
+    private static final String SORT_FIELD = AreaFactory.TREE_SORT_FIELD;
 
     /**
     * 地域 查一条
@@ -102,14 +103,6 @@ public class SysAreaRestController extends BaseRestController<SysArea, SysAreaMo
     @RequiresPermissions("system_area_select")
     @Override
     public ResultVo<?> findTree(String parentId) {
-
-        QueryWrapper<SysArea> wrapper = new QueryWrapper<>();
-        wrapper.eq(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentId);
-        List<SysArea> dataList =  IService.findList(wrapper);
-
-        // 获得BeanMapList
-        List<Map<String, Object>> beanMapList = this.getBeanMapList(dataList);
-
         //配置
         TreeNodeConfig treeNodeConfig = new TreeNodeConfig();
         // 自定义属性名 都要默认值的
@@ -117,8 +110,20 @@ public class SysAreaRestController extends BaseRestController<SysArea, SysAreaMo
         // 最大递归深度 最多支持1层
         treeNodeConfig.setDeep(1);
 
-        //转换器
-        List<Tree<Object>> treeNodes = TreeBuildUtil.INSTANCE.build(beanMapList, parentId, treeNodeConfig);
+        // 优先走树结构索引
+        List<Tree<Object>> treeNodes = TreeIndexUtil.buildTree(
+                TreeIndex.Type.AREA, parentId, treeNodeConfig, null);
+        if(treeNodes == null){
+            QueryWrapper<SysArea> wrapper = new QueryWrapper<>();
+            wrapper.eq(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentId);
+            List<SysArea> dataList =  IService.findList(wrapper);
+
+            // 获得BeanMapList
+            List<Map<String, Object>> beanMapList = this.getBeanMapList(dataList);
+
+            //转换器
+            treeNodes = TreeBuildUtil.INSTANCE.build(beanMapList, parentId, treeNodeConfig);
+        }
 
         // 处理是否包含子集
         super.handleTreeHasChildren(treeNodes,
@@ -139,12 +144,6 @@ public class SysAreaRestController extends BaseRestController<SysArea, SysAreaMo
     @RequiresPermissions("system_area_select")
     @Override
     public ResultVo<?> findTreeAll(Integer deep) {
-
-        List<SysArea> dataList =  IService.findList(new QueryWrapper<>());
-
-        // 获得BeanMapList
-        List<Map<String, Object>> beanMapList = this.getBeanMapList(dataList);
-
         //配置
         TreeNodeConfig treeNodeConfig = new TreeNodeConfig();
         // 自定义属性名 都要默认值的
@@ -152,8 +151,18 @@ public class SysAreaRestController extends BaseRestController<SysArea, SysAreaMo
         // 最大递归深度 最多支持1层
         treeNodeConfig.setDeep(deep);
 
-        //转换器
-        List<Tree<Object>> treeNodes = TreeBuildUtil.INSTANCE.build(beanMapList, treeNodeConfig);
+        // 优先走树结构索引
+        List<Tree<Object>> treeNodes = TreeIndexUtil.buildTree(
+                TreeIndex.Type.AREA, TreeBuildUtil.DEF_PARENT_ID, treeNodeConfig, null);
+        if(treeNodes == null){
+            List<SysArea> dataList =  IService.findList(new QueryWrapper<>());
+
+            // 获得BeanMapList
+            List<Map<String, Object>> beanMapList = this.getBeanMapList(dataList);
+
+            //转换器
+            treeNodes = TreeBuildUtil.INSTANCE.build(beanMapList, treeNodeConfig);
+        }
 
         // 处理是否包含子集
         super.handleTreeHasChildren(treeNodes,
@@ -249,7 +258,7 @@ public class SysAreaRestController extends BaseRestController<SysArea, SysAreaMo
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<SysArea> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(SysAreaRestApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(SysAreaRestApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
@@ -293,19 +302,7 @@ public class SysAreaRestController extends BaseRestController<SysArea, SysAreaMo
 
         // 转化为 BeanMap 处理数据
         for (SysArea sysArea : dataList) {
-            Map<String, Object> beanToMap = BeanUtil.beanToMap(sysArea);
-
-            // 获得排序
-            String areaCode = sysArea.getAreaCode();
-            int sort = 0;
-            if(StringUtils.isNotEmpty(areaCode)){
-                try {
-                    sort = Integer.parseInt(areaCode);
-                }catch (Exception ignored){}
-            }
-            beanToMap.put(SORT_FIELD, sort);
-
-            beanMapList.add(beanToMap);
+            beanMapList.add(AreaFactory.INSTANCE.createTreeData(sysArea));
         }
         return beanMapList;
     }
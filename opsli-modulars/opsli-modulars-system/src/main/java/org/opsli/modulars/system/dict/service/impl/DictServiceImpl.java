@@ -16,6 +16,7 @@
 package org.opsli.modulars.system.dict.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 import org.opsli.api.wrapper.system.dict.DictDetailModel;
 import org.opsli.api.wrapper.system.dict.DictModel;
@@ -23,6 +24,8 @@ import org.opsli.common.constants.MyBatisConstants;
 import org.opsli.common.enums.DictType;
 import org.opsli.common.exception.ServiceException;
 import org.opsli.core.base.service.impl.CrudServiceImpl;
+import org.opsli.core.cache.guard.GuardType;
+import org.opsli.core.cache.guard.PenetrationGuard;
 import org.opsli.modulars.system.SystemMsg;
 import org.opsli.modulars.system.dict.entity.SysDict;
 import org.opsli.modulars.system.dict.mapper.DictMapper;
@@ -63,7 +66,27 @@ public class DictServiceImpl extends CrudServiceImpl<DictMapper, SysDict, DictMo
             throw new ServiceException(SystemMsg.EXCEPTION_DICT_UNIQUE);
         }
 
-        return super.insert(model);
+        DictModel insertModel = super.insert(model);
+        if(insertModel != null){
+            // 同步防穿透过滤器
+            PenetrationGuard.put(GuardType.DICT_TYPE, insertModel.getTypeCode());
+        }
+        return insertModel;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean insertBatch(List<DictModel> models) {
+        boolean ret = super.insertBatch(models);
+        if(ret){
+            // 同步防穿透过滤器 (Excel 导入等批量新增)
+            List<String> typeCodeList = Lists.newArrayListWithCapacity(models.size());
+            for (DictModel dictModel : models) {
+                typeCodeList.add(dictModel.getTypeCode());
+            }
+            PenetrationGuard.put(GuardType.DICT_TYPE, typeCodeList);
+        }
+        return ret;
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -84,6 +107,11 @@ public class DictServiceImpl extends CrudServiceImpl<DictMapper, SysDict, DictMo
         DictModel updateRet = super.update(model);
 
         if(updateRet != null){
+            // 同步防穿透过滤器 编号变更时写入新编号 (旧编号保留 由空属性兜底)
+            if(!StringUtils.equals(dictModel.getTypeCode(), updateRet.getTypeCode())){
+                PenetrationGuard.put(GuardType.DICT_TYPE, updateRet.getTypeCode());
+            }
+
             // 字典主表修改 子表跟着联动 （验证是否改了编号）/ 或者修改不允许改编号
             List<DictDetailModel> listByTypeCode = null;
             if(StringUtils.isNotEmpty(model.getTypeCode())){
@@ -215,7 +215,7 @@ public class DictDetailRestController extends BaseRestController<SysDictDetail,
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<SysDictDetail> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(DictDetailApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(DictDetailApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
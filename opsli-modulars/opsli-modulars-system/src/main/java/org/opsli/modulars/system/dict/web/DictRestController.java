@@ -217,7 +217,7 @@ public class DictRestController extends BaseRestController<SysDict, DictModel, I
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<SysDict> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(DictApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(DictApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
@@ -37,6 +37,7 @@ import org.opsli.common.enums.AlertType;
 import org.opsli.common.enums.OptionsType;
 import org.opsli.common.exception.TokenException;
 import org.opsli.common.utils.IPUtil;
+import org.opsli.common.utils.WrapperUtil;
 import org.opsli.core.msg.TokenMsg;
 import org.opsli.core.utils.*;
 import org.opsli.modulars.system.login.entity.LoginForm;
@@ -163,10 +164,11 @@ public class LoginRestController {
             AsyncProcessExecutor normalExecutor = AsyncProcessExecutorFactory.createNormalExecutor();
             // 异步保存IP
             normalExecutor.put(()->{
-                // 保存用户最后登录IP
+                // 保存用户最后登录IP (复制后修改 缓存对象为共享引用)
                 String clientIpAddress = IPUtil.getClientIdBySingle(request);
-                user.setLoginIp(clientIpAddress);
-                iUserService.updateLoginIp(user);
+                UserModel loginUser = WrapperUtil.transformInstance(user, UserModel.class);
+                loginUser.setLoginIp(clientIpAddress);
+                iUserService.updateLoginIp(loginUser);
             });
             normalExecutor.execute();
         }
@@ -26,6 +26,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
+import java.util.List;
 
 
 /**
@@ -54,6 +55,17 @@ public class LogsServiceImpl extends CrudServiceImpl<LogsMapper, SysLogs, LogsMo
         return super.insert(model);
     }
 
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public boolean insertBatch(List<LogsModel> models) {
+        int count = super.count();
+        // 如果日志存储量为10万 则自动清空上月前数据
+        if(count > LOG_BIG_COUNT){
+            this.emptyByOneMonth();
+        }
+        return super.insertBatch(models);
+    }
+
     @Transactional(rollbackFor = Exception.class)
     @Override
     public boolean emptyByOneMonth() {
@@ -32,6 +32,7 @@ import org.opsli.modulars.system.logs.entity.SysLogs;
 import org.opsli.modulars.system.logs.service.ILogsService;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.List;
 
 
 /**
@@ -83,6 +84,20 @@ public class LogsRestController extends BaseRestController<SysLogs, LogsModel, I
         return ResultVo.success(page.getPageData());
     }
 
+    /**
+     * 日志 查询游标分页
+     * @param cursor 游标
+     * @param pageSize 每页条数
+     * @param request request
+     * @return ResultVo
+     */
+    @ApiOperation(value = "获得游标分页数据", notes = "获得游标分页数据 - 查询构造器")
+    @RequiresPermissions("devops_logs_select")
+    @Override
+    public ResultVo<?> findCursorPage(String cursor, Integer pageSize, HttpServletRequest request) {
+        return super.findCursorPage(cursor, pageSize, request);
+    }
+
 
     /**
      * 日志 清空一个月前的日志
@@ -103,4 +118,10 @@ public class LogsRestController extends BaseRestController<SysLogs, LogsModel, I
         IService.insert(model);
         return ResultVo.success("新增日志成功");
     }
+
+    @Override
+    public ResultVo<?> insertBatch(List<LogsModel> models) {
+        IService.insertBatch(models);
+        return ResultVo.success("新增日志成功");
+    }
 }
@@ -1,15 +1,20 @@
 package org.opsli.modulars.system.menu.factory;
 
+import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.ListUtil;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import lombok.Builder;
 import lombok.Data;
 import org.apache.commons.lang3.StringUtils;
 import org.opsli.api.wrapper.system.menu.MenuFullModel;
 import org.opsli.api.wrapper.system.menu.MenuModel;
+import org.opsli.common.constants.MenuConstants;
 import org.opsli.common.enums.DictType;
+import org.opsli.core.general.StartPrint;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 菜单生成工厂
@@ -24,6 +29,8 @@ public enum MenuFactory {
 
     /** 菜单权限分割符 */
     private final static String MENU_DELIMITER = "_";
+    /** 菜单树 排序字段 */
+    public final static String TREE_SORT_FIELD = "order";
     /** 菜单按钮JSON 数组 */
     private final List<MenuBtn> menuBtnList;
 
@@ -155,6 +162,46 @@ public enum MenuFactory {
         return menu;
     }
 
+    /**
+     * 生成菜单树节点数据 (不修改菜单)
+     * @param model 菜单
+     * @return Map
+     */
+    public Map<String, Object> createTreeData(MenuModel model){
+        Map<String, Object> beanToMap = BeanUtil.beanToMap(model);
+
+        // 扩展属性 ...
+        String url = model.getUrl();
+        // 不是外链 则处理组件
+        if(!MenuConstants.EXTERNAL.equals(model.getType())){
+            beanToMap.put("component", model.getComponent());
+        }else{
+            // 如果是外链 则判断是否存在 BASE_PATH
+            // 设置BASE_PATH
+            if(StringUtils.isNotEmpty(url)){
+                url = url.replace("${BASE_PATH}",
+                        StartPrint.getInstance().getBasePath()
+                );
+            }
+        }
+
+        beanToMap.put(TREE_SORT_FIELD, model.getSortNo());
+        beanToMap.put("path", url);
+        beanToMap.put("name", model.getMenuName());
+
+        // 处理 meta
+        Map<String,String> metaMap = Maps.newHashMapWithExpectedSize(3);
+        metaMap.put("title", model.getMenuName());
+        metaMap.put("icon", model.getIcon());
+        // 外链处理
+        if(MenuConstants.EXTERNAL.equals(model.getType())){
+            metaMap.put("target", "_blank");
+        }
+
+        beanToMap.put("meta", metaMap);
+        return beanToMap;
+    }
+
     /**
      * 生成权限
      * @param moduleName 模块名
@@ -21,6 +21,7 @@ import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.apache.commons.lang3.StringUtils;
 import org.opsli.api.wrapper.system.menu.MenuFullModel;
 import org.opsli.api.wrapper.system.menu.MenuModel;
@@ -33,11 +34,13 @@ import org.opsli.common.exception.ServiceException;
 import org.opsli.common.utils.FieldUtil;
 import org.opsli.core.base.entity.HasChildren;
 import org.opsli.core.base.service.impl.CrudServiceImpl;
+import org.opsli.core.cache.local.TreeIndex;
 import org.opsli.core.msg.CoreMsg;
 import org.opsli.core.persistence.querybuilder.GenQueryBuilder;
 import org.opsli.core.persistence.querybuilder.QueryBuilder;
 import org.opsli.core.utils.MenuUtil;
 import org.opsli.core.utils.TreeBuildUtil;
+import org.opsli.core.utils.TreeIndexUtil;
 import org.opsli.core.utils.UserUtil;
 import org.opsli.modulars.system.SystemMsg;
 import org.opsli.modulars.system.menu.entity.SysMenu;
@@ -50,9 +53,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 
 /**
@@ -66,6 +72,8 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
 
     /** 菜单管理ID */
     private static final String MENU_ID = "2";
+    /** 可选择的菜单类型 */
+    private static final String MENU_TYPE_CHOOSE = "1";
 
     @Autowired(required = false)
     private MenuMapper mapper;
@@ -113,7 +121,12 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
         // 刷新缓存
         clearCache(Collections.singletonList(model));
 
-        return super.insert(model);
+        MenuModel menuModel = super.insert(model);
+        if(menuModel != null){
+            // 更新树结构索引
+            TreeIndexUtil.put(TreeIndex.Type.MENU, menuModel.getId());
+        }
+        return menuModel;
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -142,6 +155,9 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
             throw new ServiceException(SystemMsg.EXCEPTION_MENU_NULL);
         }
 
+        // 受影响的节点 (树结构索引)
+        Set<String> changedIds = Sets.newHashSet(model.getId());
+
         MenuModel oldParentModel = getParentMenuModel(sourceModel.getParentId());
         MenuModel newParentModel = getParentMenuModel(model.getParentId());
 
@@ -165,6 +181,7 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
             List<SysMenu> menuList = this.list(findChildWrapper);
             // 循环变更 parentIds
             for (SysMenu sysMenu : menuList) {
+                changedIds.add(sysMenu.getId());
                 String parentIds = sysMenu.getParentIds();
                 if(StringUtils.isBlank(parentIds)){
                     parentIds = newParentIds;
@@ -184,6 +201,9 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
             QueryWrapper<SysMenu> findChildWrapper = new QueryWrapper<>();
             findChildWrapper.likeRight("parent_ids", newParentIds);
             List<MenuModel> menuList = super.transformTs2Ms(this.list(findChildWrapper));
+            for (MenuModel menu : menuList) {
+                changedIds.add(menu.getId());
+            }
 
             // 刷新缓存
             this.clearCache(menuList);
@@ -208,6 +228,8 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
         if(menuModel != null){
             // 刷新缓存
             this.clearCache(Collections.singletonList(model));
+            // 更新树结构索引 (含 上级 / 标签 变更的子集)
+            TreeIndexUtil.put(TreeIndex.Type.MENU, changedIds);
         }
 
         return menuModel;
@@ -301,7 +323,12 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
         // 移除权限数据
         iRoleMenuRefService.delPermsByMenuIds(Convert.toList(String.class, id));
 
-        return super.delete(id);
+        boolean ret = super.delete(id);
+        if(ret){
+            // 更新树结构索引 (含子树)
+            TreeIndexUtil.remove(TreeIndex.Type.MENU, Collections.singletonList(id));
+        }
+        return ret;
     }
 
     @Override
@@ -332,7 +359,12 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
         // 移除权限数据
         iRoleMenuRefService.delPermsByMenuIds(Convert.toList(String.class, ids));
 
-        return super.deleteAll(ids);
+        boolean ret = super.deleteAll(ids);
+        if(ret){
+            // 更新树结构索引 (含子树)
+            TreeIndexUtil.remove(TreeIndex.Type.MENU, Convert.toList(String.class, ids));
+        }
+        return ret;
     }
 
 
@@ -370,6 +402,13 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
         if(CollUtil.isEmpty(parentIds)){
             return null;
         }
+
+        // 优先走树结构索引
+        List<HasChildren> hasChildrenList = TreeIndexUtil.hasChildren(TreeIndex.Type.MENU, parentIds);
+        if(hasChildrenList != null){
+            return hasChildrenList;
+        }
+
         QueryWrapper<SysMenu> wrapper = new QueryWrapper<>();
         wrapper.in(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentIds)
                 .eq(MyBatisConstants.FIELD_DELETE_LOGIC,  DictType.NO_YES_NO.getValue())
@@ -389,15 +428,50 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
         if(CollUtil.isEmpty(parentIds)){
             return null;
         }
+
+        // 优先走树结构索引
+        List<HasChildren> hasChildrenList = TreeIndexUtil.hasChildren(TreeIndex.Type.MENU, parentIds, MENU_TYPE_CHOOSE);
+        if(hasChildrenList != null){
+            return hasChildrenList;
+        }
+
         QueryWrapper<SysMenu> wrapper = new QueryWrapper<>();
         wrapper.in(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentIds)
                 .eq(MyBatisConstants.FIELD_DELETE_LOGIC,  DictType.NO_YES_NO.getValue())
-                .eq("type", "1")
+                .eq("type", MENU_TYPE_CHOOSE)
                 .groupBy(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID));
 
         return mapper.hasChildren(wrapper);
     }
 
+    /**
+     * 注册 树结构索引 加载器
+     */
+    @PostConstruct
+    public void initTreeIndex(){
+        TreeIndex.of(TreeIndex.Type.MENU).setLoader(
+                () -> this.findTreeNodes(null), this::findTreeNodes);
+    }
+
+    /**
+     * 获得树节点 (含菜单树节点数据)
+     * @param ids 菜单ID集合 为空则全部
+     * @return Collection
+     */
+    private Collection<TreeIndex.Node> findTreeNodes(Collection<String> ids){
+        QueryWrapper<SysMenu> wrapper = new QueryWrapper<>();
+        wrapper.eq(MyBatisConstants.FIELD_DELETE_LOGIC,  DictType.NO_YES_NO.getValue());
+        if(ids != null){
+            wrapper.in(MyBatisConstants.FIELD_ID, ids);
+        }
+        List<MenuModel> menuList = super.transformTs2Ms(mapper.selectList(wrapper));
+        return menuList.stream()
+                .map(menu -> new TreeIndex.Node(
+                        menu.getId(), menu.getParentId(), menu.getSortNo(), menu.getType(),
+                        MenuFactory.INSTANCE.createTreeData(menu)))
+                .collect(Collectors.toList());
+    }
+
     // ============
 
     /**
@@ -456,12 +530,9 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
         // 菜单有变动 直接刷新超级管理员 菜单缓存
         UserModel adminUser = UserUtil.getUserByUserName(UserUtil.SUPER_ADMIN);
         if(adminUser != null){
-            cacheCount += 2;
-            cacheRet = UserUtil.refreshUserAllPerms(adminUser.getId());
-            if(cacheRet){
-                cacheCount--;
-            }
-            cacheRet = UserUtil.refreshUserMenus(adminUser.getId());
+            cacheCount++;
+            cacheRet = UserUtil.refreshUserCache(Collections.singletonList(adminUser.getId()),
+                    UserUtil.PREFIX_ID_PERMISSIONS, UserUtil.PREFIX_ID_MENUS);
             if(cacheRet){
                 cacheCount--;
             }
@@ -471,21 +542,12 @@ public class MenuServiceImpl extends CrudServiceImpl<MenuMapper, SysMenu, MenuMo
         // 清空该菜单下 用户缓存
         List<String> userIdList = iUserRoleRefService.getUserIdListByMenuIdList(menuIdList);
         if(CollUtil.isNotEmpty(userIdList)){
-            for (String userId : userIdList) {
-                cacheCount += 3;
-                // 清空当期用户缓存角色、权限、菜单
-                cacheRet = UserUtil.refreshUserRoles(userId);
-                if(cacheRet){
-                    cacheCount--;
-                }
-                cacheRet = UserUtil.refreshUserAllPerms(userId);
-                if(cacheRet){
-                    cacheCount--;
-                }
-                cacheRet = UserUtil.refreshUserMenus(userId);
-                if(cacheRet){
-                    cacheCount--;
-                }
+            cacheCount++;
+            // 清空当期用户缓存角色、权限、菜单 (批量一次删除)
+            cacheRet = UserUtil.refreshUserCache(userIdList,
+                    UserUtil.PREFIX_ID_ROLES, UserUtil.PREFIX_ID_PERMISSIONS, UserUtil.PREFIX_ID_MENUS);
+            if(cacheRet){
+                cacheCount--;
             }
         }
 
@@ -15,7 +15,6 @@
  */
 package org.opsli.modulars.system.menu.web;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.convert.Convert;
@@ -24,7 +23,6 @@ import cn.hutool.core.lang.tree.TreeNodeConfig;
 import cn.hutool.core.util.ReflectUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
@@ -44,14 +42,16 @@ import org.opsli.common.enums.DictType;
 import org.opsli.common.utils.FieldUtil;
 import org.opsli.common.utils.WrapperUtil;
 import org.opsli.core.base.controller.BaseRestController;
-import org.opsli.core.general.StartPrint;
+import org.opsli.core.cache.local.TreeIndex;
 import org.opsli.core.persistence.Page;
 import org.opsli.core.persistence.querybuilder.GenQueryBuilder;
 import org.opsli.core.persistence.querybuilder.QueryBuilder;
 import org.opsli.core.persistence.querybuilder.WebQueryBuilder;
 import org.opsli.core.utils.TreeBuildUtil;
+import org.opsli.core.utils.TreeIndexUtil;
 import org.opsli.core.utils.UserUtil;
 import org.opsli.modulars.system.menu.entity.SysMenu;
+import org.opsli.modulars.system.menu.factory.MenuFactory;
 import org.opsli.modulars.system.menu.service.IMenuService;
 import org.opsli.modulars.system.user.service.IUserRoleRefService;
 import org.opsli.modulars.system.user.service.IUserService;
@@ -81,7 +81,7 @@ public class MenuRestController extends BaseRestController<SysMenu, MenuModel, I
     private IUserRoleRefService iUserRoleRefService;
 
     /** 排序字段 */
-    private static final String SORT_FIELD = "order";
+    private static final String SORT_FIELD = MenuFactory.TREE_SORT_FIELD;
 
     /** 虚拟总节点 ID */
     private static final String VIRTUAL_TOTAL_NODE = "-1";
@@ -133,8 +133,8 @@ public class MenuRestController extends BaseRestController<SysMenu, MenuModel, I
     public ResultVo<?> findMenuTree() {
         UserModel user = UserUtil.getUser();
 
-        // 获得用户 对应菜单
-        List<MenuModel> menuModelList = UserUtil.getMenuListByUserId(user.getId());
+        // 获得用户 对应菜单 (复制后过滤 缓存集合为共享引用)
+        List<MenuModel> menuModelList = Lists.newArrayList(UserUtil.getMenuListByUserId(user.getId()));
 
         // 这里有坑 如果 为 菜单数据 且 组件(Component)地址为空 不会跳转到主页 也不报错
         // 修复菜单问题导致无法跳转主页
@@ -161,35 +161,38 @@ public class MenuRestController extends BaseRestController<SysMenu, MenuModel, I
     @RequiresPermissions("system_menu_select")
     @Override
     public ResultVo<?> findMenuTreeByLazy(String parentId, String id) {
-        List<MenuModel> menuModelList;
+        List<Tree<Object>> treeNodes;
         if(StringUtils.isEmpty(parentId)){
-            menuModelList = Lists.newArrayList();
             // 生成根节点菜单
             MenuModel model = getGenMenuModel();
-            parentId = model.getParentId();
-            menuModelList.add(model);
+            treeNodes = getMenuTrees(Lists.newArrayList(model), model.getParentId(),1);
         }else{
-            // 只查菜单
-            QueryBuilder<SysMenu> queryBuilder = new GenQueryBuilder<>();
-            QueryWrapper<SysMenu> queryWrapper = queryBuilder.build();
-            queryWrapper.eq(
-                    FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentId);
-            queryWrapper.eq("type", MenuConstants.MENU);
-
-            // 如果传入ID 则不包含自身
-            if(StringUtils.isNotEmpty(id)){
-                queryWrapper.notIn(
-                        FieldUtil.humpToUnderline(MyBatisConstants.FIELD_ID), id);
+            // 优先走树结构索引 只查菜单 如果传入ID 则不包含自身
+            treeNodes = TreeIndexUtil.buildTree(TreeIndex.Type.MENU, parentId, getMenuTreeConfig(1),
+                    node -> MenuConstants.MENU.equals(node.getTag()) && !node.getId().equals(id));
+            if(treeNodes == null){
+                // 只查菜单
+                QueryBuilder<SysMenu> queryBuilder = new GenQueryBuilder<>();
+                QueryWrapper<SysMenu> queryWrapper = queryBuilder.build();
+                queryWrapper.eq(
+                        FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentId);
+                queryWrapper.eq("type", MenuConstants.MENU);
+
+                // 如果传入ID 则不包含自身
+                if(StringUtils.isNotEmpty(id)){
+                    queryWrapper.notIn(
+                            FieldUtil.humpToUnderline(MyBatisConstants.FIELD_ID), id);
 
-            }
+                }
 
-            // 获得菜单
-            List<SysMenu> menuList = IService.findList(queryWrapper);
-            menuModelList = WrapperUtil.transformInstance(menuList, MenuModel.class);
-        }
+                // 获得菜单
+                List<SysMenu> menuList = IService.findList(queryWrapper);
+                List<MenuModel> menuModelList = WrapperUtil.transformInstance(menuList, MenuModel.class);
 
-        // 获得菜单树
-        List<Tree<Object>> treeNodes = getMenuTrees(menuModelList, parentId,1);
+                // 获得菜单树
+                treeNodes = getMenuTrees(menuModelList, parentId,1);
+            }
+        }
 
         // 处理是否包含子集
         super.handleTreeHasChildren(treeNodes,
@@ -208,24 +211,27 @@ public class MenuRestController extends BaseRestController<SysMenu, MenuModel, I
     @RequiresPermissions("system_menu_select")
     @Override
     public ResultVo<?> findMenuTreePageByLazy(String parentId) {
-        List<MenuModel> menuModelList;
+        List<Tree<Object>> treeNodes;
         if(StringUtils.isEmpty(parentId)){
-            menuModelList = Lists.newArrayList();
             // 生成根节点菜单
             MenuModel model = getGenMenuModel();
-            parentId = model.getParentId();
-            menuModelList.add(model);
+            treeNodes = getMenuTrees(Lists.newArrayList(model), model.getParentId(),1);
         }else{
-            QueryBuilder<SysMenu> queryBuilder = new GenQueryBuilder<>();
-            QueryWrapper<SysMenu> queryWrapper = queryBuilder.build();
-            queryWrapper.eq(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentId);
-
-            // 获得菜单
-            List<SysMenu> menuList = IService.findList(queryWrapper);
-            menuModelList = WrapperUtil.transformInstance(menuList, MenuModel.class);
+            // 优先走树结构索引
+            treeNodes = TreeIndexUtil.buildTree(TreeIndex.Type.MENU, parentId, getMenuTreeConfig(1), null);
+            if(treeNodes == null){
+                QueryBuilder<SysMenu> queryBuilder = new GenQueryBuilder<>();
+                QueryWrapper<SysMenu> queryWrapper = queryBuilder.build();
+                queryWrapper.eq(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentId);
+
+                // 获得菜单
+                List<SysMenu> menuList = IService.findList(queryWrapper);
+                List<MenuModel> menuModelList = WrapperUtil.transformInstance(menuList, MenuModel.class);
+
+                // 获得菜单树
+                treeNodes = getMenuTrees(menuModelList, parentId,1);
+            }
         }
-        // 获得菜单树
-        List<Tree<Object>> treeNodes = getMenuTrees(menuModelList, parentId,1);
 
         // 处理是否包含子集
         super.handleTreeHasChildren(treeNodes,
@@ -242,6 +248,15 @@ public class MenuRestController extends BaseRestController<SysMenu, MenuModel, I
     @RequiresPermissions("system_menu_select")
     @Override
     public ResultVo<?> findMenuTreePage(HttpServletRequest request) {
+        // 无查询条件 优先走树结构索引 (整棵树)
+        if(!hasQueryParams(request.getParameterMap())){
+            List<Tree<Object>> treeNodes = TreeIndexUtil.buildTree(TreeIndex.Type.MENU,
+                    TreeBuildUtil.DEF_PARENT_ID, getMenuTreeConfig(0), null);
+            if(treeNodes != null){
+                return ResultVo.success(treeNodes);
+            }
+        }
+
         QueryBuilder<SysMenu> queryBuilder = new WebQueryBuilder<>(entityClazz,
                 request.getParameterMap());
 
@@ -402,7 +417,7 @@ public class MenuRestController extends BaseRestController<SysMenu, MenuModel, I
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<SysMenu> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(MenuApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(MenuApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
@@ -465,43 +480,13 @@ public class MenuRestController extends BaseRestController<SysMenu, MenuModel, I
 
         // 转化为 BeanMap 处理数据
         for (MenuModel model : dataList) {
-            Map<String, Object> beanToMap = BeanUtil.beanToMap(model);
+            Map<String, Object> beanToMap = MenuFactory.INSTANCE.createTreeData(model);
             // 排除字段
             if(exclusionFields != null && exclusionFields.length > 0){
                 for (String exclusionField : exclusionFields) {
                     beanToMap.remove(exclusionField);
                 }
             }
-
-
-            // 扩展属性 ...
-            // 不是外链 则处理组件
-            if(!MenuConstants.EXTERNAL.equals(model.getType())){
-                beanToMap.put("component", model.getComponent());
-            }else{
-                // 如果是外链 则判断是否存在 BASE_PATH
-                // 设置BASE_PATH
-                if(StringUtils.isNotEmpty(model.getUrl())){
-                    model.setUrl(model.getUrl().replace("${BASE_PATH}",
-                            StartPrint.getInstance().getBasePath()
-                    ));
-                }
-            }
-
-            beanToMap.put(SORT_FIELD, model.getSortNo());
-            beanToMap.put("path", model.getUrl());
-            beanToMap.put("name", model.getMenuName());
-
-            // 处理 meta
-            Map<String,String> metaMap = Maps.newHashMapWithExpectedSize(3);
-            metaMap.put("title", model.getMenuName());
-            metaMap.put("icon", model.getIcon());
-            // 外链处理
-            if(MenuConstants.EXTERNAL.equals(model.getType())){
-                metaMap.put("target", "_blank");
-            }
-
-            beanToMap.put("meta", metaMap);
             beanMapList.add(beanToMap);
         }
 
@@ -551,28 +536,56 @@ public class MenuRestController extends BaseRestController<SysMenu, MenuModel, I
             return ListUtil.empty();
         }
 
+        // 获得BeanMapList
+        List<Map<String, Object>> beanMapList = this.getBeanMapList(menuList, exclusionFields);
+
+        //配置
+        TreeNodeConfig treeNodeConfig = getMenuTreeConfig(deep);
+
+        // 如果 parentId 不为空
+        if(StringUtils.isNotEmpty(parentId)){
+            //转换器
+            return TreeBuildUtil.INSTANCE.build(beanMapList, parentId ,treeNodeConfig);
+        }
+        //转换器
+        return TreeBuildUtil.INSTANCE.build(beanMapList, treeNodeConfig);
+    }
+
+    /**
+     * 获得菜单树配置
+     * @param deep 最大递归深度 (等于 0 默认为4层)
+     * @return TreeNodeConfig
+     */
+    private TreeNodeConfig getMenuTreeConfig(int deep) {
         // 如果层级等于 0 默认为4层
         if(deep == 0){
             deep = 4;
         }
 
-        // 获得BeanMapList
-        List<Map<String, Object>> beanMapList = this.getBeanMapList(menuList, exclusionFields);
-
         //配置
         TreeNodeConfig treeNodeConfig = new TreeNodeConfig();
         // 自定义属性名 都要默认值的
         treeNodeConfig.setWeightKey(SORT_FIELD);
         // 最大递归深度 最多支持4层菜单
         treeNodeConfig.setDeep(deep);
+        return treeNodeConfig;
+    }
 
-        // 如果 parentId 不为空
-        if(StringUtils.isNotEmpty(parentId)){
-            //转换器
-            return TreeBuildUtil.INSTANCE.build(beanMapList, parentId ,treeNodeConfig);
+    /**
+     * 是否有查询参数
+     * @param parameterMap 请求参数
+     * @return boolean
+     */
+    private boolean hasQueryParams(Map<String, String[]> parameterMap) {
+        if(parameterMap == null){
+            return false;
         }
-        //转换器
-        return TreeBuildUtil.INSTANCE.build(beanMapList, treeNodeConfig);
+        for (String[] values : parameterMap.values()) {
+            if(values != null && values.length > 0 && StringUtils.isNotEmpty(values[0])){
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -23,9 +23,11 @@ import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.opsli.api.base.result.ResultVo;
 import org.opsli.common.annotation.ApiRestController;
 import org.opsli.core.utils.SystemInfoUtil;
+import org.opsli.core.utils.SystemMetricsUtil;
 import org.springframework.web.bind.annotation.GetMapping;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 系统监控
@@ -38,6 +40,9 @@ import java.util.Map;
 @ApiRestController("/system/monitor/{ver}")
 public class MonitorController {
 
+    /** 默认历史时间窗口 (分钟) */
+    private static final int DEF_HISTORY_MINUTES = 5;
+
     /**
      * 查询服务器信息
      * @return ResultVo
@@ -96,4 +101,30 @@ public class MonitorController {
                 SystemInfoUtil.INSTANCE.getJvmInfo());
     }
 
+    /**
+     * 查询最新采样指标
+     * @return ResultVo
+     */
+    @RequiresPermissions("devops_sysmonitor_select")
+    @GetMapping("/getMetrics")
+    @ApiOperation(value = "最新采样指标", notes = "最新采样指标")
+    public ResultVo<?> getMetrics() {
+        return ResultVo.success(
+                SystemMetricsUtil.getLatest());
+    }
+
+    /**
+     * 查询历史采样指标
+     * @param minutes 时间窗口 (分钟) 为空默认 5 分钟 小于等于 0 则返回全部
+     * @return ResultVo
+     */
+    @RequiresPermissions("devops_sysmonitor_select")
+    @GetMapping("/getMetricsHistory")
+    @ApiOperation(value = "历史采样指标", notes = "历史采样指标")
+    public ResultVo<?> getMetricsHistory(Integer minutes) {
+        int window = minutes != null ? minutes : DEF_HISTORY_MINUTES;
+        return ResultVo.success(
+                SystemMetricsUtil.getHistory(TimeUnit.MINUTES.toMillis(window)));
+    }
+
 }
@@ -219,7 +219,7 @@ public class SysOptionsRestController extends BaseRestController<SysOptions, Opt
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<SysOptions> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(OptionsApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(OptionsApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
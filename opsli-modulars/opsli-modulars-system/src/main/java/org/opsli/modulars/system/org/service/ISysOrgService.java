@@ -17,6 +17,7 @@ package org.opsli.modulars.system.org.service;
 
 import org.opsli.core.base.entity.HasChildren;
 import org.opsli.core.base.service.interfaces.CrudServiceInterface;
+import org.opsli.core.cache.local.TreeIndex;
 
 
 import org.opsli.modulars.system.org.entity.SysOrg;
@@ -24,6 +25,7 @@ import org.opsli.api.wrapper.system.org.SysOrgModel;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * 组织机构 Service
@@ -40,4 +42,10 @@ public interface ISysOrgService extends CrudServiceInterface<SysOrg, SysOrgModel
      */
     List<HasChildren> hasChildren(Set<String> parentIds);
 
+    /**
+     * 当前用户可见的组织树节点 (与 租户 / 数据权限 查询条件一致)
+     * @return Predicate
+     */
+    Predicate<TreeIndex.Node> getTreeFilter();
+
 }
@@ -16,6 +16,7 @@
 package org.opsli.modulars.system.org.service.impl;
 
 
+import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.convert.Convert;
 import cn.hutool.core.util.StrUtil;
@@ -33,11 +34,15 @@ import org.opsli.common.utils.FieldUtil;
 import org.opsli.common.utils.ListDistinctUtil;
 import org.opsli.core.base.entity.HasChildren;
 import org.opsli.core.base.service.impl.CrudServiceImpl;
+import org.opsli.core.cache.local.TreeIndex;
 import org.opsli.core.msg.CoreMsg;
+import org.opsli.core.persistence.querybuilder.DataScope;
 import org.opsli.core.persistence.querybuilder.GenQueryBuilder;
 import org.opsli.core.persistence.querybuilder.QueryBuilder;
+import org.opsli.core.persistence.querybuilder.chain.QueryDataPermsHandler;
 import org.opsli.core.persistence.querybuilder.chain.QueryTenantHandler;
 import org.opsli.core.utils.TenantUtil;
+import org.opsli.core.utils.TreeIndexUtil;
 import org.opsli.core.utils.UserUtil;
 import org.opsli.modulars.system.SystemMsg;
 import org.opsli.modulars.system.org.entity.SysOrg;
@@ -49,9 +54,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 
 /**
@@ -153,6 +163,9 @@ public class SysOrgServiceImpl extends CrudServiceImpl<SysOrgMapper, SysOrg, Sys
 
             // 清除缓存
             this.clearCache(userIdList);
+
+            // 更新树结构索引
+            TreeIndexUtil.put(TreeIndex.Type.ORG, insertModel.getId());
         }
 
         return insertModel;
@@ -230,6 +243,9 @@ public class SysOrgServiceImpl extends CrudServiceImpl<SysOrgMapper, SysOrg, Sys
         // 清除缓存
         this.clearCache(userIdList);
 
+        // 更新树结构索引
+        TreeIndexUtil.put(TreeIndex.Type.ORG, model.getId());
+
         // 修改
         return updateRet;
     }
@@ -248,7 +264,12 @@ public class SysOrgServiceImpl extends CrudServiceImpl<SysOrgMapper, SysOrg, Sys
         // 先删除子数据
         this.deleteByParentId(id);
 
-        return super.delete(id);
+        boolean ret = super.delete(id);
+        if(ret){
+            // 更新树结构索引 (含子树)
+            TreeIndexUtil.remove(TreeIndex.Type.ORG, Collections.singletonList(id));
+        }
+        return ret;
     }
 
     @Override
@@ -266,7 +287,12 @@ public class SysOrgServiceImpl extends CrudServiceImpl<SysOrgMapper, SysOrg, Sys
             this.deleteByParentId(id);
         }
 
-        return super.deleteAll(ids);
+        boolean ret = super.deleteAll(ids);
+        if(ret){
+            // 更新树结构索引 (含子树)
+            TreeIndexUtil.remove(TreeIndex.Type.ORG, Convert.toList(String.class, ids));
+        }
+        return ret;
     }
 
     /**
@@ -283,6 +309,8 @@ public class SysOrgServiceImpl extends CrudServiceImpl<SysOrgMapper, SysOrg, Sys
         for (SysOrg sysOrg : entityList) {
             sysOrg.setTenantId(tenantId);
             super.updateById(sysOrg);
+            // 更新树结构索引
+            TreeIndexUtil.put(TreeIndex.Type.ORG, sysOrg.getId());
             // 逐级删除子数据
             this.updateTenantByParentId(sysOrg.getId(), tenantId);
         }
@@ -315,6 +343,8 @@ public class SysOrgServiceImpl extends CrudServiceImpl<SysOrgMapper, SysOrg, Sys
                             sysOrg.getId());
 
             super.updateById(sysOrg);
+            // 更新树结构索引
+            TreeIndexUtil.put(TreeIndex.Type.ORG, sysOrg.getId());
             // 逐级删除子数据
             this.updateChildrenParentIdsByParentId(sysOrg.getId());
         }
@@ -375,6 +405,13 @@ public class SysOrgServiceImpl extends CrudServiceImpl<SysOrgMapper, SysOrg, Sys
             return null;
         }
 
+        // 优先走树结构索引 (按当前用户可见范围过滤)
+        List<HasChildren> hasChildrenList = TreeIndexUtil.hasChildren(
+                TreeIndex.Type.ORG, parentIds, this.getTreeFilter());
+        if(hasChildrenList != null){
+            return hasChildrenList;
+        }
+
         // 添加 数据权限过滤器
         QueryWrapper<SysOrg> wrapper = super.addHandler(SysOrg.class);
 
@@ -386,6 +423,51 @@ public class SysOrgServiceImpl extends CrudServiceImpl<SysOrgMapper, SysOrg, Sys
     }
 
 
+    @Override
+    public Predicate<TreeIndex.Node> getTreeFilter() {
+        // 租户
+        String tenantId = UserUtil.getUser().getTenantId();
+        // 数据权限
+        DataScope dataScope = QueryDataPermsHandler.getCurrDataScope();
+        return node -> {
+            Map<String, Object> data = node.getData();
+            if(data == null || tenantId == null ||
+                    !tenantId.equals(data.get(MyBatisConstants.FIELD_TENANT))){
+                return false;
+            }
+            return dataScope.contains(
+                    Convert.toStr(data.get(MyBatisConstants.FIELD_ORG_GROUP)),
+                    Convert.toStr(data.get(MyBatisConstants.FIELD_CREATE_BY)));
+        };
+    }
+
+    /**
+     * 注册 树结构索引 加载器
+     */
+    @PostConstruct
+    public void initTreeIndex(){
+        TreeIndex.of(TreeIndex.Type.ORG).setLoader(
+                () -> this.findTreeNodes(null), this::findTreeNodes);
+    }
+
+    /**
+     * 获得树节点 (含组织树节点数据 全部租户)
+     * @param ids 组织ID集合 为空则全部
+     * @return Collection
+     */
+    private Collection<TreeIndex.Node> findTreeNodes(Collection<String> ids){
+        QueryWrapper<SysOrg> wrapper = new QueryWrapper<>();
+        wrapper.eq(MyBatisConstants.FIELD_DELETE_LOGIC,  DictType.NO_YES_NO.getValue());
+        if(ids != null){
+            wrapper.in(MyBatisConstants.FIELD_ID, ids);
+        }
+        List<SysOrgModel> orgList = super.transformTs2Ms(mapper.selectList(wrapper));
+        return orgList.stream()
+                .map(org -> new TreeIndex.Node(org.getId(), org.getParentId(), org.getSortNo(), null,
+                        BeanUtil.beanToMap(org)))
+                .collect(Collectors.toList());
+    }
+
     /**
      * 删除验证该组织是否被引用
      * @param orgIdList 组织ID
@@ -417,22 +499,11 @@ public class SysOrgServiceImpl extends CrudServiceImpl<SysOrgMapper, SysOrg, Sys
             // 去重
             List<String> distinctUserIdList = ListDistinctUtil.distinct(userIdList);
 
-            int cacheCount = 0;
-            for (String userId : distinctUserIdList) {
-                cacheCount += 2;
-                boolean tmp;
-                // 清空当期用户缓存 组织
-                tmp = UserUtil.refreshUserOrgs(userId);
-                if(tmp){
-                    cacheCount--;
-                }
-                tmp = UserUtil.refreshUserDefOrg(userId);
-                if(tmp){
-                    cacheCount--;
-                }
-            }
+            // 清空当期用户缓存 组织 (批量一次删除)
+            boolean cacheRet = UserUtil.refreshUserCache(distinctUserIdList,
+                    UserUtil.PREFIX_ID_ORGS, UserUtil.PREFIX_ID_DEF_ORG);
             // 判断删除状态
-            if(cacheCount != 0){
+            if(!cacheRet){
                 // 删除缓存失败
                 throw new ServiceException(CoreMsg.CACHE_DEL_EXCEPTION);
             }
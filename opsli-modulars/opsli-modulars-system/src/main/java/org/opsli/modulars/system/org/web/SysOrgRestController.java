@@ -46,12 +46,14 @@ import org.opsli.common.utils.FieldUtil;
 import org.opsli.common.utils.ListDistinctUtil;
 import org.opsli.common.utils.WrapperUtil;
 import org.opsli.core.base.controller.BaseRestController;
+import org.opsli.core.cache.local.TreeIndex;
 import org.opsli.core.persistence.querybuilder.GenQueryBuilder;
 import org.opsli.core.persistence.querybuilder.QueryBuilder;
 import org.opsli.core.persistence.querybuilder.WebQueryBuilder;
 import org.opsli.core.utils.OrgUtil;
 import org.opsli.core.utils.TenantUtil;
 import org.opsli.core.utils.TreeBuildUtil;
+import org.opsli.core.utils.TreeIndexUtil;
 import org.opsli.core.utils.UserUtil;
 import org.opsli.modulars.system.SystemMsg;
 import org.opsli.modulars.system.org.entity.SysOrg;
@@ -63,6 +65,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Method;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -167,19 +170,34 @@ public class SysOrgRestController extends BaseRestController<SysOrg, SysOrgModel
             parentId = model.getParentId();
             orgModelList.add(model);
         }else{
+            // 优先走树结构索引 (按当前用户可见范围过滤) 如果传入ID 则不包含自身
+            List<TreeIndex.Node> children = TreeIndexUtil.getChildren(TreeIndex.Type.ORG, parentId,
+                    IService.getTreeFilter().and(node -> !node.getId().equals(id)));
+            if(CollUtil.isNotEmpty(children)){
+                List<Map<String, Object>> dataMapList = Lists.newArrayListWithCapacity(children.size());
+                for (TreeIndex.Node child : children) {
+                    dataMapList.add(child.getData());
+                }
+                return ResultVo.success(handleOrgTreeByLazy(dataMapList));
+            }
+
             QueryBuilder<SysOrg> queryBuilder = new GenQueryBuilder<>();
-            QueryWrapper<SysOrg> wrapper = queryBuilder.build();
-            wrapper.eq(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentId);
+            List<SysOrg> dataList = null;
+            // 索引不可用 查库
+            if(children == null){
+                QueryWrapper<SysOrg> wrapper = queryBuilder.build();
+                wrapper.eq(FieldUtil.humpToUnderline(MyBatisConstants.FIELD_PARENT_ID), parentId);
 
-            // 如果传入ID 则不包含自身
-            if(StringUtils.isNotEmpty(id)){
-                wrapper.notIn(
-                        FieldUtil.humpToUnderline(MyBatisConstants.FIELD_ID), id);
+                // 如果传入ID 则不包含自身
+                if(StringUtils.isNotEmpty(id)){
+                    wrapper.notIn(
+                            FieldUtil.humpToUnderline(MyBatisConstants.FIELD_ID), id);
 
-            }
+                }
 
-            // 获得组织
-            List<SysOrg> dataList = IService.findList(wrapper);
+                // 获得组织
+                dataList = IService.findList(wrapper);
+            }
             if(CollUtil.isEmpty(dataList)){
                 Set<String> genOrgIdSet = new HashSet<>();
                 List<UserOrgRefModel> orgListByUserId = UserUtil.getOrgByCurrUser();
@@ -417,7 +435,7 @@ public class SysOrgRestController extends BaseRestController<SysOrg, SysOrgModel
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<SysOrg> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(SysOrgRestApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(SysOrgRestApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
@@ -483,12 +501,7 @@ public class SysOrgRestController extends BaseRestController<SysOrg, SysOrgModel
 
         // 是否懒加载
         if(izLazy){
-            //转换器
-            treeNodes = TreeBuildUtil.INSTANCE.buildByLazy(orgModelList, treeNodeConfig);
-
-            // 处理是否包含子集
-            super.handleTreeHasChildren(treeNodes,
-                    (parentIds)-> IService.hasChildren(parentIds));
+            treeNodes = handleOrgTreeByLazy(orgModelList);
         }else{
             //转换器
             treeNodes = TreeBuildUtil.INSTANCE.build(orgModelList, parentId, treeNodeConfig);
@@ -506,4 +519,24 @@ public class SysOrgRestController extends BaseRestController<SysOrg, SysOrgModel
         return ResultVo.success(treeNodes);
     }
 
+    /**
+     * 处理组织树 懒加载
+     * @param dataList 组织集合 (Bean 或 Map)
+     * @return List
+     */
+    private List<Tree<Object>> handleOrgTreeByLazy(List<?> dataList) {
+        //配置
+        TreeNodeConfig treeNodeConfig = new TreeNodeConfig();
+        // 自定义属性名 都要默认值的
+        treeNodeConfig.setWeightKey(SORT_FIELD);
+
+        //转换器
+        List<Tree<Object>> treeNodes = TreeBuildUtil.INSTANCE.buildByLazy(dataList, treeNodeConfig);
+
+        // 处理是否包含子集
+        super.handleTreeHasChildren(treeNodes,
+                (parentIds)-> IService.hasChildren(parentIds));
+        return treeNodes;
+    }
+
 }
@@ -111,38 +111,13 @@ public class RoleMenuRefServiceImpl extends ServiceImpl<RoleMenuRefMapper,SysRol
         // 清空该角色下 用户缓存
         List<String> userIdList = iUserRoleRefService.getUserIdListByRoleId(roleId);
         if(CollUtil.isNotEmpty(userIdList)){
-            int cacheCount = 0;
-            for (String userId : userIdList) {
-                cacheCount += 6;
-                boolean tmp;
-                // 清空当期用户缓存角色、权限、菜单
-                tmp = UserUtil.refreshUserRoles(userId);
-                if(tmp){
-                    cacheCount--;
-                }
-                tmp = UserUtil.refreshUserAllPerms(userId);
-                if(tmp){
-                    cacheCount--;
-                }
-                tmp = UserUtil.refreshUserMenus(userId);
-                if(tmp){
-                    cacheCount--;
-                }
-                tmp = UserUtil.refreshUserOrgs(userId);
-                if(tmp){
-                    cacheCount--;
-                }
-                tmp = UserUtil.refreshUserDefRole(userId);
-                if(tmp){
-                    cacheCount--;
-                }
-                tmp = UserUtil.refreshUserDefOrg(userId);
-                if(tmp){
-                    cacheCount--;
-                }
-            }
+            // 清空当期用户缓存角色、权限、菜单、组织 (批量一次删除)
+            boolean cacheRet = UserUtil.refreshUserCache(userIdList,
+                    UserUtil.PREFIX_ID_ROLES, UserUtil.PREFIX_ID_PERMISSIONS,
+                    UserUtil.PREFIX_ID_MENUS, UserUtil.PREFIX_ID_ORGS,
+                    UserUtil.PREFIX_ID_DEF_ROLE, UserUtil.PREFIX_ID_DEF_ORG);
             // 判断删除状态
-            if(cacheCount != 0){
+            if(!cacheRet){
                 // 删除缓存失败
                 throw new ServiceException(CoreMsg.CACHE_DEL_EXCEPTION);
             }
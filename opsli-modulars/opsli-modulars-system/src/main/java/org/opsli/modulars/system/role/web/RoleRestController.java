@@ -175,7 +175,7 @@ public class RoleRestController extends BaseRestController<SysRole, RoleModel, I
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<SysRole> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(RoleApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(RoleApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
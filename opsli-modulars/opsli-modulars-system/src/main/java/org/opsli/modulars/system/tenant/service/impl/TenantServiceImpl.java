@@ -29,6 +29,8 @@ import org.opsli.common.enums.DictType;
 import org.opsli.common.exception.ServiceException;
 import org.opsli.common.utils.FieldUtil;
 import org.opsli.core.base.service.impl.CrudServiceImpl;
+import org.opsli.core.cache.guard.GuardType;
+import org.opsli.core.cache.guard.PenetrationGuard;
 import org.opsli.core.msg.CoreMsg;
 import org.opsli.core.utils.TenantUtil;
 import org.opsli.core.utils.UserUtil;
@@ -119,7 +121,27 @@ public class TenantServiceImpl extends CrudServiceImpl<TenantMapper, SysTenant,
             throw new ServiceException(SystemMsg.EXCEPTION_TENANT_UNIQUE);
         }
 
-        return super.insert(model);
+        TenantModel insertModel = super.insert(model);
+        if(insertModel != null){
+            // 同步防穿透过滤器
+            PenetrationGuard.put(GuardType.TENANT_ID, insertModel.getId());
+        }
+        return insertModel;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean insertBatch(List<TenantModel> models) {
+        boolean ret = super.insertBatch(models);
+        if(ret){
+            // 同步防穿透过滤器 (Excel 导入等批量新增)
+            List<String> tenantIdList = Lists.newArrayListWithCapacity(models.size());
+            for (TenantModel tenantModel : models) {
+                tenantIdList.add(tenantModel.getId());
+            }
+            PenetrationGuard.put(GuardType.TENANT_ID, tenantIdList);
+        }
+        return ret;
     }
 
     @Override
@@ -184,6 +206,8 @@ public class TenantServiceImpl extends CrudServiceImpl<TenantMapper, SysTenant,
         if(ret){
             // 清除缓存
             this.clearCache(Collections.singletonList(tenantModel.getId()));
+            // 同步防穿透过滤器
+            PenetrationGuard.remove(GuardType.TENANT_ID, Collections.singletonList(tenantModel.getId()));
         }
 
         return ret;
@@ -226,6 +250,8 @@ public class TenantServiceImpl extends CrudServiceImpl<TenantMapper, SysTenant,
         if(ret){
             // 清除缓存
             this.clearCache(Collections.singletonList(tenantModel.getId()));
+            // 同步防穿透过滤器
+            PenetrationGuard.remove(GuardType.TENANT_ID, Collections.singletonList(tenantModel.getId()));
         }
 
         return ret;
@@ -267,6 +293,8 @@ public class TenantServiceImpl extends CrudServiceImpl<TenantMapper, SysTenant,
         if(ret){
             // 清除缓存
             this.clearCache(idList);
+            // 同步防穿透过滤器
+            PenetrationGuard.remove(GuardType.TENANT_ID, idList);
         }
         return ret;
     }
@@ -310,6 +338,8 @@ public class TenantServiceImpl extends CrudServiceImpl<TenantMapper, SysTenant,
         if(ret){
             // 清除缓存
             this.clearCache(idList);
+            // 同步防穿透过滤器
+            PenetrationGuard.remove(GuardType.TENANT_ID, idList);
         }
         return ret;
     }
@@ -197,7 +197,7 @@ public class TenantRestController extends BaseRestController<SysTenant, TenantMo
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<SysTenant> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(TenantApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(TenantApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
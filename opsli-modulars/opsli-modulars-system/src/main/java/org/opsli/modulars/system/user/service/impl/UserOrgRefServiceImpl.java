@@ -267,20 +267,11 @@ public class UserOrgRefServiceImpl extends ServiceImpl<UserOrgRefMapper, SysUser
     private void clearCache(List<String> userIds){
         // 清空缓存
         if(CollUtil.isNotEmpty(userIds)){
-            int cacheCount = 0;
-            for (String userId : userIds) {
-                cacheCount+=2;
-                boolean tmp = UserUtil.refreshUserOrgs(userId);
-                if(tmp){
-                    cacheCount--;
-                }
-                tmp = UserUtil.refreshUserDefOrg(userId);
-                if(tmp){
-                    cacheCount--;
-                }
-            }
+            // 清空用户缓存 组织 (批量一次删除)
+            boolean cacheRet = UserUtil.refreshUserCache(userIds,
+                    UserUtil.PREFIX_ID_ORGS, UserUtil.PREFIX_ID_DEF_ORG);
             // 判断删除状态
-            if(cacheCount != 0){
+            if(!cacheRet){
                 // 删除缓存失败
                 throw new ServiceException(CoreMsg.CACHE_DEL_EXCEPTION);
             }
@@ -49,6 +49,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
@@ -361,36 +362,14 @@ public class UserRoleRefServiceImpl extends ServiceImpl<UserRoleRefMapper, SysUs
      * @param userId 用户ID
      */
     private void clearCache(String userId) {
-        int cacheCount = 6;
-        boolean tmp;
-        // 清空当期用户缓存角色、权限、菜单
-        tmp = UserUtil.refreshUserRoles(userId);
-        if(tmp){
-            cacheCount--;
-        }
-        tmp = UserUtil.refreshUserAllPerms(userId);
-        if(tmp){
-            cacheCount--;
-        }
-        tmp = UserUtil.refreshUserMenus(userId);
-        if(tmp){
-            cacheCount--;
-        }
-        tmp = UserUtil.refreshUserOrgs(userId);
-        if(tmp){
-            cacheCount--;
-        }
-        tmp = UserUtil.refreshUserDefRole(userId);
-        if(tmp){
-            cacheCount--;
-        }
-        tmp = UserUtil.refreshUserDefOrg(userId);
-        if(tmp){
-            cacheCount--;
-        }
+        // 清空当期用户缓存角色、权限、菜单、组织 (批量一次删除)
+        boolean cacheRet = UserUtil.refreshUserCache(Collections.singletonList(userId),
+                UserUtil.PREFIX_ID_ROLES, UserUtil.PREFIX_ID_PERMISSIONS,
+                UserUtil.PREFIX_ID_MENUS, UserUtil.PREFIX_ID_ORGS,
+                UserUtil.PREFIX_ID_DEF_ROLE, UserUtil.PREFIX_ID_DEF_ORG);
 
         // 判断删除状态
-        if(cacheCount != 0){
+        if(!cacheRet){
             // 删除缓存失败
             throw new ServiceException(CoreMsg.CACHE_DEL_EXCEPTION);
         }
@@ -32,6 +32,8 @@ import org.opsli.common.utils.CheckStrength;
 import org.opsli.common.utils.FieldUtil;
 import org.opsli.common.utils.WrapperUtil;
 import org.opsli.core.base.service.impl.CrudServiceImpl;
+import org.opsli.core.cache.guard.GuardType;
+import org.opsli.core.cache.guard.PenetrationGuard;
 import org.opsli.core.msg.CoreMsg;
 import org.opsli.core.persistence.Page;
 import org.opsli.core.persistence.querybuilder.GenQueryBuilder;
@@ -142,6 +144,10 @@ public class UserServiceImpl extends CrudServiceImpl<UserMapper, SysUser, UserMo
 
         // 新增用户 设置默认角色
         if(insertModel != null){
+            // 同步防穿透过滤器
+            PenetrationGuard.put(GuardType.USER_ID, insertModel.getId());
+            PenetrationGuard.put(GuardType.USERNAME, insertModel.getUsername());
+
             String defRole = null;
             // 获得option 缓存中 角色编号
             OptionsModel optionsModel = OptionsUtil.getOptionByCode("def_role");
@@ -172,6 +178,24 @@ public class UserServiceImpl extends CrudServiceImpl<UserMapper, SysUser, UserMo
         return insertModel;
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean insertBatch(List<UserModel> models) {
+        boolean ret = super.insertBatch(models);
+        if(ret){
+            // 同步防穿透过滤器 (Excel 导入等批量新增)
+            List<String> userIdList = Lists.newArrayListWithCapacity(models.size());
+            List<String> usernameList = Lists.newArrayListWithCapacity(models.size());
+            for (UserModel userModel : models) {
+                userIdList.add(userModel.getId());
+                usernameList.add(userModel.getUsername());
+            }
+            PenetrationGuard.put(GuardType.USER_ID, userIdList);
+            PenetrationGuard.put(GuardType.USERNAME, usernameList);
+        }
+        return ret;
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public UserModel update(UserModel model) {
@@ -291,6 +315,8 @@ public class UserServiceImpl extends CrudServiceImpl<UserMapper, SysUser, UserMo
         if(ret){
             // 刷新用户缓存
             this.clearCache(Collections.singletonList(userModel));
+            // 同步防穿透过滤器
+            this.removeGuard(Collections.singletonList(userModel));
         }
         return ret;
     }
@@ -321,6 +347,8 @@ public class UserServiceImpl extends CrudServiceImpl<UserMapper, SysUser, UserMo
         if(ret){
             // 刷新用户缓存
             this.clearCache(Collections.singletonList(userModel));
+            // 同步防穿透过滤器
+            this.removeGuard(Collections.singletonList(userModel));
         }
         return ret;
     }
@@ -364,6 +392,8 @@ public class UserServiceImpl extends CrudServiceImpl<UserMapper, SysUser, UserMo
         if(ret){
             // 刷新用户缓存
             this.clearCache(modelList);
+            // 同步防穿透过滤器
+            this.removeGuard(modelList);
         }
 
         return ret;
@@ -411,6 +441,8 @@ public class UserServiceImpl extends CrudServiceImpl<UserMapper, SysUser, UserMo
         if(ret){
             // 刷新用户缓存
             this.clearCache(modelList);
+            // 同步防穿透过滤器
+            this.removeGuard(modelList);
         }
 
         return ret;
@@ -748,23 +780,34 @@ public class UserServiceImpl extends CrudServiceImpl<UserMapper, SysUser, UserMo
 
     // ==================
 
+    /**
+     * 同步防穿透过滤器 - 删除
+     * @param list 用户集合
+     */
+    private void removeGuard(List<UserModel> list){
+        if(CollUtil.isEmpty(list)){
+            return;
+        }
+        List<String> userIdList = Lists.newArrayListWithCapacity(list.size());
+        List<String> usernameList = Lists.newArrayListWithCapacity(list.size());
+        for (UserModel userModel : list) {
+            userIdList.add(userModel.getId());
+            usernameList.add(userModel.getUsername());
+        }
+        PenetrationGuard.remove(GuardType.USER_ID, userIdList);
+        PenetrationGuard.remove(GuardType.USERNAME, usernameList);
+    }
+
     /**
      * 清除缓存
      * @param list 用户集合
      */
     private void clearCache(List<UserModel> list){
         if(CollUtil.isNotEmpty(list)){
-            int cacheCount = 0;
-            for (UserModel userModel : list) {
-                cacheCount++;
-                // 刷新用户缓存
-                boolean tmp = UserUtil.refreshUser(userModel);
-                if(tmp){
-                    cacheCount--;
-                }
-            }
+            // 刷新用户缓存 (批量一次删除)
+            boolean cacheRet = UserUtil.refreshUsers(list);
             // 判断删除状态
-            if(cacheCount != 0){
+            if(!cacheRet){
                 // 删除缓存失败
                 throw new ServiceException(CoreMsg.CACHE_DEL_EXCEPTION);
             }
@@ -498,7 +498,7 @@ public class UserRestController extends BaseRestController<SysUser, UserModel, I
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<SysUser> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(UserApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(UserApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
@@ -600,11 +600,12 @@ public class UserRestController extends BaseRestController<SysUser, UserModel, I
             throw new ServiceException(TokenMsg.EXCEPTION_USER_PERMS_NOT_NULL);
         }
 
-        // 更新 当前用户缓存
-        currUser.setSwitchTenantId(tenantId);
-        currUser.setSwitchTenantUserId(isSwitchedUser.getId());
+        // 更新 当前用户缓存 (复制后修改 缓存对象为共享引用)
+        UserModel switchUser = WrapperUtil.transformInstance(currUser, UserModel.class);
+        switchUser.setSwitchTenantId(tenantId);
+        switchUser.setSwitchTenantUserId(isSwitchedUser.getId());
 
-        return UserUtil.updateUser(currUser)
+        return UserUtil.updateUser(switchUser)
                 ? ResultVo.success("切换租户成功")
                 : ResultVo.error("切换租户失败");
     }
@@ -623,10 +624,12 @@ public class UserRestController extends BaseRestController<SysUser, UserModel, I
             throw new ServiceException(SystemMsg.EXCEPTION_USER_SWITCH_NOT_ALLOWED);
         }
 
-        currUser.setSwitchTenantId(null);
-        currUser.setSwitchTenantUserId(null);
+        // 复制后修改 缓存对象为共享引用
+        UserModel switchUser = WrapperUtil.transformInstance(currUser, UserModel.class);
+        switchUser.setSwitchTenantId(null);
+        switchUser.setSwitchTenantUserId(null);
 
-        return UserUtil.updateUser(currUser)
+        return UserUtil.updateUser(switchUser)
                 ? ResultVo.success("切换成功")
                 : ResultVo.error("切换失败");
     }
@@ -0,0 +1,101 @@
+package org.opsli.modulars.system.user;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.ObjectUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opsli.api.wrapper.system.user.UserModel;
+import org.opsli.common.utils.BeanMapper;
+import org.opsli.common.utils.WrapperUtil;
+import org.opsli.modulars.system.user.entity.SysUser;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean 属性复制 对比测试
+ *
+ * 对比 BeanMapper 与 原有 序列化克隆 + BeanUtil.copyProperties 在 1000 条用户数据上的转换耗时
+ *
+ * @author Parker
+ * @date 2021-06-09 19:30
+ */
+public class BeanMapperBenchmarkTest {
+
+    /** 每页条数 */
+    private static final int ROW_COUNT = 1000;
+    /** 轮数 (前几轮预热) */
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void copyRule() {
+        SysUser user = createUser(1);
+
+        UserModel model = WrapperUtil.transformInstance(user, UserModel.class);
+        UserModel expected = BeanUtil.copyProperties(user, UserModel.class);
+        Assert.assertEquals(expected, model);
+
+        SysUser back = WrapperUtil.transformInstance(model, SysUser.class);
+        Assert.assertEquals(BeanUtil.copyProperties(model, SysUser.class), back);
+
+        // 克隆时 可变值不共用
+        UserModel cloned = BeanMapper.copy(user, UserModel.class, true);
+        Assert.assertEquals(user.getCreateTime(), cloned.getCreateTime());
+        Assert.assertNotSame(user.getCreateTime(), cloned.getCreateTime());
+    }
+
+    @Test
+    public void copyCost() {
+        List<SysUser> users = new ArrayList<>(ROW_COUNT);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            users.add(createUser(i));
+        }
+
+        long mapperCost = 0;
+        long legacyCost = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            List<UserModel> models = WrapperUtil.transformInstance(users, UserModel.class);
+            List<SysUser> back = WrapperUtil.transformInstance(models, SysUser.class);
+            mapperCost = System.nanoTime() - begin;
+            Assert.assertEquals(ROW_COUNT, back.size());
+
+            // 原有实现 逐条序列化克隆 再反射复制
+            begin = System.nanoTime();
+            List<UserModel> legacyModels = new ArrayList<>(ROW_COUNT);
+            for (SysUser user : users) {
+                legacyModels.add(BeanUtil.copyProperties(ObjectUtil.cloneByStream(user), UserModel.class));
+            }
+            List<SysUser> legacyBack = new ArrayList<>(ROW_COUNT);
+            for (UserModel model : legacyModels) {
+                legacyBack.add(BeanUtil.copyProperties(ObjectUtil.cloneByStream(model), SysUser.class));
+            }
+            legacyCost = System.nanoTime() - begin;
+
+            Assert.assertEquals(legacyModels, models);
+        }
+
+        System.out.println("条数: " + ROW_COUNT + " (SysUser -> UserModel -> SysUser)");
+        System.out.println("BeanMapper 耗时: " + TimeUnit.NANOSECONDS.toMicros(mapperCost) + "us");
+        System.out.println("克隆 + copyProperties 耗时: " + TimeUnit.NANOSECONDS.toMicros(legacyCost) + "us");
+    }
+
+    private static SysUser createUser(int i) {
+        SysUser user = new SysUser();
+        user.setId(String.valueOf(i));
+        user.setUsername("user" + i);
+        user.setRealName("用户" + i);
+        user.setEmail("user" + i + "@opsli.com");
+        user.setMobile("1380000" + i);
+        user.setEnable("1");
+        user.setTenantId("1");
+        user.setCreateBy("1");
+        user.setCreateTime(new Date());
+        user.setUpdateTime(new Date());
+        user.setVersion(0);
+        return user;
+    }
+
+}
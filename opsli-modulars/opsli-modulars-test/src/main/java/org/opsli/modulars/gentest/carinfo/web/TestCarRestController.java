@@ -171,7 +171,7 @@ public class TestCarRestController extends BaseRestController<TestCar, TestCarMo
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<TestCar> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(TestCarRestApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(TestCarRestApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
@@ -164,7 +164,7 @@ public class TestUserRestController extends BaseRestController<TestUser, TestUse
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<TestUser> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(TestUserRestApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(TestUserRestApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
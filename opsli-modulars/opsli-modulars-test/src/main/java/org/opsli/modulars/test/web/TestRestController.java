@@ -147,7 +147,7 @@ public class TestRestController extends BaseRestController<TestEntity, TestModel
         // 当前方法
         Method method = ReflectUtil.getMethodByName(this.getClass(), "exportExcel");
         QueryBuilder<TestEntity> queryBuilder = new WebQueryBuilder<>(entityClazz, request.getParameterMap());
-        super.excelExport(TestRestApi.SUB_TITLE, queryBuilder.build(), response, method);
+        super.excelExport(TestRestApi.SUB_TITLE, queryBuilder, response, method);
     }
 
     /**
@@ -17,8 +17,10 @@ package opsli.plugins.crypto;
 
 import lombok.extern.slf4j.Slf4j;
 import opsli.plugins.crypto.strategy.CryptoAsymmetricService;
+import opsli.plugins.crypto.strategy.CryptoEnvelopeService;
 import opsli.plugins.crypto.strategy.CryptoSymmetricService;
 import opsli.plugins.crypto.strategy.impl.CryptoAsymmetricServiceImpl;
+import opsli.plugins.crypto.strategy.impl.CryptoEnvelopeServiceImpl;
 import opsli.plugins.crypto.strategy.impl.CryptoSymmetricServiceImpl;
 
 /**
@@ -35,6 +37,8 @@ public class CryptoPlugin {
     private static final CryptoSymmetricService CRYPTO_SYMMETRIC = new CryptoSymmetricServiceImpl();
     /** 非对称加密 */
     private static final CryptoAsymmetricService CRYPTO_ASYMMETRIC = new CryptoAsymmetricServiceImpl();
+    /** 数字信封 */
+    private static final CryptoEnvelopeService CRYPTO_ENVELOPE = new CryptoEnvelopeServiceImpl(CRYPTO_ASYMMETRIC);
 
     /**
      * 获得对称加密
@@ -52,6 +56,14 @@ public class CryptoPlugin {
         return CRYPTO_ASYMMETRIC;
     }
 
+    /**
+     * 获得数字信封
+     * @return CryptoEnvelopeService
+     */
+    public static CryptoEnvelopeService getEnvelope(){
+        return CRYPTO_ENVELOPE;
+    }
+
     // ================
 
     private CryptoPlugin(){}
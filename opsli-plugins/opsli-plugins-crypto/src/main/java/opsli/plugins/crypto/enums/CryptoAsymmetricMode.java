@@ -0,0 +1,72 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package opsli.plugins.crypto.enums;
+
+/**
+ * 非对称加密 模式
+ *
+ * @author Parker
+ * @date 2021-06-08 17:20
+ */
+public enum CryptoAsymmetricMode {
+
+    /** 非对称加密 模式 */
+
+    /** 直接使用非对称算法加密全部数据 */
+    DIRECT("DIRECT", "直接加密"),
+    /** 数字信封：对称算法加密数据，非对称算法只加密数据密钥 */
+    ENVELOPE("ENVELOPE", "数字信封"),
+    /** 数字信封 + 会话密钥：协商一次数据密钥后，后续请求不再执行非对称运算 */
+    ENVELOPE_SESSION("ENVELOPE_SESSION", "数字信封-会话密钥"),
+
+    ;
+
+    private final String code;
+    private final String desc;
+
+    public static CryptoAsymmetricMode getMode(String code) {
+        CryptoAsymmetricMode[] types = values();
+        for (CryptoAsymmetricMode type : types) {
+            if (type.code.equalsIgnoreCase(code)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 是否为数字信封模式
+     * @return boolean
+     */
+    public boolean isEnvelope() {
+        return this != DIRECT;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+
+    public String getDesc() {
+        return this.desc;
+    }
+
+    // =================
+
+    CryptoAsymmetricMode(final String code, final String desc) {
+        this.code = code;
+        this.desc = desc;
+    }
+}
@@ -16,7 +16,9 @@
 package opsli.plugins.crypto.model;
 
 import lombok.Data;
+import opsli.plugins.crypto.enums.CryptoAsymmetricMode;
 import opsli.plugins.crypto.enums.CryptoAsymmetricType;
+import opsli.plugins.crypto.enums.CryptoSymmetricType;
 
 /**
  * 非对称加密
@@ -36,4 +38,10 @@ public class CryptoAsymmetric {
     /** 私钥 */
     private String privateKey;
 
+    /** 加密模式 为空则直接加密 */
+    private CryptoAsymmetricMode mode;
+
+    /** 数字信封 数据加密算法 (AES / SM4) 为空则使用 AES */
+    private CryptoSymmetricType envelopeType;
+
 }
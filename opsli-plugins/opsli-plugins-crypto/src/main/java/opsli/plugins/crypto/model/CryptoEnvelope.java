@@ -0,0 +1,44 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package opsli.plugins.crypto.model;
+
+import lombok.Data;
+
+/**
+ * 数字信封
+ *
+ * 数据使用一次性数据密钥 (AES-GCM / SM4-GCM) 加密，
+ * 数据密钥使用非对称算法加密后随数据一同传输；使用会话密钥时 不携带数据密钥
+ *
+ * @author Parker
+ * @date 2021-06-08 17:20
+ */
+@Data
+public class CryptoEnvelope {
+
+    /** 加密后的数据密钥 (Base64) 为空则使用会话密钥 */
+    private String key;
+
+    /** 初始向量 (Base64) */
+    private String iv;
+
+    /** 加密后的数据 (Base64) */
+    private String data;
+
+    /** 请求时 是否将本次数据密钥作为会话密钥 */
+    private Boolean session;
+
+}
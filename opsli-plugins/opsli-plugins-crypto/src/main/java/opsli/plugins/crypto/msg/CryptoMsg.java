@@ -32,6 +32,8 @@ public enum CryptoMsg implements BaseMsg {
     CRYPTO_EXCEPTION_MODEL_NULL(10705,"配置信息未初始化"),
     CRYPTO_EXCEPTION_TO_JSON(10706,"加密数据转换Json失败"),
     CRYPTO_EXCEPTION_HANDLER_NULL(10707,"无法获得加解密执行器"),
+    CRYPTO_EXCEPTION_SESSION_NULL(10708,"加密会话不存在或已过期"),
+    CRYPTO_EXCEPTION_ENVELOPE_TYPE(10709,"数字信封不支持该对称算法"),
 
     ;
 
@@ -63,5 +63,21 @@ public interface CryptoAsymmetricService {
      */
     String decrypt(final CryptoAsymmetric model, final String data);
 
+    /**
+     * 加密字节 (公钥)
+     * @param model 加解密模型
+     * @param data 数据
+     * @return byte[]
+     */
+    byte[] encryptBytes(final CryptoAsymmetric model, final byte[] data);
+
+    /**
+     * 解密字节 (私钥)
+     * @param model 加解密模型
+     * @param data 数据
+     * @return byte[]
+     */
+    byte[] decryptBytes(final CryptoAsymmetric model, final byte[] data);
+
 
 }
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package opsli.plugins.crypto.strategy;
+
+import opsli.plugins.crypto.model.CryptoAsymmetric;
+import opsli.plugins.crypto.model.CryptoEnvelope;
+
+/**
+ * 数字信封 加解密策略接口
+ *
+ * @author Parker
+ * @date 2021-06-08 17:20
+ */
+public interface CryptoEnvelopeService {
+
+    /**
+     * 加密数据 - 生成一次性数据密钥 并使用公钥加密数据密钥
+     * @param model 加解密模型
+     * @param data 数据
+     * @return CryptoEnvelope
+     */
+    CryptoEnvelope encrypt(final CryptoAsymmetric model, final Object data);
+
+    /**
+     * 加密数据 - 使用会话密钥 不携带数据密钥
+     * @param model 加解密模型
+     * @param sessionKey 会话密钥
+     * @param data 数据
+     * @return CryptoEnvelope
+     */
+    CryptoEnvelope encrypt(final CryptoAsymmetric model, final byte[] sessionKey, final Object data);
+
+    /**
+     * 打开数字信封 - 使用私钥解密数据密钥
+     * @param model 加解密模型
+     * @param envelope 数字信封
+     * @return byte[] 数据密钥 信封未携带数据密钥时返回 null
+     */
+    byte[] openKey(final CryptoAsymmetric model, final CryptoEnvelope envelope);
+
+    /**
+     * 解密数据
+     * @param model 加解密模型
+     * @param dataKey 数据密钥
+     * @param envelope 数字信封
+     * @return String
+     */
+    String decrypt(final CryptoAsymmetric model, final byte[] dataKey, final CryptoEnvelope envelope);
+
+    /**
+     * 解密数据 - 反射Obj对象
+     * @param model 加解密模型
+     * @param dataKey 数据密钥
+     * @param envelope 数字信封
+     * @return Object
+     */
+    Object decryptToObj(final CryptoAsymmetric model, final byte[] dataKey, final CryptoEnvelope envelope);
+
+    /**
+     * 解析数字信封
+     * @param data 数字信封 Json
+     * @return CryptoEnvelope
+     */
+    CryptoEnvelope parse(final String data);
+
+}
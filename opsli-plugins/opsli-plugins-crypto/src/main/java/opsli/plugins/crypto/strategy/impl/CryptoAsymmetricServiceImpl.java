@@ -200,6 +200,66 @@ public class CryptoAsymmetricServiceImpl implements CryptoAsymmetricService {
     }
 
 
+    /**
+     * 加密字节 (公钥)
+     * @param model 加解密模型
+     * @param data 数据
+     * @return byte[]
+     */
+    @Override
+    public byte[] encryptBytes(final CryptoAsymmetric model, final byte[] data){
+        // 非法验证
+        this.verify(model);
+
+        try {
+            // 创建执行器
+            AbstractAsymmetricCrypto<?> cryptoHandler =
+                    this.createCryptoHandler(model);
+            if(cryptoHandler == null){
+                // 无法获得加解密执行器
+                throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_HANDLER_NULL);
+            }
+            return cryptoHandler.encrypt(data, KeyType.PublicKey);
+        }catch (CryptoException ce){
+            // 如果检测到已有异常 则直接抛出
+            throw ce;
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+            // 加密失败
+            throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_EN);
+        }
+    }
+
+    /**
+     * 解密字节 (私钥)
+     * @param model 加解密模型
+     * @param data 数据
+     * @return byte[]
+     */
+    @Override
+    public byte[] decryptBytes(final CryptoAsymmetric model, final byte[] data){
+        // 非法验证
+        this.verify(model);
+
+        try {
+            // 创建执行器
+            AbstractAsymmetricCrypto<?> cryptoHandler =
+                    this.createCryptoHandler(model);
+            if(cryptoHandler == null){
+                // 无法获得加解密执行器
+                throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_HANDLER_NULL);
+            }
+            return cryptoHandler.decrypt(data, KeyType.PrivateKey);
+        }catch (CryptoException ce){
+            // 如果检测到已有异常 则直接抛出
+            throw ce;
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+            // 解密失败
+            throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_DE);
+        }
+    }
+
     /**
      * 验证
      * @param model 加解密模型
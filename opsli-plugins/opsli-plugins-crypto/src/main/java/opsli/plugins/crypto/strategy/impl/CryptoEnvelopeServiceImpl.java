@@ -0,0 +1,237 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package opsli.plugins.crypto.strategy.impl;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.util.CharsetUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONException;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+import opsli.plugins.crypto.enums.CryptoSymmetricType;
+import opsli.plugins.crypto.exception.CryptoException;
+import opsli.plugins.crypto.model.CryptoAsymmetric;
+import opsli.plugins.crypto.model.CryptoEnvelope;
+import opsli.plugins.crypto.msg.CryptoMsg;
+import opsli.plugins.crypto.strategy.CryptoAsymmetricService;
+import opsli.plugins.crypto.strategy.CryptoEnvelopeService;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+
+/**
+ * 数字信封
+ *
+ * 数据使用 AES-GCM / SM4-GCM 加密，非对称算法只加密 16 字节的数据密钥，
+ * 非对称运算量与数据大小无关
+ *
+ * @author Parker
+ * @date 2021-06-08 17:20
+ */
+@Slf4j
+public class CryptoEnvelopeServiceImpl implements CryptoEnvelopeService {
+
+    /** 数据密钥长度 (字节) */
+    private static final int KEY_SIZE = 16;
+    /** 初始向量长度 (字节) */
+    private static final int IV_SIZE = 12;
+    /** GCM 认证标签长度 (位) */
+    private static final int TAG_SIZE = 128;
+    /** 随机数 */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** 非对称加密 */
+    private final CryptoAsymmetricService asymmetric;
+
+    public CryptoEnvelopeServiceImpl(CryptoAsymmetricService asymmetric) {
+        this.asymmetric = asymmetric;
+    }
+
+    /**
+     * 加密数据 - 生成一次性数据密钥 并使用公钥加密数据密钥
+     * @param model 加解密模型
+     * @param data 数据
+     * @return CryptoEnvelope
+     */
+    @Override
+    public CryptoEnvelope encrypt(final CryptoAsymmetric model, final Object data){
+        byte[] dataKey = new byte[KEY_SIZE];
+        RANDOM.nextBytes(dataKey);
+
+        CryptoEnvelope envelope = this.encrypt(model, dataKey, data);
+        envelope.setKey(Base64.encode(asymmetric.encryptBytes(model, dataKey)));
+        return envelope;
+    }
+
+    /**
+     * 加密数据 - 使用会话密钥 不携带数据密钥
+     * @param model 加解密模型
+     * @param sessionKey 会话密钥
+     * @param data 数据
+     * @return CryptoEnvelope
+     */
+    @Override
+    public CryptoEnvelope encrypt(final CryptoAsymmetric model, final byte[] sessionKey, final Object data){
+        try {
+            String jsonStr = JSONUtil.toJsonStr(data);
+
+            byte[] iv = new byte[IV_SIZE];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = this.createCipher(model, Cipher.ENCRYPT_MODE, sessionKey, iv);
+
+            CryptoEnvelope envelope = new CryptoEnvelope();
+            envelope.setIv(Base64.encode(iv));
+            envelope.setData(Base64.encode(
+                    cipher.doFinal(StrUtil.bytes(jsonStr, CharsetUtil.CHARSET_UTF_8))));
+            return envelope;
+        }catch (JSONException jse){
+            // 加密数据转换Json失败
+            throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_TO_JSON);
+        }catch (CryptoException ce){
+            // 如果检测到已有异常 则直接抛出
+            throw ce;
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+            // 加密失败
+            throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_EN);
+        }
+    }
+
+    /**
+     * 打开数字信封 - 使用私钥解密数据密钥
+     * @param model 加解密模型
+     * @param envelope 数字信封
+     * @return byte[] 数据密钥 信封未携带数据密钥时返回 null
+     */
+    @Override
+    public byte[] openKey(final CryptoAsymmetric model, final CryptoEnvelope envelope){
+        if(envelope == null || StringUtils.isEmpty(envelope.getKey())){
+            return null;
+        }
+        return asymmetric.decryptBytes(model,
+                Base64.decode(envelope.getKey().replaceAll(" ", "+")));
+    }
+
+    /**
+     * 解密数据
+     * @param model 加解密模型
+     * @param dataKey 数据密钥
+     * @param envelope 数字信封
+     * @return String
+     */
+    @Override
+    public String decrypt(final CryptoAsymmetric model, final byte[] dataKey, final CryptoEnvelope envelope){
+        // 如果解密内容为空 则返回原内容
+        if(envelope == null || StringUtils.isEmpty(envelope.getData())){
+            return null;
+        }
+        if(dataKey == null || StringUtils.isEmpty(envelope.getIv())){
+            // 解密失败
+            throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_DE);
+        }
+
+        try {
+            byte[] iv = Base64.decode(envelope.getIv().replaceAll(" ", "+"));
+            Cipher cipher = this.createCipher(model, Cipher.DECRYPT_MODE, dataKey, iv);
+            byte[] decrypted = cipher.doFinal(
+                    Base64.decode(envelope.getData().replaceAll(" ", "+")));
+            return StrUtil.str(decrypted, CharsetUtil.CHARSET_UTF_8);
+        }catch (CryptoException ce){
+            // 如果检测到已有异常 则直接抛出
+            throw ce;
+        }catch (Exception e){
+            log.error(e.getMessage(), e);
+            // 解密失败
+            throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_DE);
+        }
+    }
+
+    /**
+     * 解密数据 - 反射Obj对象
+     * @param model 加解密模型
+     * @param dataKey 数据密钥
+     * @param envelope 数字信封
+     * @return Object
+     */
+    @Override
+    public Object decryptToObj(final CryptoAsymmetric model, final byte[] dataKey, final CryptoEnvelope envelope){
+        Object obj;
+        // 解密数据
+        String decryptedData = this.decrypt(model, dataKey, envelope);
+        // 反射对象
+        try{
+            obj = JSONUtil.parse(decryptedData);
+        }catch (Exception e){
+            // 解密反射失败
+            throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_REFLEX);
+        }
+        return obj;
+    }
+
+    /**
+     * 解析数字信封
+     * @param data 数字信封 Json
+     * @return CryptoEnvelope
+     */
+    @Override
+    public CryptoEnvelope parse(final String data){
+        if(StringUtils.isEmpty(data)){
+            return null;
+        }
+        try {
+            return JSONUtil.toBean(data, CryptoEnvelope.class);
+        }catch (Exception e){
+            // 解密反射失败
+            throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_REFLEX);
+        }
+    }
+
+    /**
+     * 创建 对称加解密器 (Cipher 非线程安全 每次创建)
+     * @param model 加解密模型
+     * @param mode 加密 / 解密
+     * @param dataKey 数据密钥
+     * @param iv 初始向量
+     * @return Cipher
+     */
+    private Cipher createCipher(final CryptoAsymmetric model, final int mode,
+                                final byte[] dataKey, final byte[] iv) throws Exception {
+        CryptoSymmetricType type = model == null || model.getEnvelopeType() == null
+                ? CryptoSymmetricType.AES : model.getEnvelopeType();
+
+        String algorithm;
+        switch (type){
+            case AES:
+                algorithm = "AES";
+                break;
+            case SM4:
+                algorithm = "SM4";
+                break;
+            default:
+                // 数字信封不支持该对称算法
+                throw new CryptoException(CryptoMsg.CRYPTO_EXCEPTION_ENVELOPE_TYPE);
+        }
+
+        Cipher cipher = SecureUtil.createCipher(algorithm + "/GCM/NoPadding");
+        cipher.init(mode, new SecretKeySpec(dataKey, algorithm), new GCMParameterSpec(TAG_SIZE, iv));
+        return cipher;
+    }
+
+}
@@ -0,0 +1,116 @@
+package opsli.plugins.crypto.strategy.impl;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.json.JSONObject;
+import opsli.plugins.crypto.enums.CryptoAsymmetricType;
+import opsli.plugins.crypto.model.CryptoAsymmetric;
+import opsli.plugins.crypto.model.CryptoEnvelope;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数字信封 对比测试
+ *
+ * 对比 1KB / 100KB / 1MB 数据下 直接非对称加密、数字信封、会话密钥 的加解密耗时
+ * 直接加密 1MB 数据需分段执行上万次非对称运算，耗时过长 不参与对比
+ *
+ * @author Parker
+ * @date 2021-06-09 18:30
+ */
+public class CryptoEnvelopeBenchmarkTest {
+
+    /** 数据大小 */
+    private static final int[] SIZES = {1024, 100 * 1024, 1024 * 1024};
+    /** 直接加密 最大数据大小 */
+    private static final int DIRECT_MAX_SIZE = 100 * 1024;
+    /** 每轮次数 */
+    private static final int COUNT = 5;
+    /** 轮数 (首轮预热) */
+    private static final int ROUNDS = 2;
+
+    private final CryptoAsymmetricServiceImpl asymmetric = new CryptoAsymmetricServiceImpl();
+    private final CryptoEnvelopeServiceImpl envelopeService = new CryptoEnvelopeServiceImpl(asymmetric);
+
+    @Test
+    public void roundTrip() {
+        CryptoAsymmetric model = asymmetric.createKeyModel(CryptoAsymmetricType.RSA);
+        JSONObject data = createData(1024);
+
+        CryptoEnvelope envelope = envelopeService.encrypt(model, data);
+        byte[] dataKey = envelopeService.openKey(model, envelope);
+        assertData(data, envelopeService.decryptToObj(model, dataKey, envelope));
+
+        // 会话密钥加密 不携带数据密钥
+        CryptoEnvelope sessionEnvelope = envelopeService.encrypt(model, dataKey, data);
+        Assert.assertNull(envelopeService.openKey(model, sessionEnvelope));
+        assertData(data, envelopeService.decryptToObj(model, dataKey, sessionEnvelope));
+    }
+
+    @Test
+    public void cost() {
+        CryptoAsymmetric model = asymmetric.createKeyModel(CryptoAsymmetricType.RSA);
+        for (int size : SIZES) {
+            JSONObject data = createData(size);
+
+            long directCost = -1;
+            long envelopeCost = 0;
+            long sessionCost = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                if(size <= DIRECT_MAX_SIZE){
+                    long begin = System.nanoTime();
+                    for (int i = 0; i < COUNT; i++) {
+                        String encrypted = asymmetric.encrypt(model, data);
+                        assertData(data, asymmetric.decryptToObj(model, encrypted));
+                    }
+                    directCost = System.nanoTime() - begin;
+                }
+
+                long begin = System.nanoTime();
+                byte[] dataKey = null;
+                for (int i = 0; i < COUNT; i++) {
+                    CryptoEnvelope envelope = envelopeService.encrypt(model, data);
+                    dataKey = envelopeService.openKey(model, envelope);
+                    assertData(data, envelopeService.decryptToObj(model, dataKey, envelope));
+                }
+                envelopeCost = System.nanoTime() - begin;
+
+                begin = System.nanoTime();
+                for (int i = 0; i < COUNT; i++) {
+                    CryptoEnvelope envelope = envelopeService.encrypt(model, dataKey, data);
+                    assertData(data, envelopeService.decryptToObj(model, dataKey, envelope));
+                }
+                sessionCost = System.nanoTime() - begin;
+            }
+
+            System.out.println("数据大小: " + size / 1024 + "KB 次数: " + COUNT);
+            System.out.println("  直接加密 耗时: "
+                    + (directCost < 0 ? "跳过" : TimeUnit.NANOSECONDS.toMillis(directCost) + "ms"));
+            System.out.println("  数字信封 耗时: " + TimeUnit.NANOSECONDS.toMillis(envelopeCost) + "ms");
+            System.out.println("  会话密钥 耗时: " + TimeUnit.NANOSECONDS.toMillis(sessionCost) + "ms");
+        }
+    }
+
+    /**
+     * 校验解密结果
+     * @param expected 原数据
+     * @param actual 解密结果
+     */
+    private static void assertData(JSONObject expected, Object actual) {
+        Assert.assertTrue(actual instanceof JSONObject);
+        Assert.assertEquals(expected.getStr("data"), ((JSONObject) actual).getStr("data"));
+    }
+
+    /**
+     * 创建测试数据
+     * @param size 数据大小
+     * @return JSONObject
+     */
+    private static JSONObject createData(int size) {
+        JSONObject data = new JSONObject();
+        data.set("data", RandomUtil.randomString(size));
+        return data;
+    }
+
+}
@@ -27,6 +27,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.opsli.common.utils.WrapperUtil;
 import org.opsli.plugins.excel.exception.ExcelPluginException;
+import org.opsli.plugins.excel.factory.ExcelStreamWriter;
 import org.opsli.plugins.excel.listener.BatchExcelListener;
 import org.opsli.plugins.excel.listener.ExcelListener;
 import org.opsli.plugins.excel.msg.ExcelMsg;
@@ -226,6 +227,31 @@ public class ExcelPlugin {
     }
 
 
+    /**
+     * 创建分批写入的 Writer
+     * 数据分批追加，输出流在 finish 时才打开
+     * @param response response
+     * @param fileName 文件名称
+     * @param sheetName sheet 名称
+     * @param classType 数据类型
+     * @param excelTypeEnum 文件类型
+     * @param <T> 泛型
+     * @return ExcelStreamWriter
+     */
+    public <T> ExcelStreamWriter<T> createStreamWriter(HttpServletResponse response,
+                                                       String fileName, String sheetName,
+                                                       Class<T> classType, ExcelTypeEnum excelTypeEnum){
+        if(sheetName == null || "".equals(sheetName)){
+            sheetName = "sheet1";
+        }
+
+        final String finalFileName = fileName+"-"+DateUtil.format(DateUtil.date(), "yyyyMMddHHmmss");
+        return new ExcelStreamWriter<>(
+                () -> getOutputStream(finalFileName, response, excelTypeEnum),
+                sheetName, classType);
+    }
+
+
     /**
      * 导出文件时为Writer生成OutputStream
      */
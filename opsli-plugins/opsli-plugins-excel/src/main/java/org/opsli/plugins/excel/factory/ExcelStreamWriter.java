@@ -0,0 +1,181 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.plugins.excel.factory;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import lombok.extern.slf4j.Slf4j;
+import org.opsli.plugins.excel.exception.ExcelPluginException;
+import org.opsli.plugins.excel.msg.ExcelMsg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Excel 分批写
+ *
+ * 数据按批追加到同一个 sheet，写完一批即可释放，内存占用与总行数无关
+ * (xlsx 由 EasyExcel 以 SXSSF 方式写入临时文件)
+ *
+ * 输出流在真正输出时才打开，导出中途失败时 response 仍未提交，可以继续推送错误信息
+ *
+ * @author Parker
+ * @date 2021-06-05 15:10
+ */
+@Slf4j
+public class ExcelStreamWriter<T> {
+
+    /** 延迟打开的输出流 */
+    private final LazyOutputStream outputStream;
+    private final ExcelWriter excelWriter;
+    private final WriteSheet writeSheet;
+    /** 已写入行数 */
+    private long count;
+    /** 是否已结束 */
+    private boolean finished;
+
+    /**
+     * 构造函数
+     * @param streamSupplier 输出流 (首次输出时获取)
+     * @param sheetName sheet 名称
+     * @param classType 数据类型
+     */
+    public ExcelStreamWriter(Callable<OutputStream> streamSupplier, String sheetName, Class<T> classType) {
+        this.outputStream = new LazyOutputStream(streamSupplier);
+        this.excelWriter = EasyExcel.write(outputStream, classType).build();
+        this.writeSheet = EasyExcel.writerSheet(1, sheetName).build();
+        this.writeSheet.setRelativeHeadRowIndex(0);
+    }
+
+    /**
+     * 追加一批数据
+     * @param list 数据
+     */
+    public void write(List<T> list){
+        if(finished){
+            return;
+        }
+        excelWriter.write(list, writeSheet);
+        count += list.size();
+    }
+
+    /**
+     * 已写入行数
+     * @return long
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 完成并输出
+     * 输出失败时抛出异常，且不标记为结束，调用方仍需 abort() 清理
+     */
+    public void finish(){
+        if(finished){
+            return;
+        }
+        try {
+            excelWriter.finish();
+            outputStream.flush();
+            outputStream.close();
+        }catch (Exception e){
+            log.error(e.getMessage(),e);
+            throw new ExcelPluginException(ExcelMsg.EXCEPTION_WRITE_ERROR);
+        }
+        finished = true;
+    }
+
+    /**
+     * 放弃输出 (只清理临时文件，不写 response)
+     */
+    public void abort(){
+        if(finished){
+            return;
+        }
+        finished = true;
+        outputStream.discard();
+        try {
+            excelWriter.finish();
+        }catch (Exception e){
+            log.error(e.getMessage(),e);
+        }
+    }
+
+    // ======================================
+
+    /**
+     * 延迟打开的输出流
+     */
+    private static class LazyOutputStream extends OutputStream {
+
+        private final Callable<OutputStream> streamSupplier;
+        private OutputStream delegate;
+        private boolean discard;
+
+        private LazyOutputStream(Callable<OutputStream> streamSupplier) {
+            this.streamSupplier = streamSupplier;
+        }
+
+        private void discard(){
+            this.discard = true;
+        }
+
+        private OutputStream delegate() throws IOException {
+            if(delegate == null){
+                try {
+                    delegate = streamSupplier.call();
+                }catch (IOException e){
+                    throw e;
+                }catch (Exception e){
+                    throw new IOException(e);
+                }
+            }
+            return delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if(!discard){
+                delegate().write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if(!discard){
+                delegate().write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if(!discard && delegate != null){
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(!discard && delegate != null){
+                delegate.close();
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ public enum ExcelMsg implements BaseMsg {
     /** Excel 异常 */
     EXCEPTION_FILE_FORMAT(90000,"文件格式错误！"),
     EXCEPTION_CREATE_ERROR(90000,"创建文件失败！"),
+    EXCEPTION_WRITE_ERROR(90000,"输出文件失败！"),
     ;
 
 
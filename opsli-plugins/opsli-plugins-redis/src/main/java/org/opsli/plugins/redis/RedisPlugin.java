@@ -25,12 +25,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -1524,6 +1527,66 @@ public class RedisPlugin {
 		});
 	}
 
+	/**
+	 * 批量获取普通对象 pipeline 技术
+	 * 返回结果与 keys 顺序一一对应，不存在的 key 对应 null
+	 *
+	 * @param keys 主键集合
+	 * @return List
+	 */
+	public List<Object> getPileLine(List<String> keys) {
+		if(keys == null || keys.isEmpty()){
+			return Collections.emptyList();
+		}
+		return redisTemplate.executePipelined(new SessionCallback<Object>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <K, V> Object execute(RedisOperations<K, V> operations) {
+				RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+				for (String key : keys) {
+					ops.opsForValue().get(key);
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * 批量存入普通对象 pipeline 技术
+	 *
+	 * @param values 主键 - 值
+	 * @param timeouts 主键 - 有效期(秒)，为空或小于等于0 则无时间限制
+	 * @return boolean
+	 */
+	public boolean putPileLine(Map<String, Object> values, Map<String, Long> timeouts) {
+		if(values == null || values.isEmpty()){
+			return true;
+		}
+		boolean ret = false;
+		try {
+			redisTemplate.executePipelined(new SessionCallback<Object>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				public <K, V> Object execute(RedisOperations<K, V> operations) {
+					RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+					for (Map.Entry<String, Object> entry : values.entrySet()) {
+						Long timeout = timeouts != null ? timeouts.get(entry.getKey()) : null;
+						if (timeout != null && timeout > 0) {
+							ops.opsForValue().set(entry.getKey(), entry.getValue(), timeout, TimeUnit.SECONDS);
+						} else {
+							ops.opsForValue().set(entry.getKey(), entry.getValue());
+						}
+					}
+					return null;
+				}
+			});
+			ret = true;
+		} catch (Exception e) {
+			log.error(e.getMessage(),e);
+		}
+		return ret;
+	}
+
 	// ===================== 消息发布 =====================
 
 	/**
@@ -27,7 +27,13 @@ public enum RedisScriptsEnum {
     /** Redis加锁脚本 */
     REDIS_LOCK("/lua/redis_lock.lua"),
     /** Redis解锁脚本 */
-    REDIS_UN_LOCK("/lua/redis_unlock.lua")
+    REDIS_UN_LOCK("/lua/redis_unlock.lua"),
+    /** Redis令牌桶限流脚本 */
+    REDIS_TOKEN_BUCKET("/lua/redis_token_bucket.lua"),
+    /** Redis GCRA限流脚本 */
+    REDIS_GCRA("/lua/redis_gcra.lua"),
+    /** Redis版本号一致时写入脚本 */
+    REDIS_VERSION_SET("/lua/redis_version_set.lua")
     ;
 
     /** 脚本路径 */
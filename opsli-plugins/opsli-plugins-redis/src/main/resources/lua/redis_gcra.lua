@@ -0,0 +1,33 @@
+-- GCRA 限流脚本
+-- key1：限流器名称 argv1：每秒允许请求数 argv2：突发容量 argv3：本次申请数
+-- 返回 0 为通过，大于 0 为需要等待的毫秒数
+local rate = tonumber(ARGV[1])
+local burst = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+-- 以 Redis 服务器时间为准，避免各服务器时钟不一致
+if redis.replicate_commands then
+   redis.replicate_commands()
+end
+local time = redis.call('time')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+-- 单个请求间隔 与 突发容忍时间
+local emission = 1000 / rate
+local tolerance = emission * burst
+
+-- 理论到达时间
+local tat = tonumber(redis.call('get', KEYS[1]))
+if tat == nil or tat < now then
+   tat = now
+end
+
+local new_tat = tat + emission * requested
+local allow_at = new_tat - tolerance
+if allow_at > now then
+   -- 超出突发容量，返回需要等待的时间
+   return math.max(1, math.ceil(allow_at - now))
+end
+
+redis.call('set', KEYS[1], tostring(new_tat), 'px', math.ceil(new_tat - now) + 1000)
+return 0
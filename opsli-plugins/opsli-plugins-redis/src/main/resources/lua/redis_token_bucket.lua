@@ -0,0 +1,37 @@
+-- 令牌桶限流脚本
+-- key1：限流器名称 argv1：每秒生成令牌数 argv2：桶容量 argv3：本次申请令牌数
+-- 返回 0 为通过，大于 0 为需要等待的毫秒数
+local rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+-- 以 Redis 服务器时间为准，避免各服务器时钟不一致
+if redis.replicate_commands then
+   redis.replicate_commands()
+end
+local time = redis.call('time')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local bucket = redis.call('hmget', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+   -- 桶不存在，按满桶处理
+   tokens = capacity
+   ts = now
+end
+
+-- 按流逝时间补充令牌
+local elapsed = math.max(0, now - ts)
+tokens = math.min(capacity, tokens + elapsed * rate / 1000)
+
+if tokens < requested then
+   -- 令牌不足，返回需要等待的时间
+   return math.max(1, math.ceil((requested - tokens) * 1000 / rate))
+end
+
+tokens = tokens - requested
+redis.call('hmset', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+-- 桶补满后即可删除
+redis.call('pexpire', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000)
+return 0
@@ -0,0 +1,20 @@
+-- 版本号一致时写入脚本
+-- key1：版本号 key2：缓存键 key3：索引键 (Set)
+-- argv1：读取前的版本号 argv2：值 argv3：存活时间(秒) 小于等于0 不过期 argv4：索引成员
+-- 返回 1 为写入成功，0 为版本号已变更 (期间被清除) 不写入
+local version = tonumber(redis.call('get', KEYS[1])) or 0
+if version ~= tonumber(ARGV[1]) then
+   return 0
+end
+local expire_time = tonumber(ARGV[3])
+if expire_time > 0 then
+   redis.call('set', KEYS[2], ARGV[2], 'ex', expire_time)
+else
+   redis.call('set', KEYS[2], ARGV[2])
+end
+-- 登记到索引
+redis.call('sadd', KEYS[3], ARGV[4])
+if expire_time > 0 then
+   redis.call('expire', KEYS[3], expire_time)
+end
+return 1
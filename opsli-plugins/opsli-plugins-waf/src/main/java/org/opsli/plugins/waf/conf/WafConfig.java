@@ -48,6 +48,7 @@ public class WafConfig {
 		wafFilter.setUrlExclusion(wafProperties.getUrlExclusion());
 		wafFilter.setEnableSqlFilter(wafProperties.isSqlFilter());
 		wafFilter.setEnableXssFilter(wafProperties.isXssFilter());
+		wafFilter.setMaxBodySize(wafProperties.getMaxBodySize());
 
 		FilterRegistrationBean<WafFilter> registration = new FilterRegistrationBean<>();
 		registration.setDispatcherTypes(DispatcherType.REQUEST);
@@ -34,6 +34,7 @@ public class WafFilter implements Filter {
 
 	private boolean enableXssFilter = false;
 	private boolean enableSqlFilter = false;
+	private long maxBodySize = 0;
 
 	private Set<String> urlExclusion;
 
@@ -55,7 +56,8 @@ public class WafFilter implements Filter {
 		} else {
 			// 执行过滤
 			chain.doFilter(
-					new WafHttpServletRequestWrapper((HttpServletRequest) request, enableXssFilter, enableSqlFilter),
+					new WafHttpServletRequestWrapper((HttpServletRequest) request, enableXssFilter, enableSqlFilter,
+							maxBodySize),
 					response);
 		}
 	}
@@ -78,4 +80,8 @@ public class WafFilter implements Filter {
 	public void setUrlExclusion(Set<String> urlExclusion) {
 		this.urlExclusion = urlExclusion;
 	}
+
+	public void setMaxBodySize(long maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
 }
@@ -30,6 +30,7 @@ public enum WafMsg implements BaseMsg {
      */
     WAF_EXCEPTION_XSS(10500, "包含非法字符！"),
     WAF_EXCEPTION_SQL(10501, "包含非法字符！"),
+    WAF_EXCEPTION_BODY_SIZE(10502, "请求内容过大！"),
 
     ;
 
@@ -42,4 +42,7 @@ public class WafProperties {
     /** 过滤器的优先级，值越小优先级越高 */
     private int order;
 
+    /** 需要过滤的请求体大小上限 (字节) 小于等于 0 为不限制 */
+    private long maxBodySize = 10 * 1024 * 1024;
+
 }
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.plugins.waf.scanner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick 多模式匹配自动机
+ *
+ * 构建时补全所有失配跳转，得到 ASCII 字母表上的确定自动机 (DFA)
+ * 扫描时每个字符只做一次查表，与模式数量无关
+ *
+ * 模式只支持 ASCII 字符，调用方负责大小写归一；非 ASCII 字符回到初始状态
+ *
+ * @author Parker
+ * @date 2021-06-08 10:30
+ */
+public final class AhoCorasick {
+
+	/** 字母表大小 */
+	private static final int ALPHABET = 128;
+	/** 初始状态 */
+	public static final int ROOT = 0;
+
+	/** 状态转移表 */
+	private final int[][] transitions;
+	/** 各状态命中的标记 (含失配链上的全部模式) */
+	private final int[] outputs;
+
+	/**
+	 * 构建自动机
+	 * @param patterns 模式 - 命中标记 (按位或合并)
+	 */
+	public AhoCorasick(Map<String, Integer> patterns) {
+		List<int[]> trie = new ArrayList<>();
+		List<Integer> out = new ArrayList<>();
+		trie.add(newState());
+		out.add(0);
+
+		// 1. 构建前缀树
+		for (Map.Entry<String, Integer> entry : patterns.entrySet()) {
+			String pattern = entry.getKey();
+			int state = ROOT;
+			for (int i = 0; i < pattern.length(); i++) {
+				char c = pattern.charAt(i);
+				if(c >= ALPHABET){
+					throw new IllegalArgumentException("pattern must be ASCII: " + pattern);
+				}
+				if(trie.get(state)[c] < 0){
+					trie.add(newState());
+					out.add(0);
+					trie.get(state)[c] = trie.size() - 1;
+				}
+				state = trie.get(state)[c];
+			}
+			out.set(state, out.get(state) | entry.getValue());
+		}
+
+		// 2. 广度优先 补全失配跳转 合并输出
+		int size = trie.size();
+		int[] fail = new int[size];
+		Deque<Integer> queue = new ArrayDeque<>();
+		int[] root = trie.get(ROOT);
+		for (int c = 0; c < ALPHABET; c++) {
+			if(root[c] < 0){
+				root[c] = ROOT;
+			}else {
+				fail[root[c]] = ROOT;
+				queue.add(root[c]);
+			}
+		}
+		while (!queue.isEmpty()){
+			int state = queue.poll();
+			int[] row = trie.get(state);
+			out.set(state, out.get(state) | out.get(fail[state]));
+			for (int c = 0; c < ALPHABET; c++) {
+				int next = row[c];
+				int failNext = trie.get(fail[state])[c];
+				if(next < 0){
+					row[c] = failNext;
+				}else {
+					fail[next] = failNext;
+					queue.add(next);
+				}
+			}
+		}
+
+		this.transitions = trie.toArray(new int[0][]);
+		this.outputs = new int[size];
+		for (int i = 0; i < size; i++) {
+			outputs[i] = out.get(i);
+		}
+	}
+
+	/**
+	 * 状态转移
+	 * @param state 当前状态
+	 * @param c 字符 (已归一)
+	 * @return 下一状态
+	 */
+	public int next(int state, char c) {
+		if(c >= ALPHABET){
+			return ROOT;
+		}
+		return transitions[state][c];
+	}
+
+	/**
+	 * 当前状态命中的标记
+	 * @param state 状态
+	 * @return 标记 0 为未命中
+	 */
+	public int output(int state) {
+		return outputs[state];
+	}
+
+	/**
+	 * 状态数
+	 * @return int
+	 */
+	public int size() {
+		return transitions.length;
+	}
+
+	private static int[] newState() {
+		int[] row = new int[ALPHABET];
+		Arrays.fill(row, -1);
+		return row;
+	}
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.plugins.waf.scanner;
+
+import org.opsli.plugins.waf.util.SQLFilterKit;
+import org.opsli.plugins.waf.util.XSSFilterKit;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 防火墙 单次扫描引擎
+ *
+ * XSS / SQL 特征编译为两个 Aho-Corasick 自动机，对输入只遍历一次：
+ * 1. 原文流：XSS 特征 (对应 XSSFilterKit 中各正则的固定前缀)
+ * 2. SQL 流：去掉 ' ; \ 并转小写后的字符流 (与 SQLFilterKit.stripSQL 一致)，
+ *    匹配 SQL 关键字 以及 SQL 处理后仍需 XSS 处理的特征
+ *
+ * 绝大多数输入不命中任何特征，直接原样返回；
+ * 命中时才交给 XSSFilterKit / SQLFilterKit 处理，因此过滤结果与原有过滤完全一致
+ *
+ * @author Parker
+ * @date 2021-06-08 10:30
+ */
+public final class WafScanner {
+
+	/** 原文命中 XSS 特征 */
+	public static final int XSS = 1;
+	/** SQL 流命中 SQL 关键字 */
+	public static final int SQL_KEYWORD = 1 << 1;
+	/** SQL 流命中 XSS 特征 */
+	public static final int SQL_XSS = 1 << 2;
+	/** SQL 处理会改变内容 (含 ' ; \ 或大写字符) */
+	public static final int SQL_REWRITE = 1 << 3;
+
+	/**
+	 * XSS 特征 (XSSFilterKit 各正则必须包含的固定文本)
+	 */
+	private static final String[] XSS_SIGNATURES = {
+			"<script", "</script>", "eval(", "expression(", "javascript:", "vbscript:", "onload"
+	};
+
+	/**
+	 * SQL 关键字 (与 SQLFilterKit.stripSQL 一致)
+	 */
+	private static final String[] SQL_KEYWORDS = {
+			"master", "truncate", "insert", "select", "delete", "update", "declare", "alter", "drop"
+	};
+
+	/** 原文流 自动机 */
+	private static final AhoCorasick RAW_AUTOMATON;
+	/** SQL 流 自动机 */
+	private static final AhoCorasick SQL_AUTOMATON;
+
+	static {
+		Map<String, Integer> rawPatterns = new LinkedHashMap<>();
+		Map<String, Integer> sqlPatterns = new LinkedHashMap<>();
+		for (String signature : XSS_SIGNATURES) {
+			rawPatterns.merge(signature, XSS, (a, b) -> a | b);
+			sqlPatterns.merge(signature, SQL_XSS, (a, b) -> a | b);
+		}
+		for (String keyword : SQL_KEYWORDS) {
+			sqlPatterns.merge(keyword, SQL_KEYWORD, (a, b) -> a | b);
+		}
+		RAW_AUTOMATON = new AhoCorasick(rawPatterns);
+		SQL_AUTOMATON = new AhoCorasick(sqlPatterns);
+	}
+
+	/**
+	 * 扫描 (单次遍历)
+	 * @param value 内容
+	 * @return 命中标记
+	 */
+	public static int scan(String value) {
+		if(value == null){
+			return 0;
+		}
+		int flags = 0;
+		int rawState = AhoCorasick.ROOT;
+		int sqlState = AhoCorasick.ROOT;
+		for (int i = 0, len = value.length(); i < len; i++) {
+			char c = value.charAt(i);
+
+			// 原文流 (正则为 ASCII 大小写不敏感)
+			rawState = RAW_AUTOMATON.next(rawState, asciiLower(c));
+			flags |= RAW_AUTOMATON.output(rawState);
+
+			// SQL 流 去掉 ' ; \ 后转小写
+			if(c == '\'' || c == ';' || c == '\\'){
+				flags |= SQL_REWRITE;
+				continue;
+			}
+			char lower = Character.toLowerCase(c);
+			if(lower != c || Character.isSurrogate(c)){
+				flags |= SQL_REWRITE;
+			}
+			sqlState = SQL_AUTOMATON.next(sqlState, lower);
+			flags |= SQL_AUTOMATON.output(sqlState);
+		}
+		return flags;
+	}
+
+	/**
+	 * 过滤 (结果与 XSSFilterKit / SQLFilterKit 组合过滤一致)
+	 * @param rawValue 内容
+	 * @param enableXssFilter XSS 过滤
+	 * @param enableSqlFilter SQL 过滤
+	 * @return 过滤后内容
+	 */
+	public static String filter(String rawValue, boolean enableXssFilter, boolean enableSqlFilter) {
+		if (StringUtils.isEmpty(rawValue) || (!enableXssFilter && !enableSqlFilter)) {
+			return rawValue;
+		}
+
+		int flags = scan(rawValue);
+
+		String tmpStr = rawValue;
+		if (enableXssFilter && (flags & XSS) != 0) {
+			tmpStr = XSSFilterKit.stripXSS(rawValue);
+			if(enableSqlFilter){
+				// XSS 处理已改变内容 按原有顺序完整处理
+				return XSSFilterKit.stripXSS(
+						SQLFilterKit.stripSQL(tmpStr));
+			}
+			return tmpStr;
+		}
+
+		// 以下 原文不含 XSS 特征 (或未开启 XSS 过滤) tmpStr 即原文
+		if (enableSqlFilter) {
+			if((flags & SQL_KEYWORD) != 0){
+				// 抛出异常
+				SQLFilterKit.stripSQL(tmpStr);
+			}
+			if((flags & SQL_REWRITE) != 0){
+				tmpStr = SQLFilterKit.stripSQL(tmpStr);
+			}
+			if((flags & SQL_XSS) != 0 || StringUtils.isEmpty(tmpStr)){
+				tmpStr = XSSFilterKit.stripXSS(tmpStr);
+			}
+		}
+		return tmpStr;
+	}
+
+	/**
+	 * ASCII 转小写
+	 * @param c 字符
+	 * @return char
+	 */
+	private static char asciiLower(char c) {
+		return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+	}
+
+	// ====================
+
+	private WafScanner(){}
+}
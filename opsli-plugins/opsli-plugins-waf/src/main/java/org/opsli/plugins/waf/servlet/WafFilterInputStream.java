@@ -0,0 +1,424 @@
+/**
+ * Copyright 2020 OPSLI 快速开发平台 https://www.opsli.com
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opsli.plugins.waf.servlet;
+
+import org.opsli.common.exception.WafException;
+import org.opsli.plugins.waf.msg.WafMsg;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.BitSet;
+import java.util.function.UnaryOperator;
+
+/**
+ * 防火墙 流式过滤输入流
+ *
+ * 请求体按块读取、按块过滤、按块输出，不再整体读入内存：
+ * JSON：只对字符串值过滤 (键名、数字、结构字符原样输出)，未被改变的字符串保留原始写法
+ * 表单：按 & = 分段过滤
+ *
+ * 超出请求体大小上限时 抛出防火墙异常
+ *
+ * @author Parker
+ * @date 2021-06-08 15:10
+ */
+public class WafFilterInputStream extends ServletInputStream {
+
+	/** 读取块大小 (字符) */
+	private static final int CHUNK_SIZE = 8192;
+
+	/**
+	 * 过滤模式
+	 */
+	public enum Mode {
+		/** JSON */
+		JSON,
+		/** 表单 */
+		FORM,
+	}
+
+	/** 过滤模式 */
+	private final Mode mode;
+	/** 过滤函数 */
+	private final UnaryOperator<String> filter;
+	/** 字符输入 */
+	private final Reader reader;
+	/** 字符输出 (编码到 out) */
+	private final Writer writer;
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream(CHUNK_SIZE);
+	private final char[] chunk = new char[CHUNK_SIZE];
+
+	/** 当前可读字节 */
+	private byte[] buffer = new byte[0];
+	private int position;
+	/** 输入是否已读完 */
+	private boolean eof;
+
+	// ========== 解析状态
+
+	/** 当前字符串 / 分段 原文 */
+	private final StringBuilder token = new StringBuilder();
+	/** 是否处于字符串中 */
+	private boolean inString;
+	/** 上一字符为转义符 */
+	private boolean escaped;
+	/** 当前字符串是否为键名 */
+	private boolean isKey;
+	/** 嵌套深度 */
+	private int depth;
+	/** 各层是否为对象 */
+	private final BitSet objectLevels = new BitSet();
+	/** 各层 (对象) 是否等待键名 */
+	private final BitSet expectKeyLevels = new BitSet();
+
+	/**
+	 * 构造函数
+	 * @param source 原始输入流
+	 * @param charset 编码
+	 * @param mode 过滤模式
+	 * @param maxBodySize 请求体大小上限 (字节) 小于等于 0 为不限制
+	 * @param filter 过滤函数
+	 */
+	public WafFilterInputStream(InputStream source, Charset charset, Mode mode,
+								long maxBodySize, UnaryOperator<String> filter) {
+		this.mode = mode;
+		this.filter = filter;
+		InputStream limited = maxBodySize > 0 ? new LimitedInputStream(source, maxBodySize) : source;
+		this.reader = new InputStreamReader(limited, charset);
+		this.writer = new OutputStreamWriter(out, charset);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if(!this.fill()){
+			return -1;
+		}
+		return buffer[position++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len == 0){
+			return 0;
+		}
+		if(!this.fill()){
+			return -1;
+		}
+		int count = Math.min(len, buffer.length - position);
+		System.arraycopy(buffer, position, b, off, count);
+		position += count;
+		return count;
+	}
+
+	@Override
+	public int available() {
+		return buffer.length - position;
+	}
+
+	@Override
+	public boolean isFinished() {
+		return eof && position >= buffer.length;
+	}
+
+	@Override
+	public boolean isReady() {
+		return true;
+	}
+
+	@Override
+	public void setReadListener(ReadListener readListener) {
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	// ==================
+
+	/**
+	 * 填充可读字节
+	 * @return boolean 是否还有数据
+	 */
+	private boolean fill() throws IOException {
+		while (position >= buffer.length){
+			if(eof){
+				return false;
+			}
+			int n = reader.read(chunk, 0, chunk.length);
+			if(n < 0){
+				eof = true;
+				this.finishToken();
+			}else {
+				for (int i = 0; i < n; i++) {
+					if(mode == Mode.JSON){
+						this.acceptJson(chunk[i]);
+					}else {
+						this.acceptForm(chunk[i]);
+					}
+				}
+			}
+			if(eof){
+				writer.close();
+			}else {
+				writer.flush();
+			}
+			buffer = out.toByteArray();
+			position = 0;
+			out.reset();
+		}
+		return true;
+	}
+
+	/**
+	 * JSON 字符处理
+	 * @param c 字符
+	 */
+	private void acceptJson(char c) throws IOException {
+		if(inString){
+			if(escaped){
+				escaped = false;
+			}else if(c == '\\'){
+				escaped = true;
+			}else if(c == '"'){
+				inString = false;
+				this.writeLiteral();
+				return;
+			}
+			token.append(c);
+			return;
+		}
+
+		switch (c){
+			case '"':
+				inString = true;
+				isKey = objectLevels.get(depth) && expectKeyLevels.get(depth);
+				token.setLength(0);
+				return;
+			case '{':
+				depth++;
+				objectLevels.set(depth);
+				expectKeyLevels.set(depth);
+				break;
+			case '[':
+				depth++;
+				objectLevels.clear(depth);
+				break;
+			case '}':
+			case ']':
+				if(depth > 0){
+					depth--;
+				}
+				break;
+			case ':':
+				expectKeyLevels.clear(depth);
+				break;
+			case ',':
+				if(objectLevels.get(depth)){
+					expectKeyLevels.set(depth);
+				}
+				break;
+			default:
+				break;
+		}
+		writer.write(c);
+	}
+
+	/**
+	 * 表单 字符处理
+	 * @param c 字符
+	 */
+	private void acceptForm(char c) throws IOException {
+		if(c == '&' || c == '='){
+			this.writeSegment();
+			writer.write(c);
+			return;
+		}
+		token.append(c);
+	}
+
+	/**
+	 * 输入结束 输出剩余内容
+	 */
+	private void finishToken() throws IOException {
+		if(mode == Mode.FORM){
+			this.writeSegment();
+		}else if(inString){
+			// 未闭合的字符串 原样输出
+			writer.write('"');
+			writer.append(token);
+		}
+		token.setLength(0);
+	}
+
+	/**
+	 * 输出 JSON 字符串
+	 */
+	private void writeLiteral() throws IOException {
+		writer.write('"');
+		if(isKey || token.length() == 0){
+			writer.append(token);
+		}else {
+			String raw = token.toString();
+			String value = unescape(raw);
+			String filtered = filter.apply(value);
+			if(value.equals(filtered)){
+				// 未改变 保留原始写法
+				writer.write(raw);
+			}else {
+				escape(filtered, writer);
+			}
+		}
+		writer.write('"');
+		token.setLength(0);
+	}
+
+	/**
+	 * 输出 表单分段
+	 */
+	private void writeSegment() throws IOException {
+		if(token.length() > 0){
+			String filtered = filter.apply(token.toString());
+			if(filtered != null){
+				writer.write(filtered);
+			}
+			token.setLength(0);
+		}
+	}
+
+	/**
+	 * JSON 字符串反转义
+	 * @param raw 原文
+	 * @return String
+	 */
+	private static String unescape(String raw) {
+		if(raw.indexOf('\\') < 0){
+			return raw;
+		}
+		StringBuilder sb = new StringBuilder(raw.length());
+		for (int i = 0, len = raw.length(); i < len; i++) {
+			char c = raw.charAt(i);
+			if(c != '\\' || i + 1 >= len){
+				sb.append(c);
+				continue;
+			}
+			char next = raw.charAt(++i);
+			switch (next){
+				case 'b': sb.append('\b'); break;
+				case 'f': sb.append('\f'); break;
+				case 'n': sb.append('\n'); break;
+				case 'r': sb.append('\r'); break;
+				case 't': sb.append('\t'); break;
+				case 'u':
+					if(i + 4 < len){
+						try {
+							sb.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+							i += 4;
+							break;
+						}catch (NumberFormatException ignored){}
+					}
+					sb.append('\\').append(next);
+					break;
+				default:
+					// \" \\ \/ 及非法转义 取后一字符
+					sb.append(next);
+					break;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * JSON 字符串转义
+	 * @param value 内容
+	 * @param writer 输出
+	 */
+	private static void escape(String value, Writer writer) throws IOException {
+		if(value == null){
+			return;
+		}
+		for (int i = 0, len = value.length(); i < len; i++) {
+			char c = value.charAt(i);
+			switch (c){
+				case '"': writer.write("\\\""); break;
+				case '\\': writer.write("\\\\"); break;
+				case '\b': writer.write("\\b"); break;
+				case '\f': writer.write("\\f"); break;
+				case '\n': writer.write("\\n"); break;
+				case '\r': writer.write("\\r"); break;
+				case '\t': writer.write("\\t"); break;
+				default:
+					if(c < 0x20){
+						writer.write(String.format("\\u%04x", (int) c));
+					}else {
+						writer.write(c);
+					}
+					break;
+			}
+		}
+	}
+
+	// ==================
+
+	/**
+	 * 限制读取大小的输入流
+	 */
+	private static class LimitedInputStream extends FilterInputStream {
+
+		private final long maxSize;
+		private long count;
+
+		private LimitedInputStream(InputStream in, long maxSize) {
+			super(in);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if(b >= 0){
+				this.count(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if(n > 0){
+				this.count(n);
+			}
+			return n;
+		}
+
+		private void count(long n) {
+			count += n;
+			if(count > maxSize){
+				// 请求内容过大
+				throw new WafException(WafMsg.WAF_EXCEPTION_BODY_SIZE);
+			}
+		}
+	}
+}
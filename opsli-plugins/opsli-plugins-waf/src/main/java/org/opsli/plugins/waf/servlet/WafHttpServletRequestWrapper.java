@@ -15,23 +15,22 @@
  */
 package org.opsli.plugins.waf.servlet;
 
-import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
 import org.opsli.common.constants.TokenConstants;
-import org.opsli.plugins.waf.util.SQLFilterKit;
-import org.opsli.plugins.waf.util.XSSFilterKit;
-import org.springframework.util.StreamUtils;
+import org.opsli.common.exception.WafException;
+import org.opsli.plugins.waf.msg.WafMsg;
+import org.opsli.plugins.waf.scanner.WafScanner;
 import org.springframework.util.StringUtils;
 
-import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -43,15 +42,11 @@ import java.util.Map;
 @Slf4j
 public class WafHttpServletRequestWrapper extends HttpServletRequestWrapper {
 
-	/** 头消息类型 */
-	private static final String CONTENT_TYPE = "Content-Type";
-	private static final List<String> CONTENT_TYPE_LIST = Lists.newArrayList();
-
-	static {
-		CONTENT_TYPE_LIST.add("application/json");
-		CONTENT_TYPE_LIST.add("application/json;charset=UTF-8");
-		CONTENT_TYPE_LIST.add("application/x-www-form-urlencoded;charset=UTF-8");
-	}
+	/** JSON 类型 */
+	private static final String CONTENT_TYPE_JSON = "application/json";
+	private static final String CONTENT_TYPE_JSON_SUFFIX = "+json";
+	/** 表单 类型 */
+	private static final String CONTENT_TYPE_FORM = "application/x-www-form-urlencoded";
 
 	/**
 	 * 没被包装过的HttpServletRequest（特殊场景，需要自己过滤）
@@ -63,60 +58,49 @@ public class WafHttpServletRequestWrapper extends HttpServletRequestWrapper {
 	private final boolean enableXssFilter;
 	/** SQL 攻击防护 */
 	private final boolean enableSqlFilter;
+	/** 请求体大小上限 (字节) */
+	private final long maxBodySize;
+	/** 过滤结果缓存 (请求内有效) 原文 - 过滤后内容 */
+	private final Map<String, String> filterCache = new HashMap<>();
+	/** 过滤后的参数 (请求内有效) */
+	private Map<String, String[]> filteredParameterMap;
 
 	public WafHttpServletRequestWrapper(HttpServletRequest request, boolean enableXssFilter, boolean enableSqlFilter) {
+		this(request, enableXssFilter, enableSqlFilter, 0);
+	}
+
+	public WafHttpServletRequestWrapper(HttpServletRequest request, boolean enableXssFilter, boolean enableSqlFilter,
+										long maxBodySize) {
 		super(request);
 		orgRequest = request;
 		this.enableXssFilter = enableXssFilter;
 		this.enableSqlFilter = enableSqlFilter;
+		this.maxBodySize = maxBodySize;
 	}
 
 	/**
-	 * 过滤json数据
+	 * 过滤请求体 (流式 只过滤 JSON 字符串值 / 表单分段)
 	 * @return
 	 * @throws IOException
 	 */
 	@Override
 	public ServletInputStream getInputStream() throws IOException {
-
-		//非json类型，直接返回
-		if (!CONTENT_TYPE_LIST.contains(super.getHeader(CONTENT_TYPE))) {
+		WafFilterInputStream.Mode mode = getFilterMode(super.getContentType());
+		// 无需过滤的类型，直接返回
+		if (mode == null || (!this.enableXssFilter && !this.enableSqlFilter)) {
 			return super.getInputStream();
 		}
 
-		// 为空，直接返回
-		String json = StreamUtils.copyToString(super.getInputStream(), StandardCharsets.UTF_8);
-		if (StringUtils.isEmpty(json)) {
-			return super.getInputStream();
+		// 请求内容过大
+		if (maxBodySize > 0 && super.getContentLengthLong() > maxBodySize) {
+			throw new WafException(WafMsg.WAF_EXCEPTION_BODY_SIZE);
 		}
 
-		// 防火墙过滤
-		json = filterParamString(json);
-		ByteArrayInputStream bis = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
-
-		return new ServletInputStream() {
-			@Override
-			public boolean isFinished() {
-				return true;
-			}
-
-			@Override
-			public boolean isReady() {
-				return true;
-			}
-
-			@Override
-			public void setReadListener(ReadListener readListener) {
-			}
-
-			@Override
-			public int read() {
-				return bis.read();
-			}
-		};
+		// 请求体中的字符串 数量不定 不做缓存
+		return new WafFilterInputStream(super.getInputStream(), getBodyCharset(), mode, maxBodySize,
+				value -> WafScanner.filter(value, this.enableXssFilter, this.enableSqlFilter));
 	}
 
-
 	@Override
 	public String getParameter(String name) {
 		String value = super.getParameter(filterParamString(name));
@@ -133,34 +117,21 @@ public class WafHttpServletRequestWrapper extends HttpServletRequestWrapper {
 		if (parameters == null || parameters.length == 0) {
 			return null;
 		}
-
-		for (int i = 0; i < parameters.length; i++) {
-			if (!TokenConstants.ACCESS_TOKEN.equals(name)) {
-				if(parameters[i] != null){
-					// 防火墙过滤
-					parameters[i] = filterParamString(parameters[i]);
-				}
-			}
-		}
-		return parameters;
+		return filterParamValues(name, parameters);
 	}
 
 	@Override
 	public Map<String, String[]> getParameterMap() {
+		// 同一请求内只过滤一次
+		if (filteredParameterMap != null) {
+			return filteredParameterMap;
+		}
 		Map<String, String[]> map = new LinkedHashMap<>();
 		Map<String, String[]> parameters = super.getParameterMap();
-		for (String key : parameters.keySet()) {
-			String[] values = parameters.get(key);
-			if (!TokenConstants.ACCESS_TOKEN.equals(key)) {
-				for (int i = 0; i < values.length; i++) {
-					if(values[i] != null){
-						// 防火墙过滤
-						values[i] = filterParamString(values[i]);
-					}
-				}
-			}
-			map.put(key, values);
+		for (Map.Entry<String, String[]> entry : parameters.entrySet()) {
+			map.put(entry.getKey(), filterParamValues(entry.getKey(), entry.getValue()));
 		}
+		filteredParameterMap = map;
 		return map;
 	}
 
@@ -175,6 +146,41 @@ public class WafHttpServletRequestWrapper extends HttpServletRequestWrapper {
 	}
 
 
+	/**
+	 * 请求体过滤模式
+	 * @param contentType 内容类型
+	 * @return 为空则无需过滤
+	 */
+	private static WafFilterInputStream.Mode getFilterMode(String contentType) {
+		if (StringUtils.isEmpty(contentType)) {
+			return null;
+		}
+		int index = contentType.indexOf(';');
+		String mediaType = (index < 0 ? contentType : contentType.substring(0, index))
+				.trim().toLowerCase(Locale.ROOT);
+		if (CONTENT_TYPE_JSON.equals(mediaType) || mediaType.endsWith(CONTENT_TYPE_JSON_SUFFIX)) {
+			return WafFilterInputStream.Mode.JSON;
+		}
+		if (CONTENT_TYPE_FORM.equals(mediaType)) {
+			return WafFilterInputStream.Mode.FORM;
+		}
+		return null;
+	}
+
+	/**
+	 * 请求体编码 默认 UTF-8
+	 * @return Charset
+	 */
+	private Charset getBodyCharset() {
+		String encoding = super.getCharacterEncoding();
+		try {
+			if (!StringUtils.isEmpty(encoding)) {
+				return Charset.forName(encoding);
+			}
+		} catch (Exception ignored) {}
+		return StandardCharsets.UTF_8;
+	}
+
 	/**
 	 * 获取最原始的request
 	 */
@@ -193,7 +199,25 @@ public class WafHttpServletRequestWrapper extends HttpServletRequestWrapper {
 	}
 
 	/**
-	 * @Description 过滤字符串内容
+	 * 过滤参数值 (不修改原数组)
+	 * @param name 参数名
+	 * @param values 参数值
+	 * @return String[]
+	 */
+	private String[] filterParamValues(String name, String[] values) {
+		if (values == null || TokenConstants.ACCESS_TOKEN.equals(name)) {
+			return values;
+		}
+		String[] filtered = new String[values.length];
+		for (int i = 0; i < values.length; i++) {
+			// 防火墙过滤
+			filtered[i] = values[i] != null ? filterParamString(values[i]) : null;
+		}
+		return filtered;
+	}
+
+	/**
+	 * @Description 过滤字符串内容 (同一请求内相同内容只扫描一次)
 	 * @param rawValue
 	 * @return
 	 */
@@ -201,14 +225,11 @@ public class WafHttpServletRequestWrapper extends HttpServletRequestWrapper {
 		if (StringUtils.isEmpty(rawValue)) {
 			return rawValue;
 		}
-		String tmpStr = rawValue;
-		if (this.enableXssFilter) {
-			tmpStr = XSSFilterKit.stripXSS(rawValue);
-		}
-		if (this.enableSqlFilter) {
-			tmpStr = XSSFilterKit.stripXSS(
-					SQLFilterKit.stripSQL(tmpStr));
+		if (filterCache.containsKey(rawValue)) {
+			return filterCache.get(rawValue);
 		}
+		String tmpStr = WafScanner.filter(rawValue, this.enableXssFilter, this.enableSqlFilter);
+		filterCache.put(rawValue, tmpStr);
 		return tmpStr;
 	}
 }
@@ -0,0 +1,170 @@
+package org.opsli.plugins.waf.scanner;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opsli.plugins.waf.util.SQLFilterKit;
+import org.opsli.plugins.waf.util.XSSFilterKit;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 防火墙 单次扫描引擎测试
+ *
+ * 以原有过滤 (XSSFilterKit / SQLFilterKit 逐个处理) 为准，校验 各开关组合下 过滤结果与异常完全一致
+ *
+ * @author Parker
+ * @date 2021-06-09 20:40
+ */
+public class WafScannerTest {
+
+	/** 随机语料 片段 (含各特征的拆分、大小写、SQL 处理会删除的字符、非 ASCII 字符) */
+	private static final String[] FRAGMENTS = {
+			"a", "Z", "1", " ", "=", ")", "(", "'", ";", "\\", "\"", "|",
+			"<script>", "</script>", "<ScRiPt src=x>", "</SCRIPT>", "<scr", "ipt>",
+			"eval(", "EVAL(", "expression(", "javascript:", "JavaScript:", "vbscript:", "onload", "onLoad=",
+			"sel", "ect", "SELECT", "sel'ect", "in;sert", "up\\date", "drop", "DROP", "master", "alter",
+			"中文", "İ", "K", "ß", "\u0000", "\n"
+	};
+	/** 随机语料 条数 */
+	private static final int FUZZ_COUNT = 20_000;
+	/** 对比测试 参数条数 */
+	private static final int BENCH_COUNT = 10_000;
+	/** 对比测试 轮数 (首轮预热) */
+	private static final int ROUNDS = 3;
+
+	/**
+	 * 固定语料
+	 */
+	@Test
+	public void corpusParity() {
+		List<String> corpus = Arrays.asList(
+				null, "", " ", "admin", "张三", "13800000000", "2021-06-09 10:00:00",
+				"<script>alert(1)</script>", "<SCRIPT src=//x.js></SCRIPT>", "<img src=x onload=alert(1)>",
+				"javascript:alert(1)", "vbscript:msgbox", "eval(document.cookie)", "width:expression(alert(1))",
+				"1' or '1'='1", "1; drop table sys_user", "SELECT * FROM sys_user", "sel'ect", "de;lete",
+				"It's", "a\\b", "UPPER", "Select", "İnsert", "Key", "<scr'ipt>", "java;script:",
+				"onload", "<script>select</script>", "{\"name\":\"test\"}"
+		);
+		for (String value : corpus) {
+			this.assertParity(value);
+		}
+	}
+
+	/**
+	 * 随机语料
+	 */
+	@Test
+	public void fuzzParity() {
+		Random random = new Random(20210609L);
+		for (int i = 0; i < FUZZ_COUNT; i++) {
+			int parts = 1 + random.nextInt(6);
+			StringBuilder sb = new StringBuilder();
+			for (int j = 0; j < parts; j++) {
+				sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+			}
+			this.assertParity(sb.toString());
+		}
+	}
+
+	/**
+	 * 常规参数 (不命中任何特征) 过滤耗时 对比原有过滤
+	 */
+	@Test
+	public void filterCost() {
+		Random random = new Random(1L);
+		List<String> params = new ArrayList<>(BENCH_COUNT);
+		for (int i = 0; i < BENCH_COUNT; i++) {
+			switch (i % 4) {
+				case 0:
+					params.add("user" + random.nextInt(100000));
+					break;
+				case 1:
+					params.add(String.valueOf(13800000000L + random.nextInt(100000)));
+					break;
+				case 2:
+					params.add("2021-06-" + (10 + random.nextInt(20)) + " 10:00:00");
+					break;
+				default:
+					params.add("备注信息 remark " + random.nextInt(100000));
+					break;
+			}
+		}
+
+		long scannerCost = 0;
+		long legacyCost = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long begin = System.nanoTime();
+			for (String param : params) {
+				WafScanner.filter(param, true, true);
+			}
+			scannerCost = System.nanoTime() - begin;
+
+			begin = System.nanoTime();
+			for (String param : params) {
+				legacy(param, true, true);
+			}
+			legacyCost = System.nanoTime() - begin;
+		}
+
+		System.out.println("参数条数: " + BENCH_COUNT);
+		System.out.println("单次扫描 耗时: " + TimeUnit.NANOSECONDS.toMicros(scannerCost) + "us");
+		System.out.println("原有过滤 耗时: " + TimeUnit.NANOSECONDS.toMicros(legacyCost) + "us");
+	}
+
+	/**
+	 * 各开关组合下 与原有过滤一致
+	 * @param value 内容
+	 */
+	private void assertParity(String value) {
+		boolean[] switches = {true, false};
+		for (boolean xss : switches) {
+			for (boolean sql : switches) {
+				String expected = outcome(() -> legacy(value, xss, sql));
+				String actual = outcome(() -> WafScanner.filter(value, xss, sql));
+				Assert.assertEquals("xss=" + xss + " sql=" + sql + " value=" + value, expected, actual);
+			}
+		}
+	}
+
+	/**
+	 * 原有过滤
+	 * @param rawValue 内容
+	 * @param enableXssFilter XSS 过滤
+	 * @param enableSqlFilter SQL 过滤
+	 * @return 过滤后内容
+	 */
+	private static String legacy(String rawValue, boolean enableXssFilter, boolean enableSqlFilter) {
+		if (StringUtils.isEmpty(rawValue)) {
+			return rawValue;
+		}
+		String tmpStr = rawValue;
+		if (enableXssFilter) {
+			tmpStr = XSSFilterKit.stripXSS(rawValue);
+		}
+		if (enableSqlFilter) {
+			tmpStr = XSSFilterKit.stripXSS(
+					SQLFilterKit.stripSQL(tmpStr));
+		}
+		return tmpStr;
+	}
+
+	/**
+	 * 执行结果 (返回值 或 异常类型)
+	 * @param supplier 过滤
+	 * @return String
+	 */
+	private static String outcome(Supplier<String> supplier) {
+		try {
+			return "OK:" + supplier.get();
+		}catch (RuntimeException e){
+			return "EX:" + e.getClass().getName();
+		}
+	}
+
+}
@@ -0,0 +1,318 @@
+package org.opsli.plugins.waf.servlet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opsli.common.exception.WafException;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 防火墙 流式过滤输入流测试
+ *
+ * 以逐字符移动 8K 读取块边界的方式，校验 字符串 / 转义 / unicode 转义序列 / 表单分段 跨块时过滤结果不变；
+ * 以及 键名与值的区分、未闭合字符串、请求体大小上限、干净请求体逐字节原样输出
+ *
+ * @author Parker
+ * @date 2021-06-10 19:40
+ */
+public class WafFilterInputStreamTest {
+
+	/** 读取块大小 (与 WafFilterInputStream 一致) */
+	private static final int CHUNK_SIZE = 8192;
+	/** 块边界 移动范围 */
+	private static final int SHIFT_COUNT = 64;
+	/** 原始输入 每次最多返回的字节数 (0 为不限制) */
+	private static final int[] STEPS = {0, 1, 7, 4093};
+
+	/** 待过滤内容 */
+	private static final String BAD = "bad";
+	/** 过滤后内容 */
+	private static final String GOOD = "good";
+
+	/**
+	 * 字符串、转义、unicode 转义序列 跨越读取块边界
+	 */
+	@Test
+	public void jsonAcrossChunkBoundary() throws IOException {
+		// {"pad":"xxx","k":"a\"b\\c\u0041bad\n","raw":"q\u0041\\z\/","n":12}
+		String tail = "\",\"k\":\"a\\\"b\\\\c\\u0041bad\\n\",\"raw\":\"q\\u0041\\\\z\\/\",\"n\":12}";
+		// 值已改变 按最简写法重新转义；值未改变 保留原始写法
+		String expectedTail = "\",\"k\":\"a\\\"b\\\\cAgood\\n\",\"raw\":\"q\\u0041\\\\z\\/\",\"n\":12}";
+		String head = "{\"pad\":\"";
+
+		for (int shift = 0; shift < SHIFT_COUNT; shift++) {
+			String pad = repeat('x', CHUNK_SIZE - head.length() - SHIFT_COUNT / 2 + shift);
+			for (int step : STEPS) {
+				List<String> values = new ArrayList<>();
+				String actual = filter(head + pad + tail, WafFilterInputStream.Mode.JSON, step, values);
+				String message = "shift=" + shift + " step=" + step;
+				Assert.assertEquals(message, head + pad + expectedTail, actual);
+				Assert.assertEquals(message, Arrays.asList(pad, "a\"b\\cAbad\n", "qA\\z/"), values);
+			}
+		}
+	}
+
+	/**
+	 * 多字节字符 (中文、代理对) 跨越读取块边界 原样输出
+	 */
+	@Test
+	public void multiByteAcrossChunkBoundary() throws IOException {
+		String tail = "中文\uD83D\uDE00\",\"k\":\"\uD83D\uDE00bad中\"}";
+		String expectedTail = "中文\uD83D\uDE00\",\"k\":\"\uD83D\uDE00good中\"}";
+		String head = "{\"pad\":\"";
+
+		for (int shift = 0; shift < SHIFT_COUNT; shift++) {
+			String pad = repeat('x', CHUNK_SIZE - head.length() - SHIFT_COUNT / 2 + shift);
+			for (int step : STEPS) {
+				String actual = filter(head + pad + tail, WafFilterInputStream.Mode.JSON, step, new ArrayList<>());
+				Assert.assertEquals("shift=" + shift + " step=" + step, head + pad + expectedTail, actual);
+			}
+		}
+	}
+
+	/**
+	 * 嵌套对象 / 数组中 只过滤值，键名、数字、布尔、null 原样输出
+	 */
+	@Test
+	public void keysAndValues() throws IOException {
+		String body = "{\"bad\":\"bad\",\"arr\":[\"bad\",{\"bad\":[\"bad\",\"x\"],\"n\":1},1.5,true,null,[]],"
+				+ "\"o\":{\"n\":{\"bad\":\"bad\"},\"e\":\"\"},\"after\":\"bad\"}";
+		String expected = "{\"bad\":\"good\",\"arr\":[\"good\",{\"bad\":[\"good\",\"x\"],\"n\":1},1.5,true,null,[]],"
+				+ "\"o\":{\"n\":{\"bad\":\"good\"},\"e\":\"\"},\"after\":\"good\"}";
+		for (int step : STEPS) {
+			List<String> values = new ArrayList<>();
+			Assert.assertEquals(expected, filter(body, WafFilterInputStream.Mode.JSON, step, values));
+			// 键名 与 空字符串 不经过过滤
+			Assert.assertEquals(Arrays.asList(BAD, BAD, BAD, "x", BAD, BAD), values);
+		}
+
+		// 顶层数组 / 顶层字符串
+		Assert.assertEquals("[\"good\",[\"good\"],{\"bad\":\"good\"}]",
+				filter("[\"bad\",[\"bad\"],{\"bad\":\"bad\"}]", WafFilterInputStream.Mode.JSON, 0, new ArrayList<>()));
+		Assert.assertEquals("\"good\"",
+				filter("\"bad\"", WafFilterInputStream.Mode.JSON, 0, new ArrayList<>()));
+	}
+
+	/**
+	 * 未闭合的字符串 原样输出 不过滤
+	 */
+	@Test
+	public void unterminatedString() throws IOException {
+		String[] bodies = {
+				"{\"a\":\"bad",
+				"{\"a\":\"bad\\",
+				"{\"a\":\"bad\\u00",
+				"{\"bad",
+				"[\"bad\",\"bad"
+		};
+		for (String body : bodies) {
+			List<String> values = new ArrayList<>();
+			String actual = filter(body, WafFilterInputStream.Mode.JSON, 0, values);
+			if(body.startsWith("[")){
+				Assert.assertEquals("[\"good\",\"bad", actual);
+				Assert.assertEquals(Collections.singletonList(BAD), values);
+			}else {
+				Assert.assertEquals(body, actual);
+				Assert.assertTrue(body, values.isEmpty());
+			}
+		}
+	}
+
+	/**
+	 * 表单 按 & = 分段过滤 (含跨越读取块边界的分段)
+	 */
+	@Test
+	public void formSegments() throws IOException {
+		String body = "a=bad&bad=1&c=&&d=x%3Cbad&e";
+		String expected = "a=good&good=1&c=&&d=x%3Cgood&e";
+		for (int step : STEPS) {
+			List<String> values = new ArrayList<>();
+			Assert.assertEquals(expected, filter(body, WafFilterInputStream.Mode.FORM, step, values));
+			Assert.assertEquals(Arrays.asList("a", BAD, BAD, "1", "c", "d", "x%3Cbad", "e"), values);
+		}
+
+		String head = "pad=";
+		String tail = "&k=abadc&bad=z";
+		String expectedTail = "&k=agoodc&good=z";
+		for (int shift = 0; shift < SHIFT_COUNT; shift++) {
+			String pad = repeat('x', CHUNK_SIZE - head.length() - SHIFT_COUNT / 2 + shift);
+			for (int step : STEPS) {
+				String actual = filter(head + pad + tail, WafFilterInputStream.Mode.FORM, step, new ArrayList<>());
+				Assert.assertEquals("shift=" + shift + " step=" + step, head + pad + expectedTail, actual);
+			}
+		}
+	}
+
+	/**
+	 * 请求体大小上限：按实际读取的字节数
+	 */
+	@Test
+	public void maxBodySizeByBytesRead() throws IOException {
+		byte[] body = ("{\"k\":\"" + repeat('x', CHUNK_SIZE * 2) + "\"}").getBytes(StandardCharsets.UTF_8);
+
+		// 恰好等于上限 可以读取
+		try (InputStream in = new WafFilterInputStream(new ByteArrayInputStream(body), StandardCharsets.UTF_8,
+				WafFilterInputStream.Mode.JSON, body.length, value -> value)) {
+			Assert.assertArrayEquals(body, readAll(in, 512));
+		}
+
+		// 超出上限
+		try (InputStream in = new WafFilterInputStream(new ByteArrayInputStream(body), StandardCharsets.UTF_8,
+				WafFilterInputStream.Mode.JSON, body.length - 1, value -> value)) {
+			readAll(in, 512);
+			Assert.fail("超出请求体大小上限 未拦截");
+		}catch (WafException ignored){}
+
+		// 未声明 Content-Length (分块传输) 时 由读取字节数拦截
+		MockHttpServletRequest request = new MockHttpServletRequest() {
+			@Override
+			public long getContentLengthLong() {
+				return -1;
+			}
+		};
+		request.setContentType("application/json;charset=UTF-8");
+		request.setContent(body);
+		WafHttpServletRequestWrapper wrapper = new WafHttpServletRequestWrapper(request, true, true, body.length - 1);
+		try (InputStream in = wrapper.getInputStream()) {
+			readAll(in, 512);
+			Assert.fail("超出请求体大小上限 未拦截");
+		}catch (WafException ignored){}
+	}
+
+	/**
+	 * 请求体大小上限：按 Content-Length 在读取前拦截
+	 */
+	@Test
+	public void maxBodySizeByContentLength() throws IOException {
+		byte[] body = "{\"k\":\"v\"}".getBytes(StandardCharsets.UTF_8);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setContentType("application/json");
+		request.setContent(body);
+
+		try {
+			new WafHttpServletRequestWrapper(request, true, true, body.length - 1).getInputStream();
+			Assert.fail("超出请求体大小上限 未拦截");
+		}catch (WafException ignored){}
+
+		try (InputStream in = new WafHttpServletRequestWrapper(request, true, true, body.length).getInputStream()) {
+			Assert.assertArrayEquals(body, readAll(in, 512));
+		}
+	}
+
+	/**
+	 * 干净请求体 (无需过滤) 逐字节原样输出：保留空白、转义写法、数字格式、多字节字符
+	 */
+	@Test
+	public void cleanBodyPassThrough() throws IOException {
+		StringBuilder sb = new StringBuilder("{\n  \"list\" : [\n");
+		for (int i = 0; i < 2000; i++) {
+			sb.append("    {\"id\": ").append(i).append(", \"name\":\t\"user").append(i)
+					.append("\", \"remark\": \"备注信息 remark \\u4e2d\\/\\\\ \uD83D\uDE00\", \"score\": 1.50E+2,")
+					.append(" \"enable\": true, \"org\": null}");
+			sb.append(i < 1999 ? ",\r\n" : "\n");
+		}
+		sb.append("  ]\n}\n");
+		byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+		Assert.assertTrue(body.length > CHUNK_SIZE * 4);
+
+		for (int step : STEPS) {
+			for (int bufferSize : new int[]{1, 100, 8192}) {
+				InputStream source = step > 0 ? new TrickleInputStream(body, step) : new ByteArrayInputStream(body);
+				try (InputStream in = new WafFilterInputStream(source, StandardCharsets.UTF_8,
+						WafFilterInputStream.Mode.JSON, 0, value -> value.replace(BAD, GOOD))) {
+					Assert.assertArrayEquals("step=" + step + " bufferSize=" + bufferSize, body, readAll(in, bufferSize));
+				}
+			}
+		}
+
+		// 经由防火墙过滤 (XSS + SQL) 的常规参数
+		String params = "{\"username\":\"user123\",\"mobile\":\"13800000000\",\"time\":\"2021-06-10 10:00:00\","
+				+ "\"remark\":\"备注信息 remark \\u4e2d\",\"ids\":[1, 2,3]}";
+		byte[] paramsBody = params.getBytes(StandardCharsets.UTF_8);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setContentType("application/json");
+		request.setContent(paramsBody);
+		try (InputStream in = new WafHttpServletRequestWrapper(request, true, true, 1024).getInputStream()) {
+			Assert.assertArrayEquals(paramsBody, readAll(in, 16));
+		}
+	}
+
+	// ====================================================================
+
+	/**
+	 * 流式过滤
+	 * @param body 请求体
+	 * @param mode 过滤模式
+	 * @param step 原始输入 每次最多返回的字节数 (0 为不限制)
+	 * @param values 经过过滤函数的内容
+	 * @return 过滤后的请求体
+	 */
+	private static String filter(String body, WafFilterInputStream.Mode mode, int step, List<String> values)
+			throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		InputStream source = step > 0 ? new TrickleInputStream(bytes, step) : new ByteArrayInputStream(bytes);
+		try (InputStream in = new WafFilterInputStream(source, StandardCharsets.UTF_8, mode, 0, value -> {
+			values.add(value);
+			return value.replace(BAD, GOOD);
+		})) {
+			return new String(readAll(in, 1000), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * 读取全部
+	 * @param in 输入流
+	 * @param bufferSize 每次读取大小 (1 为逐字节读取)
+	 * @return byte[]
+	 */
+	private static byte[] readAll(InputStream in, int bufferSize) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		if(bufferSize <= 1){
+			int b;
+			while ((b = in.read()) >= 0){
+				out.write(b);
+			}
+			return out.toByteArray();
+		}
+		byte[] buffer = new byte[bufferSize];
+		int n;
+		while ((n = in.read(buffer, 0, buffer.length)) >= 0){
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	private static String repeat(char c, int count) {
+		char[] chars = new char[count];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+
+	/**
+	 * 每次最多返回指定字节数的输入流 (模拟网络分包)
+	 */
+	private static final class TrickleInputStream extends ByteArrayInputStream {
+
+		private final int step;
+
+		private TrickleInputStream(byte[] buf, int step) {
+			super(buf);
+			this.step = step;
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			return super.read(b, off, Math.min(len, step));
+		}
+	}
+
+}